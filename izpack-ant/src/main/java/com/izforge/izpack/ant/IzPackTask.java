@@ -31,6 +31,7 @@ import org.apache.tools.ant.Task;
 import org.apache.tools.ant.types.EnumeratedAttribute;
 import org.apache.tools.ant.types.PropertySet;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.net.URL;
@@ -99,6 +100,21 @@ public class IzPackTask extends Task implements PackagerListener
      */
     private Boolean inheritAll = false;
 
+    /**
+     * The incremental build cache directory. If <tt>null</tt>, the installer is built from scratch.
+     */
+    private File cacheDir;
+
+    /**
+     * The number of threads used to prepare installer jar entries.
+     */
+    private int assemblyThreads = 1;
+
+    /**
+     * The directory to write the build profiling report to. If <tt>null</tt>, no report is written.
+     */
+    private File profileDir;
+
     /**
      * Creates new IZPackTask
      */
@@ -209,7 +225,7 @@ public class IzPackTask extends Task implements PackagerListener
             ClassLoader loader = new URLClassLoader(getUrlsForClassloader());
             Class runableClass = loader.loadClass("com.izforge.izpack.ant.IzpackAntRunnable");
             Constructor constructor = runableClass.getConstructors()[0];
-            Object instance = constructor.newInstance(compression, kind, input, configText, basedir, output, mkdirs, compressionLevel, properties, inheritAll, getProject().getProperties(), izPackDir);
+            Object instance = constructor.newInstance(compression, kind, input, configText, basedir, output, mkdirs, compressionLevel, properties, inheritAll, getProject().getProperties(), izPackDir, cacheDir, assemblyThreads, profileDir);
             final Thread thread = new Thread((Runnable) instance);
             thread.setContextClassLoader(loader);
             thread.start();
@@ -356,6 +372,44 @@ public class IzPackTask extends Task implements PackagerListener
         this.compressionLevel = compressionLevel;
     }
 
+    /**
+     * Sets the incremental build cache directory.
+     * <p/>
+     * When set, only the packs whose inputs have changed since the previous build are regenerated.
+     *
+     * @param cacheDir the cache directory
+     */
+    public void setCacheDir(File cacheDir)
+    {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Sets the number of threads used to read installer resources and pack200 compress jars.
+     * <p/>
+     * Entries are always written in the same order, so the installer doesn't depend on the number of threads.
+     *
+     * @param assemblyThreads the number of threads. If <tt>0</tt>, one thread per available processor is used
+     */
+    public void setAssemblyThreads(int assemblyThreads)
+    {
+        this.assemblyThreads = assemblyThreads;
+    }
+
+    /**
+     * Sets the directory to write the build profiling report to.
+     * <p/>
+     * When set, the time taken by each compilation phase, per pack and compressor statistics, the largest files,
+     * and the time spent merging jars and scanning directories are written to <em>izpack-profile.json</em> and
+     * <em>izpack-profile.html</em>.
+     *
+     * @param profileDir the profile directory
+     */
+    public void setProfileDir(File profileDir)
+    {
+        this.profileDir = profileDir;
+    }
+
     /**
      * Ant will call this for each &lt;property&gt; tag to the IzPack task.
      */
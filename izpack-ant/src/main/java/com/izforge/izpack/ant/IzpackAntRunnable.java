@@ -1,5 +1,6 @@
 package com.izforge.izpack.ant;
 
+import java.io.File;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Properties;
@@ -24,10 +25,14 @@ public class IzpackAntRunnable implements Runnable
 
     public IzpackAntRunnable(String compression, String kind, String input, String configText, String basedir,
                              String output, boolean mkdirs, int compressionLevel, Properties properties,
-                             Boolean inheritAll, Hashtable antProjectProperties, String izPackDir)
+                             Boolean inheritAll, Hashtable antProjectProperties, String izPackDir, File cacheDir,
+                             int assemblyThreads, File profileDir)
     {
         this.compilerData = new CompilerData(compression, kind, input, configText, basedir, output, mkdirs,
                                              compressionLevel);
+        compilerData.setCacheDir(cacheDir);
+        compilerData.setAssemblyThreads(assemblyThreads);
+        compilerData.setProfileDir(profileDir);
         this.input = input;
         this.properties = properties;
         this.inheritAll = inheritAll;
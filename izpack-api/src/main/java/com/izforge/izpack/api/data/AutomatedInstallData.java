@@ -442,6 +442,16 @@ public abstract class AutomatedInstallData
         return panels;
     }
 
+    /**
+     * Sets the panels list.
+     *
+     * @param panels the panels
+     */
+    public void setPanels(List panels)
+    {
+        this.panels = panels;
+    }
+
     public List<Panel> getPanelsOrder()
     {
         return panelsOrder;
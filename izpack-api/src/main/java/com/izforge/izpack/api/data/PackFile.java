@@ -119,6 +119,13 @@ public class PackFile implements Serializable
      */
     private String condition = null;
 
+    /**
+     * Identifies the file's combination of OS constraints and condition within its pack, or <tt>0</tt> if the file
+     * is unconstrained, or the combination is unknown. Files in the same pack with the same id are always
+     * installed or skipped together.
+     */
+    private transient int filterId = 0;
+
     /**
      * Constructs and initializes from a source file.
      *
@@ -186,6 +193,65 @@ public class PackFile implements Serializable
         }
     }
 
+    /**
+     * Constructs a <tt>PackFile</tt> from previously packed meta-data.
+     * <p/>
+     * This is used when reading pack headers at installation time, where the source file is not available.
+     *
+     * @param relativeSourcePath the path relative to the compiletime's basedirectory. May be <tt>null</tt>
+     * @param target             the path to install the file to
+     * @param osList             OS constraints. May be <tt>null</tt>
+     * @param override           what to do when the file already exists
+     * @param overrideRenameTo   the rename target when overriding. May be <tt>null</tt>
+     * @param blockable          determines if the file is blockable
+     * @param additionals        additional attributes. May be <tt>null</tt>
+     * @param length             the length of the file in bytes
+     * @param lastModified       the last-modification time of the file
+     * @param directory          determines if the file is a directory
+     */
+    public PackFile(String relativeSourcePath, String target, List<OsModel> osList, OverrideType override,
+                    String overrideRenameTo, Blockable blockable, Map additionals, long length, long lastModified,
+                    boolean directory)
+    {
+        this.relativePath = relativeSourcePath;
+        this.targetPath = target;
+        this.osConstraints = osList;
+        this.override = override;
+        this.overrideRenameTo = overrideRenameTo;
+        this.blockable = blockable;
+        this.additionals = additionals;
+        this.length = length;
+        this.size = length;
+        this.mtime = lastModified;
+        this.isDirectory = directory;
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param file the file to copy
+     */
+    protected PackFile(PackFile file)
+    {
+        this.sourcePath = file.sourcePath;
+        this.relativePath = file.relativePath;
+        this.targetPath = file.targetPath;
+        this.osConstraints = file.osConstraints;
+        this.length = file.length;
+        this.size = file.size;
+        this.mtime = file.mtime;
+        this.isDirectory = file.isDirectory;
+        this.override = file.override;
+        this.overrideRenameTo = file.overrideRenameTo;
+        this.blockable = file.blockable;
+        this.additionals = file.additionals;
+        this.previousPackId = file.previousPackId;
+        this.offsetInPreviousPack = file.offsetInPreviousPack;
+        this.pack200Jar = file.pack200Jar;
+        this.condition = file.condition;
+        this.filterId = file.filterId;
+    }
+
     /**
      * Constructs and initializes from a source file.
      *
@@ -329,6 +395,27 @@ public class PackFile implements Serializable
         return this.condition != null;
     }
 
+    /**
+     * Returns the identifier of the file's combination of OS constraints and condition within its pack.
+     *
+     * @return the filter identifier, or <tt>0</tt> if the file is unconstrained or the combination is unknown
+     */
+    public int getFilterId()
+    {
+        return filterId;
+    }
+
+    /**
+     * Sets the identifier of the file's combination of OS constraints and condition within its pack.
+     *
+     * @param filterId the filter identifier, or <tt>0</tt> if the file is unconstrained or the combination is
+     *                 unknown
+     */
+    public void setFilterId(int filterId)
+    {
+        this.filterId = filterId;
+    }
+
     public boolean isPack200Jar()
     {
         return pack200Jar;
@@ -58,6 +58,11 @@ public class Panel implements Serializable
      */
     private String condition;
 
+    /**
+     * Determines if the panel is hidden from the step counter and panel icons.
+     */
+    private boolean hidden;
+
     /**
      * The validator for this panel
      */
@@ -142,6 +147,29 @@ public class Panel implements Serializable
         return this.condition != null;
     }
 
+    /**
+     * Determines if the panel is hidden from the step counter and panel icons.
+     * <p/>
+     * This is known before the panel is created, so the installer can number the visible panels without creating
+     * them.
+     *
+     * @return <tt>true</tt> if the panel is hidden
+     */
+    public boolean isHidden()
+    {
+        return hidden;
+    }
+
+    /**
+     * Determines if the panel is hidden from the step counter and panel icons.
+     *
+     * @param hidden if <tt>true</tt>, the panel is hidden
+     */
+    public void setHidden(boolean hidden)
+    {
+        this.hidden = hidden;
+    }
+
     public String getValidator()
     {
         return validator;
@@ -305,6 +333,7 @@ public class Panel implements Serializable
                 ", osConstraints=" + osConstraints +
                 ", panelid='" + panelid + '\'' +
                 ", condition='" + condition + '\'' +
+                ", hidden=" + hidden +
                 ", actions=" + actions +
                 ", validator='" + validator + '\'' +
                 ", helps=" + helps +
@@ -26,15 +26,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.net.URL;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
-import java.util.logging.Logger;
-
-import javax.swing.ImageIcon;
 
 import com.izforge.izpack.api.exception.IzPackException;
 import com.izforge.izpack.api.exception.ResourceNotFoundException;
+import com.izforge.izpack.api.metrics.Metrics;
 
 /**
  * With this ResourceManager you are able to get resources from the jar file.
@@ -52,7 +49,6 @@ import com.izforge.izpack.api.exception.ResourceNotFoundException;
  */
 public class ResourceManager
 {
-    private final static Logger LOGGER = Logger.getLogger(ResourceManager.class.getName());
 
     /**
      * Contains the current language of the installer The locale is taken from
@@ -142,13 +138,21 @@ public class ResourceManager
      */
     private String getLanguageResourceString(String resource)
     {
-        if (resource.charAt(0) == '/')
+        long start = Metrics.start();
+        try
         {
-            return getAbsoluteLanguageResourceString(resource);
+            if (resource.charAt(0) == '/')
+            {
+                return getAbsoluteLanguageResourceString(resource);
+            }
+            else
+            {
+                return getAbsoluteLanguageResourceString(this.getResourceBasePath() + resource);
+            }
         }
-        else
+        finally
         {
-            return getAbsoluteLanguageResourceString(this.getResourceBasePath() + resource);
+            Metrics.stop("resources.lookup", start);
         }
 
         // String localeSuffix = "_" + this.locale;
@@ -274,7 +278,19 @@ public class ResourceManager
         return getResource(getLanguageResourceString(resource));
     }
 
-    private URL getURL(String resource)
+    /**
+     * Returns a URL referring to the given resource.
+     * <p/>
+     * Resources not starting with '/' are relative to the {@link #getResourceBasePath() resource base path}.
+     * Unlike {@link #getLocalizedURL(String)}, no language dependent resource is looked for.
+     * <p/>
+     * This is used by the GUI to load images; see <tt>com.izforge.izpack.gui.ImageResources</tt>. Keeping image
+     * support out of this class ensures that automated and console installations don't load AWT or Swing.
+     *
+     * @param resource the resource
+     * @return the URL of the resource, or <tt>null</tt> if it is not found
+     */
+    public URL getURL(String resource)
     {
         if (resource.charAt(0) == '/')
         {
@@ -333,33 +349,6 @@ public class ResourceManager
         return this.getTextResource(resource, null);
     }
 
-    /**
-     * Returns a laguage dependent ImageIcon for the given Resource
-     *
-     * @param resource resrouce of the Icon
-     * @param fallback fallback resources
-     * @return a ImageIcon loaded from the given Resource
-     * @throws ResourceNotFoundException thrown when the resource can not be found
-     */
-    public ImageIcon getImageIconResource(String resource, String... fallback)
-    {
-        URL location = this.getURL(resource);
-        if (location != null)
-        {
-            return new ImageIcon(location);
-        }
-        for (String fallbackResource : fallback)
-        {
-            location = this.getURL(fallbackResource);
-            if (location != null)
-            {
-                return new ImageIcon(location);
-            }
-        }
-        LOGGER.info("Image icon resource not found in " + resource + " and in fallbacks " + Arrays.toString(fallback));
-        return null;
-    }
-
     /**
      * Sets the locale for the resourcefiles. The locale is taken from
      * InstallData#installData#getAttribute("langpack") If there is no language set, the default
@@ -402,8 +391,17 @@ public class ResourceManager
      */
     public InputStream getLangPack(String localeISO3)
     {
-        return ClassLoader.getSystemResourceAsStream(getResourceBasePath() + "/langpacks/"
-                                                             + localeISO3 + ".xml");
+        // class loader resource names are relative, so strip any leading '/' from the base path
+        String path = getResourceBasePath();
+        while (path.startsWith("/"))
+        {
+            path = path.substring(1);
+        }
+        if (path.length() != 0 && !path.endsWith("/"))
+        {
+            path += "/";
+        }
+        return getResourceAsStream(path + "langpacks/" + localeISO3 + ".xml");
     }
 
     /**
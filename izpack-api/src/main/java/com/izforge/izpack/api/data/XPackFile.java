@@ -72,6 +72,18 @@ public class XPackFile extends PackFile implements Comparable<XPackFile>
         this.setCondition(file.getCondition());
     }
 
+    /**
+     * Constructs an <tt>XPackFile</tt> from previously packed meta-data.
+     *
+     * @param file     the pack file meta-data
+     * @param position the position of the file in the archive
+     */
+    public XPackFile(PackFile file, long position)
+    {
+        super(file);
+        this.position = position;
+    }
+
     /**
      * Returns the position of the file in the archive.
      *
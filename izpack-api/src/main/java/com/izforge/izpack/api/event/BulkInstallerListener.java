@@ -0,0 +1,48 @@
+package com.izforge.izpack.api.event;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import com.izforge.izpack.api.data.PackFile;
+
+
+/**
+ * An {@link InstallerListener} that is notified of files and directories in batches, rather than one at a time.
+ * <p/>
+ * This allows the installer to create nested directories in a single step, and to report files unpacked by worker
+ * threads together, while the listener still sees every file and directory.
+ * <p/>
+ * As for {@link InstallerListener}, these methods are only invoked if {@link #isFileListener()} returns
+ * <tt>true</tt>. When invoked, the corresponding per-file methods aren't.
+ */
+public interface BulkInstallerListener extends InstallerListener
+{
+
+    /**
+     * Invoked before directories are created.
+     *
+     * @param dirs     the directories, in the order they will be created, i.e. parents before children
+     * @param packFile the pack file the directories are being created for
+     * @throws Exception for any error
+     */
+    void beforeDirs(List<File> dirs, PackFile packFile) throws Exception;
+
+    /**
+     * Invoked after directories are created.
+     *
+     * @param dirs     the directories, in the order they were created
+     * @param packFile the pack file the directories were created for
+     * @throws Exception for any error
+     */
+    void afterDirs(List<File> dirs, PackFile packFile) throws Exception;
+
+    /**
+     * Invoked after files are installed.
+     *
+     * @param files the installed files and their corresponding pack files, in the order they were installed
+     * @throws Exception for any error
+     */
+    void afterFiles(Map<File, PackFile> files) throws Exception;
+
+}
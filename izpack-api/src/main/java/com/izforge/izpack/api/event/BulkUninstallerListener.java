@@ -0,0 +1,36 @@
+package com.izforge.izpack.api.event;
+
+import java.io.File;
+import java.util.List;
+
+import com.izforge.izpack.api.handler.AbstractUIProgressHandler;
+
+
+/**
+ * An {@link UninstallerListener} that is notified of file deletions in batches, rather than one at a time.
+ * <p/>
+ * As for {@link UninstallerListener}, these methods are only invoked if {@link #isFileListener()} returns
+ * <tt>true</tt>. When invoked, the corresponding per-file methods aren't.
+ */
+public interface BulkUninstallerListener extends UninstallerListener
+{
+
+    /**
+     * Invoked before a batch of files is deleted.
+     *
+     * @param files   the files which will be deleted, in the order they will be deleted
+     * @param handler the UI progress handler
+     * @throws Exception for any error
+     */
+    void beforeDeleteFiles(List<File> files, AbstractUIProgressHandler handler) throws Exception;
+
+    /**
+     * Invoked after a batch of files is deleted.
+     *
+     * @param files   the files which were deleted
+     * @param handler the UI progress handler
+     * @throws Exception for any error
+     */
+    void afterDeleteFiles(List<File> files, AbstractUIProgressHandler handler) throws Exception;
+
+}
@@ -100,7 +100,8 @@ public interface InstallerListener
      * Determines if the listener should be notified of every file and directory installation.
      * <p/>
      * If <tt>true</tt>, the {@link #beforeFile} and {@link #afterFile} methods will be invoked for every installed
-     * file, and {@link #beforeDir}, and {@link #afterDir} invoked for each directory creation.
+     * file, and {@link #beforeDir}, and {@link #afterDir} invoked for each directory creation. Listeners that
+     * implement {@link BulkInstallerListener} are instead notified in batches where the installer supports it.
      * <p/>
      * Listeners that return <tt>true</tt> should ensure they don't do any long running operations, to avoid
      * performance issues.
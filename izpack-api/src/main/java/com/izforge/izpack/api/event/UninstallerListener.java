@@ -57,12 +57,13 @@ public interface UninstallerListener
      * @param handler the UI progress handler
      * @throws Exception for any error
      */
-    void beforeDeletion(List files, AbstractUIProgressHandler handler) throws Exception;
+    void beforeDeletion(List<File> files, AbstractUIProgressHandler handler) throws Exception;
 
     /**
      * Determines if the listener should be notified of every file deletion.
      * <p/>
-     * If <tt>true</tt>, the {@link #beforeDelete} and {@link #afterDelete} methods will be invoked for each file.
+     * If <tt>true</tt>, the {@link #beforeDelete} and {@link #afterDelete} methods will be invoked for each file,
+     * or for listeners that implement {@link BulkUninstallerListener}, their batch equivalents.
      *
      * @return <tt>true</tt> if this listener would be informed at every delete operation, else <tt>false</tt>
      */
@@ -93,6 +94,6 @@ public interface UninstallerListener
      * @param handler the UI progress handler
      * @throws Exception for any error
      */
-    void afterDeletion(List files, AbstractUIProgressHandler handler) throws Exception;
+    void afterDeletion(List<File> files, AbstractUIProgressHandler handler) throws Exception;
 
 }
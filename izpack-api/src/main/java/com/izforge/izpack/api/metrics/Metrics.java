@@ -0,0 +1,266 @@
+package com.izforge.izpack.api.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Records named timers and counters, for reporting where time is spent.
+ * <p/>
+ * Metrics are disabled by default, and enabled by setting the {@link #PROPERTY izpack.metrics} system property to
+ * <tt>true</tt>, or to the path of the report to write. When disabled, {@link #start()} returns <tt>0</tt> and the
+ * <tt>stop</tt> methods return immediately, so instrumented code pays no more than a field read per call.
+ * <p/>
+ * Typical usage:
+ * <pre>
+ * long start = Metrics.start();
+ * try
+ * {
+ *     ...
+ * }
+ * finally
+ * {
+ *     Metrics.stop("variables.refresh", start);
+ * }
+ * </pre>
+ * Where the timer name includes a dynamic part, such as a pack name, the {@link #stop(String, String, long)} form
+ * should be used, so that the name is only built when metrics are enabled.
+ */
+public final class Metrics
+{
+
+    /**
+     * The system property used to enable metrics.
+     */
+    public static final String PROPERTY = "izpack.metrics";
+
+    /**
+     * Determines if metrics are enabled.
+     */
+    private static volatile boolean enabled = isEnabled(System.getProperty(PROPERTY));
+
+    /**
+     * The timers, keyed on name.
+     */
+    private static final ConcurrentMap<String, Timing> timers = new ConcurrentHashMap<String, Timing>();
+
+    /**
+     * The counters, keyed on name.
+     */
+    private static final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+
+
+    /**
+     * Private constructor.
+     */
+    private Metrics()
+    {
+    }
+
+    /**
+     * Determines if metrics are enabled.
+     *
+     * @return <tt>true</tt> if metrics are enabled
+     */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables metrics.
+     *
+     * @param enabled if <tt>true</tt> enable metrics, otherwise disable them
+     */
+    public static void setEnabled(boolean enabled)
+    {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * Returns the report path specified by the {@link #PROPERTY} system property.
+     *
+     * @return the report path, or <tt>null</tt> if the property doesn't specify one
+     */
+    public static String getReportPath()
+    {
+        String value = System.getProperty(PROPERTY);
+        if (isEnabled(value) && !"true".equalsIgnoreCase(value))
+        {
+            return value;
+        }
+        return null;
+    }
+
+    /**
+     * Starts a timer.
+     *
+     * @return the start time in nanoseconds, or <tt>0</tt> if metrics are disabled
+     */
+    public static long start()
+    {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Stops a timer.
+     *
+     * @param name  the timer name
+     * @param start the value returned by {@link #start()}
+     */
+    public static void stop(String name, long start)
+    {
+        if (start != 0)
+        {
+            record(name, System.nanoTime() - start, 0);
+        }
+    }
+
+    /**
+     * Stops a timer, recording the no. of bytes processed.
+     *
+     * @param name  the timer name
+     * @param start the value returned by {@link #start()}
+     * @param bytes the no. of bytes processed
+     */
+    public static void stop(String name, long start, long bytes)
+    {
+        if (start != 0)
+        {
+            record(name, System.nanoTime() - start, bytes);
+        }
+    }
+
+    /**
+     * Stops a timer whose name is made up of a prefix and a qualifier, separated by a '.'.
+     *
+     * @param prefix    the timer name prefix
+     * @param qualifier the timer name qualifier
+     * @param start     the value returned by {@link #start()}
+     */
+    public static void stop(String prefix, String qualifier, long start)
+    {
+        if (start != 0)
+        {
+            record(prefix + "." + qualifier, System.nanoTime() - start, 0);
+        }
+    }
+
+    /**
+     * Stops a timer whose name is made up of a prefix and a qualifier, separated by a '.', recording the no. of
+     * bytes processed.
+     *
+     * @param prefix    the timer name prefix
+     * @param qualifier the timer name qualifier
+     * @param start     the value returned by {@link #start()}
+     * @param bytes     the no. of bytes processed
+     */
+    public static void stop(String prefix, String qualifier, long start, long bytes)
+    {
+        if (start != 0)
+        {
+            record(prefix + "." + qualifier, System.nanoTime() - start, bytes);
+        }
+    }
+
+    /**
+     * Records an elapsed time against a timer.
+     * <p/>
+     * This is ignored if metrics are disabled.
+     *
+     * @param name  the timer name
+     * @param nanos the elapsed time, in nanoseconds
+     * @param bytes the no. of bytes processed
+     */
+    public static void record(String name, long nanos, long bytes)
+    {
+        if (enabled)
+        {
+            Timing timing = timers.get(name);
+            if (timing == null)
+            {
+                timing = new Timing();
+                Timing existing = timers.putIfAbsent(name, timing);
+                if (existing != null)
+                {
+                    timing = existing;
+                }
+            }
+            timing.add(nanos, bytes);
+        }
+    }
+
+    /**
+     * Increments a counter.
+     * <p/>
+     * This is ignored if metrics are disabled.
+     *
+     * @param name  the counter name
+     * @param delta the amount to increment the counter by
+     */
+    public static void increment(String name, long delta)
+    {
+        if (enabled)
+        {
+            AtomicLong counter = counters.get(name);
+            if (counter == null)
+            {
+                counter = new AtomicLong();
+                AtomicLong existing = counters.putIfAbsent(name, counter);
+                if (existing != null)
+                {
+                    counter = existing;
+                }
+            }
+            counter.addAndGet(delta);
+        }
+    }
+
+    /**
+     * Returns the timers, sorted on name.
+     *
+     * @return the timers
+     */
+    public static Map<String, Timing> getTimers()
+    {
+        return new TreeMap<String, Timing>(timers);
+    }
+
+    /**
+     * Returns the counter values, sorted on name.
+     *
+     * @return the counter values
+     */
+    public static Map<String, Long> getCounters()
+    {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet())
+        {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    /**
+     * Discards all timers and counters.
+     */
+    public static void reset()
+    {
+        timers.clear();
+        counters.clear();
+    }
+
+    /**
+     * Determines if a {@link #PROPERTY} value enables metrics.
+     *
+     * @param value the property value. May be <tt>null</tt>
+     * @return <tt>true</tt> if the value enables metrics
+     */
+    private static boolean isEnabled(String value)
+    {
+        return value != null && value.trim().length() != 0 && !"false".equalsIgnoreCase(value);
+    }
+}
@@ -0,0 +1,170 @@
+package com.izforge.izpack.api.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+
+/**
+ * Writes the {@link Metrics} timers and counters as JSON.
+ * <p/>
+ * The output has the form:
+ * <pre>
+ * {
+ *   "info": {"name": "value", ...},
+ *   "timers": {
+ *     "name": {"count": 1, "totalMs": 1.234, "maxMs": 1.234, "bytes": 0, "mbPerSec": 0.0},
+ *     ...
+ *   },
+ *   "counters": {"name": 1, ...}
+ * }
+ * </pre>
+ */
+public class MetricsWriter
+{
+
+    /**
+     * Writes the current metrics.
+     *
+     * @param info   descriptive information to include in the report, such as the application name
+     * @param writer the writer to write to. This is flushed but not closed
+     * @throws IOException for any I/O error
+     */
+    public void writeJSON(Map<String, String> info, Writer writer) throws IOException
+    {
+        writeJSON(info, Metrics.getTimers(), Metrics.getCounters(), writer);
+    }
+
+    /**
+     * Writes metrics.
+     *
+     * @param info     descriptive information to include in the report
+     * @param timers   the timers, keyed on name
+     * @param counters the counters, keyed on name
+     * @param writer   the writer to write to. This is flushed but not closed
+     * @throws IOException for any I/O error
+     */
+    public void writeJSON(Map<String, String> info, Map<String, Timing> timers, Map<String, Long> counters,
+                          Writer writer) throws IOException
+    {
+        PrintWriter out = new PrintWriter(writer);
+        out.println("{");
+        out.print("  \"info\": {");
+        Iterator<Map.Entry<String, String>> infoIterator = info.entrySet().iterator();
+        while (infoIterator.hasNext())
+        {
+            Map.Entry<String, String> entry = infoIterator.next();
+            out.print(quote(entry.getKey()) + ": " + quote(entry.getValue()));
+            if (infoIterator.hasNext())
+            {
+                out.print(", ");
+            }
+        }
+        out.println("},");
+
+        out.println("  \"timers\": {");
+        Iterator<Map.Entry<String, Timing>> timerIterator = timers.entrySet().iterator();
+        while (timerIterator.hasNext())
+        {
+            Map.Entry<String, Timing> entry = timerIterator.next();
+            Timing timing = entry.getValue();
+            out.print("    " + quote(entry.getKey()) + ": {\"count\": " + timing.getCount()
+                              + ", \"totalMs\": " + toMillis(timing.getTotalNanos())
+                              + ", \"maxMs\": " + toMillis(timing.getMaxNanos())
+                              + ", \"bytes\": " + timing.getBytes()
+                              + ", \"mbPerSec\": " + format(timing.getMegabytesPerSecond()) + "}");
+            out.println(timerIterator.hasNext() ? "," : "");
+        }
+        out.println("  },");
+
+        out.println("  \"counters\": {");
+        Iterator<Map.Entry<String, Long>> counterIterator = counters.entrySet().iterator();
+        while (counterIterator.hasNext())
+        {
+            Map.Entry<String, Long> entry = counterIterator.next();
+            out.print("    " + quote(entry.getKey()) + ": " + entry.getValue());
+            out.println(counterIterator.hasNext() ? "," : "");
+        }
+        out.println("  }");
+        out.println("}");
+        out.flush();
+        if (out.checkError())
+        {
+            throw new IOException("Failed to write metrics");
+        }
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds.
+     *
+     * @param nanos the time in nanoseconds
+     * @return the time in milliseconds, to 3 decimal places
+     */
+    protected String toMillis(long nanos)
+    {
+        return format(nanos / 1000000.0);
+    }
+
+    /**
+     * Formats a number to 3 decimal places.
+     *
+     * @param value the value to format
+     * @return the formatted value
+     */
+    protected String format(double value)
+    {
+        return String.format(Locale.ENGLISH, "%.3f", value);
+    }
+
+    /**
+     * Quotes and escapes a string as a JSON string.
+     *
+     * @param value the value to quote. May be <tt>null</tt>
+     * @return the quoted value
+     */
+    protected String quote(String value)
+    {
+        if (value == null)
+        {
+            return "null";
+        }
+        StringBuilder result = new StringBuilder(value.length() + 2);
+        result.append('"');
+        for (int i = 0; i < value.length(); ++i)
+        {
+            char ch = value.charAt(i);
+            switch (ch)
+            {
+                case '"':
+                    result.append("\\\"");
+                    break;
+                case '\\':
+                    result.append("\\\\");
+                    break;
+                case '\n':
+                    result.append("\\n");
+                    break;
+                case '\r':
+                    result.append("\\r");
+                    break;
+                case '\t':
+                    result.append("\\t");
+                    break;
+                default:
+                    if (ch < 0x20)
+                    {
+                        result.append(String.format("\\u%04x", (int) ch));
+                    }
+                    else
+                    {
+                        result.append(ch);
+                    }
+            }
+        }
+        result.append('"');
+        return result.toString();
+    }
+}
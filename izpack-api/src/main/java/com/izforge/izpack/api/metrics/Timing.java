@@ -0,0 +1,109 @@
+package com.izforge.izpack.api.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * The accumulated times recorded against a timer.
+ */
+public class Timing
+{
+
+    /**
+     * The no. of times the timer was stopped.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * The total elapsed time, in nanoseconds.
+     */
+    private final AtomicLong total = new AtomicLong();
+
+    /**
+     * The maximum elapsed time, in nanoseconds.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * The total no. of bytes processed.
+     */
+    private final AtomicLong bytes = new AtomicLong();
+
+
+    /**
+     * Adds an elapsed time.
+     *
+     * @param nanos the elapsed time, in nanoseconds
+     * @param bytes the no. of bytes processed
+     */
+    public void add(long nanos, long bytes)
+    {
+        count.incrementAndGet();
+        total.addAndGet(nanos);
+        if (bytes != 0)
+        {
+            this.bytes.addAndGet(bytes);
+        }
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos))
+        {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Returns the no. of times the timer was stopped.
+     *
+     * @return the count
+     */
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    /**
+     * Returns the total elapsed time.
+     *
+     * @return the total elapsed time, in nanoseconds
+     */
+    public long getTotalNanos()
+    {
+        return total.get();
+    }
+
+    /**
+     * Returns the maximum elapsed time.
+     *
+     * @return the maximum elapsed time, in nanoseconds
+     */
+    public long getMaxNanos()
+    {
+        return max.get();
+    }
+
+    /**
+     * Returns the total no. of bytes processed.
+     *
+     * @return the no. of bytes
+     */
+    public long getBytes()
+    {
+        return bytes.get();
+    }
+
+    /**
+     * Returns the throughput.
+     *
+     * @return the throughput in megabytes per second, or <tt>0</tt> if no bytes or time were recorded
+     */
+    public double getMegabytesPerSecond()
+    {
+        long nanos = getTotalNanos();
+        long processed = getBytes();
+        if (nanos == 0 || processed == 0)
+        {
+            return 0;
+        }
+        return (processed / (1024.0 * 1024.0)) / (nanos / 1000000000.0);
+    }
+}
@@ -0,0 +1,127 @@
+package com.izforge.izpack.api.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link Metrics} and {@link MetricsWriter} classes.
+ */
+public class MetricsTest
+{
+
+    /**
+     * Determines if metrics were enabled prior to the test.
+     */
+    private boolean enabled;
+
+
+    /**
+     * Sets up the test case.
+     */
+    @Before
+    public void setUp()
+    {
+        enabled = Metrics.isEnabled();
+        Metrics.reset();
+    }
+
+    /**
+     * Cleans up after the test case.
+     */
+    @After
+    public void tearDown()
+    {
+        Metrics.setEnabled(enabled);
+        Metrics.reset();
+    }
+
+    /**
+     * Verifies that nothing is recorded when metrics are disabled.
+     */
+    @Test
+    public void testDisabled()
+    {
+        Metrics.setEnabled(false);
+        long start = Metrics.start();
+        assertEquals(0, start);
+        Metrics.stop("timer", start);
+        Metrics.stop("pack", "core", start, 10);
+        Metrics.record("other", 100, 0);
+        Metrics.increment("counter", 1);
+
+        assertTrue(Metrics.getTimers().isEmpty());
+        assertTrue(Metrics.getCounters().isEmpty());
+    }
+
+    /**
+     * Verifies that timers and counters are accumulated when metrics are enabled.
+     */
+    @Test
+    public void testEnabled()
+    {
+        Metrics.setEnabled(true);
+        long start = Metrics.start();
+        assertTrue(start != 0);
+        Metrics.stop("timer", start);
+        Metrics.stop("timer", Metrics.start());
+        Metrics.stop("pack", "core", Metrics.start(), 1024);
+        Metrics.record("startup.info", 2000000, 0);
+        Metrics.record("startup.info", 5000000, 0);
+        Metrics.increment("counter", 2);
+        Metrics.increment("counter", 3);
+
+        Map<String, Timing> timers = Metrics.getTimers();
+        assertEquals(3, timers.size());
+        assertEquals(2, timers.get("timer").getCount());
+        assertEquals(1024, timers.get("pack.core").getBytes());
+
+        Timing info = timers.get("startup.info");
+        assertEquals(2, info.getCount());
+        assertEquals(7000000, info.getTotalNanos());
+        assertEquals(5000000, info.getMaxNanos());
+
+        assertEquals(new Long(5), Metrics.getCounters().get("counter"));
+    }
+
+    /**
+     * Tests the {@link MetricsWriter#writeJSON} method.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testWriteJSON() throws Exception
+    {
+        Metrics.setEnabled(true);
+        Metrics.record("pack.core", 500000000, 1024 * 1024);
+        Metrics.record("variables.refresh", 1500000, 0);
+        Metrics.increment("counter", 1);
+
+        Map<String, String> info = new LinkedHashMap<String, String>();
+        info.put("appName", "Test \"App\"");
+        StringWriter writer = new StringWriter();
+        new MetricsWriter().writeJSON(info, writer);
+
+        String expected = "{\n"
+                + "  \"info\": {\"appName\": \"Test \\\"App\\\"\"},\n"
+                + "  \"timers\": {\n"
+                + "    \"pack.core\": {\"count\": 1, \"totalMs\": 500.000, \"maxMs\": 500.000, \"bytes\": 1048576, "
+                + "\"mbPerSec\": 2.000},\n"
+                + "    \"variables.refresh\": {\"count\": 1, \"totalMs\": 1.500, \"maxMs\": 1.500, \"bytes\": 0, "
+                + "\"mbPerSec\": 0.000}\n"
+                + "  },\n"
+                + "  \"counters\": {\n"
+                + "    \"counter\": 1\n"
+                + "  }\n"
+                + "}\n";
+        assertEquals(expected, writer.toString().replace(System.getProperty("line.separator"), "\n"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.izforge.izpack.api.adaptator.impl;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.adaptator.IXMLElement;
+
+
+/**
+ * Measures the time taken by the {@link XMLParser} to parse an installation descriptor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class XMLParserBenchmark
+{
+
+    /**
+     * The no. of packs in the descriptor. Each pack contains 20 <em>file</em> and 5 <em>parsable</em> elements.
+     */
+    @Param({"10", "200"})
+    public int packs;
+
+    /**
+     * The descriptor.
+     */
+    private byte[] descriptor;
+
+
+    /**
+     * Creates the descriptor.
+     */
+    @Setup
+    public void setUp()
+    {
+        StringBuilder builder = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        builder.append("<izpack:installation version=\"5.0\" xmlns:izpack=\"http://izpack.org/schema/installation\">\n");
+        builder.append("  <info><appname>Benchmark</appname><appversion>1.0</appversion></info>\n");
+        builder.append("  <packs>\n");
+        for (int i = 0; i < packs; ++i)
+        {
+            builder.append("    <pack name=\"pack").append(i).append("\" required=\"no\" preselected=\"yes\">\n");
+            builder.append("      <description>Pack ").append(i).append(" &amp; its files</description>\n");
+            for (int j = 0; j < 20; ++j)
+            {
+                builder.append("      <file src=\"lib/file").append(j).append(".jar\" targetdir=\"$INSTALL_PATH/lib\"");
+                builder.append(" override=\"update\" condition=\"cond").append(j).append("\"/>\n");
+            }
+            for (int j = 0; j < 5; ++j)
+            {
+                builder.append("      <parsable targetfile=\"$INSTALL_PATH/conf/file").append(j);
+                builder.append(".properties\" type=\"javaprop\"/>\n");
+            }
+            builder.append("    </pack>\n");
+        }
+        builder.append("  </packs>\n");
+        builder.append("</izpack:installation>\n");
+        descriptor = builder.toString().getBytes();
+    }
+
+    /**
+     * Parses the descriptor.
+     *
+     * @return the root element
+     */
+    @Benchmark
+    public IXMLElement parse()
+    {
+        return new XMLParser().parse(new ByteArrayInputStream(descriptor));
+    }
+}
@@ -0,0 +1,70 @@
+package com.izforge.izpack.benchmark;
+
+import com.izforge.izpack.api.handler.AbstractUIProgressHandler;
+
+
+/**
+ * An {@link AbstractUIProgressHandler} that discards all notifications, so that benchmarks measure the work being
+ * done rather than the cost of reporting it.
+ */
+public class NullProgressHandler implements AbstractUIProgressHandler
+{
+
+    @Override
+    public void startAction(String name, int no_of_steps)
+    {
+    }
+
+    @Override
+    public void stopAction()
+    {
+    }
+
+    @Override
+    public void nextStep(String step_name, int step_no, int no_of_substeps)
+    {
+    }
+
+    @Override
+    public void setSubStepNo(int no_of_substeps)
+    {
+    }
+
+    @Override
+    public void progress(int substep_no, String message)
+    {
+    }
+
+    @Override
+    public void emitNotification(String message)
+    {
+    }
+
+    @Override
+    public boolean emitWarning(String title, String message)
+    {
+        return true;
+    }
+
+    @Override
+    public void emitError(String title, String message)
+    {
+    }
+
+    @Override
+    public void emitErrorAndBlockNext(String title, String message)
+    {
+    }
+
+    @Override
+    public int askQuestion(String title, String question, int choices)
+    {
+        return ANSWER_YES;
+    }
+
+    @Override
+    public int askQuestion(String title, String question, int choices, int default_choice)
+    {
+        return default_choice;
+    }
+}
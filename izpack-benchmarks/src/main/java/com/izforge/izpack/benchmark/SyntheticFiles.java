@@ -0,0 +1,285 @@
+package com.izforge.izpack.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.core.io.PackFileWriter;
+import com.izforge.izpack.data.PackInfo;
+import com.izforge.izpack.util.IoHelper;
+
+
+/**
+ * Generates reproducible trees of files for benchmarks.
+ * <p/>
+ * File content is a mix of text drawn from a small vocabulary and random bytes, so that it compresses at roughly the
+ * ratio of a typical application distribution rather than trivially or not at all.
+ */
+public class SyntheticFiles
+{
+
+    /**
+     * The shape of a generated tree.
+     */
+    public enum Layout
+    {
+        /**
+         * Many small files, spread over several directories.
+         */
+        MANY_SMALL(2000, 4 * 1024),
+
+        /**
+         * A few large files.
+         */
+        FEW_LARGE(8, 4 * 1024 * 1024);
+
+        /**
+         * The no. of files.
+         */
+        private final int count;
+
+        /**
+         * The size of each file, in bytes.
+         */
+        private final int size;
+
+        Layout(int count, int size)
+        {
+            this.count = count;
+            this.size = size;
+        }
+
+        /**
+         * Returns the no. of files.
+         *
+         * @return the no. of files
+         */
+        public int getCount()
+        {
+            return count;
+        }
+
+        /**
+         * Returns the size of each file.
+         *
+         * @return the size of each file, in bytes
+         */
+        public int getSize()
+        {
+            return size;
+        }
+    }
+
+    /**
+     * The maximum no. of files per directory.
+     */
+    private static final int FILES_PER_DIR = 100;
+
+    /**
+     * The vocabulary used to generate text.
+     */
+    private static final String[] WORDS = {"install", "pack", "file", "panel", "variable", "condition", "class",
+            "resource", "jar", "compress", "public", "static", "void", "return", "import", "com.izforge.izpack",
+            "\n", "\t", "{", "}", ";"};
+
+    /**
+     * The seed for content generation, so that each run produces the same files.
+     */
+    private static final long SEED = 0x1274L;
+
+
+    /**
+     * Creates a tree of files.
+     *
+     * @param dir    the root directory. This is created if it doesn't exist
+     * @param layout the shape of the tree
+     * @return the created files
+     * @throws IOException for any I/O error
+     */
+    public static List<File> create(File dir, Layout layout) throws IOException
+    {
+        return create(dir, layout.getCount(), layout.getSize());
+    }
+
+    /**
+     * Creates a tree of files.
+     *
+     * @param dir   the root directory. This is created if it doesn't exist
+     * @param count the no. of files
+     * @param size  the size of each file, in bytes
+     * @return the created files
+     * @throws IOException for any I/O error
+     */
+    public static List<File> create(File dir, int count, int size) throws IOException
+    {
+        Random random = new Random(SEED);
+        List<File> result = new ArrayList<File>(count);
+        byte[] content = new byte[size];
+        for (int i = 0; i < count; ++i)
+        {
+            File parent = new File(dir, "dir" + (i / FILES_PER_DIR));
+            if (!parent.isDirectory() && !parent.mkdirs())
+            {
+                throw new IOException("Failed to create directory: " + parent);
+            }
+            File file = new File(parent, "file" + i + ".dat");
+            fill(content, random);
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+            try
+            {
+                out.write(content);
+            }
+            finally
+            {
+                out.close();
+            }
+            result.add(file);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a pack containing files, each installed relative to <em>$INSTALL_PATH</em>.
+     *
+     * @param baseDir the base directory of the files
+     * @param files   the files
+     * @return a new pack
+     * @throws IOException for any I/O error
+     */
+    public static PackInfo createPack(File baseDir, List<File> files) throws IOException
+    {
+        PackInfo pack = new PackInfo("Core", "core", "The core files", true, false, null, true);
+        for (File file : files)
+        {
+            String target = "$INSTALL_PATH/" + file.getParentFile().getName() + "/" + file.getName();
+            pack.addFile(baseDir, file, target, null, OverrideType.OVERRIDE_TRUE, null, Blockable.BLOCKABLE_NONE,
+                         null, null);
+        }
+        return pack;
+    }
+
+    /**
+     * Serializes a pack in the format written by the <tt>Packager</tt> and read by the <tt>UnpackerBase</tt>.
+     * <p/>
+     * The pack has no parsable or executable files, and no update checks.
+     *
+     * @param pack the pack
+     * @return the pack stream
+     * @throws IOException for any I/O error
+     */
+    public static byte[] writePack(PackInfo pack) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        PackFileWriter writer = new PackFileWriter(out);
+        out.writeInt(pack.getPackFiles().size());
+        for (PackFile packFile : pack.getPackFiles())
+        {
+            writer.write(packFile);
+            if (!packFile.isDirectory())
+            {
+                out.flush();
+                InputStream in = new FileInputStream(pack.getFile(packFile));
+                try
+                {
+                    IoHelper.copyStream(in, out);
+                }
+                finally
+                {
+                    in.close();
+                }
+            }
+        }
+        out.writeInt(0); // parsables
+        out.writeInt(0); // executables
+        out.writeInt(0); // update checks
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Creates an empty temporary directory.
+     *
+     * @param prefix the directory name prefix
+     * @return the directory
+     * @throws IOException if the directory cannot be created
+     */
+    public static File createTempDir(String prefix) throws IOException
+    {
+        File dir = File.createTempFile(prefix, "");
+        if (!dir.delete() || !dir.mkdir())
+        {
+            throw new IOException("Failed to create directory: " + dir);
+        }
+        return dir;
+    }
+
+    /**
+     * Recursively deletes a file or directory.
+     *
+     * @param file the file or directory to delete. May be <tt>null</tt>
+     */
+    public static void delete(File file)
+    {
+        if (file == null)
+        {
+            return;
+        }
+        File[] children = file.listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Fills a buffer with content.
+     *
+     * @param content the buffer to fill
+     * @param random  the random number generator
+     */
+    private static void fill(byte[] content, Random random)
+    {
+        int pos = 0;
+        while (pos < content.length)
+        {
+            if (random.nextInt(4) == 0)
+            {
+                // incompressible run
+                int end = Math.min(content.length, pos + 1 + random.nextInt(16));
+                while (pos < end)
+                {
+                    content[pos++] = (byte) random.nextInt(256);
+                }
+            }
+            else
+            {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                for (int i = 0; i < word.length() && pos < content.length; ++i)
+                {
+                    content[pos++] = (byte) word.charAt(i);
+                }
+                if (pos < content.length)
+                {
+                    content[pos++] = ' ';
+                }
+            }
+        }
+    }
+}
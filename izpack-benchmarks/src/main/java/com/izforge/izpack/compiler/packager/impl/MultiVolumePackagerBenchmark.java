@@ -0,0 +1,146 @@
+package com.izforge.izpack.compiler.packager.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.Info;
+import com.izforge.izpack.benchmark.SyntheticFiles;
+import com.izforge.izpack.compiler.compressor.PackCompressor;
+import com.izforge.izpack.compiler.container.provider.JarOutputStreamProvider;
+import com.izforge.izpack.compiler.container.provider.PackCompressorProvider;
+import com.izforge.izpack.compiler.data.CompilerData;
+import com.izforge.izpack.compiler.stream.JarOutputStream;
+import com.izforge.izpack.data.PackInfo;
+import com.izforge.izpack.merge.MergeManager;
+import com.izforge.izpack.merge.MergeManagerImpl;
+import com.izforge.izpack.merge.resolve.MergeableResolver;
+import com.izforge.izpack.merge.resolve.PathResolver;
+
+
+/**
+ * Measures the time taken by the {@link MultiVolumePackager} to write packs.
+ * <p/>
+ * The volume size is small enough that the large file layout spans several volumes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MultiVolumePackagerBenchmark
+{
+
+    /**
+     * The maximum size of each volume.
+     */
+    private static final long VOLUME_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * The shape of the files to pack.
+     */
+    @Param({"MANY_SMALL", "FEW_LARGE"})
+    public SyntheticFiles.Layout layout;
+
+    /**
+     * The working directory.
+     */
+    private File dir;
+
+    /**
+     * The pack to write.
+     */
+    private PackInfo pack;
+
+    /**
+     * The resolver used to construct the merge manager.
+     */
+    private MergeableResolver mergeableResolver;
+
+
+    /**
+     * Creates the files to pack.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Setup
+    public void setUp() throws IOException
+    {
+        dir = SyntheticFiles.createTempDir("izpack-multivolume");
+        File baseDir = new File(dir, "src");
+        pack = SyntheticFiles.createPack(baseDir, SyntheticFiles.create(baseDir, layout));
+        mergeableResolver = new MergeableResolver();
+    }
+
+    /**
+     * Removes the working directory.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        SyntheticFiles.delete(dir);
+    }
+
+    /**
+     * Writes the pack.
+     *
+     * @return the size of the installer jar and volumes
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public long writePacks() throws Exception
+    {
+        String output = new File(dir, "installer.jar").getPath();
+        CompilerData compilerData = new CompilerData("default", "standard", null, null, dir.getPath(), output, false,
+                                                     -1);
+        JarOutputStream jar = new JarOutputStreamProvider().provide(compilerData);
+        MergeManager mergeManager = new MergeManagerImpl(new PathResolver(mergeableResolver));
+        PackCompressor compressor = new PackCompressorProvider().provide(compilerData, mergeManager);
+        MultiVolumePackager packager = new MultiVolumePackager(new Properties(), null, jar, mergeManager, null,
+                                                               mergeableResolver, compressor, compilerData, null);
+        packager.setMaxFirstVolumeSize(VOLUME_SIZE);
+        packager.setMaxVolumeSize(VOLUME_SIZE);
+
+        Info info = new Info();
+        info.setInstallerBase(new File(dir, "installer").getPath());
+        packager.setInfo(info);
+        packager.addPack(pack);
+        try
+        {
+            packager.writePacks();
+        }
+        finally
+        {
+            jar.closeAlways();
+        }
+
+        long size = 0;
+        File[] files = dir.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                if (file.getName().startsWith("installer."))
+                {
+                    size += file.length();
+                }
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,151 @@
+package com.izforge.izpack.compiler.packager.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.Info;
+import com.izforge.izpack.benchmark.SyntheticFiles;
+import com.izforge.izpack.compiler.compressor.PackCompressor;
+import com.izforge.izpack.compiler.container.provider.CompressedOutputStreamProvider;
+import com.izforge.izpack.compiler.container.provider.JarOutputStreamProvider;
+import com.izforge.izpack.compiler.container.provider.PackCompressorProvider;
+import com.izforge.izpack.compiler.data.CompilerData;
+import com.izforge.izpack.compiler.stream.JarOutputStream;
+import com.izforge.izpack.data.PackInfo;
+import com.izforge.izpack.merge.MergeManager;
+import com.izforge.izpack.merge.MergeManagerImpl;
+import com.izforge.izpack.merge.resolve.MergeableResolver;
+import com.izforge.izpack.merge.resolve.PathResolver;
+
+
+/**
+ * Measures the time taken by the {@link Packager} to write packs.
+ * <p/>
+ * The packager is wired the same way as by the compiler container, for each compression format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PackagerBenchmark
+{
+
+    /**
+     * The shape of the files to pack.
+     */
+    @Param({"MANY_SMALL", "FEW_LARGE"})
+    public SyntheticFiles.Layout layout;
+
+    /**
+     * The compression format.
+     */
+    @Param({"default", "raw", "bzip2"})
+    public String format;
+
+    /**
+     * The working directory.
+     */
+    private File dir;
+
+    /**
+     * The pack to write.
+     */
+    private PackInfo pack;
+
+    /**
+     * The resolver used to construct the merge manager.
+     */
+    private MergeableResolver mergeableResolver;
+
+
+    /**
+     * Creates the files to pack.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Setup
+    public void setUp() throws IOException
+    {
+        dir = SyntheticFiles.createTempDir("izpack-packager");
+        File baseDir = new File(dir, "src");
+        pack = SyntheticFiles.createPack(baseDir, SyntheticFiles.create(baseDir, layout));
+        mergeableResolver = new MergeableResolver();
+    }
+
+    /**
+     * Removes the working directory.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        SyntheticFiles.delete(dir);
+    }
+
+    /**
+     * Writes the pack.
+     *
+     * @return the size of the installer jar
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public long writePacks() throws Exception
+    {
+        CompilerData compilerData = createCompilerData();
+        JarOutputStream jar = new JarOutputStreamProvider().provide(compilerData);
+        MergeManager mergeManager = createMergeManager();
+        PackCompressor compressor = new PackCompressorProvider().provide(compilerData, mergeManager);
+        OutputStream outputStream = new CompressedOutputStreamProvider().provide(compilerData, jar);
+        Packager packager = new Packager(new Properties(), null, jar, compressor, outputStream, mergeManager, null,
+                                         mergeableResolver, compilerData, null);
+        packager.setInfo(new Info());
+        packager.addPack(pack);
+        try
+        {
+            packager.writePacks();
+        }
+        finally
+        {
+            jar.closeAlways();
+        }
+        return new File(compilerData.getOutput()).length();
+    }
+
+    /**
+     * Creates the compiler configuration.
+     *
+     * @return the compiler configuration
+     */
+    private CompilerData createCompilerData()
+    {
+        String output = new File(dir, "installer.jar").getPath();
+        return new CompilerData(format, "standard", null, null, dir.getPath(), output, false, -1);
+    }
+
+    /**
+     * Creates a merge manager.
+     *
+     * @return a new merge manager
+     */
+    private MergeManager createMergeManager()
+    {
+        return new MergeManagerImpl(new PathResolver(mergeableResolver));
+    }
+}
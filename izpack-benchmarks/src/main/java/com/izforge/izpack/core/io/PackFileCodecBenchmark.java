@@ -0,0 +1,177 @@
+package com.izforge.izpack.core.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.binding.OsModel;
+
+
+/**
+ * Compares the {@link PackFileWriter} and {@link PackFileReader} codec with java serialization, for encoding and
+ * decoding pack headers.
+ * <p/>
+ * The serialization benchmarks write and read the files as the packagers and unpackers did before the codec, using one
+ * <tt>writeObject</tt> and one <tt>readObject</tt> per file on a single stream. File content is omitted, as it is
+ * copied the same way by both.
+ * <p/>
+ * The files are spread over 100 directories, with OS constraints and conditions shared by many files, as is typical of
+ * file sets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PackFileCodecBenchmark
+{
+
+    /**
+     * The no. of files.
+     */
+    @Param({"100000"})
+    public int files;
+
+    /**
+     * The files to encode.
+     */
+    private List<PackFile> packFiles;
+
+    /**
+     * The files, encoded by {@link PackFileWriter}.
+     */
+    private byte[] encoded;
+
+    /**
+     * The files, serialized.
+     */
+    private byte[] serialized;
+
+
+    /**
+     * Creates the files, and encodes them in both formats.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Setup
+    public void setUp() throws IOException
+    {
+        List<OsModel> unix = Arrays.asList(new OsModel(null, "unix", null, null, null));
+        List<OsModel> windows = Arrays.asList(new OsModel(null, "windows", null, null, null));
+        packFiles = new ArrayList<PackFile>(files);
+        for (int i = 0; i < files; ++i)
+        {
+            String path = "dir" + (i % 100) + "/file" + i + ".txt";
+            List<OsModel> constraints = (i % 3 == 0) ? unix : (i % 3 == 1) ? windows : null;
+            PackFile file = new PackFile(path, "$INSTALL_PATH/" + path, constraints, OverrideType.OVERRIDE_UPDATE,
+                                         null, Blockable.BLOCKABLE_NONE, null, 4096 + i, 1300000000000L + i, false);
+            if (i % 10 == 0)
+            {
+                file.setCondition("optional.docs");
+            }
+            packFiles.add(file);
+        }
+        encoded = encode();
+        serialized = serialize();
+    }
+
+    /**
+     * Encodes the files with {@link PackFileWriter}.
+     *
+     * @return the encoded files
+     * @throws IOException for any I/O error
+     */
+    @Benchmark
+    public byte[] encode() throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        PackFileWriter writer = new PackFileWriter(out);
+        for (PackFile file : packFiles)
+        {
+            writer.write(file);
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Serializes the files.
+     *
+     * @return the serialized files
+     * @throws IOException for any I/O error
+     */
+    @Benchmark
+    public byte[] serialize() throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        for (PackFile file : packFiles)
+        {
+            out.writeObject(file);
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes the files with {@link PackFileReader}.
+     *
+     * @return the last file read
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public PackFile decode() throws Exception
+    {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(encoded));
+        PackFileReader reader = new PackFileReader(in);
+        PackFile result = null;
+        for (int i = 0; i < files; ++i)
+        {
+            result = reader.read();
+        }
+        in.close();
+        return result;
+    }
+
+    /**
+     * Deserializes the files.
+     *
+     * @return the last file read
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public PackFile deserialize() throws Exception
+    {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized));
+        PackFile result = null;
+        for (int i = 0; i < files; ++i)
+        {
+            result = (PackFile) in.readObject();
+        }
+        in.close();
+        return result;
+    }
+}
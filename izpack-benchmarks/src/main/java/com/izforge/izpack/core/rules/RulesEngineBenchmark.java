@@ -0,0 +1,162 @@
+package com.izforge.izpack.core.rules;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.adaptator.IXMLElement;
+import com.izforge.izpack.api.adaptator.impl.XMLParser;
+import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.core.container.DefaultContainer;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.installer.data.InstallData;
+
+
+/**
+ * Measures the time taken by the {@link RulesEngineImpl} to read and evaluate conditions.
+ * <p/>
+ * The conditions are a mix of variable conditions and <em>and</em>/<em>or</em> conditions referring to them, as
+ * typically used to determine which panels and packs are shown.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RulesEngineBenchmark
+{
+
+    /**
+     * The no. of variable conditions. An <em>and</em> and an <em>or</em> condition is also created for each.
+     */
+    @Param({"50", "500"})
+    public int conditions;
+
+    /**
+     * The conditions XML.
+     */
+    private String xml;
+
+    /**
+     * The condition identifiers.
+     */
+    private String[] ids;
+
+    /**
+     * The rules engine, populated with the conditions.
+     */
+    private RulesEngine rules;
+
+
+    /**
+     * Creates the conditions.
+     *
+     * @throws Exception for any error
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        StringBuilder builder = new StringBuilder("<conditions>");
+        ids = new String[conditions * 3];
+        for (int i = 0; i < conditions; ++i)
+        {
+            builder.append("<condition type=\"variable\" id=\"var").append(i).append("\">");
+            builder.append("<name>variable").append(i).append("</name>");
+            builder.append("<value>").append(i % 2 == 0 ? "true" : "false").append("</value>");
+            builder.append("</condition>");
+            ids[i] = "var" + i;
+        }
+        for (int i = 0; i < conditions; ++i)
+        {
+            String other = "var" + ((i + 1) % conditions);
+            builder.append("<condition type=\"and\" id=\"and").append(i).append("\">");
+            builder.append("<condition type=\"ref\" refid=\"var").append(i).append("\"/>");
+            builder.append("<condition type=\"ref\" refid=\"").append(other).append("\"/>");
+            builder.append("</condition>");
+            builder.append("<condition type=\"or\" id=\"or").append(i).append("\">");
+            builder.append("<condition type=\"ref\" refid=\"and").append(i).append("\"/>");
+            builder.append("<condition type=\"ref\" refid=\"").append(other).append("\"/>");
+            builder.append("</condition>");
+            ids[conditions + i] = "and" + i;
+            ids[conditions * 2 + i] = "or" + i;
+        }
+        builder.append("</conditions>");
+        xml = builder.toString();
+        rules = createRules();
+    }
+
+    /**
+     * Parses and reads the conditions into a new rules engine.
+     *
+     * @return the rules engine
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public RulesEngine analyzeXml() throws Exception
+    {
+        return createRules();
+    }
+
+    /**
+     * Evaluates each condition.
+     *
+     * @return the no. of conditions that are true
+     */
+    @Benchmark
+    public int isConditionTrue()
+    {
+        int result = 0;
+        for (String id : ids)
+        {
+            if (rules.isConditionTrue(id))
+            {
+                ++result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates a condition expression.
+     *
+     * @return the result of the expression
+     */
+    @Benchmark
+    public boolean isExpressionTrue()
+    {
+        return rules.isConditionTrue("var0+!var1|and2");
+    }
+
+    /**
+     * Creates a rules engine populated with the conditions.
+     *
+     * @return a new rules engine
+     * @throws Exception if a condition reference cannot be resolved
+     */
+    private RulesEngine createRules() throws Exception
+    {
+        DefaultVariables variables = new DefaultVariables();
+        for (int i = 0; i < conditions; ++i)
+        {
+            variables.set("variable" + i, "true");
+        }
+        DefaultContainer parent = new DefaultContainer();
+        RulesEngine result = new RulesEngineImpl(new InstallData(variables), new ConditionContainer(parent));
+        parent.addComponent(RulesEngine.class, result);
+        IXMLElement element = new XMLParser().parse(xml);
+        result.analyzeXml(element);
+        result.resolveConditions();
+        return result;
+    }
+}
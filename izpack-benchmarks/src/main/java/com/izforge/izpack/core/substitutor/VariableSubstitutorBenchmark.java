@@ -0,0 +1,137 @@
+package com.izforge.izpack.core.substitutor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.substitutor.SubstitutionType;
+
+
+/**
+ * Measures the time taken by the {@link VariableSubstitutorImpl} to substitute variables in strings, and in files
+ * as is done for <em>parsable</em> files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VariableSubstitutorBenchmark
+{
+
+    /**
+     * The substitution type.
+     */
+    @Param({"TYPE_PLAIN", "TYPE_SHELL", "TYPE_XML", "TYPE_ANT"})
+    public SubstitutionType type;
+
+    /**
+     * The no. of variables available for substitution.
+     */
+    private static final int VARIABLES = 200;
+
+    /**
+     * The no. of lines in the file being substituted.
+     */
+    private static final int LINES = 2000;
+
+    /**
+     * The substitutor.
+     */
+    private VariableSubstitutorImpl substitutor;
+
+    /**
+     * A string containing several variable references.
+     */
+    private String text;
+
+    /**
+     * The file content.
+     */
+    private byte[] file;
+
+
+    /**
+     * Creates the substitutor and the content to substitute.
+     */
+    @Setup
+    public void setUp()
+    {
+        Properties properties = new Properties();
+        for (int i = 0; i < VARIABLES; ++i)
+        {
+            properties.setProperty("var" + i, "value" + i);
+        }
+        properties.setProperty("INSTALL_PATH", "/opt/application");
+        substitutor = new VariableSubstitutorImpl(properties);
+
+        text = reference("INSTALL_PATH") + "/lib/" + reference("var1") + "-" + reference("var2") + ".jar:"
+                + reference("unknown");
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < LINES; ++i)
+        {
+            builder.append("line ").append(i).append(": path=").append(reference("INSTALL_PATH"));
+            builder.append(" name=").append(reference("var" + (i % VARIABLES)));
+            builder.append(" $ not a variable\n");
+        }
+        file = builder.toString().getBytes();
+    }
+
+    /**
+     * Substitutes variables in a string.
+     *
+     * @return the substituted string
+     */
+    @Benchmark
+    public String substituteString()
+    {
+        return substitutor.substitute(text, type);
+    }
+
+    /**
+     * Substitutes variables in a file.
+     *
+     * @return the no. of substitutions
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public int substituteStream() throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(file.length);
+        return substitutor.substitute(new ByteArrayInputStream(file), out, type, "UTF-8");
+    }
+
+    /**
+     * Returns a reference to a variable, in the syntax of the substitution type.
+     *
+     * @param name the variable name
+     * @return the variable reference
+     */
+    private String reference(String name)
+    {
+        switch (type)
+        {
+            case TYPE_SHELL:
+                return "%{" + name + "}";
+            case TYPE_ANT:
+                return "@" + name + "@";
+            default:
+                return "${" + name + "}";
+        }
+    }
+}
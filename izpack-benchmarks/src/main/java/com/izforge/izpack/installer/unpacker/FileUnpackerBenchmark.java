@@ -0,0 +1,159 @@
+package com.izforge.izpack.installer.unpacker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.benchmark.NullProgressHandler;
+import com.izforge.izpack.benchmark.SyntheticFiles;
+import com.izforge.izpack.util.IoHelper;
+import com.izforge.izpack.util.Platforms;
+
+
+/**
+ * Measures the time taken by the {@link DefaultFileUnpacker} to extract files from a pack stream to disk.
+ * <p/>
+ * This is the per-file extraction performed by the {@link UnpackerBase} for each file in a pack.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileUnpackerBenchmark
+{
+
+    /**
+     * The shape of the files to unpack.
+     */
+    @Param({"MANY_SMALL", "FEW_LARGE"})
+    public SyntheticFiles.Layout layout;
+
+    /**
+     * The working directory.
+     */
+    private File dir;
+
+    /**
+     * The pack files, in stream order.
+     */
+    private List<PackFile> packFiles;
+
+    /**
+     * The targets of each pack file.
+     */
+    private List<File> targets;
+
+    /**
+     * The serialized pack stream.
+     */
+    private byte[] pack;
+
+    /**
+     * The unpacker.
+     */
+    private FileUnpacker unpacker;
+
+
+    /**
+     * Creates the pack stream and target directories.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Setup
+    public void setUp() throws IOException
+    {
+        dir = SyntheticFiles.createTempDir("izpack-unpacker");
+        File sourceDir = new File(dir, "src");
+        File targetDir = new File(dir, "target");
+        List<File> files = SyntheticFiles.create(sourceDir, layout);
+
+        packFiles = new ArrayList<PackFile>();
+        targets = new ArrayList<File>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        for (File file : files)
+        {
+            File target = new File(new File(targetDir, file.getParentFile().getName()), file.getName());
+            target.getParentFile().mkdirs();
+            packFiles.add(new PackFile(sourceDir, file, target.getPath(), null, OverrideType.OVERRIDE_TRUE, null,
+                                       Blockable.BLOCKABLE_NONE));
+            targets.add(target);
+
+            InputStream in = new FileInputStream(file);
+            try
+            {
+                IoHelper.copyStream(in, out);
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        out.close();
+        pack = bytes.toByteArray();
+
+        Cancellable cancellable = new Cancellable()
+        {
+            @Override
+            public boolean isCancelled()
+            {
+                return false;
+            }
+        };
+        unpacker = new DefaultFileUnpacker(cancellable, new NullProgressHandler(), null, Platforms.LINUX, null);
+    }
+
+    /**
+     * Removes the working directory.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        SyntheticFiles.delete(dir);
+    }
+
+    /**
+     * Unpacks each file in the pack stream to its target.
+     *
+     * @return the no. of files unpacked
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public int unpack() throws Exception
+    {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(pack));
+        int size = packFiles.size();
+        for (int i = 0; i < size; ++i)
+        {
+            unpacker.unpack(packFiles.get(i), in, targets.get(i));
+        }
+        in.close();
+        return size;
+    }
+}
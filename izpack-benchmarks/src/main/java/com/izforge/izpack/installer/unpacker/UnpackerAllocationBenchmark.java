@@ -0,0 +1,169 @@
+package com.izforge.izpack.installer.unpacker;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.Info;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.binding.OsModel;
+import com.izforge.izpack.benchmark.NullProgressHandler;
+import com.izforge.izpack.benchmark.SyntheticFiles;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.rules.RulesEngineImpl;
+import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
+import com.izforge.izpack.data.PackInfo;
+import com.izforge.izpack.installer.data.InstallData;
+import com.izforge.izpack.installer.data.UninstallData;
+import com.izforge.izpack.installer.event.InstallerListeners;
+import com.izforge.izpack.util.Housekeeper;
+import com.izforge.izpack.util.Platforms;
+
+
+/**
+ * Measures the allocation performed by the {@link UnpackerBase} when extracting a pack of many tiny files.
+ * <p/>
+ * This is intended to be run with the GC profiler (<tt>-prof gc</tt>), with logging at its default level.
+ * The <tt>gc.alloc.rate.norm</tt> figure divided by the no. of files gives the allocation per file. No log messages
+ * should be built, and the copy buffer is shared by all files. What remains is the file meta-data, target path
+ * translation and <tt>File</tt> objects, the output stream, and the uninstaller's file list.
+ * <p/>
+ * Each file has an OS constraint matching the current system, so that the constraint checks are performed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UnpackerAllocationBenchmark
+{
+
+    /**
+     * The no. of files in the pack.
+     */
+    @Param({"100000"})
+    public int files;
+
+    /**
+     * The size of each file, in bytes.
+     */
+    @Param({"64"})
+    public int size;
+
+    /**
+     * The working directory.
+     */
+    private File dir;
+
+    /**
+     * The installation data.
+     */
+    private InstallData installData;
+
+    /**
+     * The serialized pack stream.
+     */
+    private byte[] pack;
+
+    /**
+     * The unpacker.
+     */
+    private UnpackerBase unpacker;
+
+
+    /**
+     * Creates the pack stream.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Setup
+    public void setUp() throws IOException
+    {
+        dir = SyntheticFiles.createTempDir("izpack-unpacker");
+        File sourceDir = new File(dir, "src");
+        List<OsModel> constraints = Arrays.asList(new OsModel(null, "unix", null, null, null));
+        PackInfo packInfo = new PackInfo("Core", "core", "The core files", true, false, null, true);
+        for (File file : SyntheticFiles.create(sourceDir, files, size))
+        {
+            String target = "$INSTALL_PATH/" + file.getParentFile().getName() + "/" + file.getName();
+            packInfo.addFile(sourceDir, file, target, constraints, OverrideType.OVERRIDE_TRUE, null,
+                             Blockable.BLOCKABLE_NONE, null, null);
+        }
+        pack = SyntheticFiles.writePack(packInfo);
+
+        installData = new InstallData(new DefaultVariables());
+        Info info = new Info();
+        info.setWriteInstallationInformation(false);
+        installData.setInfo(info);
+        installData.setInstallPath(new File(dir, "target").getPath());
+        installData.setAvailablePacks(Arrays.asList(packInfo.getPack()));
+        installData.setSelectedPacks(Arrays.asList(packInfo.getPack()));
+    }
+
+    /**
+     * Creates the unpacker.
+     * <p/>
+     * A new unpacker and uninstallation data are required for each invocation, as the files unpacked are recorded
+     * for the uninstaller.
+     */
+    @Setup(Level.Invocation)
+    public void setUpUnpacker()
+    {
+        unpacker = new Unpacker(installData, null, new RulesEngineImpl(installData, null),
+                                new VariableSubstitutorImpl(installData.getVariables()), new UninstallData(),
+                                Platforms.LINUX, null, new Housekeeper(), new InstallerListeners())
+        {
+            @Override
+            protected InputStream getPackStream(String name, boolean uninstall)
+            {
+                return new ByteArrayInputStream(pack);
+            }
+        };
+        unpacker.setHandler(new NullProgressHandler());
+    }
+
+    /**
+     * Removes the working directory.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        SyntheticFiles.delete(dir);
+    }
+
+    /**
+     * Unpacks the pack.
+     *
+     * @return the no. of files unpacked
+     */
+    @Benchmark
+    public int unpack()
+    {
+        unpacker.unpack();
+        if (!unpacker.getResult())
+        {
+            throw new IllegalStateException("Failed to unpack");
+        }
+        return files;
+    }
+}
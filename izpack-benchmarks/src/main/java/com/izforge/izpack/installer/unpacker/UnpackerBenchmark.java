@@ -0,0 +1,149 @@
+package com.izforge.izpack.installer.unpacker;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.Info;
+import com.izforge.izpack.benchmark.NullProgressHandler;
+import com.izforge.izpack.benchmark.SyntheticFiles;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.rules.RulesEngineImpl;
+import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
+import com.izforge.izpack.data.PackInfo;
+import com.izforge.izpack.installer.data.InstallData;
+import com.izforge.izpack.installer.data.UninstallData;
+import com.izforge.izpack.installer.event.InstallerListeners;
+import com.izforge.izpack.util.Housekeeper;
+import com.izforge.izpack.util.Platforms;
+
+
+/**
+ * Measures the time taken by the {@link UnpackerBase} to extract a pack to disk.
+ * <p/>
+ * This covers the complete extraction performed by the installer: reading the pack stream, reading the meta-data of
+ * each file, translating its target path, creating directories, recording the file for the uninstaller, and unpacking
+ * its content.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UnpackerBenchmark
+{
+
+    /**
+     * The shape of the files to unpack.
+     */
+    @Param({"MANY_SMALL", "FEW_LARGE"})
+    public SyntheticFiles.Layout layout;
+
+    /**
+     * The working directory.
+     */
+    private File dir;
+
+    /**
+     * The installation data.
+     */
+    private InstallData installData;
+
+    /**
+     * The serialized pack stream.
+     */
+    private byte[] pack;
+
+    /**
+     * The unpacker.
+     */
+    private UnpackerBase unpacker;
+
+
+    /**
+     * Creates the pack stream.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Setup
+    public void setUp() throws IOException
+    {
+        dir = SyntheticFiles.createTempDir("izpack-unpacker");
+        File sourceDir = new File(dir, "src");
+        PackInfo packInfo = SyntheticFiles.createPack(sourceDir, SyntheticFiles.create(sourceDir, layout));
+        pack = SyntheticFiles.writePack(packInfo);
+
+        installData = new InstallData(new DefaultVariables());
+        Info info = new Info();
+        info.setWriteInstallationInformation(false);
+        installData.setInfo(info);
+        installData.setInstallPath(new File(dir, "target").getPath());
+        installData.setAvailablePacks(Arrays.asList(packInfo.getPack()));
+        installData.setSelectedPacks(Arrays.asList(packInfo.getPack()));
+    }
+
+    /**
+     * Creates the unpacker.
+     * <p/>
+     * A new unpacker and uninstallation data are required for each invocation, as the files unpacked are recorded
+     * for the uninstaller. No librarian is required, as no files are blockable.
+     */
+    @Setup(Level.Invocation)
+    public void setUpUnpacker()
+    {
+        unpacker = new Unpacker(installData, null, new RulesEngineImpl(installData, null),
+                                new VariableSubstitutorImpl(installData.getVariables()), new UninstallData(),
+                                Platforms.LINUX, null, new Housekeeper(), new InstallerListeners())
+        {
+            @Override
+            protected InputStream getPackStream(String name, boolean uninstall)
+            {
+                return new ByteArrayInputStream(pack);
+            }
+        };
+        unpacker.setHandler(new NullProgressHandler());
+    }
+
+    /**
+     * Removes the working directory.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        SyntheticFiles.delete(dir);
+    }
+
+    /**
+     * Unpacks the selected packs.
+     *
+     * @return the no. of packs unpacked
+     */
+    @Benchmark
+    public int unpack()
+    {
+        unpacker.unpack();
+        if (!unpacker.getResult())
+        {
+            throw new IllegalStateException("Failed to unpack");
+        }
+        return installData.getSelectedPacks().size();
+    }
+}
@@ -0,0 +1,128 @@
+package com.izforge.izpack.merge.jar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.apache.tools.zip.ZipOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.benchmark.SyntheticFiles;
+import com.izforge.izpack.util.IoHelper;
+
+
+/**
+ * Measures the time taken by {@link JarMerge} to copy a package from a jar into the installer jar, as is done for
+ * panels, listeners and other classes merged by the compiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JarMergeBenchmark
+{
+
+    /**
+     * The no. of entries in each package of the source jar.
+     */
+    private static final int ENTRIES = 500;
+
+    /**
+     * The working directory.
+     */
+    private File dir;
+
+    /**
+     * The source jar.
+     */
+    private File jar;
+
+
+    /**
+     * Creates the source jar.
+     * <p/>
+     * This contains two packages, only one of which is merged.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Setup
+    public void setUp() throws IOException
+    {
+        dir = SyntheticFiles.createTempDir("izpack-merge");
+        List<File> files = SyntheticFiles.create(new File(dir, "src"), ENTRIES, 2048);
+        jar = new File(dir, "source.jar");
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try
+        {
+            for (String path : new String[]{"com/acme/panel/", "com/acme/other/"})
+            {
+                for (File file : files)
+                {
+                    out.putNextEntry(new ZipEntry(path + file.getName()));
+                    InputStream in = new FileInputStream(file);
+                    try
+                    {
+                        IoHelper.copyStream(in, out);
+                    }
+                    finally
+                    {
+                        in.close();
+                    }
+                    out.closeEntry();
+                }
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Removes the working directory.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        SyntheticFiles.delete(dir);
+    }
+
+    /**
+     * Merges a package into a new jar.
+     *
+     * @return the size of the merged jar
+     * @throws IOException for any I/O error
+     */
+    @Benchmark
+    public int merge() throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ZipOutputStream out = new ZipOutputStream(bytes);
+        JarMerge merge = new JarMerge(jar.getPath(), "com/acme/panel/", "com/acme/panel/",
+                                      new HashMap<OutputStream, List<String>>());
+        merge.merge(out);
+        out.close();
+        return bytes.size();
+    }
+}
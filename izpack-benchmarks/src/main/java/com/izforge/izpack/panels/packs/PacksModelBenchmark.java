@@ -0,0 +1,181 @@
+package com.izforge.izpack.panels.packs;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.LocaleDatabase;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.rules.RulesEngineImpl;
+import com.izforge.izpack.installer.data.GUIInstallData;
+import com.izforge.izpack.installer.debugger.Debugger;
+
+
+/**
+ * Measures the time taken by the {@link PacksModel} to resolve pack dependencies and exclude groups.
+ * <p/>
+ * Half of the packs form a dependency chain where each pack depends on the previous two, and the other half are
+ * spread over 10 exclude groups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PacksModelBenchmark
+{
+
+    /**
+     * The no. of packs.
+     */
+    @Param({"500", "5000"})
+    public int packs;
+
+    /**
+     * The installation data.
+     */
+    private GUIInstallData installData;
+
+    /**
+     * The rules engine.
+     */
+    private RulesEngine rules;
+
+    /**
+     * The model, used to measure selection changes.
+     */
+    private PacksModel model;
+
+    /**
+     * The packs panel.
+     */
+    private final PacksPanelInterface panel = new PacksPanelStub();
+
+
+    /**
+     * Creates the packs.
+     */
+    @Setup
+    public void setUp()
+    {
+        installData = new GUIInstallData(new DefaultVariables());
+        rules = new RulesEngineImpl(installData, null);
+        int chain = packs / 2;
+        for (int i = 0; i < chain; ++i)
+        {
+            String[] dependencies = (i == 0) ? new String[0] : (i == 1) ? new String[]{"p0"}
+                    : new String[]{"p" + (i - 1), "p" + (i - 2)};
+            addPack("p" + i, true, null, dependencies);
+        }
+        for (int i = chain; i < packs; ++i)
+        {
+            addPack("q" + i, false, "group" + (i % 10));
+        }
+        model = createModel();
+    }
+
+    /**
+     * Creates a model, which builds the dependency index and resolves the initial selection.
+     *
+     * @return the model
+     */
+    @Benchmark
+    public PacksModel createModel()
+    {
+        return new PacksModel(panel, installData, rules);
+    }
+
+    /**
+     * Deselects and reselects the root of the dependency chain, which disables and re-enables every pack in the
+     * chain.
+     *
+     * @return the state of the last pack in the chain
+     */
+    @Benchmark
+    public Object toggleDependency()
+    {
+        model.setValueAt(0, 0, 0);
+        model.setValueAt(1, 0, 0);
+        return model.getValueAt(packs / 2 - 1, 0);
+    }
+
+    /**
+     * Selects a pack in an exclude group, which deselects the other members of the group.
+     *
+     * @return the no. of selected packs
+     */
+    @Benchmark
+    public int selectExcluded()
+    {
+        model.setValueAt(1, packs / 2, 0);
+        model.setValueAt(1, packs / 2 + 10, 0);
+        return installData.getSelectedPacks().size();
+    }
+
+    /**
+     * Adds a pack to the available packs.
+     *
+     * @param name         the pack name
+     * @param preselected  determines if the pack is selected
+     * @param excludeGroup the pack exclude group. May be <tt>null</tt>
+     * @param dependencies the names of the packs that the pack depends on
+     */
+    private void addPack(String name, boolean preselected, String excludeGroup, String... dependencies)
+    {
+        Pack pack = new Pack(name, name, null, null, (dependencies.length != 0) ? Arrays.asList(dependencies) : null,
+                             false, preselected, false, excludeGroup, true);
+        pack.setSize(1);
+        installData.getAvailablePacks().add(pack);
+        if (preselected)
+        {
+            installData.getSelectedPacks().add(pack);
+        }
+    }
+
+    /**
+     * A packs panel that ignores updates.
+     */
+    private static class PacksPanelStub implements PacksPanelInterface
+    {
+        public LocaleDatabase getLangpack()
+        {
+            return null;
+        }
+
+        public long getBytes()
+        {
+            return 0;
+        }
+
+        public void setBytes(long bytes)
+        {
+        }
+
+        public void showSpaceRequired()
+        {
+        }
+
+        public void showFreeSpace()
+        {
+        }
+
+        public Debugger getDebugger()
+        {
+            return null;
+        }
+    }
+}
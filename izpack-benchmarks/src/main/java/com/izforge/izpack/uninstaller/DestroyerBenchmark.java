@@ -0,0 +1,213 @@
+package com.izforge.izpack.uninstaller;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.event.UninstallerListener;
+import com.izforge.izpack.api.exception.ResourceNotFoundException;
+import com.izforge.izpack.api.handler.AbstractUIProgressHandler;
+import com.izforge.izpack.benchmark.NullProgressHandler;
+import com.izforge.izpack.benchmark.SyntheticFiles;
+import com.izforge.izpack.uninstaller.event.UninstallerListeners;
+import com.izforge.izpack.uninstaller.resource.Executables;
+import com.izforge.izpack.uninstaller.resource.InstallLog;
+import com.izforge.izpack.uninstaller.resource.Resources;
+import com.izforge.izpack.uninstaller.resource.RootScripts;
+import com.izforge.izpack.util.Platforms;
+
+
+/**
+ * Measures the time taken by the {@link Destroyer} to remove an installation.
+ * <p/>
+ * The installation is recreated before each invocation, so this benchmark uses single shot invocations, and
+ * measures deletion both with and without a file listener.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class DestroyerBenchmark
+{
+
+    /**
+     * The no. of installed files.
+     */
+    private static final int FILES = 2000;
+
+    /**
+     * Determines if a file listener is registered.
+     */
+    @Param({"false", "true"})
+    public boolean fileListener;
+
+    /**
+     * The working directory.
+     */
+    private File dir;
+
+    /**
+     * The installation directory.
+     */
+    private File installPath;
+
+    /**
+     * The install log.
+     */
+    private byte[] installLog;
+
+    /**
+     * The executables resource, containing no executables.
+     */
+    private byte[] executables;
+
+
+    /**
+     * Creates the working directory and the <em>executables</em> resource.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        dir = SyntheticFiles.createTempDir("izpack-destroyer");
+        installPath = new File(dir, "install");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeInt(0);
+        out.close();
+        executables = bytes.toByteArray();
+    }
+
+    /**
+     * Creates the installation to remove.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Setup(Level.Invocation)
+    public void install() throws IOException
+    {
+        List<File> files = SyntheticFiles.create(installPath, FILES, 512);
+        StringBuilder log = new StringBuilder(installPath.getPath()).append('\n');
+        File lastParent = null;
+        for (File file : files)
+        {
+            File parent = file.getParentFile();
+            if (!parent.equals(lastParent))
+            {
+                log.append(parent.getPath()).append('\n');
+                lastParent = parent;
+            }
+            log.append(file.getPath()).append('\n');
+        }
+        installLog = log.toString().getBytes();
+    }
+
+    /**
+     * Removes the working directory.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        SyntheticFiles.delete(dir);
+    }
+
+    /**
+     * Removes the installation.
+     *
+     * @return <tt>true</tt> if the installation directory was removed
+     */
+    @Benchmark
+    public boolean destroy()
+    {
+        Resources resources = new Resources()
+        {
+            @Override
+            public InputStream getInputStream(String name)
+            {
+                if ("install.log".equals(name))
+                {
+                    return new ByteArrayInputStream(installLog);
+                }
+                else if ("executables".equals(name))
+                {
+                    return new ByteArrayInputStream(executables);
+                }
+                throw new ResourceNotFoundException("Resource not found: " + name);
+            }
+        };
+        AbstractUIProgressHandler handler = new NullProgressHandler();
+        UninstallerListeners listeners = new UninstallerListeners();
+        if (fileListener)
+        {
+            listeners.add(new FileListener());
+        }
+        Destroyer destroyer = new Destroyer(handler, new InstallLog(resources), listeners,
+                                            new Executables(resources, handler),
+                                            new RootScripts(resources, Platforms.WINDOWS));
+        destroyer.run();
+        return !installPath.exists();
+    }
+
+    /**
+     * A listener that is notified of each file deleted.
+     */
+    private static class FileListener implements UninstallerListener
+    {
+
+        /**
+         * The no. of files notified.
+         */
+        private int count;
+
+        @Override
+        public void beforeDeletion(List<File> files, AbstractUIProgressHandler handler) throws Exception
+        {
+        }
+
+        @Override
+        public boolean isFileListener()
+        {
+            return true;
+        }
+
+        @Override
+        public void beforeDelete(File file, AbstractUIProgressHandler handler) throws Exception
+        {
+            ++count;
+        }
+
+        @Override
+        public void afterDelete(File file, AbstractUIProgressHandler handler) throws Exception
+        {
+            ++count;
+        }
+
+        @Override
+        public void afterDeletion(List<File> files, AbstractUIProgressHandler handler) throws Exception
+        {
+        }
+    }
+}
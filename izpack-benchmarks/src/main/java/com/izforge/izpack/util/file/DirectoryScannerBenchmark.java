@@ -0,0 +1,109 @@
+package com.izforge.izpack.util.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.benchmark.SyntheticFiles;
+
+
+/**
+ * Measures the time taken by the {@link DirectoryScanner} to select files with include and exclude patterns, as
+ * is done for <em>fileset</em> elements by the compiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DirectoryScannerBenchmark
+{
+
+    /**
+     * The no. of files to scan.
+     */
+    private static final int FILES = 5000;
+
+    /**
+     * The working directory.
+     */
+    private File dir;
+
+
+    /**
+     * Creates the files to scan.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Setup
+    public void setUp() throws IOException
+    {
+        dir = SyntheticFiles.createTempDir("izpack-scanner");
+        SyntheticFiles.create(dir, FILES, 16);
+    }
+
+    /**
+     * Removes the working directory.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        SyntheticFiles.delete(dir);
+    }
+
+    /**
+     * Scans all files.
+     *
+     * @return the no. of included files
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public int scanAll() throws Exception
+    {
+        return scan(new String[]{"**/*"}, null);
+    }
+
+    /**
+     * Scans with include and exclude patterns.
+     *
+     * @return the no. of included files
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public int scanPatterns() throws Exception
+    {
+        return scan(new String[]{"dir1*/**", "**/file*0.dat"}, new String[]{"**/dir1/**", "**/*5?.dat"});
+    }
+
+    /**
+     * Scans the working directory.
+     *
+     * @param includes the include patterns
+     * @param excludes the exclude patterns. May be <tt>null</tt>
+     * @return the no. of included files
+     * @throws Exception for any error
+     */
+    private int scan(String[] includes, String[] excludes) throws Exception
+    {
+        DirectoryScanner scanner = new DirectoryScanner();
+        scanner.setBasedir(dir);
+        scanner.setIncludes(includes);
+        scanner.setExcludes(excludes);
+        scanner.addDefaultExcludes();
+        scanner.scan();
+        return scanner.getIncludedFilesCount();
+    }
+}
@@ -46,6 +46,7 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -100,6 +101,8 @@ import com.izforge.izpack.compiler.listener.CompilerListener;
 import com.izforge.izpack.compiler.merge.resolve.ClassPathCrawler;
 import com.izforge.izpack.compiler.merge.resolve.CompilerPathResolver;
 import com.izforge.izpack.compiler.packager.IPackager;
+import com.izforge.izpack.compiler.profile.BuildProfileWriter;
+import com.izforge.izpack.compiler.profile.BuildProfiler;
 import com.izforge.izpack.compiler.resource.ResourceFinder;
 import com.izforge.izpack.core.data.DynamicInstallerRequirementValidatorImpl;
 import com.izforge.izpack.core.data.DynamicVariableImpl;
@@ -182,6 +185,11 @@ public class CompilerConfig extends Thread
     private ClassPathCrawler classPathCrawler;
     private RulesEngine rules;
 
+    /**
+     * The build profiler.
+     */
+    private final BuildProfiler profiler;
+
     /**
      * The factory for {@link CompilerListener} instances.
      */
@@ -206,12 +214,13 @@ public class CompilerConfig extends Thread
      * Constructor
      *
      * @param compilerData Object containing all informations found in command line
+     * @param profiler     the build profiler
      */
     public CompilerConfig(CompilerData compilerData, VariableSubstitutor variableSubstitutor, Compiler compiler,
                           XmlCompilerHelper xmlCompilerHelper, PropertyManager propertyManager,
                           MergeManager mergeManager, AssertionHelper assertionHelper, ClassPathCrawler classPathCrawler,
                           RulesEngine rules, CompilerPathResolver pathResolver, ResourceFinder resourceFinder,
-                          ObjectFactory factory)
+                          ObjectFactory factory, BuildProfiler profiler)
     {
         this.assertionHelper = assertionHelper;
         this.rules = rules;
@@ -225,6 +234,7 @@ public class CompilerConfig extends Thread
         this.pathResolver = pathResolver;
         this.resourceFinder = resourceFinder;
         this.factory = factory;
+        this.profiler = profiler;
     }
 
     /**
@@ -249,10 +259,28 @@ public class CompilerConfig extends Thread
 
     /**
      * Compiles the installation.
+     * <p/>
+     * If {@link CompilerData#getProfileDir()} is set, a build profiling report is written to that directory once
+     * the installer has been created.
      *
      * @throws Exception Description of the Exception
      */
     public void executeCompiler() throws Exception
+    {
+        profiler.start();
+        compile();
+        if (profiler.isEnabled())
+        {
+            writeProfile();
+        }
+    }
+
+    /**
+     * Compiles the installation, recording the completion of each phase.
+     *
+     * @throws Exception for any error
+     */
+    private void compile() throws Exception
     {
         // normalize and test: TODO: may allow failure if we require write
         // access
@@ -268,39 +296,89 @@ public class CompilerConfig extends Thread
 
         // We get the XML data tree
         IXMLElement data = resourceFinder.getXMLTree();
+        profiler.mark("getXMLTree");
 
         // construct compiler listeners to receive all further compiler events
         addCompilerListeners(data);
+        profiler.mark("addCompilerListeners");
 
         // loads the specified packager
         loadPackagingInformation(data);
+        profiler.mark("loadPackagingInformation");
 
         // Read the properties and perform replacement on the rest of the tree
         substituteProperties(data);
+        profiler.mark("substituteProperties");
 
         // We add all the information
         addVariables(data);
+        profiler.mark("addVariables");
         addDynamicVariables(data);
+        profiler.mark("addDynamicVariables");
         addDynamicInstallerRequirement(data);
+        profiler.mark("addDynamicInstallerRequirement");
         addConditions(data);
+        profiler.mark("addConditions");
         addInfo(data);
+        profiler.mark("addInfo");
         addGUIPrefs(data);
+        profiler.mark("addGUIPrefs");
         addLangpacks(data);
+        profiler.mark("addLangpacks");
         addResources(data);
+        profiler.mark("addResources");
         addNativeLibraries(data);
+        profiler.mark("addNativeLibraries");
         addJars(data);
+        profiler.mark("addJars");
         addPanelJars(data);
+        profiler.mark("addPanelJars");
         addListenerJars(data);
+        profiler.mark("addListenerJars");
         addPanels(data);
+        profiler.mark("addPanels");
         addListeners(data);
+        profiler.mark("addListeners");
         addPacks(data);
+        profiler.mark("addPacks");
         addInstallerRequirement(data);
+        profiler.mark("addInstallerRequirement");
 
         // merge multiple packlang.xml files
         mergePacksLangFiles();
+        profiler.mark("mergePacksLangFiles");
 
         // We ask the packager to create the installer
         compiler.createInstaller();
+        profiler.mark("createInstaller");
+    }
+
+    /**
+     * Writes the build profiling report to {@link CompilerData#getProfileDir()}.
+     * <p/>
+     * Failure to write the report is logged, but does not fail the build.
+     */
+    private void writeProfile()
+    {
+        Map<String, String> info = new LinkedHashMap<String, String>();
+        info.put("installFile", compilerData.getInstallFile());
+        info.put("output", compilerData.getOutput());
+        info.put("kind", compilerData.getKind());
+        info.put("compression", compilerData.getComprFormat());
+        info.put("compressionLevel", Integer.toString(compilerData.getComprLevel()));
+        info.put("assemblyThreads", Integer.toString(compilerData.getAssemblyThreads()));
+        info.put("izpackVersion", CompilerData.IZPACK_VERSION);
+        info.put("java.version", System.getProperty("java.version"));
+        List<PackInfo> packs = (packager != null) ? packager.getPacksList() : new ArrayList<PackInfo>();
+        try
+        {
+            File file = new BuildProfileWriter().write(compilerData.getProfileDir(), info, profiler, packs);
+            logger.info("Build profile written to: " + file.getParent());
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.WARNING, "Failed to write build profile to: " + compilerData.getProfileDir(), exception);
+        }
     }
 
     /**
@@ -852,7 +930,9 @@ public class CompilerConfig extends Thread
             String[] files;
             try
             {
+                long start = profiler.startTimer();
                 ds.scan();
+                profiler.stopTimer("scan.directory", start);
 
                 files = ds.getIncludedFiles();
                 for (String file : files)
@@ -1284,7 +1364,9 @@ public class CompilerConfig extends Thread
         directoryScanner.setCaseSensitive(casesensitive);
         try
         {
+            long start = profiler.startTimer();
             directoryScanner.scan();
+            profiler.stopTimer("scan.directory", start);
 
             String[] files = directoryScanner.getIncludedFiles();
             String[] dirs = directoryScanner.getIncludedDirectories();
@@ -1494,6 +1576,7 @@ public class CompilerConfig extends Thread
             panel.setPanelid(id);
             String condition = panelElement.getAttribute("condition");
             panel.setCondition(condition);
+            panel.setHidden(Boolean.parseBoolean(panelElement.getAttribute("hidden")));
 
             // note - all jars must be added to the classpath prior to invoking this
             className = compiler.findClass(className, getPanelJarURL(panelElement));
@@ -0,0 +1,464 @@
+package com.izforge.izpack.compiler.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.api.exception.IzPackException;
+import com.izforge.izpack.util.IoHelper;
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * A persistent cache used to build installers incrementally.
+ * <p/>
+ * The cache directory holds:
+ * <ul>
+ * <li>the content hash of each input file, keyed on its path, length and last modified time, so that unchanged
+ * files needn't be re-read to determine if they have changed</li>
+ * <li>blocks, i.e. the output generated from a set of inputs, keyed on a hash of those inputs. These are used to
+ * store serialized packs and pack200 compressed jars.</li>
+ * </ul>
+ * Blocks that aren't used during a build are removed when the cache is {@link #save saved}.
+ * <p/>
+ * Files may be hashed and blocks accessed concurrently, so that pack200 compression can be performed on multiple
+ * threads.
+ */
+public class BuildCache
+{
+
+    /**
+     * The cache directory.
+     */
+    private final File dir;
+
+    /**
+     * The file hashes loaded from the index, keyed on absolute path.
+     */
+    private final Map<String, FileHash> previous = new HashMap<String, FileHash>();
+
+    /**
+     * The file hashes used during the build, keyed on absolute path.
+     */
+    private final Map<String, FileHash> hashes = new LinkedHashMap<String, FileHash>();
+
+    /**
+     * The keys of the blocks used during the build.
+     */
+    private final Set<String> used = Collections.synchronizedSet(new HashSet<String>());
+
+    /**
+     * The name of the file hash index.
+     */
+    private static final String INDEX = "files.index";
+
+    /**
+     * The index format version.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The block file suffix.
+     */
+    private static final String BLOCK_SUFFIX = ".block";
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(BuildCache.class.getName());
+
+
+    /**
+     * Constructs a <tt>BuildCache</tt>, loading any existing index.
+     *
+     * @param dir the cache directory. Created if it doesn't exist
+     * @throws IOException if the directory cannot be created
+     */
+    public BuildCache(File dir) throws IOException
+    {
+        this.dir = dir;
+        if (!dir.isDirectory() && !dir.mkdirs())
+        {
+            throw new IOException("Failed to create build cache directory: " + dir);
+        }
+        load();
+    }
+
+    /**
+     * Returns the cache directory.
+     *
+     * @return the cache directory
+     */
+    public File getDirectory()
+    {
+        return dir;
+    }
+
+    /**
+     * Returns the content hash of a file.
+     * <p/>
+     * The file is only read if it is new, or its length or last modified time has changed since it was last hashed.
+     *
+     * @param file the file
+     * @return the hash of the file's content
+     * @throws IOException for any I/O error
+     */
+    public String getHash(File file) throws IOException
+    {
+        String path = file.getAbsolutePath();
+        long length = file.length();
+        long lastModified = file.lastModified();
+        FileHash hash;
+        synchronized (hashes)
+        {
+            hash = hashes.get(path);
+            if (hash == null)
+            {
+                hash = previous.get(path);
+            }
+        }
+        if (hash == null || hash.length != length || hash.lastModified != lastModified)
+        {
+            MessageDigest digest = createDigest();
+            InputStream in = new FileInputStream(file);
+            try
+            {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1)
+                {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            finally
+            {
+                FileUtils.close(in);
+            }
+            hash = new FileHash(length, lastModified, toHex(digest.digest()));
+        }
+        synchronized (hashes)
+        {
+            hashes.put(path, hash);
+        }
+        return hash.hash;
+    }
+
+    /**
+     * Determines if a block exists.
+     * <p/>
+     * If so, the block is marked as used.
+     *
+     * @param key the block key
+     * @return <tt>true</tt> if the block exists
+     */
+    public boolean hasBlock(String key)
+    {
+        boolean result = getBlockFile(key).isFile();
+        if (result)
+        {
+            used.add(key);
+        }
+        return result;
+    }
+
+    /**
+     * Copies a block to a stream.
+     *
+     * @param key the block key
+     * @param out the stream to copy to
+     * @throws IOException for any I/O error
+     */
+    public void copyBlock(String key, OutputStream out) throws IOException
+    {
+        InputStream in = new FileInputStream(getBlockFile(key));
+        try
+        {
+            IoHelper.copyStream(in, out);
+        }
+        finally
+        {
+            FileUtils.close(in);
+        }
+        used.add(key);
+    }
+
+    /**
+     * Returns a stream to read a block.
+     *
+     * @param key the block key
+     * @return a stream to read the block
+     * @throws IOException for any I/O error
+     */
+    public DataInputStream readBlock(String key) throws IOException
+    {
+        used.add(key);
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(getBlockFile(key))));
+    }
+
+    /**
+     * Returns a stream to write a block.
+     * <p/>
+     * The block is written to a temporary file, and only becomes visible once {@link BlockOutputStream#commit()}
+     * is invoked.
+     *
+     * @param key the block key
+     * @return a stream to write the block
+     * @throws IOException for any I/O error
+     */
+    public BlockOutputStream writeBlock(String key) throws IOException
+    {
+        used.add(key);
+        return new BlockOutputStream(getBlockFile(key));
+    }
+
+    /**
+     * Saves the hashes of the files used during the build, and removes blocks that weren't used.
+     */
+    public void save()
+    {
+        File[] files = dir.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                String name = file.getName();
+                if (name.endsWith(BLOCK_SUFFIX)
+                        && !used.contains(name.substring(0, name.length() - BLOCK_SUFFIX.length())))
+                {
+                    if (!file.delete())
+                    {
+                        logger.warning("Failed to remove stale build cache block: " + file);
+                    }
+                }
+            }
+        }
+
+        DataOutputStream out = null;
+        try
+        {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(dir, INDEX))));
+            out.writeInt(VERSION);
+            out.writeInt(hashes.size());
+            for (Map.Entry<String, FileHash> entry : hashes.entrySet())
+            {
+                FileHash hash = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(hash.length);
+                out.writeLong(hash.lastModified);
+                out.writeUTF(hash.hash);
+            }
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.WARNING, "Failed to save build cache index", exception);
+        }
+        finally
+        {
+            FileUtils.close(out);
+        }
+    }
+
+    /**
+     * Creates a message digest for computing keys.
+     *
+     * @return a new message digest
+     */
+    public static MessageDigest createDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException exception)
+        {
+            throw new IzPackException(exception);
+        }
+    }
+
+    /**
+     * Converts a digest to a hexadecimal string.
+     *
+     * @param digest the digest
+     * @return the hexadecimal form of the digest
+     */
+    public static String toHex(byte[] digest)
+    {
+        StringBuilder result = new StringBuilder(digest.length * 2);
+        for (byte b : digest)
+        {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16));
+            result.append(Character.forDigit(b & 0xF, 16));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Loads the file hash index.
+     * <p/>
+     * An unreadable index is discarded; it simply means that files will be re-hashed.
+     */
+    private void load()
+    {
+        File file = new File(dir, INDEX);
+        if (file.isFile())
+        {
+            DataInputStream in = null;
+            try
+            {
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+                if (in.readInt() == VERSION)
+                {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; ++i)
+                    {
+                        String path = in.readUTF();
+                        long length = in.readLong();
+                        long lastModified = in.readLong();
+                        previous.put(path, new FileHash(length, lastModified, in.readUTF()));
+                    }
+                }
+            }
+            catch (IOException exception)
+            {
+                logger.log(Level.WARNING, "Discarding unreadable build cache index: " + file, exception);
+            }
+            finally
+            {
+                FileUtils.close(in);
+            }
+        }
+    }
+
+    /**
+     * Returns the file for a block.
+     *
+     * @param key the block key
+     * @return the block file
+     */
+    private File getBlockFile(String key)
+    {
+        return new File(dir, key + BLOCK_SUFFIX);
+    }
+
+    /**
+     * A stream to write a block.
+     */
+    public static class BlockOutputStream extends DataOutputStream
+    {
+
+        /**
+         * The block file.
+         */
+        private final File file;
+
+        /**
+         * The temporary file being written.
+         */
+        private final File tmp;
+
+        /**
+         * Constructs a <tt>BlockOutputStream</tt>.
+         *
+         * @param file the block file
+         * @throws IOException for any I/O error
+         */
+        private BlockOutputStream(File file) throws IOException
+        {
+            this(file, File.createTempFile("block", ".tmp", file.getParentFile()));
+        }
+
+        /**
+         * Constructs a <tt>BlockOutputStream</tt>.
+         *
+         * @param file the block file
+         * @param tmp  the temporary file to write to
+         * @throws IOException for any I/O error
+         */
+        private BlockOutputStream(File file, File tmp) throws IOException
+        {
+            super(new BufferedOutputStream(new FileOutputStream(tmp)));
+            this.file = file;
+            this.tmp = tmp;
+        }
+
+        /**
+         * Closes the stream, and makes the block visible.
+         *
+         * @throws IOException if the block cannot be committed
+         */
+        public void commit() throws IOException
+        {
+            close();
+            if (file.exists() && !file.delete() || !tmp.renameTo(file))
+            {
+                discard();
+                throw new IOException("Failed to write build cache block: " + file);
+            }
+        }
+
+        /**
+         * Closes the stream, and discards the block.
+         */
+        public void discard()
+        {
+            FileUtils.close(this);
+            if (tmp.exists() && !tmp.delete())
+            {
+                logger.warning("Failed to delete: " + tmp);
+            }
+        }
+    }
+
+    /**
+     * The hash of a file.
+     */
+    private static class FileHash
+    {
+
+        /**
+         * The file length.
+         */
+        private final long length;
+
+        /**
+         * The file last modified time.
+         */
+        private final long lastModified;
+
+        /**
+         * The content hash.
+         */
+        private final String hash;
+
+        /**
+         * Constructs a <tt>FileHash</tt>.
+         *
+         * @param length       the file length
+         * @param lastModified the file last modified time
+         * @param hash         the content hash
+         */
+        public FileHash(long length, long lastModified, String hash)
+        {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+}
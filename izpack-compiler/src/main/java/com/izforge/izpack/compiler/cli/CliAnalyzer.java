@@ -5,6 +5,7 @@ import com.izforge.izpack.compiler.exception.HelpRequestedException;
 import com.izforge.izpack.compiler.exception.NoArgumentException;
 import org.apache.commons.cli.*;
 
+import java.io.File;
 import java.util.List;
 
 
@@ -20,6 +21,7 @@ public class CliAnalyzer {
     private static final String ARG_OUTPUT = "o";
     private static final String ARG_COMPRESSION_FORMAT = "c";
     private static final String ARG_COMPRESSION_LEVEL = "l";
+    private static final String ARG_PROFILE = "p";
 
 
     /**
@@ -41,6 +43,8 @@ public class CliAnalyzer {
                 "default is the internal deflate compression\n");
         options.addOption(ARG_COMPRESSION_LEVEL, true, "compression-level : indicates the level for the used compression format"
                 + " if supported. Only integer are valid\n");
+        options.addOption(ARG_PROFILE, true, "profile : directory to write a build profiling report to, as "
+                + "izpack-profile.json and izpack-profile.html\n");
         return options;
     }
 
@@ -145,6 +149,9 @@ public class CliAnalyzer {
         if (commandLine.hasOption(ARG_KIND)) {
             compilerData.setKind(commandLine.getOptionValue(ARG_KIND).trim());
         }
+        if (commandLine.hasOption(ARG_PROFILE)) {
+            compilerData.setProfileDir(new File(commandLine.getOptionValue(ARG_PROFILE).trim()));
+        }
 
         return compilerData;
     }
@@ -22,6 +22,7 @@ import com.izforge.izpack.compiler.data.PropertyManager;
 import com.izforge.izpack.compiler.helper.AssertionHelper;
 import com.izforge.izpack.compiler.helper.CompilerHelper;
 import com.izforge.izpack.compiler.listener.CmdlinePackagerListener;
+import com.izforge.izpack.compiler.profile.BuildProfiler;
 import com.izforge.izpack.compiler.resource.ResourceFinder;
 import com.izforge.izpack.core.container.AbstractContainer;
 import com.izforge.izpack.core.factory.DefaultObjectFactory;
@@ -76,6 +77,7 @@ public class CompilerContainer extends AbstractContainer
         addComponent(Compiler.class);
         addComponent(ResourceFinder.class);
         addComponent(CompilerConfig.class);
+        addComponent(BuildProfiler.class);
         addComponent(ConditionContainer.class, ConditionContainer.class);
         addComponent(AssertionHelper.class);
         addComponent(PropertyManager.class);
@@ -70,6 +70,21 @@ public class CompilerData
      */
     private int comprLevel = -1;
 
+    /**
+     * The incremental build cache directory. If <tt>null</tt>, installers are built from scratch.
+     */
+    private File cacheDir;
+
+    /**
+     * The number of threads used to prepare installer jar entries.
+     */
+    private int assemblyThreads = 1;
+
+    /**
+     * The directory to write the build profiling report to. If <tt>null</tt>, no report is written.
+     */
+    private File profileDir;
+
     /**
      * External Information
      */
@@ -206,6 +221,76 @@ public class CompilerData
         this.comprLevel = comprLevel;
     }
 
+    /**
+     * Returns the incremental build cache directory.
+     *
+     * @return the cache directory, or <tt>null</tt> if installers are built from scratch
+     */
+    public File getCacheDir()
+    {
+        return cacheDir;
+    }
+
+    /**
+     * Sets the incremental build cache directory.
+     * <p/>
+     * When set, the content hashes of input files, serialized packs and pack200 compressed jars are cached, so that
+     * only packs whose inputs have changed need to be regenerated.
+     *
+     * @param cacheDir the cache directory. May be <tt>null</tt>
+     */
+    public void setCacheDir(File cacheDir)
+    {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Returns the number of threads used to prepare installer jar entries.
+     *
+     * @return the number of threads. If <tt>1</tt>, entries are prepared by the thread writing the installer
+     */
+    public int getAssemblyThreads()
+    {
+        return assemblyThreads;
+    }
+
+    /**
+     * Sets the number of threads used to prepare installer jar entries.
+     * <p/>
+     * Installer resources and pack200 compressed jars are then read and compressed concurrently, and appended to
+     * the installer in a deterministic order, so the installer is the same regardless of the number of threads.
+     *
+     * @param assemblyThreads the number of threads. If <tt>&lt;= 0</tt>, one thread per available processor is used
+     */
+    public void setAssemblyThreads(int assemblyThreads)
+    {
+        this.assemblyThreads = (assemblyThreads <= 0) ? Runtime.getRuntime().availableProcessors() : assemblyThreads;
+    }
+
+    /**
+     * Returns the directory to write the build profiling report to.
+     *
+     * @return the profile directory, or <tt>null</tt> if no report is written
+     */
+    public File getProfileDir()
+    {
+        return profileDir;
+    }
+
+    /**
+     * Sets the directory to write the build profiling report to.
+     * <p/>
+     * When set, the compiler records the time spent in each phase, the bytes written and compression achieved per
+     * pack and compressor, the largest files and the time spent merging jars and scanning directories, and writes
+     * them to <em>izpack-profile.json</em> and <em>izpack-profile.html</em> in this directory.
+     *
+     * @param profileDir the profile directory. May be <tt>null</tt>
+     */
+    public void setProfileDir(File profileDir)
+    {
+        this.profileDir = profileDir;
+    }
+
     public Info getExternalInfo()
     {
         return this.externalInfo;
@@ -0,0 +1,347 @@
+package com.izforge.izpack.compiler.packager.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import com.izforge.izpack.compiler.stream.JarOutputStream;
+
+
+/**
+ * Assembles installer jar entries whose content is expensive to produce.
+ * <p/>
+ * With multiple threads, each {@link Part} is prepared on a worker pool, while parts are written to the jar by the
+ * thread that adds them, in the order they were added. The jar is therefore identical regardless of the number of
+ * threads. With a single thread, parts aren't prepared, but stream their content directly to the jar as they are
+ * added, so nothing is buffered.
+ * <p/>
+ * To bound memory use, at most two prepared parts per thread are held before the oldest is written.
+ * Once all parts have been added, the assembler must be {@link #flush() flushed} and {@link #close() closed}.
+ * <p/>
+ * Packs are not assembled this way: files shared between packs are written once and referenced by offset from
+ * later packs, and all packs are written through the single compressing stream that decorates the installer jar,
+ * so each pack depends on the ones written before it.
+ */
+class EntryAssembler
+{
+
+    /**
+     * Produces the content of a single entry.
+     */
+    public interface Content
+    {
+
+        /**
+         * Writes the content.
+         *
+         * @param out the stream to write to. This must not be closed
+         * @throws IOException for any I/O error
+         */
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * One or more entries of the installer jar.
+     */
+    public abstract static class Part
+    {
+
+        /**
+         * Prepares the entries on a worker thread, buffering their content so that {@link #write} doesn't have to
+         * produce it.
+         *
+         * @throws IOException for any I/O error
+         */
+        protected abstract void prepare() throws IOException;
+
+        /**
+         * Writes the entries to the jar.
+         * <p/>
+         * If the part hasn't been prepared, its content is produced as it is written.
+         *
+         * @param jar the installer jar
+         * @throws IOException for any I/O error
+         */
+        protected abstract void write(JarOutputStream jar) throws IOException;
+    }
+
+    /**
+     * The installer jar.
+     */
+    private final JarOutputStream jar;
+
+    /**
+     * The worker pool, or <tt>null</tt> if parts are written as they are added.
+     */
+    private final ExecutorService workers;
+
+    /**
+     * The maximum number of parts being prepared, or waiting to be written.
+     */
+    private final int window;
+
+    /**
+     * The parts being prepared, in the order they were added.
+     */
+    private final LinkedList<Pending> pending = new LinkedList<Pending>();
+
+
+    /**
+     * Constructs an <tt>EntryAssembler</tt>.
+     *
+     * @param jar     the installer jar
+     * @param threads the number of worker threads. If <tt>&lt;= 1</tt>, parts are written as they are added
+     */
+    public EntryAssembler(JarOutputStream jar, int threads)
+    {
+        this.jar = jar;
+        if (threads > 1)
+        {
+            workers = Executors.newFixedThreadPool(threads, new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "IzPack assembler");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            window = threads * 2;
+        }
+        else
+        {
+            workers = null;
+            window = 0;
+        }
+    }
+
+    /**
+     * Adds an entry.
+     *
+     * @param name    the entry name
+     * @param time    the entry modification time, or <tt>-1</tt> if it is unknown
+     * @param content produces the entry content
+     * @throws IOException for any I/O error
+     */
+    public void add(String name, long time, Content content) throws IOException
+    {
+        add(new EntryPart(name, time, content));
+    }
+
+    /**
+     * Adds a part.
+     *
+     * @param part the part
+     * @throws IOException for any I/O error
+     */
+    public void add(final Part part) throws IOException
+    {
+        if (workers == null)
+        {
+            part.write(jar);
+            return;
+        }
+        FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>()
+        {
+            public Object call() throws IOException
+            {
+                part.prepare();
+                return null;
+            }
+        });
+        pending.add(new Pending(part, task));
+        workers.execute(task);
+        while (pending.size() > window)
+        {
+            writeNext();
+        }
+    }
+
+    /**
+     * Writes all pending parts.
+     *
+     * @throws IOException for any I/O error
+     */
+    public void flush() throws IOException
+    {
+        while (!pending.isEmpty())
+        {
+            writeNext();
+        }
+    }
+
+    /**
+     * Discards any parts that haven't been written, and releases the worker pool.
+     */
+    public void close()
+    {
+        for (Pending part : pending)
+        {
+            part.prepared.cancel(true);
+        }
+        pending.clear();
+        if (workers != null)
+        {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes the oldest pending part, waiting for it to be prepared.
+     *
+     * @throws IOException for any I/O error
+     */
+    private void writeNext() throws IOException
+    {
+        Pending next = pending.removeFirst();
+        waitFor(next);
+        next.part.write(jar);
+    }
+
+    /**
+     * Waits for a part to be prepared.
+     *
+     * @param pending the pending part
+     * @throws IOException if the part could not be prepared
+     */
+    private void waitFor(Pending pending) throws IOException
+    {
+        try
+        {
+            pending.prepared.get();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while preparing " + pending.part, exception);
+        }
+        catch (ExecutionException exception)
+        {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Failed to prepare " + pending.part, cause);
+        }
+    }
+
+    /**
+     * A single entry.
+     */
+    private static class EntryPart extends Part
+    {
+
+        /**
+         * The entry name.
+         */
+        private final String name;
+
+        /**
+         * The entry modification time, or <tt>-1</tt> if it is unknown.
+         */
+        private final long time;
+
+        /**
+         * Produces the entry content.
+         */
+        private final Content content;
+
+        /**
+         * The prepared content, or <tt>null</tt> if the entry hasn't been prepared.
+         */
+        private byte[] prepared;
+
+
+        /**
+         * Constructs an <tt>EntryPart</tt>.
+         *
+         * @param name    the entry name
+         * @param time    the entry modification time, or <tt>-1</tt> if it is unknown
+         * @param content produces the entry content
+         */
+        public EntryPart(String name, long time, Content content)
+        {
+            this.name = name;
+            this.time = time;
+            this.content = content;
+        }
+
+        @Override
+        protected void prepare() throws IOException
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            content.write(out);
+            prepared = out.toByteArray();
+        }
+
+        @Override
+        protected void write(JarOutputStream jar) throws IOException
+        {
+            org.apache.tools.zip.ZipEntry zipEntry = new org.apache.tools.zip.ZipEntry(name);
+            if (time != -1)
+            {
+                zipEntry.setTime(time);
+            }
+            jar.putNextEntry(zipEntry);
+            if (prepared != null)
+            {
+                jar.write(prepared);
+                prepared = null;
+            }
+            else
+            {
+                content.write(jar);
+            }
+            jar.closeEntry();
+        }
+
+        @Override
+        public String toString()
+        {
+            return "entry \"" + name + "\"";
+        }
+    }
+
+    /**
+     * A part being prepared.
+     */
+    private static class Pending
+    {
+
+        /**
+         * The part.
+         */
+        private final Part part;
+
+        /**
+         * Completes when the part has been prepared.
+         */
+        private final Future<?> prepared;
+
+
+        /**
+         * Constructs a <tt>Pending</tt>.
+         *
+         * @param part     the part
+         * @param prepared completes when the part has been prepared
+         */
+        public Pending(Part part, Future<?> prepared)
+        {
+            this.part = part;
+            this.prepared = prepared;
+        }
+    }
+}
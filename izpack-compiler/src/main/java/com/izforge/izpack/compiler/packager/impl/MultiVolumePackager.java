@@ -24,6 +24,7 @@ import java.io.ObjectOutputStream;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.commons.io.FileUtils;
@@ -37,8 +38,10 @@ import com.izforge.izpack.compiler.compressor.PackCompressor;
 import com.izforge.izpack.compiler.data.CompilerData;
 import com.izforge.izpack.compiler.listener.PackagerListener;
 import com.izforge.izpack.compiler.merge.resolve.CompilerPathResolver;
+import com.izforge.izpack.compiler.profile.BuildProfiler;
 import com.izforge.izpack.compiler.stream.JarOutputStream;
 import com.izforge.izpack.core.io.FileSpanningOutputStream;
+import com.izforge.izpack.core.io.PackFileWriter;
 import com.izforge.izpack.data.ExecutableFile;
 import com.izforge.izpack.data.PackInfo;
 import com.izforge.izpack.data.ParsableFile;
@@ -112,14 +115,15 @@ public class MultiVolumePackager extends PackagerBase
      * @param mergeableResolver the mergeable resolver
      * @param compressor        the pack compressor
      * @param compilerData      the compiler data
+     * @param profiler          the build profiler. May be <tt>null</tt>
      */
     public MultiVolumePackager(Properties properties, PackagerListener listener, JarOutputStream installerJar,
                                MergeManager mergeManager, CompilerPathResolver pathResolver,
                                MergeableResolver mergeableResolver, PackCompressor compressor,
-                               CompilerData compilerData)
+                               CompilerData compilerData, BuildProfiler profiler)
     {
         super(properties, listener, installerJar, mergeManager, pathResolver, mergeableResolver, compressor,
-              compilerData);
+              compilerData, profiler);
     }
 
     /**
@@ -266,7 +270,11 @@ public class MultiVolumePackager extends PackagerBase
         installerJar.putNextEntry(entry);
         ObjectOutputStream packStream = new ObjectOutputStream(installerJar);
 
+        long start = startTimer();
+        long position = volumes.getFilePointer();
         writePackFiles(packInfo, volumes, pack, packStream, targetDir);
+        long written = volumes.getFilePointer() - position;
+        recordPack(name, null, start, written, written);
 
         // Write out information about parsable files
         packStream.writeInt(packInfo.getParsables().size());
@@ -310,13 +318,17 @@ public class MultiVolumePackager extends PackagerBase
     {
         // write the file meta-data
         Set<PackFile> files = packInfo.getPackFiles();
+        PackFileWriter writer = new PackFileWriter(packStream);
         packStream.writeInt(files.size());
 
         for (PackFile packfile : files)
         {
             XPackFile pf = new XPackFile(packfile);
             File file = packInfo.getFile(packfile);
-            logger.fine("Next file: " + file.getAbsolutePath());
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("Next file: " + file.getAbsolutePath());
+            }
 
             if (!pf.isDirectory())
             {
@@ -332,7 +344,8 @@ public class MultiVolumePackager extends PackagerBase
             }
 
             // write pack file meta-data
-            packStream.writeObject(pf);
+            writer.write(pf);
+            packStream.writeLong(pf.getArchiveFilePosition());
             packStream.flush(); // make sure it is written
             // even if not written, it counts towards pack size
             pack.addSize(pf.length());
@@ -358,7 +371,10 @@ public class MultiVolumePackager extends PackagerBase
         FileInputStream in = new FileInputStream(file);
         long bytesWritten = IoHelper.copyStream(in, volumes);
         long afterPosition = volumes.getFilePointer();
-        logger.fine("File (" + packFile.sourcePath + ") " + beforePosition + " <-> " + afterPosition);
+        if (logger.isLoggable(Level.FINE))
+        {
+            logger.fine("File (" + packFile.sourcePath + ") " + beforePosition + " <-> " + afterPosition);
+        }
 
         if (volumes.getFilePointer() != (beforePosition + bytesWritten))
         {
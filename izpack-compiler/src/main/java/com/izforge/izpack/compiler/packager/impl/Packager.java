@@ -20,30 +20,43 @@
 
 package com.izforge.izpack.compiler.packager.impl;
 
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Pack200;
 
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.io.output.TeeOutputStream;
+
 import com.izforge.izpack.api.adaptator.IXMLElement;
 import com.izforge.izpack.api.adaptator.impl.XMLElementImpl;
 import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.compiler.cache.BuildCache;
 import com.izforge.izpack.compiler.compressor.PackCompressor;
 import com.izforge.izpack.compiler.data.CompilerData;
 import com.izforge.izpack.compiler.listener.PackagerListener;
 import com.izforge.izpack.compiler.merge.resolve.CompilerPathResolver;
+import com.izforge.izpack.compiler.profile.BuildProfiler;
 import com.izforge.izpack.compiler.stream.JarOutputStream;
 import com.izforge.izpack.core.io.ByteCountingOutputStream;
+import com.izforge.izpack.core.io.PackFileWriter;
 import com.izforge.izpack.data.ExecutableFile;
 import com.izforge.izpack.data.PackInfo;
 import com.izforge.izpack.data.ParsableFile;
@@ -51,6 +64,7 @@ import com.izforge.izpack.data.UpdateCheck;
 import com.izforge.izpack.merge.MergeManager;
 import com.izforge.izpack.merge.resolve.MergeableResolver;
 import com.izforge.izpack.util.IoHelper;
+import com.izforge.izpack.util.file.FileUtils;
 
 /**
  * The packager class. The packager is used by the compiler to put files into an installer, and
@@ -68,6 +82,21 @@ public class Packager extends PackagerBase
      */
     private final OutputStream outputStream;
 
+    /**
+     * The suffix of build cache blocks holding the index of a cached pack.
+     */
+    private static final String INDEX_SUFFIX = "-index";
+
+    /**
+     * The version of the cached pack format. Must be changed if the pack stream format changes.
+     */
+    private static final String PACK_CACHE_VERSION = "2";
+
+    /**
+     * The version of the cached pack200 format. Must be changed if the packer settings change.
+     */
+    private static final String PACK200_CACHE_VERSION = "1";
+
 
     /**
      * Constructs a <tt>Packager</tt>.
@@ -82,13 +111,15 @@ public class Packager extends PackagerBase
      * @param pathResolver      the path resolver
      * @param mergeableResolver the mergeable resolver
      * @param compilerData      the compiler data
+     * @param profiler          the build profiler. May be <tt>null</tt>
      */
     public Packager(Properties properties, PackagerListener listener, JarOutputStream jarOutputStream,
                     PackCompressor compressor, OutputStream outputStream, MergeManager mergeManager,
-                    CompilerPathResolver pathResolver, MergeableResolver mergeableResolver, CompilerData compilerData)
+                    CompilerPathResolver pathResolver, MergeableResolver mergeableResolver, CompilerData compilerData,
+                    BuildProfiler profiler)
     {
         super(properties, listener, jarOutputStream, mergeManager, pathResolver, mergeableResolver, compressor,
-              compilerData);
+              compilerData, profiler);
         this.outputStream = outputStream;
     }
 
@@ -108,9 +139,13 @@ public class Packager extends PackagerBase
         Map<File, Object[]> storedFiles = new HashMap<File, Object[]>();
 
         // Pack200 files map
-        Map<Integer, File> pack200Map = new HashMap<Integer, File>();
+        Map<Integer, File> pack200Map = new TreeMap<Integer, File>();
         int pack200Counter = 0;
 
+        // The incremental build cache, if any
+        File cacheDir = getCompilerData().getCacheDir();
+        BuildCache cache = (cacheDir != null) ? new BuildCache(cacheDir) : null;
+
         // Force UTF-8 encoding in order to have proper ZipEntry names.
         JarOutputStream installerJar = getInstallerJar();
         installerJar.setEncoding("utf-8");
@@ -143,15 +178,123 @@ public class Packager extends PackagerBase
             sendMsg("Writing Pack " + packNumber + ": " + pack.getName(), PackagerListener.MSG_VERBOSE);
 
             // Retrieve the correct output stream
+            long start = startTimer();
             org.apache.tools.zip.ZipEntry entry = new org.apache.tools.zip.ZipEntry(
                     RESOURCES_PATH + "packs/pack-" + pack.getName());
             installerJar.putNextEntry(entry);
             installerJar.flush(); // flush before we start counting
 
             ByteCountingOutputStream dos = new ByteCountingOutputStream(outputStream);
-            ObjectOutputStream objOut = new ObjectOutputStream(dos);
+            String key = (cache != null) ? getPackKey(packInfo, storedFiles, pack200Counter, cache) : null;
+            if (key != null && cache.hasBlock(key) && cache.hasBlock(key + INDEX_SUFFIX))
+            {
+                sendMsg("Using cached Pack " + packNumber + ": " + pack.getName(), PackagerListener.MSG_VERBOSE);
+                pack200Counter = readPack(packInfo, key, cache, dos, storedFiles, pack200Map);
+            }
+            else
+            {
+                pack200Counter = writePack(packInfo, key, cache, dos, storedFiles, pack200Map, pack200Counter);
+            }
+
+            for (PackFile packFile : packInfo.getPackFiles())
+            {
+                // even if not written, it counts towards pack size
+                pack.addSize(packFile.size());
+            }
+
+            // Cleanup
+            if (!getCompressor().useStandardCompression())
+            {
+                outputStream.close();
+            }
+
+            installerJar.closeEntry();
+            recordPack(pack.getName(), getCompressor().getCompressionFormatSymbols()[0], start, dos.getByteCount(),
+                       entry.getCompressedSize());
+
+            // close pack specific jar if required
+            if (packSeparateJars())
+            {
+                installerJar.closeAlways();
+            }
+
+            IXMLElement child = new XMLElementImpl("pack", root);
+            child.setAttribute("nbytes", Long.toString(pack.getSize()));
+            child.setAttribute("name", pack.getName());
+            if (pack.getLangPackId() != null)
+            {
+                child.setAttribute("id", pack.getLangPackId());
+            }
+            root.addChild(child);
+
+            packNumber++;
+        }
+
+        // Now that we know sizes, write pack metadata to primary jar.
+        installerJar.putNextEntry(new org.apache.tools.zip.ZipEntry(RESOURCES_PATH + "packs.info"));
+        ObjectOutputStream out = new ObjectOutputStream(installerJar);
+        out.writeInt(packs.size());
+
+        for (PackInfo packInfo : packs)
+        {
+            out.writeObject(packInfo.getPack());
+        }
+        out.flush();
+        installerJar.closeEntry();
+
+        // Pack200 files. These are compressed concurrently if there are multiple assembly threads
+        EntryAssembler assembler = createAssembler();
+        try
+        {
+            for (Integer key : pack200Map.keySet())
+            {
+                assembler.add(RESOURCES_PATH + "packs/pack200-" + key, -1,
+                              new Pack200Content(pack200Map.get(key), cache));
+            }
+            assembler.flush();
+        }
+        finally
+        {
+            assembler.close();
+        }
+
+        if (cache != null)
+        {
+            cache.save();
+        }
+    }
+
+    /**
+     * Writes the files and file meta-data of a pack.
+     * <p/>
+     * If a cache key is supplied, the pack stream is also written to the cache, along with an index of the stored
+     * files and pack200 files, so that it can be reused by {@link #readPack}.
+     *
+     * @param packInfo       the pack
+     * @param key            the cache key. May be <tt>null</tt>
+     * @param cache          the build cache. May be <tt>null</tt>
+     * @param dos            the pack stream
+     * @param storedFiles    the stored files, used to create back references
+     * @param pack200Map     the pack200 files
+     * @param pack200Counter the next pack200 file key
+     * @return the next pack200 file key
+     * @throws IOException for any I/O error
+     */
+    private int writePack(PackInfo packInfo, String key, BuildCache cache, ByteCountingOutputStream dos,
+                          Map<File, Object[]> storedFiles, Map<Integer, File> pack200Map, int pack200Counter)
+            throws IOException
+    {
+        Pack pack = packInfo.getPack();
+        BuildCache.BlockOutputStream block = (key != null) ? cache.writeBlock(key) : null;
+        Map<File, Long> packStoredFiles = new LinkedHashMap<File, Long>();
+        Map<Integer, File> packPack200Files = new LinkedHashMap<Integer, File>();
+        boolean committed = false;
+        try
+        {
+            ObjectOutputStream objOut = new ObjectOutputStream((block != null) ? new TeeOutputStream(dos, block) : dos);
 
             // We write the actual pack files
+            PackFileWriter writer = new PackFileWriter(objOut);
             objOut.writeInt(packInfo.getPackFiles().size());
 
             for (PackFile packFile : packInfo.getPackFiles())
@@ -160,8 +303,7 @@ public class Packager extends PackagerBase
                 boolean pack200 = false;
                 File file = packInfo.getFile(packFile);
 
-                if (file.getName().toLowerCase().endsWith(".jar") && getInfo().isPack200Compression()
-                        && isNotSignedJar(file))
+                if (isPack200(file))
                 {
                     packFile.setPack200Jar(true);
                     pack200 = true;
@@ -176,10 +318,11 @@ public class Packager extends PackagerBase
                     addFile = false;
                 }
 
-                objOut.writeObject(packFile); // base info
+                writer.write(packFile); // base info
 
                 if (addFile && !packFile.isDirectory())
                 {
+                    objOut.flush(); // drain buffered meta-data, so that the position is that of the file data
                     long pos = dos.getByteCount(); // get the position
 
                     if (pack200)
@@ -193,6 +336,7 @@ public class Packager extends PackagerBase
                          * See http://java.sun.com/javase/6/docs/api/java/util/jar/Pack200.Unpacker.html
                          */
                         pack200Map.put(pack200Counter, file);
+                        packPack200Files.put(pack200Counter, file);
                         objOut.writeInt(pack200Counter);
                         pack200Counter = pack200Counter + 1;
                     }
@@ -208,10 +352,8 @@ public class Packager extends PackagerBase
                     }
 
                     storedFiles.put(file, new Object[]{pack.getName(), pos}); // TODO - see IZPACK-799
+                    packStoredFiles.put(file, pos);
                 }
-
-                // even if not written, it counts towards pack size
-                pack.addSize(packFile.size());
             }
 
             // Write out information about parsable files
@@ -235,59 +377,253 @@ public class Packager extends PackagerBase
             {
                 objOut.writeObject(updateCheck);
             }
-
-            // Cleanup
             objOut.flush();
-            if (!getCompressor().useStandardCompression())
+
+            if (block != null)
             {
-                outputStream.close();
+                block.commit();
+                writePackIndex(key, cache, packStoredFiles, packPack200Files, pack200Counter);
+                committed = true;
             }
-
-            installerJar.closeEntry();
-
-            // close pack specific jar if required
-            if (packSeparateJars())
+        }
+        finally
+        {
+            if (block != null && !committed)
             {
-                installerJar.closeAlways();
+                block.discard();
             }
+        }
+        return pack200Counter;
+    }
 
-            IXMLElement child = new XMLElementImpl("pack", root);
-            child.setAttribute("nbytes", Long.toString(pack.getSize()));
-            child.setAttribute("name", pack.getName());
-            if (pack.getLangPackId() != null)
+    /**
+     * Writes the index of a cached pack.
+     *
+     * @param key            the pack cache key
+     * @param cache          the build cache
+     * @param storedFiles    the files stored in the pack, and their positions
+     * @param pack200Files   the pack200 files referenced by the pack
+     * @param pack200Counter the next pack200 file key
+     * @throws IOException for any I/O error
+     */
+    private void writePackIndex(String key, BuildCache cache, Map<File, Long> storedFiles,
+                                Map<Integer, File> pack200Files, int pack200Counter) throws IOException
+    {
+        BuildCache.BlockOutputStream index = cache.writeBlock(key + INDEX_SUFFIX);
+        boolean committed = false;
+        try
+        {
+            index.writeInt(storedFiles.size());
+            for (Map.Entry<File, Long> entry : storedFiles.entrySet())
             {
-                child.setAttribute("id", pack.getLangPackId());
+                index.writeUTF(entry.getKey().getPath());
+                index.writeLong(entry.getValue());
+            }
+            index.writeInt(pack200Files.size());
+            for (Map.Entry<Integer, File> entry : pack200Files.entrySet())
+            {
+                index.writeInt(entry.getKey());
+                index.writeUTF(entry.getValue().getPath());
+            }
+            index.writeInt(pack200Counter);
+            index.commit();
+            committed = true;
+        }
+        finally
+        {
+            if (!committed)
+            {
+                index.discard();
             }
-            root.addChild(child);
-
-            packNumber++;
         }
+    }
 
-        // Now that we know sizes, write pack metadata to primary jar.
-        installerJar.putNextEntry(new org.apache.tools.zip.ZipEntry(RESOURCES_PATH + "packs.info"));
-        ObjectOutputStream out = new ObjectOutputStream(installerJar);
-        out.writeInt(packs.size());
+    /**
+     * Writes a pack from the build cache.
+     *
+     * @param packInfo    the pack
+     * @param key         the pack cache key
+     * @param cache       the build cache
+     * @param dos         the pack stream
+     * @param storedFiles the stored files, used to create back references
+     * @param pack200Map  the pack200 files
+     * @return the next pack200 file key
+     * @throws IOException for any I/O error
+     */
+    private int readPack(PackInfo packInfo, String key, BuildCache cache, ByteCountingOutputStream dos,
+                         Map<File, Object[]> storedFiles, Map<Integer, File> pack200Map) throws IOException
+    {
+        String name = packInfo.getPack().getName();
+        int pack200Counter;
+        DataInputStream index = cache.readBlock(key + INDEX_SUFFIX);
+        try
+        {
+            int count = index.readInt();
+            for (int i = 0; i < count; ++i)
+            {
+                File file = new File(index.readUTF());
+                storedFiles.put(file, new Object[]{name, index.readLong()});
+            }
+            count = index.readInt();
+            for (int i = 0; i < count; ++i)
+            {
+                int pack200Key = index.readInt();
+                pack200Map.put(pack200Key, new File(index.readUTF()));
+            }
+            pack200Counter = index.readInt();
+        }
+        finally
+        {
+            FileUtils.close(index);
+        }
+        cache.copyBlock(key, dos);
+        dos.flush();
+        return pack200Counter;
+    }
 
-        for (PackInfo packInfo : packs)
+    /**
+     * Determines the build cache key of a pack.
+     * <p/>
+     * The key is a digest of everything that determines the content of the pack stream: the pack file meta-data
+     * (including back references to earlier packs), the content hashes of the files, and the parsable, executable
+     * and update check meta-data.
+     *
+     * @param packInfo       the pack
+     * @param storedFiles    the files stored in earlier packs
+     * @param pack200Counter the next pack200 file key
+     * @param cache          the build cache
+     * @return the key, or <tt>null</tt> if the pack cannot be cached
+     * @throws IOException for any I/O error
+     */
+    private String getPackKey(PackInfo packInfo, Map<File, Object[]> storedFiles, int pack200Counter,
+                              BuildCache cache) throws IOException
+    {
+        Pack pack = packInfo.getPack();
+        MessageDigest digest = BuildCache.createDigest();
+        ObjectOutputStream out = new ObjectOutputStream(new DigestOutputStream(new NullOutputStream(), digest));
+        out.writeUTF(PACK_CACHE_VERSION);
+        out.writeUTF(pack.getName());
+        PackFileWriter writer = new PackFileWriter(out);
+        Set<File> files = new HashSet<File>();
+        for (PackFile packFile : packInfo.getPackFiles())
         {
-            out.writeObject(packInfo.getPack());
+            File file = packInfo.getFile(packFile);
+            if (isPack200(file))
+            {
+                packFile.setPack200Jar(true);
+            }
+            Object[] info = storedFiles.get(file);
+            boolean addFile = !pack.isLoose();
+            if (info != null && !packSeparateJars())
+            {
+                packFile.setPreviousPackFileRef((String) info[0], (Long) info[1]);
+                addFile = false;
+            }
+            writer.write(packFile);
+            if (addFile && !packFile.isDirectory())
+            {
+                if (!files.add(file))
+                {
+                    // the back reference would be to a position within this pack, so it can't be determined up front
+                    return null;
+                }
+                out.writeUTF(file.getPath());
+                if (packFile.isPack200Jar())
+                {
+                    out.writeInt(pack200Counter++);
+                }
+                else
+                {
+                    out.writeUTF(cache.getHash(file));
+                }
+            }
         }
-        out.flush();
-        installerJar.closeEntry();
+        for (ParsableFile parsableFile : packInfo.getParsables())
+        {
+            out.writeObject(parsableFile);
+        }
+        for (ExecutableFile executableFile : packInfo.getExecutables())
+        {
+            out.writeObject(executableFile);
+        }
+        for (UpdateCheck updateCheck : packInfo.getUpdateChecks())
+        {
+            out.writeObject(updateCheck);
+        }
+        out.close();
+        return "pack-" + BuildCache.toHex(digest.digest());
+    }
 
-        // Pack200 files
-        Pack200.Packer packer = createAgressivePack200Packer();
-        for (Integer key : pack200Map.keySet())
+    /**
+     * Writes a pack200 compressed jar.
+     *
+     * @param file   the jar
+     * @param packer the packer
+     * @param out    the stream to write to
+     * @throws IOException for any I/O error
+     */
+    private void writePack200(File file, Pack200.Packer packer, OutputStream out) throws IOException
+    {
+        JarFile jar = new JarFile(file);
+        try
+        {
+            packer.pack(jar, out);
+        }
+        finally
         {
-            File file = pack200Map.get(key);
-            installerJar.putNextEntry(new org.apache.tools.zip.ZipEntry(RESOURCES_PATH + "packs/pack200-" + key));
-            JarFile jar = new JarFile(file);
-            packer.pack(jar, installerJar);
             jar.close();
-            installerJar.closeEntry();
         }
     }
 
+    /**
+     * Writes a pack200 compressed jar, using the build cache.
+     * <p/>
+     * Pack200 compression is expensive, so the compressed form of each jar is cached on its content hash.
+     *
+     * @param file   the jar
+     * @param packer the packer
+     * @param cache  the build cache
+     * @param out    the stream to write to
+     * @throws IOException for any I/O error
+     */
+    private void writePack200(File file, Pack200.Packer packer, BuildCache cache, OutputStream out)
+            throws IOException
+    {
+        String key = "pack200-" + PACK200_CACHE_VERSION + "-" + cache.getHash(file);
+        if (!cache.hasBlock(key))
+        {
+            BuildCache.BlockOutputStream block = cache.writeBlock(key);
+            boolean committed = false;
+            try
+            {
+                writePack200(file, packer, block);
+                block.commit();
+                committed = true;
+            }
+            finally
+            {
+                if (!committed)
+                {
+                    block.discard();
+                }
+            }
+        }
+        cache.copyBlock(key, out);
+    }
+
+    /**
+     * Determines if a file should be pack200 compressed.
+     *
+     * @param file the file
+     * @return <tt>true</tt> if the file is an unsigned jar, and pack200 compression is enabled
+     * @throws IOException for any I/O error
+     */
+    private boolean isPack200(File file) throws IOException
+    {
+        return file.getName().toLowerCase().endsWith(".jar") && getInfo().isPack200Compression()
+                && isNotSignedJar(file);
+    }
+
     private Pack200.Packer createAgressivePack200Packer()
     {
         Pack200.Packer packer = Pack200.newPacker();
@@ -320,6 +656,51 @@ public class Packager extends PackagerBase
         return true;
     }
 
+    /**
+     * Pack200 compresses a jar.
+     * <p/>
+     * A packer is created for each jar, as packers aren't thread safe.
+     */
+    private class Pack200Content implements EntryAssembler.Content
+    {
+
+        /**
+         * The jar.
+         */
+        private final File file;
+
+        /**
+         * The build cache. May be <tt>null</tt>.
+         */
+        private final BuildCache cache;
+
+
+        /**
+         * Constructs a <tt>Pack200Content</tt>.
+         *
+         * @param file  the jar
+         * @param cache the build cache. May be <tt>null</tt>
+         */
+        public Pack200Content(File file, BuildCache cache)
+        {
+            this.file = file;
+            this.cache = cache;
+        }
+
+        public void write(OutputStream out) throws IOException
+        {
+            Pack200.Packer packer = createAgressivePack200Packer();
+            if (cache != null)
+            {
+                writePack200(file, packer, cache, out);
+            }
+            else
+            {
+                writePack200(file, packer, out);
+            }
+        }
+    }
+
     /**
      * ********************************************************************************************
      * Stream utilites for creation of the installer.
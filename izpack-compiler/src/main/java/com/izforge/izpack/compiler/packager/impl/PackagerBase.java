@@ -22,19 +22,25 @@
 
 package com.izforge.izpack.compiler.packager.impl;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 import org.apache.commons.io.FileUtils;
@@ -53,6 +59,7 @@ import com.izforge.izpack.compiler.listener.PackagerListener;
 import com.izforge.izpack.compiler.merge.panel.PanelMerge;
 import com.izforge.izpack.compiler.merge.resolve.CompilerPathResolver;
 import com.izforge.izpack.compiler.packager.IPackager;
+import com.izforge.izpack.compiler.profile.BuildProfiler;
 import com.izforge.izpack.compiler.stream.JarOutputStream;
 import com.izforge.izpack.data.CustomData;
 import com.izforge.izpack.data.PackInfo;
@@ -118,6 +125,11 @@ public abstract class PackagerBase implements IPackager
      */
     private final CompilerData compilerData;
 
+    /**
+     * The build profiler. May be <tt>null</tt>.
+     */
+    private final BuildProfiler profiler;
+
     /**
      * Installer requirements.
      */
@@ -182,7 +194,7 @@ public abstract class PackagerBase implements IPackager
     /**
      * Jar file URLs who's contents will be copied into the installer.
      */
-    private Set<Object[]> includedJarURLs = new HashSet<Object[]>();
+    private Set<Object[]> includedJarURLs = new LinkedHashSet<Object[]>();
 
     /**
      * Tracks files which are already written into the container file.
@@ -201,10 +213,12 @@ public abstract class PackagerBase implements IPackager
      * @param mergeableResolver the mergeable resolver
      * @param compressor        the pack compressor
      * @param compilerData      the compiler data
+     * @param profiler          the build profiler. May be <tt>null</tt>
      */
     public PackagerBase(Properties properties, PackagerListener listener, JarOutputStream installerJar,
                         MergeManager mergeManager, CompilerPathResolver pathResolver,
-                        MergeableResolver mergeableResolver, PackCompressor compressor, CompilerData compilerData)
+                        MergeableResolver mergeableResolver, PackCompressor compressor, CompilerData compilerData,
+                        BuildProfiler profiler)
     {
         this.properties = properties;
         this.listener = listener;
@@ -214,6 +228,7 @@ public abstract class PackagerBase implements IPackager
         this.mergeableResolver = mergeableResolver;
         this.compressor = compressor;
         this.compilerData = compilerData;
+        this.profiler = profiler;
     }
 
     /* (non-Javadoc)
@@ -496,7 +511,12 @@ public abstract class PackagerBase implements IPackager
         mergeManager.addResourceToMerge("org/apache/regexp/");
         mergeManager.addResourceToMerge("com/coi/tools/");
         mergeManager.addResourceToMerge("org/apache/tools/zip/");
+        long start = startTimer();
         mergeManager.merge(installerJar);
+        if (start != 0)
+        {
+            profiler.stopTimer("merge", start);
+        }
     }
 
     /**
@@ -533,23 +553,22 @@ public abstract class PackagerBase implements IPackager
     {
         sendMsg("Copying " + installerResourceURLMap.size() + " files into installer");
 
-        for (Map.Entry<String, URL> stringURLEntry : installerResourceURLMap.entrySet())
+        // write in name order, so that the installer doesn't depend on hashing
+        Map<String, URL> resources = new TreeMap<String, URL>(installerResourceURLMap);
+        EntryAssembler assembler = createAssembler();
+        try
         {
-            URL url = stringURLEntry.getValue();
-            InputStream in = url.openStream();
-
-            org.apache.tools.zip.ZipEntry newEntry = new org.apache.tools.zip.ZipEntry(
-                    RESOURCES_PATH + stringURLEntry.getKey());
-            long dateTime = FileUtil.getFileDateTime(url);
-            if (dateTime != -1)
+            for (Map.Entry<String, URL> stringURLEntry : resources.entrySet())
             {
-                newEntry.setTime(dateTime);
+                URL url = stringURLEntry.getValue();
+                assembler.add(RESOURCES_PATH + stringURLEntry.getKey(), FileUtil.getFileDateTime(url),
+                              new URLContent(url));
             }
-            installerJar.putNextEntry(newEntry);
-
-            IoHelper.copyStream(in, installerJar);
-            installerJar.closeEntry();
-            in.close();
+            assembler.flush();
+        }
+        finally
+        {
+            assembler.close();
         }
     }
 
@@ -562,14 +581,36 @@ public abstract class PackagerBase implements IPackager
     {
         sendMsg("Merging " + includedJarURLs.size() + " jars into installer");
 
-        for (Object[] includedJarURL : includedJarURLs)
+        // jars are read concurrently if there are multiple assembly threads, but written in order, so that the
+        // first jar to contain an entry provides it
+        EntryAssembler assembler = createAssembler();
+        try
         {
-            InputStream is = ((URL) includedJarURL[0]).openStream();
-            ZipInputStream inJarStream = new ZipInputStream(is);
-            IoHelper.copyZip(inJarStream, installerJar, (List<String>) includedJarURL[1], alreadyWrittenFiles);
+            for (Object[] includedJarURL : includedJarURLs)
+            {
+                assembler.add(new IncludedJar((URL) includedJarURL[0], (List<String>) includedJarURL[1]));
+            }
+            assembler.flush();
+        }
+        finally
+        {
+            assembler.close();
         }
     }
 
+    /**
+     * Creates an assembler to prepare installer jar entries, using {@link CompilerData#getAssemblyThreads()} threads.
+     * <p/>
+     * The assembler must be flushed and closed once all entries have been added.
+     *
+     * @return a new assembler
+     */
+    EntryAssembler createAssembler()
+    {
+        int threads = (compilerData != null) ? compilerData.getAssemblyThreads() : 1;
+        return new EntryAssembler(installerJar, threads);
+    }
+
     /**
      * Write packs to the installer jar, or each to a separate jar.
      *
@@ -577,6 +618,45 @@ public abstract class PackagerBase implements IPackager
      */
     protected abstract void writePacks() throws IOException;
 
+    /**
+     * Starts a build profiler timer.
+     *
+     * @return the start time in nanoseconds, or <tt>0</tt> if there is no profiler, or it is disabled
+     */
+    protected long startTimer()
+    {
+        return (profiler != null) ? profiler.startTimer() : 0;
+    }
+
+    /**
+     * Records the time taken to write a pack, and the bytes read and written, if profiling is enabled.
+     * <p/>
+     * These are recorded against the <em>pack.&lt;name&gt;</em> timer and <em>pack.&lt;name&gt;.written</em>
+     * counter, and if a compression format is specified, the <em>compress.&lt;format&gt;</em> timer and
+     * <em>compress.&lt;format&gt;.written</em> counter.
+     *
+     * @param name         the pack name
+     * @param format       the compression format. May be <tt>null</tt>
+     * @param start        the value returned by {@link #startTimer()} before the pack was written
+     * @param bytesRead    the uncompressed bytes written to the pack stream
+     * @param bytesWritten the bytes the pack occupies in the installer
+     */
+    protected void recordPack(String name, String format, long start, long bytesRead, long bytesWritten)
+    {
+        if (start != 0)
+        {
+            long nanos = System.nanoTime() - start;
+            bytesWritten = Math.max(bytesWritten, 0);
+            profiler.record("pack." + name, nanos, bytesRead);
+            profiler.increment("pack." + name + ".written", bytesWritten);
+            if (format != null)
+            {
+                profiler.record("compress." + format, nanos, bytesRead);
+                profiler.increment("compress." + format + ".written", bytesWritten);
+            }
+        }
+    }
+
     /**
      * Returns the installer jar stream.
      *
@@ -587,6 +667,16 @@ public abstract class PackagerBase implements IPackager
         return installerJar;
     }
 
+    /**
+     * Returns the compiler data.
+     *
+     * @return the compiler data
+     */
+    protected CompilerData getCompilerData()
+    {
+        return compilerData;
+    }
+
     /**
      * Returns the pack compressor.
      *
@@ -643,4 +733,173 @@ public abstract class PackagerBase implements IPackager
         }
     }
 
+    /**
+     * Reads the content of a URL.
+     */
+    private static class URLContent implements EntryAssembler.Content
+    {
+
+        /**
+         * The URL to read.
+         */
+        private final URL url;
+
+
+        /**
+         * Constructs an <tt>URLContent</tt>.
+         *
+         * @param url the URL to read
+         */
+        public URLContent(URL url)
+        {
+            this.url = url;
+        }
+
+        public void write(OutputStream out) throws IOException
+        {
+            InputStream in = url.openStream();
+            try
+            {
+                IoHelper.copyStream(in, out);
+            }
+            finally
+            {
+                IOUtils.closeQuietly(in);
+            }
+        }
+    }
+
+    /**
+     * Copies the included entries of a jar, skipping any already written to the installer jar.
+     * <p/>
+     * When prepared, the included entries are read into memory, so that only the check for entries already written
+     * happens on the writing thread. Otherwise, the jar is streamed using
+     * {@link IoHelper#copyZip(ZipInputStream, org.apache.tools.zip.ZipOutputStream, List, Map)}.
+     */
+    private class IncludedJar extends EntryAssembler.Part
+    {
+
+        /**
+         * The jar.
+         */
+        private final URL url;
+
+        /**
+         * The patterns of the entries to include, or <tt>null</tt> to include all entries.
+         */
+        private final List<String> includes;
+
+        /**
+         * The prepared entry names, modification times and content, or <tt>null</tt> if the jar hasn't been prepared.
+         */
+        private List<Object[]> prepared;
+
+
+        /**
+         * Constructs an <tt>IncludedJar</tt>.
+         *
+         * @param url      the jar
+         * @param includes the patterns of the entries to include, or <tt>null</tt> to include all entries
+         */
+        public IncludedJar(URL url, List<String> includes)
+        {
+            this.url = url;
+            this.includes = includes;
+        }
+
+        @Override
+        protected void prepare() throws IOException
+        {
+            List<Pattern> patterns = null;
+            if (includes != null)
+            {
+                patterns = new ArrayList<Pattern>(includes.size());
+                for (String include : includes)
+                {
+                    patterns.add(Pattern.compile(include));
+                }
+            }
+            List<Object[]> entries = new ArrayList<Object[]>();
+            ZipInputStream in = new ZipInputStream(url.openStream());
+            try
+            {
+                ZipEntry entry;
+                while ((entry = in.getNextEntry()) != null)
+                {
+                    if (isIncluded(entry.getName(), patterns))
+                    {
+                        entries.add(new Object[]{entry.getName(), entry.getTime(), IOUtils.toByteArray(in)});
+                    }
+                }
+            }
+            finally
+            {
+                IOUtils.closeQuietly(in);
+            }
+            prepared = entries;
+        }
+
+        @Override
+        protected void write(JarOutputStream jar) throws IOException
+        {
+            if (prepared == null)
+            {
+                ZipInputStream in = new ZipInputStream(url.openStream());
+                try
+                {
+                    IoHelper.copyZip(in, jar, includes, alreadyWrittenFiles);
+                }
+                finally
+                {
+                    IOUtils.closeQuietly(in);
+                }
+                return;
+            }
+            if (!alreadyWrittenFiles.containsKey(jar))
+            {
+                alreadyWrittenFiles.put(jar, new HashSet<String>());
+            }
+            Set<String> written = alreadyWrittenFiles.get(jar);
+            for (Object[] entry : prepared)
+            {
+                String name = (String) entry[0];
+                if (written.add(name))
+                {
+                    IoHelper.copyStreamToJar(new ByteArrayInputStream((byte[]) entry[2]), jar, name, (Long) entry[1]);
+                }
+            }
+            prepared = null;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "jar " + url;
+        }
+
+        /**
+         * Determines if an entry should be included, using the same matching as
+         * {@link IoHelper#copyZip(ZipInputStream, org.apache.tools.zip.ZipOutputStream, List, Map)}.
+         *
+         * @param name     the entry name
+         * @param patterns the include patterns, or <tt>null</tt> to include all entries
+         * @return <tt>true</tt> if the entry should be included
+         */
+        private boolean isIncluded(String name, List<Pattern> patterns)
+        {
+            if (patterns == null)
+            {
+                return true;
+            }
+            String testName = name.replace('/', '.').replace('\\', '.');
+            for (Pattern pattern : patterns)
+            {
+                if (pattern.matcher(testName).matches())
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
@@ -0,0 +1,529 @@
+package com.izforge.izpack.compiler.profile;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.metrics.MetricsWriter;
+import com.izforge.izpack.api.metrics.Timing;
+import com.izforge.izpack.data.PackInfo;
+
+
+/**
+ * Writes a build profiling report as JSON and HTML.
+ * <p/>
+ * The report combines the phases recorded by a {@link BuildProfiler} with the timers and counters recorded against
+ * it during compilation. The packagers record:
+ * <ul>
+ * <li><em>pack.&lt;name&gt;</em> - the time taken to write each pack, and the uncompressed bytes written</li>
+ * <li><em>pack.&lt;name&gt;.written</em> - a counter of the bytes each pack occupies in the installer</li>
+ * <li><em>compress.&lt;format&gt;</em> - the time taken and uncompressed bytes written, per compression format</li>
+ * <li><em>compress.&lt;format&gt;.written</em> - a counter of the compressed bytes, per compression format</li>
+ * </ul>
+ * All other timers, such as <em>merge</em> and <em>scan.directory</em>, are reported as is.
+ */
+public class BuildProfileWriter extends MetricsWriter
+{
+
+    /**
+     * The JSON report file name.
+     */
+    public static final String JSON_FILE = "izpack-profile.json";
+
+    /**
+     * The HTML report file name.
+     */
+    public static final String HTML_FILE = "izpack-profile.html";
+
+    /**
+     * The no. of largest files to report.
+     */
+    public static final int LARGEST_FILES = 20;
+
+    /**
+     * The pack timer prefix.
+     */
+    private static final String PACK = "pack.";
+
+    /**
+     * The compressor timer prefix.
+     */
+    private static final String COMPRESS = "compress.";
+
+    /**
+     * The suffix of counters of bytes written.
+     */
+    private static final String WRITTEN = ".written";
+
+
+    /**
+     * Writes the JSON and HTML reports to a directory.
+     *
+     * @param dir      the directory to write to. Created if it doesn't exist
+     * @param info     descriptive information to include in the report
+     * @param profiler the profiler
+     * @param packs    the packs
+     * @return the JSON report file
+     * @throws IOException for any I/O error
+     */
+    public File write(File dir, Map<String, String> info, BuildProfiler profiler, List<PackInfo> packs)
+            throws IOException
+    {
+        if (!dir.isDirectory() && !dir.mkdirs())
+        {
+            throw new IOException("Failed to create directory: " + dir);
+        }
+        Profile profile = new Profile(profiler, packs, profiler.getTimers(), profiler.getCounters());
+
+        File json = new File(dir, JSON_FILE);
+        Writer writer = new OutputStreamWriter(new FileOutputStream(json), "UTF-8");
+        try
+        {
+            writeJSON(info, profile, writer);
+        }
+        finally
+        {
+            writer.close();
+        }
+
+        writer = new OutputStreamWriter(new FileOutputStream(new File(dir, HTML_FILE)), "UTF-8");
+        try
+        {
+            writeHTML(info, profile, writer);
+        }
+        finally
+        {
+            writer.close();
+        }
+        return json;
+    }
+
+    /**
+     * Writes a profile as JSON.
+     *
+     * @param info    descriptive information to include in the report
+     * @param profile the profile
+     * @param writer  the writer to write to. This is flushed but not closed
+     * @throws IOException for any I/O error
+     */
+    protected void writeJSON(Map<String, String> info, Profile profile, Writer writer) throws IOException
+    {
+        PrintWriter out = new PrintWriter(writer);
+        out.println("{");
+        out.print("  \"info\": {");
+        int i = 0;
+        for (Map.Entry<String, String> entry : info.entrySet())
+        {
+            out.print((i++ > 0 ? ", " : "") + quote(entry.getKey()) + ": " + quote(entry.getValue()));
+        }
+        out.println("},");
+        out.println("  \"totalMs\": " + toMillis(profile.wallTime) + ",");
+
+        out.println("  \"phases\": [");
+        for (i = 0; i < profile.phases.size(); ++i)
+        {
+            BuildProfiler.Phase phase = profile.phases.get(i);
+            out.print("    {\"name\": " + quote(phase.getName()) + ", \"wallMs\": " + toMillis(phase.getWallTime())
+                              + ", \"cpuMs\": " + toCpuMillis(phase.getCpuTime()) + "}");
+            out.println(i < profile.phases.size() - 1 ? "," : "");
+        }
+        out.println("  ],");
+
+        out.println("  \"packs\": [");
+        writeJSON(profile.packs, "name", out);
+        out.println("  ],");
+
+        out.println("  \"compressors\": [");
+        writeJSON(profile.compressors, "format", out);
+        out.println("  ],");
+
+        out.println("  \"largestFiles\": [");
+        for (i = 0; i < profile.files.size(); ++i)
+        {
+            FileStats file = profile.files.get(i);
+            out.print("    {\"path\": " + quote(file.path) + ", \"pack\": " + quote(file.pack) + ", \"bytes\": "
+                              + file.bytes + "}");
+            out.println(i < profile.files.size() - 1 ? "," : "");
+        }
+        out.println("  ],");
+
+        out.println("  \"timers\": {");
+        int remaining = profile.timers.size();
+        for (Map.Entry<String, Timing> entry : profile.timers.entrySet())
+        {
+            Timing timing = entry.getValue();
+            out.print("    " + quote(entry.getKey()) + ": {\"count\": " + timing.getCount()
+                              + ", \"totalMs\": " + toMillis(timing.getTotalNanos())
+                              + ", \"maxMs\": " + toMillis(timing.getMaxNanos())
+                              + ", \"bytes\": " + timing.getBytes() + "}");
+            out.println(--remaining > 0 ? "," : "");
+        }
+        out.println("  }");
+        out.println("}");
+        out.flush();
+        if (out.checkError())
+        {
+            throw new IOException("Failed to write profile");
+        }
+    }
+
+    /**
+     * Writes a profile as HTML.
+     *
+     * @param info    descriptive information to include in the report
+     * @param profile the profile
+     * @param writer  the writer to write to. This is flushed but not closed
+     * @throws IOException for any I/O error
+     */
+    protected void writeHTML(Map<String, String> info, Profile profile, Writer writer) throws IOException
+    {
+        PrintWriter out = new PrintWriter(writer);
+        out.println("<!DOCTYPE html>");
+        out.println("<html><head><meta charset=\"UTF-8\"><title>IzPack build profile</title>");
+        out.println("<style>body{font-family:sans-serif}table{border-collapse:collapse;margin-bottom:1em}"
+                            + "th,td{border:1px solid #ccc;padding:2px 6px}td.n{text-align:right}</style>");
+        out.println("</head><body>");
+        out.println("<h1>IzPack build profile</h1>");
+        out.println("<table>");
+        for (Map.Entry<String, String> entry : info.entrySet())
+        {
+            out.println("<tr><th>" + escape(entry.getKey()) + "</th><td>" + escape(entry.getValue()) + "</td></tr>");
+        }
+        out.println("<tr><th>Total (ms)</th><td class=\"n\">" + toMillis(profile.wallTime) + "</td></tr>");
+        out.println("</table>");
+
+        out.println("<h2>Phases</h2>");
+        out.println("<table><tr><th>Phase</th><th>Wall (ms)</th><th>CPU (ms)</th><th>% of total</th></tr>");
+        for (BuildProfiler.Phase phase : profile.phases)
+        {
+            double percent = (profile.wallTime != 0) ? phase.getWallTime() * 100.0 / profile.wallTime : 0;
+            out.println("<tr><td>" + escape(phase.getName()) + "</td><td class=\"n\">" + toMillis(phase.getWallTime())
+                                + "</td><td class=\"n\">" + toCpuMillis(phase.getCpuTime())
+                                + "</td><td class=\"n\">" + format(percent) + "</td></tr>");
+        }
+        out.println("</table>");
+
+        out.println("<h2>Packs</h2>");
+        writeHTML(profile.packs, "Pack", out);
+        out.println("<h2>Compressors</h2>");
+        writeHTML(profile.compressors, "Format", out);
+
+        out.println("<h2>Largest files</h2>");
+        out.println("<table><tr><th>File</th><th>Pack</th><th>Bytes</th></tr>");
+        for (FileStats file : profile.files)
+        {
+            out.println("<tr><td>" + escape(file.path) + "</td><td>" + escape(file.pack) + "</td><td class=\"n\">"
+                                + file.bytes + "</td></tr>");
+        }
+        out.println("</table>");
+
+        out.println("<h2>Timers</h2>");
+        out.println("<table><tr><th>Timer</th><th>Count</th><th>Total (ms)</th><th>Max (ms)</th><th>Bytes</th></tr>");
+        for (Map.Entry<String, Timing> entry : profile.timers.entrySet())
+        {
+            Timing timing = entry.getValue();
+            out.println("<tr><td>" + escape(entry.getKey()) + "</td><td class=\"n\">" + timing.getCount()
+                                + "</td><td class=\"n\">" + toMillis(timing.getTotalNanos())
+                                + "</td><td class=\"n\">" + toMillis(timing.getMaxNanos())
+                                + "</td><td class=\"n\">" + timing.getBytes() + "</td></tr>");
+        }
+        out.println("</table>");
+        out.println("</body></html>");
+        out.flush();
+        if (out.checkError())
+        {
+            throw new IOException("Failed to write profile");
+        }
+    }
+
+    /**
+     * Writes throughput statistics as JSON array elements.
+     *
+     * @param stats the statistics
+     * @param key   the name of the key attribute
+     * @param out   the writer to write to
+     */
+    private void writeJSON(List<ThroughputStats> stats, String key, PrintWriter out)
+    {
+        for (int i = 0; i < stats.size(); ++i)
+        {
+            ThroughputStats stat = stats.get(i);
+            out.print("    {" + quote(key) + ": " + quote(stat.name) + ", \"bytesRead\": " + stat.bytesRead
+                              + ", \"bytesWritten\": " + stat.bytesWritten + ", \"ratio\": " + format(stat.getRatio())
+                              + ", \"ms\": " + toMillis(stat.nanos) + ", \"mbPerSec\": "
+                              + format(stat.getMegabytesPerSecond()) + "}");
+            out.println(i < stats.size() - 1 ? "," : "");
+        }
+    }
+
+    /**
+     * Writes throughput statistics as an HTML table.
+     *
+     * @param stats the statistics
+     * @param key   the heading of the key column
+     * @param out   the writer to write to
+     */
+    private void writeHTML(List<ThroughputStats> stats, String key, PrintWriter out)
+    {
+        out.println("<table><tr><th>" + key + "</th><th>Bytes read</th><th>Bytes written</th><th>Ratio</th>"
+                            + "<th>Time (ms)</th><th>MB/s</th></tr>");
+        for (ThroughputStats stat : stats)
+        {
+            out.println("<tr><td>" + escape(stat.name) + "</td><td class=\"n\">" + stat.bytesRead
+                                + "</td><td class=\"n\">" + stat.bytesWritten
+                                + "</td><td class=\"n\">" + format(stat.getRatio())
+                                + "</td><td class=\"n\">" + toMillis(stat.nanos)
+                                + "</td><td class=\"n\">" + format(stat.getMegabytesPerSecond()) + "</td></tr>");
+        }
+        out.println("</table>");
+    }
+
+    /**
+     * Converts CPU nanoseconds to milliseconds.
+     *
+     * @param nanos the CPU time in nanoseconds, or <tt>-1</tt> if it isn't available
+     * @return the time in milliseconds, or <tt>-1</tt> if it isn't available
+     */
+    private String toCpuMillis(long nanos)
+    {
+        return (nanos != -1) ? toMillis(nanos) : "-1";
+    }
+
+    /**
+     * Escapes a string for inclusion in HTML.
+     *
+     * @param value the value to escape. May be <tt>null</tt>
+     * @return the escaped value
+     */
+    protected String escape(String value)
+    {
+        if (value == null)
+        {
+            return "";
+        }
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); ++i)
+        {
+            char ch = value.charAt(i);
+            switch (ch)
+            {
+                case '<':
+                    result.append("&lt;");
+                    break;
+                case '>':
+                    result.append("&gt;");
+                    break;
+                case '&':
+                    result.append("&amp;");
+                    break;
+                case '"':
+                    result.append("&quot;");
+                    break;
+                default:
+                    result.append(ch);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * The profile data, collated from the profiler, packs and metrics.
+     */
+    protected static class Profile
+    {
+
+        /**
+         * The total wall time, in nanoseconds.
+         */
+        private final long wallTime;
+
+        /**
+         * The phases.
+         */
+        private final List<BuildProfiler.Phase> phases;
+
+        /**
+         * The pack statistics.
+         */
+        private final List<ThroughputStats> packs = new ArrayList<ThroughputStats>();
+
+        /**
+         * The compressor statistics.
+         */
+        private final List<ThroughputStats> compressors = new ArrayList<ThroughputStats>();
+
+        /**
+         * The largest files.
+         */
+        private final List<FileStats> files = new ArrayList<FileStats>();
+
+        /**
+         * The timers not associated with packs or compressors.
+         */
+        private final Map<String, Timing> timers = new TreeMap<String, Timing>();
+
+        /**
+         * Constructs a <tt>Profile</tt>.
+         *
+         * @param profiler the profiler
+         * @param packs    the packs
+         * @param timers   the timers
+         * @param counters the counters
+         */
+        public Profile(BuildProfiler profiler, List<PackInfo> packs, Map<String, Timing> timers,
+                       Map<String, Long> counters)
+        {
+            wallTime = profiler.getWallTime();
+            phases = profiler.getPhases();
+            this.timers.putAll(timers);
+            for (PackInfo packInfo : packs)
+            {
+                String name = packInfo.getPack().getName();
+                Timing timing = this.timers.remove(PACK + name);
+                if (timing != null)
+                {
+                    this.packs.add(new ThroughputStats(name, timing, counters.get(PACK + name + WRITTEN)));
+                }
+                for (PackFile packFile : packInfo.getPackFiles())
+                {
+                    if (!packFile.isDirectory())
+                    {
+                        File file = packInfo.getFile(packFile);
+                        String path = (file != null) ? file.getPath() : packFile.getTargetPath();
+                        files.add(new FileStats(path, name, packFile.length()));
+                    }
+                }
+            }
+            for (Map.Entry<String, Timing> entry : timers.entrySet())
+            {
+                String key = entry.getKey();
+                if (key.startsWith(COMPRESS))
+                {
+                    this.timers.remove(key);
+                    compressors.add(new ThroughputStats(key.substring(COMPRESS.length()), entry.getValue(),
+                                                        counters.get(key + WRITTEN)));
+                }
+            }
+            Collections.sort(files, new Comparator<FileStats>()
+            {
+                @Override
+                public int compare(FileStats o1, FileStats o2)
+                {
+                    return (o1.bytes < o2.bytes) ? 1 : (o1.bytes > o2.bytes) ? -1 : 0;
+                }
+            });
+            if (files.size() > LARGEST_FILES)
+            {
+                files.subList(LARGEST_FILES, files.size()).clear();
+            }
+        }
+    }
+
+    /**
+     * Bytes read and written by a pack or compressor.
+     */
+    private static class ThroughputStats
+    {
+
+        /**
+         * The pack name or compression format.
+         */
+        private final String name;
+
+        /**
+         * The uncompressed bytes.
+         */
+        private final long bytesRead;
+
+        /**
+         * The bytes written to the installer.
+         */
+        private final long bytesWritten;
+
+        /**
+         * The elapsed time, in nanoseconds.
+         */
+        private final long nanos;
+
+        /**
+         * Constructs a <tt>ThroughputStats</tt>.
+         *
+         * @param name    the pack name or compression format
+         * @param timing  the timing
+         * @param written the bytes written. May be <tt>null</tt>
+         */
+        public ThroughputStats(String name, Timing timing, Long written)
+        {
+            this.name = name;
+            bytesRead = timing.getBytes();
+            bytesWritten = (written != null) ? written : 0;
+            nanos = timing.getTotalNanos();
+        }
+
+        /**
+         * Returns the compression ratio.
+         *
+         * @return the bytes written as a proportion of the bytes read, or <tt>0</tt> if no bytes were read
+         */
+        public double getRatio()
+        {
+            return (bytesRead != 0) ? (double) bytesWritten / bytesRead : 0;
+        }
+
+        /**
+         * Returns the throughput.
+         *
+         * @return the uncompressed megabytes per second
+         */
+        public double getMegabytesPerSecond()
+        {
+            return (nanos != 0) ? (bytesRead / (1024.0 * 1024.0)) / (nanos / 1000000000.0) : 0;
+        }
+    }
+
+    /**
+     * The size of a file.
+     */
+    private static class FileStats
+    {
+
+        /**
+         * The file path.
+         */
+        private final String path;
+
+        /**
+         * The pack the file belongs to.
+         */
+        private final String pack;
+
+        /**
+         * The file size.
+         */
+        private final long bytes;
+
+        /**
+         * Constructs a <tt>FileStats</tt>.
+         *
+         * @param path  the file path
+         * @param pack  the pack the file belongs to
+         * @param bytes the file size
+         */
+        public FileStats(String path, String pack, long bytes)
+        {
+            this.path = path;
+            this.pack = pack;
+            this.bytes = bytes;
+        }
+    }
+}
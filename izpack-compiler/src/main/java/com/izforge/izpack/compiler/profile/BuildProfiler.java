@@ -0,0 +1,335 @@
+package com.izforge.izpack.compiler.profile;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.izforge.izpack.api.metrics.Timing;
+import com.izforge.izpack.compiler.data.CompilerData;
+
+
+/**
+ * Records the wall and CPU time taken by each phase of a compilation, and the timers and counters recorded by the
+ * packagers, merges and directory scans.
+ * <p/>
+ * Phases are recorded as consecutive marks, so each phase is the time since the previous mark.
+ * <p/>
+ * A profiler is registered in each compiler container, so concurrent compilations record to separate profilers.
+ * It is enabled if {@link CompilerData#getProfileDir()} is set. If the profiler is disabled, all methods are no-ops.
+ */
+public class BuildProfiler
+{
+
+    /**
+     * Determines if profiling is enabled.
+     */
+    private final boolean enabled;
+
+    /**
+     * Used to determine the CPU time of the compiling thread. May be <tt>null</tt>.
+     */
+    private final ThreadMXBean threads;
+
+    /**
+     * The recorded phases.
+     */
+    private final List<Phase> phases = new ArrayList<Phase>();
+
+    /**
+     * The wall time of the last mark, in nanoseconds.
+     */
+    private long lastWall;
+
+    /**
+     * The CPU time of the last mark, in nanoseconds, or <tt>-1</tt> if CPU time isn't available.
+     */
+    private long lastCpu;
+
+    /**
+     * The wall time when profiling started, in nanoseconds.
+     */
+    private long startWall;
+
+    /**
+     * The timers, keyed on name.
+     */
+    private final ConcurrentMap<String, Timing> timers = new ConcurrentHashMap<String, Timing>();
+
+    /**
+     * The counters, keyed on name.
+     */
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+
+
+    /**
+     * Constructs a <tt>BuildProfiler</tt>.
+     *
+     * @param compilerData the compiler data
+     */
+    public BuildProfiler(CompilerData compilerData)
+    {
+        enabled = compilerData.getProfileDir() != null;
+        ThreadMXBean bean = null;
+        if (enabled)
+        {
+            bean = ManagementFactory.getThreadMXBean();
+            if (!bean.isCurrentThreadCpuTimeSupported())
+            {
+                bean = null;
+            }
+        }
+        threads = bean;
+    }
+
+    /**
+     * Determines if profiling is enabled.
+     *
+     * @return <tt>true</tt> if profiling is enabled
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Starts profiling.
+     * <p/>
+     * This discards any existing phases, timers and counters.
+     */
+    public void start()
+    {
+        if (enabled)
+        {
+            phases.clear();
+            timers.clear();
+            counters.clear();
+            startWall = System.nanoTime();
+            lastWall = startWall;
+            lastCpu = getCpuTime();
+        }
+    }
+
+    /**
+     * Records the completion of a phase.
+     *
+     * @param name the phase name
+     */
+    public void mark(String name)
+    {
+        if (enabled)
+        {
+            long wall = System.nanoTime();
+            long cpu = getCpuTime();
+            phases.add(new Phase(name, wall - lastWall, (cpu != -1 && lastCpu != -1) ? cpu - lastCpu : -1));
+            lastWall = wall;
+            lastCpu = cpu;
+        }
+    }
+
+    /**
+     * Starts a timer.
+     *
+     * @return the start time in nanoseconds, or <tt>0</tt> if profiling is disabled
+     */
+    public long startTimer()
+    {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Stops a timer.
+     *
+     * @param name  the timer name
+     * @param start the value returned by {@link #startTimer()}
+     */
+    public void stopTimer(String name, long start)
+    {
+        if (start != 0)
+        {
+            record(name, System.nanoTime() - start, 0);
+        }
+    }
+
+    /**
+     * Records an elapsed time against a timer.
+     * <p/>
+     * This is ignored if profiling is disabled.
+     *
+     * @param name  the timer name
+     * @param nanos the elapsed time, in nanoseconds
+     * @param bytes the no. of bytes processed
+     */
+    public void record(String name, long nanos, long bytes)
+    {
+        if (enabled)
+        {
+            Timing timing = timers.get(name);
+            if (timing == null)
+            {
+                timing = new Timing();
+                Timing existing = timers.putIfAbsent(name, timing);
+                if (existing != null)
+                {
+                    timing = existing;
+                }
+            }
+            timing.add(nanos, bytes);
+        }
+    }
+
+    /**
+     * Increments a counter.
+     * <p/>
+     * This is ignored if profiling is disabled.
+     *
+     * @param name  the counter name
+     * @param delta the amount to increment the counter by
+     */
+    public void increment(String name, long delta)
+    {
+        if (enabled)
+        {
+            AtomicLong counter = counters.get(name);
+            if (counter == null)
+            {
+                counter = new AtomicLong();
+                AtomicLong existing = counters.putIfAbsent(name, counter);
+                if (existing != null)
+                {
+                    counter = existing;
+                }
+            }
+            counter.addAndGet(delta);
+        }
+    }
+
+    /**
+     * Returns the recorded phases.
+     *
+     * @return the phases, in the order they were recorded
+     */
+    public List<Phase> getPhases()
+    {
+        return Collections.unmodifiableList(phases);
+    }
+
+    /**
+     * Returns the timers, sorted on name.
+     *
+     * @return the timers
+     */
+    public Map<String, Timing> getTimers()
+    {
+        return new TreeMap<String, Timing>(timers);
+    }
+
+    /**
+     * Returns the counter values, sorted on name.
+     *
+     * @return the counter values
+     */
+    public Map<String, Long> getCounters()
+    {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet())
+        {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the total wall time, from the start of profiling to the last mark.
+     *
+     * @return the total wall time, in nanoseconds
+     */
+    public long getWallTime()
+    {
+        return lastWall - startWall;
+    }
+
+    /**
+     * Returns the CPU time of the current thread.
+     *
+     * @return the CPU time in nanoseconds, or <tt>-1</tt> if it isn't available
+     */
+    private long getCpuTime()
+    {
+        return (threads != null) ? threads.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * A compilation phase.
+     */
+    public static class Phase
+    {
+
+        /**
+         * The phase name.
+         */
+        private final String name;
+
+        /**
+         * The wall time, in nanoseconds.
+         */
+        private final long wallTime;
+
+        /**
+         * The CPU time of the compiling thread, in nanoseconds, or <tt>-1</tt> if it isn't available.
+         */
+        private final long cpuTime;
+
+        /**
+         * Constructs a <tt>Phase</tt>.
+         *
+         * @param name     the phase name
+         * @param wallTime the wall time, in nanoseconds
+         * @param cpuTime  the CPU time, in nanoseconds, or <tt>-1</tt> if it isn't available
+         */
+        public Phase(String name, long wallTime, long cpuTime)
+        {
+            this.name = name;
+            this.wallTime = wallTime;
+            this.cpuTime = cpuTime;
+        }
+
+        /**
+         * Returns the phase name.
+         *
+         * @return the phase name
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * Returns the wall time.
+         *
+         * @return the wall time, in nanoseconds
+         */
+        public long getWallTime()
+        {
+            return wallTime;
+        }
+
+        /**
+         * Returns the CPU time of the compiling thread.
+         * <p/>
+         * This excludes work done by assembly threads.
+         *
+         * @return the CPU time, in nanoseconds, or <tt>-1</tt> if it isn't available
+         */
+        public long getCpuTime()
+        {
+            return cpuTime;
+        }
+    }
+}
@@ -24,6 +24,7 @@ import com.izforge.izpack.compiler.helper.XmlCompilerHelper;
 import com.izforge.izpack.compiler.merge.resolve.ClassPathCrawler;
 import com.izforge.izpack.compiler.merge.resolve.CompilerPathResolver;
 import com.izforge.izpack.compiler.packager.IPackager;
+import com.izforge.izpack.compiler.profile.BuildProfiler;
 import com.izforge.izpack.compiler.resource.ResourceFinder;
 import com.izforge.izpack.core.data.DynamicVariableImpl;
 import com.izforge.izpack.core.variable.PlainValue;
@@ -135,7 +136,8 @@ public class CompilerConfigMockedTest
                   Mockito.mock(PropertyManager.class), Mockito.mock(MergeManager.class),
                   Mockito.mock(AssertionHelper.class), Mockito.mock(ClassPathCrawler.class),
                   Mockito.mock(RulesEngine.class), Mockito.mock(CompilerPathResolver.class),
-                  Mockito.mock(ResourceFinder.class), Mockito.mock(ObjectFactory.class));
+                  Mockito.mock(ResourceFinder.class), Mockito.mock(ObjectFactory.class),
+                  Mockito.mock(BuildProfiler.class));
             setPackager(packager);
         }
     }
@@ -0,0 +1,210 @@
+package com.izforge.izpack.compiler.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+
+import com.izforge.izpack.compiler.container.TestCompilerContainer;
+import com.izforge.izpack.compiler.data.CompilerData;
+import com.izforge.izpack.test.InstallFile;
+
+
+/**
+ * Tests the {@link BuildCache} class.
+ */
+@InstallFile("samples/incremental.xml")
+public class BuildCacheTest
+{
+
+    /**
+     * The cache directory.
+     */
+    private File dir;
+
+
+    /**
+     * Sets up the test case.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Before
+    public void setUp() throws IOException
+    {
+        dir = File.createTempFile("buildcache", "");
+        assertTrue(dir.delete());
+    }
+
+    /**
+     * Cleans up after the test case.
+     *
+     * @throws IOException for any I/O error
+     */
+    @After
+    public void tearDown() throws IOException
+    {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    /**
+     * Verifies that file hashes are persisted, and recomputed when a file changes.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test
+    public void testHash() throws IOException
+    {
+        File file = new File(dir, "input.txt");
+        BuildCache cache = new BuildCache(dir);
+        FileUtils.writeStringToFile(file, "version 1");
+        String hash1 = cache.getHash(file);
+        cache.save();
+
+        cache = new BuildCache(dir);
+        assertEquals(hash1, cache.getHash(file));
+
+        FileUtils.writeStringToFile(file, "version 2 has a different length");
+        String hash2 = cache.getHash(file);
+        assertFalse(hash1.equals(hash2));
+    }
+
+    /**
+     * Verifies that blocks are only visible once committed, and that blocks not used by a build are removed when the
+     * cache is saved.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test
+    public void testBlocks() throws IOException
+    {
+        BuildCache cache = new BuildCache(dir);
+        BuildCache.BlockOutputStream out = cache.writeBlock("a");
+        out.writeUTF("block a");
+        assertFalse(cache.hasBlock("a"));
+        out.commit();
+        assertTrue(cache.hasBlock("a"));
+
+        out = cache.writeBlock("b");
+        out.writeUTF("block b");
+        out.discard();
+        assertFalse(cache.hasBlock("b"));
+        cache.save();
+
+        cache = new BuildCache(dir);
+        assertTrue(cache.hasBlock("a"));
+        DataInputStream in = cache.readBlock("a");
+        assertEquals("block a", in.readUTF());
+        in.close();
+        cache.save();
+
+        cache = new BuildCache(dir);
+        cache.save();
+        assertFalse(cache.hasBlock("a"));
+    }
+
+    /**
+     * Verifies that a second compilation with the same inputs reuses the cached packs, and produces the same packs
+     * as a compilation without a cache.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testIncrementalCompilation() throws Exception
+    {
+        Map<String, byte[]> expected = compile(null);
+        Map<String, byte[]> first = compile(dir);
+        Map<String, Long> blocks = getBlocks();
+        assertFalse(blocks.isEmpty());
+
+        Map<String, byte[]> second = compile(dir);
+        assertEquals(blocks, getBlocks());
+
+        assertEquals(expected.keySet(), first.keySet());
+        assertEquals(expected.keySet(), second.keySet());
+        for (String name : expected.keySet())
+        {
+            assertArrayEquals(name, expected.get(name), first.get(name));
+            assertArrayEquals(name, expected.get(name), second.get(name));
+        }
+    }
+
+    /**
+     * Compiles the installer.
+     *
+     * @param cacheDir the cache directory. May be <tt>null</tt>
+     * @return the pack entries of the installer, keyed on name
+     * @throws Exception for any error
+     */
+    private Map<String, byte[]> compile(File cacheDir) throws Exception
+    {
+        FrameworkMethod method = new FrameworkMethod(getClass().getMethod("testIncrementalCompilation"));
+        TestCompilerContainer container = new TestCompilerContainer(getClass(), method);
+        container.getComponent(CompilerData.class).setCacheDir(cacheDir);
+        container.launchCompilation();
+
+        Map<String, byte[]> result = new HashMap<String, byte[]>();
+        JarFile jar = new JarFile(container.getComponent(File.class));
+        try
+        {
+            for (JarEntry entry : Collections.list(jar.entries()))
+            {
+                if (entry.getName().startsWith("resources/packs/"))
+                {
+                    InputStream in = jar.getInputStream(entry);
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    IOUtils.copy(in, bytes);
+                    in.close();
+                    result.put(entry.getName(), bytes.toByteArray());
+                }
+            }
+        }
+        finally
+        {
+            jar.close();
+        }
+        assertNotNull(result.get("resources/packs/pack-Base"));
+        return result;
+    }
+
+    /**
+     * Returns the cached blocks and their last modified times.
+     *
+     * @return the blocks, keyed on name
+     */
+    private Map<String, Long> getBlocks()
+    {
+        Map<String, Long> result = new HashMap<String, Long>();
+        File[] files = dir.listFiles(new FilenameFilter()
+        {
+            public boolean accept(File dir, String name)
+            {
+                return name.endsWith(".block");
+            }
+        });
+        for (File file : files)
+        {
+            result.put(file.getName(), file.lastModified());
+        }
+        return result;
+    }
+}
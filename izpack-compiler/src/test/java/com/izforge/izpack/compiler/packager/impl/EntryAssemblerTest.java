@@ -0,0 +1,206 @@
+package com.izforge.izpack.compiler.packager.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.izforge.izpack.compiler.stream.JarOutputStream;
+
+
+/**
+ * Tests the {@link EntryAssembler} class.
+ */
+public class EntryAssemblerTest
+{
+
+    /**
+     * Verifies that entries are written in the order they were added, and that the jar is the same regardless of
+     * the number of threads.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testOrder() throws Exception
+    {
+        byte[] sequential = assemble(1);
+        byte[] concurrent = assemble(4);
+        assertArrayEquals(sequential, concurrent);
+
+        ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(concurrent));
+        List<String> names = new ArrayList<String>();
+        ZipEntry entry;
+        while ((entry = in.getNextEntry()) != null)
+        {
+            names.add(entry.getName());
+            assertEquals(1000, IOUtils.toByteArray(in).length);
+        }
+        assertEquals(20, names.size());
+        for (int i = 0; i < names.size(); ++i)
+        {
+            assertEquals("entry-" + i, names.get(i));
+        }
+    }
+
+    /**
+     * Verifies that with a single thread, parts aren't prepared, but written as they are added.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSequentialStreams() throws Exception
+    {
+        final List<String> events = new ArrayList<String>();
+        JarOutputStream jar = new JarOutputStream(new ByteArrayOutputStream());
+        EntryAssembler assembler = new EntryAssembler(jar, 1);
+        try
+        {
+            for (int i = 0; i < 2; ++i)
+            {
+                final String name = "part-" + i;
+                assembler.add(new EntryAssembler.Part()
+                {
+                    @Override
+                    protected void prepare()
+                    {
+                        events.add("prepare " + name);
+                    }
+
+                    @Override
+                    protected void write(JarOutputStream jar)
+                    {
+                        events.add("write " + name);
+                    }
+                });
+                assertEquals("write " + name, events.get(events.size() - 1));
+            }
+            assembler.flush();
+        }
+        finally
+        {
+            assembler.close();
+        }
+        assertEquals(Arrays.asList("write part-0", "write part-1"), events);
+    }
+
+    /**
+     * Verifies that an exception preparing an entry is propagated.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testFailure() throws Exception
+    {
+        JarOutputStream jar = new JarOutputStream(new ByteArrayOutputStream());
+        EntryAssembler assembler = new EntryAssembler(jar, 2);
+        try
+        {
+            assembler.add("ok", -1, new Content(0, 10));
+            assembler.add("fail", -1, new EntryAssembler.Content()
+            {
+                public void write(OutputStream out) throws IOException
+                {
+                    throw new IOException("expected");
+                }
+            });
+            assembler.flush();
+            fail("Expected IOException");
+        }
+        catch (IOException expected)
+        {
+            assertEquals("expected", expected.getMessage());
+        }
+        finally
+        {
+            assembler.close();
+        }
+    }
+
+    /**
+     * Assembles a jar of entries that take varying times to prepare.
+     *
+     * @param threads the number of threads
+     * @return the jar
+     * @throws IOException for any I/O error
+     */
+    private byte[] assemble(int threads) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JarOutputStream jar = new JarOutputStream(out);
+        EntryAssembler assembler = new EntryAssembler(jar, threads);
+        try
+        {
+            for (int i = 0; i < 20; ++i)
+            {
+                assembler.add("entry-" + i, 1000000000000L, new Content(i, 1000));
+            }
+            assembler.flush();
+        }
+        finally
+        {
+            assembler.close();
+        }
+        jar.closeAlways();
+        return out.toByteArray();
+    }
+
+    /**
+     * Generates entry content, after a delay that varies with the seed, so that later entries may be prepared
+     * before earlier ones.
+     */
+    private static class Content implements EntryAssembler.Content
+    {
+
+        /**
+         * The seed.
+         */
+        private final int seed;
+
+        /**
+         * The content length.
+         */
+        private final int length;
+
+
+        /**
+         * Constructs a <tt>Content</tt>.
+         *
+         * @param seed   the seed
+         * @param length the content length
+         */
+        public Content(int seed, int length)
+        {
+            this.seed = seed;
+            this.length = length;
+        }
+
+        public void write(OutputStream out) throws IOException
+        {
+            try
+            {
+                Thread.sleep((seed * 7) % 5 * 5);
+            }
+            catch (InterruptedException exception)
+            {
+                throw new InterruptedIOException();
+            }
+            byte[] result = new byte[length];
+            new Random(seed).nextBytes(result);
+            out.write(result);
+        }
+    }
+}
@@ -31,7 +31,7 @@ public class PackagerTest
     @Test
     public void noSplash() throws IOException
     {
-        final Packager packager = new Packager(null, null, null, null, null, mergeManager, null, null, null);
+        final Packager packager = new Packager(null, null, null, null, null, mergeManager, null, null, null, null);
         packager.setSplashScreenImage(null);
         packager.writeManifest();
 
@@ -42,7 +42,7 @@ public class PackagerTest
     public void guiPrefsWithSplash() throws IOException
     {
         final File splashImage = new File("image.png");
-        final Packager packager = new Packager(null, null, null, null, null, mergeManager, null, null, null);
+        final Packager packager = new Packager(null, null, null, null, null, mergeManager, null, null, null, null);
         packager.setGUIPrefs(new GUIPrefs());
         packager.setSplashScreenImage(splashImage);
         packager.writeManifest();
@@ -54,7 +54,7 @@ public class PackagerTest
     @Test
     public void noGuiPrefs() throws IOException
     {
-        final Packager packager = new Packager(null, null, null, null, null, mergeManager, null, null, null);
+        final Packager packager = new Packager(null, null, null, null, null, mergeManager, null, null, null, null);
 
         packager.writeManifest();
 
@@ -0,0 +1,143 @@
+package com.izforge.izpack.compiler.profile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+
+import com.izforge.izpack.api.metrics.Metrics;
+import com.izforge.izpack.compiler.container.TestCompilerContainer;
+import com.izforge.izpack.compiler.data.CompilerData;
+import com.izforge.izpack.test.InstallFile;
+
+
+/**
+ * Tests the {@link BuildProfileWriter} class.
+ */
+@InstallFile("samples/incremental.xml")
+public class BuildProfileWriterTest
+{
+
+    /**
+     * The profile directory.
+     */
+    private File dir;
+
+
+    /**
+     * Sets up the test case.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Before
+    public void setUp() throws IOException
+    {
+        dir = File.createTempFile("profile", "");
+        assertTrue(dir.delete());
+    }
+
+    /**
+     * Cleans up after the test case.
+     *
+     * @throws IOException for any I/O error
+     */
+    @After
+    public void tearDown() throws IOException
+    {
+        FileUtils.deleteDirectory(dir);
+        Metrics.reset();
+    }
+
+    /**
+     * Verifies that compiling with a profile directory writes the JSON and HTML reports.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testProfile() throws Exception
+    {
+        boolean enabled = Metrics.isEnabled();
+
+        FrameworkMethod method = new FrameworkMethod(getClass().getMethod("testProfile"));
+        TestCompilerContainer container = new TestCompilerContainer(getClass(), method);
+        container.getComponent(CompilerData.class).setProfileDir(dir);
+        container.launchCompilation();
+
+        // the global metrics are not used for profiling
+        assertTrue(enabled == Metrics.isEnabled());
+        assertFalse(Metrics.getTimers().containsKey("pack.Base"));
+
+        BuildProfiler profiler = container.getComponent(BuildProfiler.class);
+        assertTrue(profiler.getTimers().containsKey("pack.Base"));
+        assertTrue(profiler.getTimers().containsKey("merge"));
+
+        File json = new File(dir, BuildProfileWriter.JSON_FILE);
+        File html = new File(dir, BuildProfileWriter.HTML_FILE);
+        assertTrue(json.exists());
+        assertTrue(html.exists());
+
+        String content = FileUtils.readFileToString(json, "UTF-8");
+        assertTrue(content.contains("{\"name\": \"addPacks\", \"wallMs\": "));
+        assertTrue(content.contains("{\"name\": \"createInstaller\", \"wallMs\": "));
+        assertTrue(content.contains("{\"name\": \"Base\", \"bytesRead\": "));
+        assertTrue(content.contains("{\"name\": \"Docs\", \"bytesRead\": "));
+        assertTrue(content.contains("{\"format\": \"default\", \"bytesRead\": "));
+        assertTrue(content.contains("izpack.xml\", \"pack\": \"Docs\", \"bytes\": "));
+        assertFalse(content.contains("\"pack.Base\""));
+
+        String page = FileUtils.readFileToString(html, "UTF-8");
+        assertTrue(page.contains("<h2>Phases</h2>"));
+        assertTrue(page.contains("<td>createInstaller</td>"));
+    }
+
+    /**
+     * Verifies that no report is written if there is no profile directory.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testNoProfile() throws Exception
+    {
+        FrameworkMethod method = new FrameworkMethod(getClass().getMethod("testNoProfile"));
+        TestCompilerContainer container = new TestCompilerContainer(getClass(), method);
+        container.launchCompilation();
+        assertFalse(dir.exists());
+        assertTrue(container.getComponent(BuildProfiler.class).getTimers().isEmpty());
+    }
+
+    /**
+     * Verifies that each compilation has its own profiler.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testProfilerPerCompilation() throws Exception
+    {
+        FrameworkMethod method = new FrameworkMethod(getClass().getMethod("testProfilerPerCompilation"));
+        TestCompilerContainer profiled = new TestCompilerContainer(getClass(), method);
+        profiled.getComponent(CompilerData.class).setProfileDir(dir);
+        TestCompilerContainer unprofiled = new TestCompilerContainer(getClass(), method);
+
+        BuildProfiler profiler1 = profiled.getComponent(BuildProfiler.class);
+        BuildProfiler profiler2 = unprofiled.getComponent(BuildProfiler.class);
+        assertNotSame(profiler1, profiler2);
+        assertTrue(profiler1.isEnabled());
+        assertFalse(profiler2.isEnabled());
+
+        profiler1.start();
+        profiler1.record("scan.directory", 10, 0);
+        profiler2.start();
+        profiler2.record("scan.directory", 10, 0);
+        assertEquals(1, profiler1.getTimers().get("scan.directory").getCount());
+        assertTrue(profiler2.getTimers().isEmpty());
+    }
+}
@@ -9,6 +9,7 @@ import java.util.logging.Logger;
 import com.izforge.izpack.api.data.DynamicVariable;
 import com.izforge.izpack.api.data.Variables;
 import com.izforge.izpack.api.exception.IzPackException;
+import com.izforge.izpack.api.metrics.Metrics;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
@@ -275,6 +276,7 @@ public class DefaultVariables implements Variables
     @Override
     public synchronized void refresh()
     {
+        long start = Metrics.start();
         for (DynamicVariable variable : dynamicVariables)
         {
             String conditionId = variable.getConditionid();
@@ -317,6 +319,7 @@ public class DefaultVariables implements Variables
                 }
             }
         }
+        Metrics.stop("variables.refresh", start);
     }
 
     /**
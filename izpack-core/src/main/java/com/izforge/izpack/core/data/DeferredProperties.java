@@ -0,0 +1,357 @@
+package com.izforge.izpack.core.data;
+
+import java.io.ObjectStreamException;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * A {@link Properties} whose values may be supplied on demand.
+ * <p/>
+ * Values that are expensive to determine can be registered via {@link #defer}. They are only computed when one
+ * of the names they supply is first accessed, or when the properties are accessed in bulk (e.g. iterated,
+ * copied or serialized).
+ * <br/>
+ * A deferred value never replaces a property that has been explicitly set before it is computed.
+ */
+public class DeferredProperties extends Properties
+{
+
+    /**
+     * The serial version identifier.
+     */
+    private static final long serialVersionUID = 6306049913458251052L;
+
+    /**
+     * The pending deferred values.
+     */
+    private transient List<Deferred> deferred = new CopyOnWriteArrayList<Deferred>();
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(DeferredProperties.class.getName());
+
+
+    /**
+     * Registers values to be computed on demand.
+     * <p/>
+     * A name ending in <tt>*</tt> matches all properties starting with the preceding characters.
+     *
+     * @param values the callable that computes the values. It is invoked at most once
+     * @param names  the names of the properties that the callable supplies
+     */
+    public void defer(Callable<Map<String, String>> values, String... names)
+    {
+        deferred.add(new Deferred(values, names));
+    }
+
+    /**
+     * Determines if there are values yet to be computed.
+     *
+     * @return <tt>true</tt> if there are values yet to be computed
+     */
+    public boolean hasDeferred()
+    {
+        return !deferred.isEmpty();
+    }
+
+    /**
+     * Computes all deferred values.
+     */
+    public void resolve()
+    {
+        for (Deferred values : deferred)
+        {
+            values.resolve();
+        }
+    }
+
+    @Override
+    public String getProperty(String key)
+    {
+        resolve(key);
+        return super.getProperty(key);
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+        resolve(key);
+        return super.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        resolve(key);
+        return super.containsKey(key);
+    }
+
+    @Override
+    public Object remove(Object key)
+    {
+        resolve(key);
+        return super.remove(key);
+    }
+
+    @Override
+    public Enumeration<?> propertyNames()
+    {
+        resolve();
+        return super.propertyNames();
+    }
+
+    @Override
+    public Set<String> stringPropertyNames()
+    {
+        resolve();
+        return super.stringPropertyNames();
+    }
+
+    @Override
+    public Enumeration<Object> keys()
+    {
+        resolve();
+        return super.keys();
+    }
+
+    @Override
+    public Enumeration<Object> elements()
+    {
+        resolve();
+        return super.elements();
+    }
+
+    @Override
+    public Set<Object> keySet()
+    {
+        resolve();
+        return super.keySet();
+    }
+
+    @Override
+    public Set<Map.Entry<Object, Object>> entrySet()
+    {
+        resolve();
+        return super.entrySet();
+    }
+
+    @Override
+    public Collection<Object> values()
+    {
+        resolve();
+        return super.values();
+    }
+
+    @Override
+    public int size()
+    {
+        resolve();
+        return super.size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        resolve();
+        return super.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object value)
+    {
+        resolve();
+        return super.contains(value);
+    }
+
+    @Override
+    public boolean containsValue(Object value)
+    {
+        resolve();
+        return super.containsValue(value);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        resolve();
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        resolve();
+        return super.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        resolve();
+        return super.toString();
+    }
+
+    @Override
+    public Object clone()
+    {
+        resolve();
+        DeferredProperties result = (DeferredProperties) super.clone();
+        result.deferred = new CopyOnWriteArrayList<Deferred>();
+        return result;
+    }
+
+    /**
+     * Replaces this with a plain {@link Properties} when serialized, as the deferred values cannot be.
+     *
+     * @return a copy of these properties
+     * @throws ObjectStreamException never
+     */
+    protected Object writeReplace() throws ObjectStreamException
+    {
+        Properties result = new Properties();
+        result.putAll(this);
+        return result;
+    }
+
+    /**
+     * Computes the deferred values that supply the specified property, if any.
+     *
+     * @param key the property name
+     */
+    private void resolve(Object key)
+    {
+        if (!deferred.isEmpty() && key instanceof String)
+        {
+            for (Deferred values : deferred)
+            {
+                if (values.supplies((String) key))
+                {
+                    values.resolve();
+                }
+            }
+        }
+    }
+
+    /**
+     * Values computed on demand.
+     */
+    private class Deferred
+    {
+
+        /**
+         * The callable that computes the values.
+         */
+        private final Callable<Map<String, String>> values;
+
+        /**
+         * The property names that the values supply.
+         */
+        private final String[] names;
+
+        /**
+         * The computed values.
+         */
+        private Map<String, String> result;
+
+        /**
+         * Determines if the values have been computed.
+         */
+        private boolean computed;
+
+        /**
+         * Determines if the values have been added to the properties. Guarded by the properties.
+         */
+        private boolean applied;
+
+        /**
+         * Constructs a <tt>Deferred</tt>.
+         *
+         * @param values the callable that computes the values
+         * @param names  the property names that the values supply
+         */
+        public Deferred(Callable<Map<String, String>> values, String[] names)
+        {
+            this.values = values;
+            this.names = names;
+        }
+
+        /**
+         * Determines if the values supply a property.
+         *
+         * @param key the property name
+         * @return <tt>true</tt> if the values supply the property
+         */
+        public boolean supplies(String key)
+        {
+            for (String name : names)
+            {
+                if (name.endsWith("*") ? key.startsWith(name.substring(0, name.length() - 1)) : key.equals(name))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Computes the values, adding those that aren't already present.
+         * <p/>
+         * Concurrent callers block until the values are available. The properties aren't locked while the values
+         * are being computed, so they remain accessible in the interim.
+         */
+        public void resolve()
+        {
+            Map<String, String> map = compute();
+            synchronized (DeferredProperties.this)
+            {
+                if (!applied)
+                {
+                    applied = true;
+                    if (map != null)
+                    {
+                        for (Map.Entry<String, String> entry : map.entrySet())
+                        {
+                            if (entry.getValue() != null && !DeferredProperties.super.containsKey(entry.getKey()))
+                            {
+                                put(entry.getKey(), entry.getValue());
+                            }
+                        }
+                    }
+                    deferred.remove(this);
+                }
+            }
+        }
+
+        /**
+         * Computes the values, if they haven't already been computed.
+         *
+         * @return the values. May be <tt>null</tt>
+         */
+        private synchronized Map<String, String> compute()
+        {
+            if (!computed)
+            {
+                computed = true;
+                try
+                {
+                    result = values.call();
+                }
+                catch (Exception exception)
+                {
+                    logger.log(Level.WARNING, "Failed to determine values for " + names[0], exception);
+                }
+            }
+            return result;
+        }
+    }
+}
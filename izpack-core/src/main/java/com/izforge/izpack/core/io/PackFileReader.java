@@ -0,0 +1,329 @@
+package com.izforge.izpack.core.io;
+
+import static com.izforge.izpack.core.io.PackFileWriter.ADDITIONALS;
+import static com.izforge.izpack.core.io.PackFileWriter.BACK_REFERENCE;
+import static com.izforge.izpack.core.io.PackFileWriter.DIRECTORY;
+import static com.izforge.izpack.core.io.PackFileWriter.INDEX_OFFSET;
+import static com.izforge.izpack.core.io.PackFileWriter.NEW;
+import static com.izforge.izpack.core.io.PackFileWriter.NULL;
+import static com.izforge.izpack.core.io.PackFileWriter.PACK200;
+import static com.izforge.izpack.core.io.PackFileWriter.RELATIVE_PATH;
+import static com.izforge.izpack.core.io.PackFileWriter.RENAME;
+import static com.izforge.izpack.core.io.PackFileWriter.SAME_NAME;
+import static com.izforge.izpack.core.io.PackFileWriter.TARGET_PATH;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.binding.OsModel;
+
+
+/**
+ * Reads {@link PackFile} meta-data written by {@link PackFileWriter}.
+ * <p/>
+ * Files that share OS constraints share the same constraint list instance. Each file's filter class identifier is
+ * available via {@link PackFile#getFilterId()}.
+ */
+public class PackFileReader
+{
+
+    /**
+     * The stream to read from.
+     */
+    private final ObjectInput in;
+
+    /**
+     * The interned strings.
+     */
+    private final List<String> strings = new ArrayList<String>();
+
+    /**
+     * The interned OS constraints.
+     */
+    private final List<List<OsModel>> osConstraints = new ArrayList<List<OsModel>>();
+
+    /**
+     * The interned filter classes' OS constraints.
+     */
+    private final List<List<OsModel>> filterConstraints = new ArrayList<List<OsModel>>();
+
+    /**
+     * The interned filter classes' conditions.
+     */
+    private final List<String> filterConditions = new ArrayList<String>();
+
+    /**
+     * The override types, indexed on ordinal.
+     */
+    private static final OverrideType[] OVERRIDE_TYPES = OverrideType.values();
+
+    /**
+     * The blockable types, indexed on ordinal.
+     */
+    private static final Blockable[] BLOCKABLE_TYPES = Blockable.values();
+
+
+    /**
+     * Constructs a <tt>PackFileReader</tt>, reading and verifying the format version.
+     *
+     * @param in the stream to read from
+     * @throws IOException if the version is not supported, or for any I/O error
+     */
+    public PackFileReader(ObjectInput in) throws IOException
+    {
+        this.in = in;
+        long version = readVarLong(in);
+        if (version != PackFileWriter.VERSION)
+        {
+            throw new StreamCorruptedException("Unsupported pack file format version: " + version);
+        }
+    }
+
+    /**
+     * Reads a pack file.
+     *
+     * @return the pack file
+     * @throws IOException            for any I/O error
+     * @throws ClassNotFoundException if the class of the file's additional attributes cannot be found
+     */
+    public PackFile read() throws IOException, ClassNotFoundException
+    {
+        int flags = (int) readVarLong(in);
+        String target = null;
+        String relative = null;
+        if ((flags & TARGET_PATH) != 0)
+        {
+            target = getPath(readInterned(), in.readUTF());
+        }
+        if ((flags & RELATIVE_PATH) != 0)
+        {
+            String parent = readInterned();
+            String name = ((flags & SAME_NAME) != 0) ? PackFileWriter.getName(target) : in.readUTF();
+            relative = getPath(parent, name);
+        }
+        long length = readVarLong(in);
+        long encoded = readVarLong(in);
+        long lastModified = (encoded >>> 1) ^ -(encoded & 1);
+        int types = in.readUnsignedByte();
+        OverrideType override = get(OVERRIDE_TYPES, types & 0xF);
+        Blockable blockable = get(BLOCKABLE_TYPES, types >>> 4);
+        int filterId = readFilter();
+        List<OsModel> constraints = null;
+        String condition = null;
+        if (filterId != 0)
+        {
+            constraints = filterConstraints.get(filterId - 1);
+            condition = filterConditions.get(filterId - 1);
+        }
+        String rename = ((flags & RENAME) != 0) ? readInterned() : null;
+        String previousPackId = null;
+        long offset = 0;
+        if ((flags & BACK_REFERENCE) != 0)
+        {
+            previousPackId = readInterned();
+            offset = readVarLong(in);
+        }
+        Map<String, Object> additionals = ((flags & ADDITIONALS) != 0) ? readAdditionals() : null;
+
+        PackFile result = new PackFile(relative, target, constraints, override, rename, blockable, additionals,
+                                       length, lastModified, (flags & DIRECTORY) != 0);
+        result.setCondition(condition);
+        result.setFilterId(filterId);
+        result.setPack200Jar((flags & PACK200) != 0);
+        if (previousPackId != null)
+        {
+            result.setPreviousPackFileRef(previousPackId, offset);
+        }
+        return result;
+    }
+
+    /**
+     * Reads an unsigned variable length integer written by {@link PackFileWriter}.
+     *
+     * @param in the stream to read from
+     * @return the value
+     * @throws IOException for any I/O error
+     */
+    static long readVarLong(ObjectInput in) throws IOException
+    {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException("Invalid variable length integer");
+    }
+
+    /**
+     * Reads an interned string.
+     *
+     * @return the string. May be <tt>null</tt>
+     * @throws IOException for any I/O error
+     */
+    private String readInterned() throws IOException
+    {
+        int index = (int) readVarLong(in);
+        String result;
+        if (index == NULL)
+        {
+            result = null;
+        }
+        else if (index == NEW)
+        {
+            result = in.readUTF();
+            strings.add(result);
+        }
+        else
+        {
+            result = get(strings, index - INDEX_OFFSET);
+        }
+        return result;
+    }
+
+    /**
+     * Reads an interned filter class.
+     *
+     * @return the filter class identifier, or <tt>0</tt> if the file has no filter class
+     * @throws IOException for any I/O error
+     */
+    private int readFilter() throws IOException
+    {
+        int index = (int) readVarLong(in);
+        int result;
+        if (index == NULL)
+        {
+            result = 0;
+        }
+        else if (index == NEW)
+        {
+            filterConstraints.add(readOsConstraints());
+            filterConditions.add(readInterned());
+            result = filterConstraints.size();
+        }
+        else
+        {
+            result = index - INDEX_OFFSET + 1;
+            if (result < 1 || result > filterConstraints.size())
+            {
+                throw new StreamCorruptedException("Invalid filter class index: " + index);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads a file's additional attributes.
+     * <p/>
+     * The cast is unchecked as serialization loses the type parameters. {@link PackFileWriter} only writes the map
+     * returned by {@link PackFile#getAdditionals()}, which is keyed on attribute name.
+     *
+     * @return the additional attributes
+     * @throws IOException            for any I/O error
+     * @throws ClassNotFoundException if the class of an attribute cannot be found
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readAdditionals() throws IOException, ClassNotFoundException
+    {
+        return (Map<String, Object>) in.readObject();
+    }
+
+    /**
+     * Reads interned OS constraints.
+     *
+     * @return the constraints. May be <tt>null</tt>
+     * @throws IOException for any I/O error
+     */
+    private List<OsModel> readOsConstraints() throws IOException
+    {
+        int index = (int) readVarLong(in);
+        List<OsModel> result;
+        if (index == NULL)
+        {
+            result = null;
+        }
+        else if (index == NEW)
+        {
+            int count = (int) readVarLong(in);
+            result = new ArrayList<OsModel>(count);
+            for (int i = 0; i < count; ++i)
+            {
+                int present = in.readUnsignedByte();
+                String[] attributes = new String[5];
+                for (int j = 0; j < attributes.length; ++j)
+                {
+                    if ((present & (1 << j)) != 0)
+                    {
+                        attributes[j] = readInterned();
+                    }
+                }
+                result.add(new OsModel(attributes[0], attributes[1], attributes[2], attributes[3], attributes[4]));
+            }
+            result = Collections.unmodifiableList(result);
+            osConstraints.add(result);
+        }
+        else
+        {
+            result = get(osConstraints, index - INDEX_OFFSET);
+        }
+        return result;
+    }
+
+    /**
+     * Joins a parent and name.
+     *
+     * @param parent the parent. May be <tt>null</tt>
+     * @param name   the name
+     * @return the path
+     */
+    private String getPath(String parent, String name)
+    {
+        return (parent != null) ? parent + '/' + name : name;
+    }
+
+    /**
+     * Returns an interned value.
+     *
+     * @param values the interned values
+     * @param index  the value index
+     * @return the value
+     * @throws StreamCorruptedException if the index is invalid
+     */
+    private <T> T get(List<T> values, int index) throws StreamCorruptedException
+    {
+        if (index < 0 || index >= values.size())
+        {
+            throw new StreamCorruptedException("Invalid interned value index: " + index);
+        }
+        return values.get(index);
+    }
+
+    /**
+     * Returns an enum value, encoded as its ordinal + 1.
+     *
+     * @param values the enum values
+     * @param value  the encoded value. <tt>0</tt> indicates <tt>null</tt>
+     * @return the enum value. May be <tt>null</tt>
+     * @throws StreamCorruptedException if the value is invalid
+     */
+    private <T> T get(T[] values, int value) throws StreamCorruptedException
+    {
+        if (value > values.length)
+        {
+            throw new StreamCorruptedException("Invalid enumerated value: " + value);
+        }
+        return (value != 0) ? values[value - 1] : null;
+    }
+}
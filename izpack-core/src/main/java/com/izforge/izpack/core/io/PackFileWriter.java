@@ -0,0 +1,394 @@
+package com.izforge.izpack.core.io;
+
+import java.io.IOException;
+import java.io.ObjectOutput;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.binding.OsModel;
+
+
+/**
+ * Writes {@link PackFile} meta-data in a compact binary form, for reading by {@link PackFileReader}.
+ * <p/>
+ * This replaces java serialization of pack headers, which writes class descriptors and field names, and requires
+ * a reflective read per file. Numbers are written as variable length integers, and the directories of paths,
+ * conditions and OS constraints are interned: each distinct value is written once, on first use, and subsequently
+ * referred to by index.
+ * <p/>
+ * Each distinct combination of OS constraints and condition is interned as a <em>filter class</em>, whose
+ * identifier is stored on the file (see {@link PackFile#getFilterId()}). A pack typically has only a handful of
+ * these, so the installer can decide whether to install or skip a file by evaluating its filter class once per
+ * pack, rather than its constraints and condition for every file.
+ * <p/>
+ * Interned values are local to the writer, so a reader must read every file written by the writer, in order.
+ */
+public class PackFileWriter
+{
+
+    /**
+     * The format version.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Flag indicating the file is a directory.
+     */
+    static final int DIRECTORY = 1;
+
+    /**
+     * Flag indicating the file is a pack200 compressed jar.
+     */
+    static final int PACK200 = 1 << 1;
+
+    /**
+     * Flag indicating the file refers to a file in a previous pack.
+     */
+    static final int BACK_REFERENCE = 1 << 2;
+
+    /**
+     * Flag indicating the file has an override rename target.
+     */
+    static final int RENAME = 1 << 3;
+
+    /**
+     * Flag indicating the file has additional attributes.
+     */
+    static final int ADDITIONALS = 1 << 4;
+
+    /**
+     * Flag indicating the file has a relative source path.
+     */
+    static final int RELATIVE_PATH = 1 << 5;
+
+    /**
+     * Flag indicating the relative source path has the same name as the target path.
+     */
+    static final int SAME_NAME = 1 << 6;
+
+    /**
+     * Flag indicating the file has a target path.
+     */
+    static final int TARGET_PATH = 1 << 7;
+
+    /**
+     * Interned value indicating <tt>null</tt>.
+     */
+    static final int NULL = 0;
+
+    /**
+     * Interned value indicating that the value follows, and is to be added to the table.
+     */
+    static final int NEW = 1;
+
+    /**
+     * The offset added to table indexes.
+     */
+    static final int INDEX_OFFSET = 2;
+
+    /**
+     * The stream to write to.
+     */
+    private final ObjectOutput out;
+
+    /**
+     * The interned strings, and their indexes.
+     */
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+    /**
+     * The interned OS constraints, keyed on their content, and their indexes.
+     */
+    private final Map<String, Integer> osConstraints = new HashMap<String, Integer>();
+
+    /**
+     * The interned filter classes, keyed on their OS constraints and condition, and their indexes.
+     */
+    private final Map<String, Integer> filters = new HashMap<String, Integer>();
+
+
+    /**
+     * Constructs a <tt>PackFileWriter</tt>, writing the format version.
+     *
+     * @param out the stream to write to
+     * @throws IOException for any I/O error
+     */
+    public PackFileWriter(ObjectOutput out) throws IOException
+    {
+        this.out = out;
+        writeVarLong(out, VERSION);
+    }
+
+    /**
+     * Writes a pack file.
+     *
+     * @param file the file to write
+     * @throws IOException for any I/O error
+     */
+    public void write(PackFile file) throws IOException
+    {
+        String target = file.getTargetPath();
+        String relative = file.getRelativeSourcePath();
+        int flags = 0;
+        if (file.isDirectory())
+        {
+            flags |= DIRECTORY;
+        }
+        if (file.isPack200Jar())
+        {
+            flags |= PACK200;
+        }
+        if (file.isBackReference())
+        {
+            flags |= BACK_REFERENCE;
+        }
+        if (file.overrideRenameTo() != null)
+        {
+            flags |= RENAME;
+        }
+        if (file.getAdditionals() != null)
+        {
+            flags |= ADDITIONALS;
+        }
+        if (target != null)
+        {
+            flags |= TARGET_PATH;
+        }
+        if (relative != null)
+        {
+            flags |= RELATIVE_PATH;
+            if (target != null && getName(relative).equals(getName(target)))
+            {
+                flags |= SAME_NAME;
+            }
+        }
+        writeVarLong(out, flags);
+
+        if (target != null)
+        {
+            writeInterned(getParent(target));
+            out.writeUTF(getName(target));
+        }
+        if (relative != null)
+        {
+            writeInterned(getParent(relative));
+            if ((flags & SAME_NAME) == 0)
+            {
+                out.writeUTF(getName(relative));
+            }
+        }
+        writeVarLong(out, file.length());
+        writeVarLong(out, zigZag(file.lastModified()));
+        int override = (file.override() != null) ? file.override().ordinal() + 1 : 0;
+        int blockable = (file.blockable() != null) ? file.blockable().ordinal() + 1 : 0;
+        out.writeByte(override | (blockable << 4));
+        writeFilter(file.osConstraints(), file.getCondition());
+        if (file.overrideRenameTo() != null)
+        {
+            writeInterned(file.overrideRenameTo());
+        }
+        if (file.isBackReference())
+        {
+            writeInterned(file.previousPackId);
+            writeVarLong(out, file.offsetInPreviousPack);
+        }
+        if (file.getAdditionals() != null)
+        {
+            out.writeObject(file.getAdditionals());
+        }
+    }
+
+    /**
+     * Writes an unsigned variable length integer, 7 bits per byte, least significant group first.
+     *
+     * @param out   the stream to write to
+     * @param value the value to write. Must not be negative
+     * @throws IOException for any I/O error
+     */
+    static void writeVarLong(ObjectOutput out, long value) throws IOException
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Encodes a signed value so that values of small magnitude have a short variable length encoding.
+     *
+     * @param value the value to encode
+     * @return the encoded value
+     */
+    static long zigZag(long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Returns the parent of a '/' separated path.
+     *
+     * @param path the path
+     * @return the parent of the path, or <tt>null</tt> if it has none
+     */
+    static String getParent(String path)
+    {
+        int index = path.lastIndexOf('/');
+        return (index != -1) ? path.substring(0, index) : null;
+    }
+
+    /**
+     * Returns the name of a '/' separated path.
+     *
+     * @param path the path
+     * @return the last element of the path
+     */
+    static String getName(String path)
+    {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Writes an interned string.
+     *
+     * @param value the value to write. May be <tt>null</tt>
+     * @throws IOException for any I/O error
+     */
+    private void writeInterned(String value) throws IOException
+    {
+        if (value == null)
+        {
+            writeVarLong(out, NULL);
+        }
+        else
+        {
+            Integer index = strings.get(value);
+            if (index != null)
+            {
+                writeVarLong(out, index + INDEX_OFFSET);
+            }
+            else
+            {
+                strings.put(value, strings.size());
+                writeVarLong(out, NEW);
+                out.writeUTF(value);
+            }
+        }
+    }
+
+    /**
+     * Writes an interned filter class.
+     * <p/>
+     * Files with neither OS constraints nor a condition have no filter class.
+     *
+     * @param constraints the OS constraints. May be <tt>null</tt>
+     * @param condition   the condition. May be <tt>null</tt>
+     * @throws IOException for any I/O error
+     */
+    private void writeFilter(List<OsModel> constraints, String condition) throws IOException
+    {
+        if ((constraints == null || constraints.isEmpty()) && condition == null)
+        {
+            writeVarLong(out, NULL);
+            return;
+        }
+        String key = ((constraints != null) ? getKey(constraints) : "\u0000") + '\u0003'
+                + ((condition != null) ? condition : "\u0000");
+        Integer index = filters.get(key);
+        if (index != null)
+        {
+            writeVarLong(out, index + INDEX_OFFSET);
+        }
+        else
+        {
+            filters.put(key, filters.size());
+            writeVarLong(out, NEW);
+            writeOsConstraints(constraints);
+            writeInterned(condition);
+        }
+    }
+
+    /**
+     * Writes interned OS constraints.
+     * <p/>
+     * Each constraint is written as a bitset indicating which of its attributes are present, followed by the
+     * present attributes.
+     *
+     * @param constraints the constraints to write. May be <tt>null</tt>
+     * @throws IOException for any I/O error
+     */
+    private void writeOsConstraints(List<OsModel> constraints) throws IOException
+    {
+        if (constraints == null)
+        {
+            writeVarLong(out, NULL);
+            return;
+        }
+        String key = getKey(constraints);
+        Integer index = osConstraints.get(key);
+        if (index != null)
+        {
+            writeVarLong(out, index + INDEX_OFFSET);
+        }
+        else
+        {
+            osConstraints.put(key, osConstraints.size());
+            writeVarLong(out, NEW);
+            writeVarLong(out, constraints.size());
+            for (OsModel model : constraints)
+            {
+                String[] attributes = getAttributes(model);
+                int present = 0;
+                for (int i = 0; i < attributes.length; ++i)
+                {
+                    if (attributes[i] != null)
+                    {
+                        present |= 1 << i;
+                    }
+                }
+                out.writeByte(present);
+                for (String attribute : attributes)
+                {
+                    if (attribute != null)
+                    {
+                        writeInterned(attribute);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a key identifying the content of OS constraints.
+     *
+     * @param constraints the constraints
+     * @return the key
+     */
+    private String getKey(List<OsModel> constraints)
+    {
+        StringBuilder result = new StringBuilder();
+        for (OsModel model : constraints)
+        {
+            for (String attribute : getAttributes(model))
+            {
+                result.append(attribute == null ? "\u0000" : attribute).append('\u0001');
+            }
+            result.append('\u0002');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the attributes of an OS constraint, in the order they are written.
+     *
+     * @param model the constraint
+     * @return the attributes, any of which may be <tt>null</tt>
+     */
+    static String[] getAttributes(OsModel model)
+    {
+        return new String[]{model.getArch(), model.getFamily(), model.getJre(), model.getName(), model.getVersion()};
+    }
+}
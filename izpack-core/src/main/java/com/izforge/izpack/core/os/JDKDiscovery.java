@@ -0,0 +1,694 @@
+package com.izforge.izpack.core.os;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.izforge.izpack.util.FileExecutor;
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Locates Java installations, and determines their versions without launching them.
+ * <p/>
+ * The version of an installation is read from its <tt>release</tt> file, or failing that, from the manifest of
+ * <tt>rt.jar</tt> or <tt>jrt-fs.jar</tt>. <tt>java -version</tt> is only executed if none of these are present.
+ * Versions are cached on the installation path, and re-read if the file they were read from is modified.
+ * <p/>
+ * Installations are discovered by scanning <tt>JAVA_HOME</tt>, the <tt>PATH</tt>, the running JVM, and the common
+ * installation roots of each platform, in parallel.
+ */
+public class JDKDiscovery
+{
+
+    /**
+     * A Java installation.
+     */
+    public static class JDK
+    {
+
+        /**
+         * The installation directory.
+         */
+        private final File home;
+
+        /**
+         * The installation version. May be <tt>null</tt>.
+         */
+        private final String version;
+
+        /**
+         * Determines if the installation is a JDK, rather than a JRE.
+         */
+        private final boolean jdk;
+
+
+        /**
+         * Constructs a <tt>JDK</tt>.
+         *
+         * @param home    the installation directory
+         * @param version the installation version. May be <tt>null</tt>
+         * @param jdk     determines if the installation is a JDK, rather than a JRE
+         */
+        public JDK(File home, String version, boolean jdk)
+        {
+            this.home = home;
+            this.version = version;
+            this.jdk = jdk;
+        }
+
+        /**
+         * Returns the installation directory.
+         *
+         * @return the installation directory
+         */
+        public File getHome()
+        {
+            return home;
+        }
+
+        /**
+         * Returns the installation version.
+         *
+         * @return the version, or <tt>null</tt> if it cannot be determined
+         */
+        public String getVersion()
+        {
+            return version;
+        }
+
+        /**
+         * Determines if the installation is a JDK, rather than a JRE.
+         *
+         * @return <tt>true</tt> if the installation contains a compiler
+         */
+        public boolean isJDK()
+        {
+            return jdk;
+        }
+
+        @Override
+        public String toString()
+        {
+            return home + " (" + version + ")";
+        }
+    }
+
+    /**
+     * The files that the version may be read from, relative to the installation directory, in order of preference.
+     * The first is a properties file, the remainder are jars.
+     */
+    private static final String[] VERSION_FILES = {
+            "release",
+            "jre" + File.separator + "lib" + File.separator + "rt.jar",
+            "lib" + File.separator + "rt.jar",
+            "lib" + File.separator + "jrt-fs.jar"};
+
+    /**
+     * The <tt>JAVA_VERSION</tt> entry in the release file.
+     */
+    private static final Pattern RELEASE_VERSION = Pattern.compile("^JAVA_VERSION\\s*=\\s*\"?([^\"]*)\"?\\s*$");
+
+    /**
+     * The version in the output of <tt>java -version</tt>.
+     */
+    private static final Pattern EXEC_VERSION = Pattern.compile("version \"([^\"]+)\"");
+
+    /**
+     * The maximum number of threads used to scan installations.
+     */
+    private static final int MAX_THREADS = 4;
+
+    /**
+     * The environment variables.
+     */
+    private final Map<String, String> env;
+
+    /**
+     * The directories containing installations.
+     */
+    private final List<File> roots;
+
+    /**
+     * The cached versions, keyed on installation directory.
+     */
+    private final Map<File, CachedVersion> versions = new HashMap<File, CachedVersion>();
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(JDKDiscovery.class.getName());
+
+
+    /**
+     * Constructs a <tt>JDKDiscovery</tt> for the current environment.
+     */
+    public JDKDiscovery()
+    {
+        this(System.getenv(), getDefaultRoots());
+    }
+
+    /**
+     * Constructs a <tt>JDKDiscovery</tt>.
+     *
+     * @param env   the environment variables
+     * @param roots the directories containing installations
+     */
+    JDKDiscovery(Map<String, String> env, List<File> roots)
+    {
+        this.env = env;
+        this.roots = roots;
+    }
+
+    /**
+     * Returns the version of a Java installation.
+     *
+     * @param home the installation directory
+     * @return the version, or <tt>null</tt> if the directory isn't a Java installation, or its version can't be
+     *         determined
+     */
+    public String getVersion(File home)
+    {
+        File key = canonical(home);
+        CachedVersion cached;
+        synchronized (versions)
+        {
+            cached = versions.get(key);
+        }
+        if (cached == null || !cached.isCurrent())
+        {
+            cached = readVersion(key);
+            synchronized (versions)
+            {
+                versions.put(key, cached);
+            }
+        }
+        return cached.version;
+    }
+
+    /**
+     * Determines if a directory contains a JDK.
+     *
+     * @param home the directory
+     * @return <tt>true</tt> if the directory contains a compiler
+     */
+    public boolean isJDK(File home)
+    {
+        return getExecutable(new File(home, "bin"), "javac") != null;
+    }
+
+    /**
+     * Determines if a directory is the home of a real JDK.
+     * <p/>
+     * Unlike {@link #isJDK}, this requires the JDK's <tt>release</tt> file or <tt>lib/tools.jar</tt> to be present,
+     * so that launcher stubs such as the macOS <tt>/usr/bin/javac</tt>, which only prompt to install a JDK, are
+     * rejected.
+     *
+     * @param home the directory
+     * @return <tt>true</tt> if the directory contains a compiler, and the <tt>release</tt> file or <tt>tools.jar</tt>
+     */
+    public boolean isJDKHome(File home)
+    {
+        return isJDK(home) && (new File(home, "release").isFile()
+                || new File(home, "lib" + File.separator + "tools.jar").isFile());
+    }
+
+    /**
+     * Returns the JDK containing the first compiler on the <tt>PATH</tt>.
+     *
+     * @return the JDK installation directory, or <tt>null</tt> if there is no compiler on the <tt>PATH</tt>
+     */
+    public File getJDKOnPath()
+    {
+        for (File dir : getPath())
+        {
+            File javac = getExecutable(dir, "javac");
+            if (javac != null)
+            {
+                return canonical(javac).getParentFile().getParentFile();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Discovers the Java installations on this machine.
+     *
+     * @return the installations, highest version first
+     */
+    public List<JDK> discover()
+    {
+        List<File> candidates = new ArrayList<File>(getCandidates());
+        List<JDK> result = new ArrayList<JDK>();
+        if (candidates.isEmpty())
+        {
+            return result;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(candidates.size(), MAX_THREADS),
+                                                                new DaemonThreadFactory());
+        try
+        {
+            List<Future<JDK>> futures = new ArrayList<Future<JDK>>();
+            for (final File candidate : candidates)
+            {
+                futures.add(executor.submit(new Callable<JDK>()
+                {
+                    public JDK call()
+                    {
+                        return getJDK(candidate);
+                    }
+                }));
+            }
+            for (Future<JDK> future : futures)
+            {
+                JDK jdk = future.get();
+                if (jdk != null)
+                {
+                    result.add(jdk);
+                }
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException exception)
+        {
+            logger.log(Level.WARNING, "Failed to discover Java installations", exception.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        Collections.sort(result, new Comparator<JDK>()
+        {
+            public int compare(JDK o1, JDK o2)
+            {
+                return compareVersions(o2.getVersion(), o1.getVersion());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the Java installation in a directory.
+     *
+     * @param home the directory
+     * @return the installation, or <tt>null</tt> if the directory isn't a Java installation
+     */
+    protected JDK getJDK(File home)
+    {
+        if (getExecutable(new File(home, "bin"), "java") == null)
+        {
+            return null;
+        }
+        return new JDK(home, getVersion(home), isJDK(home));
+    }
+
+    /**
+     * Returns the directories that may contain Java installations.
+     *
+     * @return the candidate installation directories
+     */
+    protected Set<File> getCandidates()
+    {
+        Set<File> result = new LinkedHashSet<File>();
+        String javaHome = env.get("JAVA_HOME");
+        if (javaHome != null && javaHome.length() != 0)
+        {
+            addHome(result, new File(javaHome));
+        }
+        for (File dir : getPath())
+        {
+            File java = getExecutable(dir, "java");
+            if (java != null)
+            {
+                addHome(result, canonical(java).getParentFile().getParentFile());
+            }
+        }
+        addHome(result, new File(System.getProperty("java.home")));
+        for (File root : roots)
+        {
+            File[] children = root.listFiles();
+            if (children != null)
+            {
+                Arrays.sort(children);
+                for (File child : children)
+                {
+                    File macHome = new File(child, "Contents" + File.separator + "Home");
+                    addHome(result, macHome.isDirectory() ? macHome : child);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compares two version strings, numerically where possible.
+     *
+     * @param version1 the first version. May be <tt>null</tt>
+     * @param version2 the second version. May be <tt>null</tt>
+     * @return a negative, zero or positive value if <tt>version1</tt> is less than, equal to, or greater than
+     *         <tt>version2</tt>. <tt>null</tt> versions are less than all others
+     */
+    public static int compareVersions(String version1, String version2)
+    {
+        if (version1 == null || version2 == null)
+        {
+            return (version1 == null) ? ((version2 == null) ? 0 : -1) : 1;
+        }
+        String[] parts1 = version1.split("[._+-]");
+        String[] parts2 = version2.split("[._+-]");
+        for (int i = 0; i < parts1.length && i < parts2.length; ++i)
+        {
+            int result;
+            try
+            {
+                long value1 = Long.parseLong(parts1[i]);
+                long value2 = Long.parseLong(parts2[i]);
+                result = (value1 < value2) ? -1 : (value1 == value2) ? 0 : 1;
+            }
+            catch (NumberFormatException exception)
+            {
+                result = parts1[i].compareTo(parts2[i]);
+            }
+            if (result != 0)
+            {
+                return result;
+            }
+        }
+        return parts1.length - parts2.length;
+    }
+
+    /**
+     * Returns the common installation roots for the current platform.
+     *
+     * @return the installation roots
+     */
+    private static List<File> getDefaultRoots()
+    {
+        List<File> result = new ArrayList<File>();
+        String[] paths = {"/usr/lib/jvm", "/usr/java", "/usr/local/java", "/opt/java", "/opt/jdk",
+                "/Library/Java/JavaVirtualMachines", "/System/Library/Java/JavaVirtualMachines"};
+        for (String path : paths)
+        {
+            result.add(new File(path));
+        }
+        String[] programFiles = {System.getenv("ProgramFiles"), System.getenv("ProgramFiles(x86)"),
+                System.getenv("ProgramW6432")};
+        for (String path : programFiles)
+        {
+            if (path != null)
+            {
+                result.add(new File(path, "Java"));
+            }
+        }
+        String userHome = System.getProperty("user.home");
+        if (userHome != null)
+        {
+            result.add(new File(userHome, ".sdkman" + File.separator + "candidates" + File.separator + "java"));
+        }
+        return result;
+    }
+
+    /**
+     * Adds an installation directory to a set of candidates.
+     * <p/>
+     * A JRE embedded in a JDK is replaced by the JDK.
+     *
+     * @param candidates the candidates
+     * @param home       the installation directory
+     */
+    private void addHome(Set<File> candidates, File home)
+    {
+        if (home.isDirectory())
+        {
+            home = canonical(home);
+            File parent = home.getParentFile();
+            if ("jre".equals(home.getName()) && parent != null && isJDK(parent))
+            {
+                home = parent;
+            }
+            candidates.add(home);
+        }
+    }
+
+    /**
+     * Returns the directories on the <tt>PATH</tt>.
+     *
+     * @return the <tt>PATH</tt> directories
+     */
+    private List<File> getPath()
+    {
+        List<File> result = new ArrayList<File>();
+        String path = env.get("PATH");
+        if (path == null)
+        {
+            path = env.get("Path");
+        }
+        if (path != null)
+        {
+            for (String dir : path.split(Pattern.quote(File.pathSeparator)))
+            {
+                if (dir.length() != 0)
+                {
+                    result.add(new File(dir));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the version of an installation.
+     *
+     * @param home the canonical installation directory
+     * @return the version
+     */
+    private CachedVersion readVersion(File home)
+    {
+        for (int i = 0; i < VERSION_FILES.length; ++i)
+        {
+            File file = new File(home, VERSION_FILES[i]);
+            if (file.isFile())
+            {
+                String version = (i == 0) ? readRelease(file) : readManifest(file);
+                if (version != null)
+                {
+                    return new CachedVersion(version, file);
+                }
+            }
+        }
+        File java = getExecutable(new File(home, "bin"), "java");
+        if (java != null)
+        {
+            return new CachedVersion(execVersion(java), java);
+        }
+        return new CachedVersion(null, home);
+    }
+
+    /**
+     * Reads the version from a <tt>release</tt> file.
+     *
+     * @param file the file
+     * @return the version, or <tt>null</tt> if it is not present
+     */
+    private String readRelease(File file)
+    {
+        BufferedReader reader = null;
+        try
+        {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                Matcher matcher = RELEASE_VERSION.matcher(line);
+                if (matcher.matches())
+                {
+                    return matcher.group(1);
+                }
+            }
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.FINE, "Failed to read " + file, exception);
+        }
+        finally
+        {
+            FileUtils.close(reader);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the version from the manifest of a jar.
+     *
+     * @param file the jar
+     * @return the version, or <tt>null</tt> if it is not present
+     */
+    private String readManifest(File file)
+    {
+        JarFile jar = null;
+        try
+        {
+            jar = new JarFile(file, false);
+            Manifest manifest = jar.getManifest();
+            if (manifest != null)
+            {
+                return manifest.getMainAttributes().getValue("Implementation-Version");
+            }
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.FINE, "Failed to read " + file, exception);
+        }
+        finally
+        {
+            FileUtils.close(jar);
+        }
+        return null;
+    }
+
+    /**
+     * Determines the version of an installation by executing <tt>java -version</tt>.
+     *
+     * @param java the java executable
+     * @return the version, or <tt>null</tt> if it cannot be determined
+     */
+    private String execVersion(File java)
+    {
+        logger.fine("No version information found, executing " + java + " -version");
+        String[] output = new String[2];
+        new FileExecutor().executeCommand(new String[]{java.getPath(), "-version"}, output);
+        for (String text : output)
+        {
+            if (text != null)
+            {
+                Matcher matcher = EXEC_VERSION.matcher(text);
+                if (matcher.find())
+                {
+                    return matcher.group(1);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns an executable in a directory.
+     *
+     * @param dir  the directory
+     * @param name the executable name, less any extension
+     * @return the executable, or <tt>null</tt> if it doesn't exist
+     */
+    private static File getExecutable(File dir, String name)
+    {
+        File file = new File(dir, name);
+        if (file.isFile())
+        {
+            return file;
+        }
+        file = new File(dir, name + ".exe");
+        return file.isFile() ? file : null;
+    }
+
+    /**
+     * Returns the canonical form of a file, or its absolute form if it cannot be determined.
+     *
+     * @param file the file
+     * @return the canonical file
+     */
+    private static File canonical(File file)
+    {
+        try
+        {
+            return file.getCanonicalFile();
+        }
+        catch (IOException exception)
+        {
+            return file.getAbsoluteFile();
+        }
+    }
+
+    /**
+     * A version, and the file it was read from.
+     */
+    private static class CachedVersion
+    {
+
+        /**
+         * The version. May be <tt>null</tt>.
+         */
+        private final String version;
+
+        /**
+         * The file the version was read from.
+         */
+        private final File source;
+
+        /**
+         * The modification time of the source when the version was read.
+         */
+        private final long modified;
+
+
+        /**
+         * Constructs a <tt>CachedVersion</tt>.
+         *
+         * @param version the version. May be <tt>null</tt>
+         * @param source  the file the version was read from
+         */
+        public CachedVersion(String version, File source)
+        {
+            this.version = version;
+            this.source = source;
+            this.modified = source.lastModified();
+        }
+
+        /**
+         * Determines if the version is current.
+         *
+         * @return <tt>true</tt> if the source hasn't been modified since the version was read
+         */
+        public boolean isCurrent()
+        {
+            return source.lastModified() == modified;
+        }
+    }
+
+    /**
+     * Creates daemon threads, so that discovery doesn't prevent the installer from exiting.
+     */
+    private static class DaemonThreadFactory implements ThreadFactory
+    {
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "IzPack JDK discovery");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
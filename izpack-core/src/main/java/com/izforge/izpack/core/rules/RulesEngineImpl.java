@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.izforge.izpack.api.adaptator.IXMLElement;
@@ -336,7 +337,10 @@ public class RulesEngineImpl implements RulesEngine
             cond.setInstalldata(this.installData);
         }
         boolean value = cond.isTrue();
-        logger.fine("Condition " + cond.getId() + ": " + Boolean.toString(value));
+        if (logger.isLoggable(Level.FINE))
+        {
+            logger.fine("Condition " + cond.getId() + ": " + Boolean.toString(value));
+        }
         return value;
     }
 
@@ -353,13 +357,19 @@ public class RulesEngineImpl implements RulesEngine
     {
         if (!this.panelConditions.containsKey(panelid))
         {
-            logger.fine("Panel " + panelid + " unconditionally activated");
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("Panel " + panelid + " unconditionally activated");
+            }
             return true;
         }
         Condition condition = getCondition(this.panelConditions.get(panelid));
         boolean b = condition.isTrue();
-        logger.fine("Panel " + panelid + ": activation depends on condition "
-                            + condition.getId() + " -> " + b);
+        if (logger.isLoggable(Level.FINE))
+        {
+            logger.fine("Panel " + panelid + ": activation depends on condition "
+                                + condition.getId() + " -> " + b);
+        }
         return b;
     }
 
@@ -380,13 +390,19 @@ public class RulesEngineImpl implements RulesEngine
         }
         if (!this.packConditions.containsKey(packid))
         {
-            logger.fine("Package " + packid + " unconditionally installable");
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("Package " + packid + " unconditionally installable");
+            }
             return true;
         }
         Condition condition = getCondition(this.packConditions.get(packid));
         boolean b = condition.isTrue();
-        logger.fine("Package " + packid + ": installation depends on condition "
-                            + condition.getId() + " -> " + b);
+        if (logger.isLoggable(Level.FINE))
+        {
+            logger.fine("Package " + packid + ": installation depends on condition "
+                                + condition.getId() + " -> " + b);
+        }
         return b;
     }
 
@@ -400,16 +416,13 @@ public class RulesEngineImpl implements RulesEngine
     @Override
     public boolean canInstallPackOptional(String packid, Variables variables)
     {
-        if (!this.optionalPackConditions.containsKey(packid))
+        boolean result = this.optionalPackConditions.containsKey(packid);
+        if (logger.isLoggable(Level.FINE))
         {
-            logger.fine("Package " + packid + " unconditionally installable");
-            return false;
-        }
-        else
-        {
-            logger.fine("Package " + packid + " optional installation possible");
-            return true;
+            logger.fine(result ? "Package " + packid + " optional installation possible"
+                                : "Package " + packid + " unconditionally installable");
         }
+        return result;
     }
 
     /**
@@ -0,0 +1,142 @@
+package com.izforge.izpack.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link DeferredProperties} class.
+ */
+public class DeferredPropertiesTest
+{
+
+    /**
+     * Verifies that deferred values are only computed when first accessed, and only once.
+     */
+    @Test
+    public void testComputedOnAccess()
+    {
+        DeferredProperties properties = new DeferredProperties();
+        properties.setProperty("A", "a");
+        Values host = new Values("HOST_NAME", "host", "IP_ADDRESS", "127.0.0.1");
+        properties.defer(host, "HOST_NAME", "IP_ADDRESS");
+        Values system = new Values("SYSTEM_os_name", "Linux");
+        properties.defer(system, "SYSTEM_*");
+
+        assertEquals("a", properties.getProperty("A"));
+        assertNull(properties.getProperty("B"));
+        assertEquals(0, host.calls);
+        assertEquals(0, system.calls);
+
+        assertEquals("host", properties.getProperty("HOST_NAME"));
+        assertEquals("127.0.0.1", properties.get("IP_ADDRESS"));
+        assertEquals(1, host.calls);
+        assertEquals(0, system.calls);
+        assertTrue(properties.hasDeferred());
+
+        assertEquals("default", properties.getProperty("SYSTEM_missing", "default"));
+        assertEquals(1, system.calls);
+        assertEquals("Linux", properties.getProperty("SYSTEM_os_name"));
+        assertEquals(1, system.calls);
+        assertFalse(properties.hasDeferred());
+    }
+
+    /**
+     * Verifies that bulk access computes all deferred values.
+     */
+    @Test
+    public void testBulkAccess()
+    {
+        DeferredProperties properties = new DeferredProperties();
+        properties.defer(new Values("HOST_NAME", "host"), "HOST_NAME");
+        assertTrue(properties.stringPropertyNames().contains("HOST_NAME"));
+
+        properties.defer(new Values("IP_ADDRESS", "127.0.0.1"), "IP_ADDRESS");
+        assertEquals(2, properties.size());
+
+        properties.defer(new Values("SYSTEM_user_name", "joe"), "SYSTEM_*");
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        assertEquals("joe", copy.getProperty("SYSTEM_user_name"));
+    }
+
+    /**
+     * Verifies that deferred values don't replace properties set before they are computed.
+     */
+    @Test
+    public void testExplicitValuesTakePrecedence()
+    {
+        DeferredProperties properties = new DeferredProperties();
+        properties.defer(new Values("HOST_NAME", "host", "IP_ADDRESS", "127.0.0.1"), "HOST_NAME", "IP_ADDRESS");
+        properties.setProperty("HOST_NAME", "override");
+        assertEquals("override", properties.getProperty("HOST_NAME"));
+        assertEquals("127.0.0.1", properties.getProperty("IP_ADDRESS"));
+
+        properties.defer(new Values("SYSTEM_os_name", "Linux"), "SYSTEM_*");
+        properties.remove("SYSTEM_os_name");
+        assertNull(properties.getProperty("SYSTEM_os_name"));
+    }
+
+    /**
+     * Verifies that a failure to compute values doesn't prevent access to the properties.
+     */
+    @Test
+    public void testFailure()
+    {
+        DeferredProperties properties = new DeferredProperties();
+        properties.defer(new Callable<Map<String, String>>()
+        {
+            public Map<String, String> call() throws Exception
+            {
+                throw new Exception("Simulated failure");
+            }
+        }, "HOST_NAME");
+        assertNull(properties.getProperty("HOST_NAME"));
+        assertFalse(properties.hasDeferred());
+    }
+
+    /**
+     * Deferred values that count the no. of times they are computed.
+     */
+    private static class Values implements Callable<Map<String, String>>
+    {
+
+        /**
+         * The values.
+         */
+        private final Map<String, String> values = new HashMap<String, String>();
+
+        /**
+         * The no. of times the values have been computed.
+         */
+        private int calls;
+
+        /**
+         * Constructs a <tt>Values</tt>.
+         *
+         * @param pairs the name/value pairs
+         */
+        public Values(String... pairs)
+        {
+            for (int i = 0; i < pairs.length; i += 2)
+            {
+                values.put(pairs[i], pairs[i + 1]);
+            }
+        }
+
+        public Map<String, String> call()
+        {
+            ++calls;
+            return values;
+        }
+    }
+}
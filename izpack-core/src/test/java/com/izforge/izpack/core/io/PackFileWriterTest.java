@@ -0,0 +1,265 @@
+package com.izforge.izpack.core.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.binding.OsModel;
+
+
+/**
+ * Tests the {@link PackFileWriter} and {@link PackFileReader} classes.
+ */
+public class PackFileWriterTest
+{
+
+    /**
+     * Verifies that pack files are read back as they were written.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testReadWrite() throws Exception
+    {
+        List<OsModel> unix = Arrays.asList(new OsModel(null, "unix", null, null, null));
+        Map<String, String> additionals = new HashMap<String, String>();
+        additionals.put("permissions", "0755");
+
+        PackFile file1 = new PackFile("bin/run.sh", "$INSTALL_PATH/bin/run.sh", unix, OverrideType.OVERRIDE_TRUE,
+                                      null, Blockable.BLOCKABLE_NONE, additionals, 1234, 1300000000000L, false);
+        file1.setCondition("izpack.unix");
+        PackFile file2 = new PackFile("lib/a.jar", "$INSTALL_PATH/lib/b.jar", unix, OverrideType.OVERRIDE_UPDATE,
+                                      "b.jar.bak", Blockable.BLOCKABLE_FORCE, null, 5678, -1, false);
+        file2.setPack200Jar(true);
+        file2.setPreviousPackFileRef("Base", 42L);
+        PackFile file3 = new PackFile(null, "docs", null, null, null, null, null, 0, 0, true);
+
+        ObjectInputStream in = read(write(file1, file2, file3));
+        PackFileReader reader = new PackFileReader(in);
+        PackFile read1 = reader.read();
+        PackFile read2 = reader.read();
+        PackFile read3 = reader.read();
+
+        check(file1, read1);
+        check(file2, read2);
+        check(file3, read3);
+        assertEquals("0755", read1.getAdditionals().get("permissions"));
+        assertSame(read1.osConstraints(), read2.osConstraints());
+        assertEquals("unix", read1.osConstraints().get(0).getFamily());
+        assertNull(read1.osConstraints().get(0).getArch());
+        assertEquals(-1, in.read());
+    }
+
+    /**
+     * Verifies that files with the same OS constraints and condition share a filter class, and that unconstrained
+     * files have none.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testFilterClasses() throws Exception
+    {
+        List<OsModel> unix = Arrays.asList(new OsModel(null, "unix", null, null, null));
+        List<OsModel> unix2 = Arrays.asList(new OsModel(null, "unix", null, null, null));
+        List<OsModel> windows = Arrays.asList(new OsModel(null, "windows", null, null, null));
+        PackFile[] files = {
+                createFile("a", unix, null),
+                createFile("b", null, null),
+                createFile("c", unix2, null),
+                createFile("d", unix, "cond1"),
+                createFile("e", null, "cond1"),
+                createFile("f", windows, null),
+                createFile("g", unix, "cond1"),
+                createFile("h", null, "cond1")};
+
+        PackFileReader reader = new PackFileReader(read(write(files)));
+        int[] expected = {1, 0, 1, 2, 3, 4, 2, 3};
+        for (int i = 0; i < files.length; ++i)
+        {
+            PackFile file = reader.read();
+            check(files[i], file);
+            assertEquals(expected[i], file.getFilterId());
+        }
+    }
+
+    /**
+     * Verifies that the encoding is substantially smaller than java serialization, for files with common
+     * directories and OS constraints.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSize() throws Exception
+    {
+        List<OsModel> windows = Arrays.asList(new OsModel(null, "windows", null, null, null));
+        List<PackFile> files = new ArrayList<PackFile>();
+        for (int i = 0; i < 1000; ++i)
+        {
+            String name = "file" + i + ".txt";
+            files.add(new PackFile("src/docs/" + name, "$INSTALL_PATH/docs/" + name, windows,
+                                   OverrideType.OVERRIDE_TRUE, null, Blockable.BLOCKABLE_NONE, null, i,
+                                   1300000000000L + i, false));
+        }
+        PackFile[] array = files.toArray(new PackFile[files.size()]);
+        byte[] encoded = write(array);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        for (PackFile file : files)
+        {
+            out.writeObject(file);
+        }
+        out.close();
+        byte[] serialized = bytes.toByteArray();
+        assertTrue("Expected " + encoded.length + " < " + serialized.length + "/3",
+                   encoded.length < serialized.length / 3);
+
+        PackFileReader reader = new PackFileReader(read(encoded));
+        for (PackFile file : files)
+        {
+            check(file, reader.read());
+        }
+    }
+
+    /**
+     * Verifies that an unsupported version is rejected.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testUnsupportedVersion() throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        PackFileWriter.writeVarLong(out, PackFileWriter.VERSION + 1);
+        out.close();
+        try
+        {
+            new PackFileReader(read(bytes.toByteArray()));
+            fail("Expected StreamCorruptedException");
+        }
+        catch (StreamCorruptedException expected)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Verifies that variable length integers round trip.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test
+    public void testVarLong() throws IOException
+    {
+        long[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, Long.MAX_VALUE};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        for (long value : values)
+        {
+            PackFileWriter.writeVarLong(out, value);
+        }
+        out.close();
+        ObjectInputStream in = read(bytes.toByteArray());
+        for (long value : values)
+        {
+            assertEquals(value, PackFileReader.readVarLong(in));
+        }
+    }
+
+    /**
+     * Creates a pack file.
+     *
+     * @param name        the file name
+     * @param constraints the OS constraints. May be <tt>null</tt>
+     * @param condition   the condition. May be <tt>null</tt>
+     * @return a new pack file
+     */
+    private PackFile createFile(String name, List<OsModel> constraints, String condition)
+    {
+        PackFile result = new PackFile(name, "$INSTALL_PATH/" + name, constraints, OverrideType.OVERRIDE_TRUE, null,
+                                       Blockable.BLOCKABLE_NONE, null, 1, 1300000000000L, false);
+        result.setCondition(condition);
+        return result;
+    }
+
+    /**
+     * Writes pack files.
+     *
+     * @param files the files to write
+     * @return the encoded files
+     * @throws IOException for any I/O error
+     */
+    private byte[] write(PackFile... files) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        PackFileWriter writer = new PackFileWriter(out);
+        for (PackFile file : files)
+        {
+            writer.write(file);
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns a stream to read encoded files.
+     *
+     * @param bytes the encoded files
+     * @return a new stream
+     * @throws IOException for any I/O error
+     */
+    private ObjectInputStream read(byte[] bytes) throws IOException
+    {
+        return new ObjectInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Verifies that a read file matches that written.
+     *
+     * @param expected the written file
+     * @param actual   the read file
+     */
+    private void check(PackFile expected, PackFile actual)
+    {
+        assertEquals(expected.getRelativeSourcePath(), actual.getRelativeSourcePath());
+        assertEquals(expected.getTargetPath(), actual.getTargetPath());
+        assertEquals(expected.length(), actual.length());
+        assertEquals(expected.lastModified(), actual.lastModified());
+        assertEquals(expected.isDirectory(), actual.isDirectory());
+        assertEquals(expected.override(), actual.override());
+        assertEquals(expected.overrideRenameTo(), actual.overrideRenameTo());
+        assertEquals(expected.blockable(), actual.blockable());
+        assertEquals(expected.getCondition(), actual.getCondition());
+        assertEquals(expected.isPack200Jar(), actual.isPack200Jar());
+        assertEquals(expected.isBackReference(), actual.isBackReference());
+        assertEquals(expected.previousPackId, actual.previousPackId);
+        if (expected.isBackReference())
+        {
+            assertEquals(expected.offsetInPreviousPack, actual.offsetInPreviousPack);
+        }
+        assertEquals(expected.osConstraints() == null, actual.osConstraints() == null);
+        assertFalse(expected.getAdditionals() == null ^ actual.getAdditionals() == null);
+    }
+}
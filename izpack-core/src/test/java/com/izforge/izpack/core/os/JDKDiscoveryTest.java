@@ -0,0 +1,282 @@
+package com.izforge.izpack.core.os;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Tests the {@link JDKDiscovery} class.
+ */
+public class JDKDiscoveryTest
+{
+
+    /**
+     * Temporary folder to create installations in.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The installation root.
+     */
+    private File root;
+
+    /**
+     * The environment variables.
+     */
+    private Map<String, String> env;
+
+
+    /**
+     * Sets up the test case.
+     *
+     * @throws Exception for any error
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        root = temporaryFolder.newFolder("jvm");
+        env = new HashMap<String, String>();
+    }
+
+    /**
+     * Verifies that versions are read from the release file, and rt.jar and jrt-fs.jar manifests.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testGetVersion() throws Exception
+    {
+        File release = createJDK("release", true);
+        write(new File(release, "release"), "IMPLEMENTOR=\"Test\"\nJAVA_VERSION=\"1.8.0_392\"\n");
+        File rt = createJDK("rt", true);
+        createJar(new File(rt, "jre/lib/rt.jar"), "1.6.0_45");
+        File jrt = createJDK("jrt", false);
+        createJar(new File(jrt, "lib/jrt-fs.jar"), "17.0.9");
+
+        JDKDiscovery discovery = new JDKDiscovery(env, Collections.<File>emptyList());
+        assertEquals("1.8.0_392", discovery.getVersion(release));
+        assertEquals("1.6.0_45", discovery.getVersion(rt));
+        assertEquals("17.0.9", discovery.getVersion(jrt));
+        assertTrue(discovery.isJDK(rt));
+        assertFalse(discovery.isJDK(jrt));
+        assertNull(discovery.getVersion(new File(root, "missing")));
+    }
+
+    /**
+     * Verifies that versions are cached, and re-read when the file they were read from changes.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCache() throws Exception
+    {
+        File home = createJDK("jdk", true);
+        File release = new File(home, "release");
+        write(release, "JAVA_VERSION=\"1.7.0\"\n");
+        release.setLastModified(1000000000000L);
+
+        JDKDiscovery discovery = new JDKDiscovery(env, Collections.<File>emptyList());
+        assertEquals("1.7.0", discovery.getVersion(home));
+
+        // not re-read if the modification time is unchanged
+        write(release, "JAVA_VERSION=\"1.7.1\"\n");
+        release.setLastModified(1000000000000L);
+        assertEquals("1.7.0", discovery.getVersion(home));
+
+        release.setLastModified(1000000001000L);
+        assertEquals("1.7.1", discovery.getVersion(home));
+    }
+
+    /**
+     * Verifies that installations are discovered under the roots and on the path, highest version first.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testDiscover() throws Exception
+    {
+        File jdk6 = createJDK("jdk6", true);
+        write(new File(jdk6, "release"), "JAVA_VERSION=\"1.6.0_45\"\n");
+        File jdk7 = createJDK("jdk7", true);
+        write(new File(jdk7, "release"), "JAVA_VERSION=\"1.7.0_80\"\n");
+        File jre8 = createJDK("jre8", false);
+        write(new File(jre8, "release"), "JAVA_VERSION=\"1.8.0\"\n");
+        new File(root, "notajdk").mkdirs();
+
+        File other = temporaryFolder.newFolder("other");
+        File jdk8 = new File(other, "jdk8");
+        createJDK(jdk8, true);
+        write(new File(jdk8, "release"), "JAVA_VERSION=\"1.8.0_392\"\n");
+        createJDK(new File(jdk8, "jre"), false);
+        env.put("PATH", new File(jdk8, "jre/bin").getPath());
+
+        JDKDiscovery discovery = new JDKDiscovery(env, Arrays.asList(root));
+        List<JDKDiscovery.JDK> jdks = discovery.discover();
+        int index = 0;
+        for (JDKDiscovery.JDK jdk : jdks)
+        {
+            // ignore the running JVM, which is always discovered
+            if (jdk.getHome().getCanonicalPath().startsWith(temporaryFolder.getRoot().getCanonicalPath()))
+            {
+                jdks.set(index++, jdk);
+            }
+        }
+        jdks = jdks.subList(0, index);
+
+        assertEquals(4, jdks.size());
+        assertEquals(jdk8.getCanonicalFile(), jdks.get(0).getHome());
+        assertEquals("1.8.0_392", jdks.get(0).getVersion());
+        assertEquals(jre8.getCanonicalFile(), jdks.get(1).getHome());
+        assertFalse(jdks.get(1).isJDK());
+        assertEquals(jdk7.getCanonicalFile(), jdks.get(2).getHome());
+        assertEquals(jdk6.getCanonicalFile(), jdks.get(3).getHome());
+    }
+
+    /**
+     * Verifies that the JDK containing the compiler on the path is found.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testGetJDKOnPath() throws Exception
+    {
+        File jre = createJDK("jre", false);
+        File jdk = createJDK("jdk", true);
+
+        JDKDiscovery discovery = new JDKDiscovery(env, Collections.<File>emptyList());
+        assertNull(discovery.getJDKOnPath());
+
+        env.put("PATH", new File(jre, "bin").getPath() + File.pathSeparator + new File(jdk, "bin").getPath());
+        assertEquals(jdk.getCanonicalFile(), discovery.getJDKOnPath());
+    }
+
+    /**
+     * Verifies that {@link JDKDiscovery#isJDKHome(File)} requires the <tt>release</tt> file or <tt>tools.jar</tt>,
+     * so that compiler stubs aren't treated as JDKs.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testIsJDKHome() throws Exception
+    {
+        File stub = createJDK("usr", true);
+        File release = createJDK("jdk9", true);
+        write(new File(release, "release"), "JAVA_VERSION=\"9.0.4\"\n");
+        File tools = createJDK("jdk6", true);
+        createJar(new File(tools, "lib" + File.separator + "tools.jar"), "1.6.0_45");
+        File jre = createJDK("jre", false);
+        write(new File(jre, "release"), "JAVA_VERSION=\"1.8.0\"\n");
+
+        JDKDiscovery discovery = new JDKDiscovery(env, Collections.<File>emptyList());
+        assertTrue(discovery.isJDK(stub));
+        assertFalse(discovery.isJDKHome(stub));
+        assertTrue(discovery.isJDKHome(release));
+        assertTrue(discovery.isJDKHome(tools));
+        assertFalse(discovery.isJDKHome(jre));
+    }
+
+    /**
+     * Tests {@link JDKDiscovery#compareVersions(String, String)}.
+     */
+    @Test
+    public void testCompareVersions()
+    {
+        assertTrue(JDKDiscovery.compareVersions("1.6.0_45", "1.7.0") < 0);
+        assertTrue(JDKDiscovery.compareVersions("17.0.9", "1.8.0_392") > 0);
+        assertTrue(JDKDiscovery.compareVersions("1.8.0_392", "1.8.0_45") > 0);
+        assertEquals(0, JDKDiscovery.compareVersions("1.8.0", "1.8.0"));
+        assertTrue(JDKDiscovery.compareVersions(null, "1.8.0") < 0);
+    }
+
+    /**
+     * Creates an installation under the root.
+     *
+     * @param name the installation directory name
+     * @param jdk  if <tt>true</tt> include a compiler
+     * @return the installation directory
+     * @throws IOException for any I/O error
+     */
+    private File createJDK(String name, boolean jdk) throws IOException
+    {
+        File home = new File(root, name);
+        createJDK(home, jdk);
+        return home;
+    }
+
+    /**
+     * Creates an installation.
+     *
+     * @param home the installation directory
+     * @param jdk  if <tt>true</tt> include a compiler
+     * @throws IOException for any I/O error
+     */
+    private void createJDK(File home, boolean jdk) throws IOException
+    {
+        File bin = new File(home, "bin");
+        assertTrue(bin.mkdirs());
+        write(new File(bin, "java"), "");
+        if (jdk)
+        {
+            write(new File(bin, "javac"), "");
+        }
+    }
+
+    /**
+     * Creates a jar with an <tt>Implementation-Version</tt>.
+     *
+     * @param file    the jar
+     * @param version the version
+     * @throws IOException for any I/O error
+     */
+    private void createJar(File file, String version) throws IOException
+    {
+        file.getParentFile().mkdirs();
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.IMPLEMENTATION_VERSION, version);
+        JarOutputStream stream = new JarOutputStream(new FileOutputStream(file), manifest);
+        stream.close();
+    }
+
+    /**
+     * Writes a file.
+     *
+     * @param file    the file
+     * @param content the file content
+     * @throws IOException for any I/O error
+     */
+    private void write(File file, String content) throws IOException
+    {
+        FileOutputStream stream = new FileOutputStream(file);
+        try
+        {
+            stream.write(content.getBytes("UTF-8"));
+        }
+        finally
+        {
+            FileUtils.close(stream);
+        }
+    }
+}
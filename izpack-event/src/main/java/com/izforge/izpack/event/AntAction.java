@@ -22,9 +22,9 @@
 
 package com.izforge.izpack.event;
 
-import org.apache.tools.ant.*;
-import org.apache.tools.ant.input.DefaultInputHandler;
-import org.apache.tools.ant.taskdefs.Ant;
+import org.apache.tools.ant.BuildLogger;
+import org.apache.tools.ant.DefaultLogger;
+import org.apache.tools.ant.DemuxOutputStream;
 import org.apache.tools.ant.util.JavaEnvUtils;
 
 import java.io.*;
@@ -70,6 +70,11 @@ public class AntAction extends ActionBase
 
     private List<String> propertyFiles = null;
 
+    /**
+     * The parsed projects, shared by all actions.
+     */
+    private static final AntProjectCache projects = new AntProjectCache();
+
     /**
      * Default constructor
      */
@@ -128,42 +133,18 @@ public class AntAction extends ActionBase
         }
         PrintStream err = System.err;
         PrintStream out = System.out;
+        PrintStream logStream = openLogFile();
+        BuildLogger logger = createLogger(logStream);
         try
         {
-            Project antProj = new Project();
-            antProj.setName("antcallproject");
-            antProj.addBuildListener(createLogger());
-            antProj.setInputHandler(new DefaultInputHandler());
-            antProj.setSystemProperties();
-            addProperties(antProj, getProperties());
-            addPropertiesFromPropertyFiles(antProj);
-            // TODO: propertyfiles, logFile
-            antProj.fireBuildStarted();
-            antProj.init();
-            List<Ant> antcalls = new ArrayList<Ant>();
+            Properties antProperties = new Properties();
+            antProperties.putAll(getProperties());
+            addPropertiesFromPropertyFiles(antProperties);
+            AntProjectCache.CachedProject antProj = projects.getProject(getBuildFile(), antProperties, logger);
             List<String> choosenTargets = (uninstall) ? uninstallTargets : targets;
-            if (choosenTargets.size() > 0)
-            {
-                Ant antcall = null;
-                for (String choosenTarget : choosenTargets)
-                {
-                    antcall = (Ant) antProj.createTask("ant");
-                    antcall.setAntfile(getBuildFile().getAbsolutePath());
-                    antcall.setTarget(choosenTarget);
-                    antcalls.add(antcall);
-                }
-            }
-            Target target = new Target();
-            target.setName("calltarget");
-
-            for (Ant antcall : antcalls)
-            {
-                target.addTask(antcall);
-            }
-            antProj.addTarget(target);
-            System.setOut(new PrintStream(new DemuxOutputStream(antProj, false)));
-            System.setErr(new PrintStream(new DemuxOutputStream(antProj, true)));
-            antProj.executeTarget("calltarget");
+            System.setOut(new PrintStream(new DemuxOutputStream(antProj.getProject(), false)));
+            System.setErr(new PrintStream(new DemuxOutputStream(antProj.getProject(), true)));
+            antProj.execute(choosenTargets, logger);
         }
         finally
         {
@@ -173,6 +154,10 @@ public class AntAction extends ActionBase
             }
             System.setOut(out);
             System.setErr(err);
+            if (logStream != null)
+            {
+                logStream.close();
+            }
         }
     }
 
@@ -400,7 +385,30 @@ public class AntAction extends ActionBase
         this.verbose = verbose;
     }
 
-    private BuildLogger createLogger()
+    /**
+     * Opens the log file, if one is configured.
+     *
+     * @return a stream to write to the log file, or <tt>null</tt> if there is no log file or it cannot be opened
+     */
+    private PrintStream openLogFile()
+    {
+        PrintStream result = null;
+        if (logFile != null)
+        {
+            try
+            {
+                logFile.getParentFile().mkdirs();
+                result = new PrintStream(new FileOutputStream(logFile));
+            }
+            catch (FileNotFoundException e)
+            {
+                // log to the console
+            }
+        }
+        return result;
+    }
+
+    private BuildLogger createLogger(PrintStream logStream)
     {
         int msgOutputLevel = 2;
         if (verbose)
@@ -413,21 +421,10 @@ public class AntAction extends ActionBase
         }
         BuildLogger logger = new DefaultLogger();
         logger.setMessageOutputLevel(msgOutputLevel);
-        if (logFile != null)
+        if (logStream != null)
         {
-            PrintStream printStream;
-            try
-            {
-                logFile.getParentFile().mkdirs();
-                printStream = new PrintStream(new FileOutputStream(logFile));
-                logger.setOutputPrintStream(printStream);
-                logger.setErrorPrintStream(printStream);
-            }
-            catch (FileNotFoundException e)
-            {
-                logger.setOutputPrintStream(System.out);
-                logger.setErrorPrintStream(System.err);
-            }
+            logger.setOutputPrintStream(logStream);
+            logger.setErrorPrintStream(logStream);
         }
         else
         {
@@ -437,29 +434,8 @@ public class AntAction extends ActionBase
         return logger;
     }
 
-    private void addProperties(Project proj, Properties props)
+    private void addPropertiesFromPropertyFiles(Properties props) throws Exception
     {
-        if (proj == null)
-        {
-            return;
-        }
-        if (props.size() > 0)
-        {
-            for (Object o : props.keySet())
-            {
-                String key = (String) o;
-                proj.setProperty(key, props.getProperty(key));
-            }
-        }
-    }
-
-    private void addPropertiesFromPropertyFiles(Project proj) throws Exception
-    {
-        if (proj == null)
-        {
-            return;
-        }
-        Properties props = new Properties();
         FileInputStream fis = null;
         try
         {
@@ -486,7 +462,6 @@ public class AntAction extends ActionBase
                 fis.close();
             }
         }
-        addProperties(proj, props);
     }
 
 }
@@ -0,0 +1,253 @@
+package com.izforge.izpack.event;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.apache.tools.ant.BuildListener;
+import org.apache.tools.ant.MagicNames;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.ProjectHelper;
+import org.apache.tools.ant.PropertyHelper;
+import org.apache.tools.ant.input.DefaultInputHandler;
+
+
+/**
+ * Caches parsed ant projects, so that a build file is parsed once, rather than once for each target of each
+ * {@link AntAction}.
+ * <p/>
+ * Projects are keyed on the build file and the properties supplied to it. Ant properties are immutable, and may be
+ * referred to by the top-level tasks run when the build file is parsed, so projects can only be shared by actions
+ * supplying the same properties.
+ * <p/>
+ * The properties and references of a project are reset to their state after parsing before each target is executed,
+ * so that properties and references set by one target aren't visible to another. This mirrors running each target
+ * via a separate <tt>&lt;ant&gt;</tt> task.
+ */
+class AntProjectCache
+{
+
+    /**
+     * The maximum no. of projects to cache.
+     */
+    private static final int MAX_PROJECTS = 16;
+
+    /**
+     * The cached projects, keyed on build file and properties, in least recently used order.
+     */
+    private final Map<String, CachedProject> projects = new LinkedHashMap<String, CachedProject>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedProject> eldest)
+        {
+            return size() > MAX_PROJECTS;
+        }
+    };
+
+
+    /**
+     * Returns a project for a build file, parsing it if it hasn't been parsed already with the same properties.
+     *
+     * @param buildFile  the build file
+     * @param properties the properties to supply to the project
+     * @param listener   the listener to notify of events while parsing
+     * @return the project
+     * @throws IOException if the build file path cannot be resolved
+     */
+    public synchronized CachedProject getProject(File buildFile, Properties properties, BuildListener listener)
+            throws IOException
+    {
+        File file = buildFile.getCanonicalFile();
+        StringBuilder key = new StringBuilder(file.getPath()).append('|').append(file.lastModified());
+        for (Map.Entry<Object, Object> entry : new TreeMap<Object, Object>(properties).entrySet())
+        {
+            key.append('|').append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        String id = key.toString();
+        CachedProject result = projects.get(id);
+        if (result == null)
+        {
+            result = new CachedProject(file, properties, listener);
+            projects.put(id, result);
+        }
+        return result;
+    }
+
+    /**
+     * A parsed project.
+     */
+    static class CachedProject
+    {
+
+        /**
+         * The project.
+         */
+        private final Project project;
+
+        /**
+         * The project's property helper.
+         */
+        private final ResettablePropertyHelper helper;
+
+        /**
+         * The project's references, as they were after parsing.
+         */
+        private final Map<String, Object> references;
+
+        /**
+         * Constructs a <tt>CachedProject</tt>, parsing the build file.
+         *
+         * @param buildFile  the build file
+         * @param properties the properties to supply to the project
+         * @param listener   the listener to notify of events while parsing
+         */
+        public CachedProject(File buildFile, Properties properties, BuildListener listener)
+        {
+            project = new Project();
+            helper = new ResettablePropertyHelper();
+            helper.setProject(project);
+            project.addReference(MagicNames.REFID_PROPERTY_HELPER, helper);
+            project.addBuildListener(listener);
+            try
+            {
+                project.setInputHandler(new DefaultInputHandler());
+                project.setSystemProperties();
+                for (String name : properties.stringPropertyNames())
+                {
+                    project.setProperty(name, properties.getProperty(name));
+                }
+                project.init();
+                ProjectHelper.configureProject(project, buildFile);
+                helper.mark();
+                references = new HashMap<String, Object>(getReferences(project));
+            }
+            finally
+            {
+                project.removeBuildListener(listener);
+            }
+        }
+
+        /**
+         * Returns the project.
+         *
+         * @return the project
+         */
+        public Project getProject()
+        {
+            return project;
+        }
+
+        /**
+         * Executes targets, in order.
+         * <p/>
+         * Each target, and the targets it depends on, is executed with the properties and references as they were
+         * after parsing.
+         *
+         * @param targets  the targets to execute
+         * @param listener the listener to notify of build events
+         */
+        public synchronized void execute(List<String> targets, BuildListener listener)
+        {
+            project.addBuildListener(listener);
+            try
+            {
+                project.fireBuildStarted();
+                for (String target : targets)
+                {
+                    helper.reset();
+                    restore(getReferences(project), references);
+                    project.executeTarget(target);
+                }
+            }
+            finally
+            {
+                project.removeBuildListener(listener);
+            }
+        }
+    }
+
+    /**
+     * A property helper that can restore the properties to a previously marked state.
+     */
+    private static class ResettablePropertyHelper extends PropertyHelper
+    {
+
+        /**
+         * The marked properties.
+         */
+        private Map<String, Object> properties;
+
+        /**
+         * The marked user properties.
+         */
+        private Map<String, Object> userProperties;
+
+        /**
+         * The marked inherited properties.
+         */
+        private Map<String, Object> inheritedProperties;
+
+        /**
+         * Marks the current state of the properties.
+         */
+        public synchronized void mark()
+        {
+            properties = new HashMap<String, Object>(cast(getInternalProperties()));
+            userProperties = new HashMap<String, Object>(cast(getInternalUserProperties()));
+            inheritedProperties = new HashMap<String, Object>(cast(getInternalInheritedProperties()));
+        }
+
+        /**
+         * Restores the properties to the marked state.
+         */
+        public synchronized void reset()
+        {
+            restore(cast(getInternalProperties()), properties);
+            restore(cast(getInternalUserProperties()), userProperties);
+            restore(cast(getInternalInheritedProperties()), inheritedProperties);
+        }
+    }
+
+    /**
+     * Returns the references of a project.
+     *
+     * @param project the project
+     * @return the project's reference table
+     */
+    private static Hashtable<String, Object> getReferences(Project project)
+    {
+        return cast(project.getReferences());
+    }
+
+    /**
+     * Replaces the content of a property or reference table.
+     *
+     * @param table  the table to update
+     * @param marked the marked content
+     */
+    private static void restore(Hashtable<String, Object> table, Map<String, Object> marked)
+    {
+        table.clear();
+        table.putAll(marked);
+    }
+
+    /**
+     * Casts an ant property or reference table.
+     * <p/>
+     * Ant returns these as raw tables, but they are always keyed on name.
+     *
+     * @param table the table
+     * @return the typed table
+     */
+    @SuppressWarnings("unchecked")
+    private static Hashtable<String, Object> cast(Hashtable<?, ?> table)
+    {
+        return (Hashtable<String, Object>) table;
+    }
+}
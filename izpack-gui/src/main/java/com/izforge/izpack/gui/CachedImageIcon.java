@@ -0,0 +1,142 @@
+package com.izforge.izpack.gui;
+
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.MediaTracker;
+import java.net.URL;
+
+import javax.swing.ImageIcon;
+
+
+/**
+ * An {@link ImageIcon} whose image is held by an {@link ImageCache}.
+ * <p/>
+ * The icon size is determined from the image header; the image is only decoded when the icon is painted, or its
+ * image is requested.
+ */
+class CachedImageIcon extends ImageIcon
+{
+
+    private static final long serialVersionUID = -2719375283925420553L;
+
+    /**
+     * The cache.
+     */
+    private final transient ImageCache cache;
+
+    /**
+     * The image URL.
+     */
+    private final URL url;
+
+    /**
+     * The maximum display width, or <tt>0</tt> if the width is unbounded.
+     */
+    private final int maxWidth;
+
+    /**
+     * The maximum display height, or <tt>0</tt> if the height is unbounded.
+     */
+    private final int maxHeight;
+
+    /**
+     * The display size. Determined on demand.
+     */
+    private Dimension size;
+
+
+    /**
+     * Constructs a <tt>CachedImageIcon</tt>.
+     *
+     * @param cache     the cache
+     * @param url       the image URL
+     * @param maxWidth  the maximum display width, or <tt>0</tt> if the width is unbounded
+     * @param maxHeight the maximum display height, or <tt>0</tt> if the height is unbounded
+     */
+    public CachedImageIcon(ImageCache cache, URL url, int maxWidth, int maxHeight)
+    {
+        this.cache = cache;
+        this.url = url;
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+        setDescription(url.toExternalForm());
+    }
+
+    /**
+     * Returns the image, decoding it if required.
+     *
+     * @return the image. May be <tt>null</tt> if it cannot be decoded
+     */
+    @Override
+    public Image getImage()
+    {
+        return cache.getImage(url, maxWidth, maxHeight);
+    }
+
+    /**
+     * Returns the status of the image loading operation.
+     *
+     * @return {@link MediaTracker#COMPLETE} if the image can be decoded, otherwise {@link MediaTracker#ERRORED}
+     */
+    @Override
+    public int getImageLoadStatus()
+    {
+        return (getIconWidth() > 0) ? MediaTracker.COMPLETE : MediaTracker.ERRORED;
+    }
+
+    /**
+     * Returns the icon width.
+     *
+     * @return the icon width, or <tt>-1</tt> if the image cannot be read
+     */
+    @Override
+    public int getIconWidth()
+    {
+        return getSize().width;
+    }
+
+    /**
+     * Returns the icon height.
+     *
+     * @return the icon height, or <tt>-1</tt> if the image cannot be read
+     */
+    @Override
+    public int getIconHeight()
+    {
+        return getSize().height;
+    }
+
+    /**
+     * Paints the icon, decoding the image if required.
+     *
+     * @param c the component to paint on. Used as the image observer. May be <tt>null</tt>
+     * @param g the graphics context
+     * @param x the x coordinate of the icon's top-left corner
+     * @param y the y coordinate of the icon's top-left corner
+     */
+    @Override
+    public synchronized void paintIcon(Component c, Graphics g, int x, int y)
+    {
+        Image image = getImage();
+        if (image != null)
+        {
+            g.drawImage(image, x, y, getImageObserver() != null ? getImageObserver() : c);
+        }
+    }
+
+    /**
+     * Returns the display size, reading it if required.
+     *
+     * @return the display size
+     */
+    private synchronized Dimension getSize()
+    {
+        if (size == null)
+        {
+            size = cache.getSize(url, maxWidth, maxHeight);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,462 @@
+package com.izforge.izpack.gui;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.ImageIcon;
+
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * A cache of decoded images, shared by the installer GUI.
+ * <p/>
+ * Images are decoded on first use, and scaled once to fit their display size. Decoded images are held by
+ * {@link SoftReference soft references} so that they can be reclaimed under memory pressure, and the no. of cached
+ * images is bounded, evicting the least recently used first. An evicted or reclaimed image is simply decoded again.
+ * <p/>
+ * Image sizes are read from the image headers, so that layouts can be computed without decoding images that may
+ * never be displayed. These are also bounded, evicting the least recently used first.
+ */
+class ImageCache
+{
+
+    /**
+     * The maximum no. of images to cache.
+     */
+    private static final int MAX_IMAGES = 32;
+
+    /**
+     * The maximum no. of image sizes to cache.
+     */
+    private static final int MAX_SIZES = 256;
+
+    /**
+     * The cached images, keyed on URL and display size, in least recently used order.
+     */
+    private final Map<String, SoftReference<Image>> images;
+
+    /**
+     * The image sizes, keyed on URL, in least recently used order.
+     */
+    private final Map<String, Dimension> sizes;
+
+    /**
+     * The executor used to prefetch images. Created on demand.
+     */
+    private ExecutorService prefetcher;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(ImageCache.class.getName());
+
+
+    /**
+     * Constructs an <tt>ImageCache</tt>.
+     */
+    public ImageCache()
+    {
+        this(MAX_IMAGES, MAX_SIZES);
+    }
+
+    /**
+     * Constructs an <tt>ImageCache</tt>.
+     *
+     * @param maxImages the maximum no. of images to cache
+     * @param maxSizes  the maximum no. of image sizes to cache
+     */
+    ImageCache(int maxImages, int maxSizes)
+    {
+        images = new LRUMap<String, SoftReference<Image>>(maxImages);
+        sizes = new LRUMap<String, Dimension>(maxSizes);
+    }
+
+    /**
+     * Returns an icon for an image.
+     * <p/>
+     * The image isn't decoded until the icon is painted, or its image requested.
+     *
+     * @param url       the image URL
+     * @param maxWidth  the maximum display width, or <tt>0</tt> if the width is unbounded
+     * @param maxHeight the maximum display height, or <tt>0</tt> if the height is unbounded
+     * @return the icon
+     */
+    public ImageIcon getIcon(URL url, int maxWidth, int maxHeight)
+    {
+        return new CachedImageIcon(this, url, maxWidth, maxHeight);
+    }
+
+    /**
+     * Returns the size that an image will be displayed at.
+     * <p/>
+     * This is the size of the image, scaled down to fit the maximum display size, preserving its aspect ratio.
+     *
+     * @param url       the image URL
+     * @param maxWidth  the maximum display width, or <tt>0</tt> if the width is unbounded
+     * @param maxHeight the maximum display height, or <tt>0</tt> if the height is unbounded
+     * @return the display size
+     */
+    public Dimension getSize(URL url, int maxWidth, int maxHeight)
+    {
+        Dimension size;
+        String key = url.toExternalForm();
+        synchronized (sizes)
+        {
+            size = sizes.get(key);
+        }
+        if (size == null)
+        {
+            size = readSize(url);
+            synchronized (sizes)
+            {
+                sizes.put(key, size);
+            }
+        }
+        return fit(size, maxWidth, maxHeight);
+    }
+
+    /**
+     * Returns an image, decoding and scaling it if it isn't cached.
+     *
+     * @param url       the image URL
+     * @param maxWidth  the maximum display width, or <tt>0</tt> if the width is unbounded
+     * @param maxHeight the maximum display height, or <tt>0</tt> if the height is unbounded
+     * @return the image, or <tt>null</tt> if it cannot be decoded
+     */
+    public Image getImage(URL url, int maxWidth, int maxHeight)
+    {
+        String key = url.toExternalForm() + "@" + maxWidth + "x" + maxHeight;
+        Image result = null;
+        synchronized (images)
+        {
+            SoftReference<Image> reference = images.get(key);
+            if (reference != null)
+            {
+                result = reference.get();
+            }
+        }
+        if (result == null)
+        {
+            result = decode(url);
+            if (result != null)
+            {
+                Dimension size = new Dimension(result.getWidth(null), result.getHeight(null));
+                synchronized (sizes)
+                {
+                    sizes.put(url.toExternalForm(), size);
+                }
+                Dimension display = fit(size, maxWidth, maxHeight);
+                if (!display.equals(size))
+                {
+                    result = scale(result, display);
+                }
+                synchronized (images)
+                {
+                    images.put(key, new SoftReference<Image>(result));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Decodes and caches an image in the background, so that it is available when first displayed.
+     *
+     * @param url       the image URL
+     * @param maxWidth  the maximum display width, or <tt>0</tt> if the width is unbounded
+     * @param maxHeight the maximum display height, or <tt>0</tt> if the height is unbounded
+     */
+    public void prefetch(final URL url, final int maxWidth, final int maxHeight)
+    {
+        getPrefetcher().execute(new Runnable()
+        {
+            public void run()
+            {
+                getImage(url, maxWidth, maxHeight);
+            }
+        });
+    }
+
+    /**
+     * Returns the executor used to prefetch images, creating it if required.
+     *
+     * @return the executor
+     */
+    private synchronized ExecutorService getPrefetcher()
+    {
+        if (prefetcher == null)
+        {
+            prefetcher = Executors.newSingleThreadExecutor(new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "IzPack image prefetcher");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        }
+        return prefetcher;
+    }
+
+    /**
+     * Reads the size of an image from its header, without decoding it.
+     *
+     * @param url the image URL
+     * @return the image size
+     */
+    private Dimension readSize(URL url)
+    {
+        Dimension result = null;
+        InputStream stream = null;
+        ImageInputStream in = null;
+        try
+        {
+            stream = url.openStream();
+            in = ImageIO.createImageInputStream(stream);
+            Iterator<ImageReader> readers = (in != null) ? ImageIO.getImageReaders(in) : null;
+            if (readers != null && readers.hasNext())
+            {
+                ImageReader reader = readers.next();
+                try
+                {
+                    reader.setInput(in, true, true);
+                    result = new Dimension(reader.getWidth(0), reader.getHeight(0));
+                }
+                finally
+                {
+                    reader.dispose();
+                }
+            }
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.FINE, "Failed to read image header: " + url, exception);
+        }
+        finally
+        {
+            close(in);
+            FileUtils.close(stream);
+        }
+        if (result == null)
+        {
+            // unsupported by ImageIO, so need to decode it
+            Image image = decode(url);
+            result = (image != null) ? new Dimension(image.getWidth(null), image.getHeight(null))
+                    : new Dimension(-1, -1);
+        }
+        return result;
+    }
+
+    /**
+     * Decodes an image.
+     * <p/>
+     * Multi-frame images, such as animated GIFs, are loaded by the toolkit, as <tt>ImageIO</tt> only decodes the
+     * first frame.
+     *
+     * @param url the image URL
+     * @return the image, or <tt>null</tt> if it cannot be decoded
+     */
+    private Image decode(URL url)
+    {
+        Image result = null;
+        boolean multiFrame = false;
+        InputStream stream = null;
+        ImageInputStream in = null;
+        try
+        {
+            stream = url.openStream();
+            in = ImageIO.createImageInputStream(stream);
+            Iterator<ImageReader> readers = (in != null) ? ImageIO.getImageReaders(in) : null;
+            if (readers != null && readers.hasNext())
+            {
+                ImageReader reader = readers.next();
+                try
+                {
+                    reader.setInput(in, false, true);
+                    multiFrame = isMultiFrame(reader);
+                    if (!multiFrame)
+                    {
+                        result = reader.read(0);
+                    }
+                }
+                finally
+                {
+                    reader.dispose();
+                }
+            }
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.FINE, "ImageIO failed to decode image: " + url, exception);
+        }
+        finally
+        {
+            close(in);
+            FileUtils.close(stream);
+        }
+        if (result == null)
+        {
+            // fall back to the toolkit, which waits for the image to load
+            ImageIcon icon = new ImageIcon(url);
+            if (icon.getIconWidth() > 0)
+            {
+                result = icon.getImage();
+            }
+            else if (!multiFrame)
+            {
+                logger.warning("Failed to decode image: " + url);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines if an image has multiple frames.
+     * <p/>
+     * GIF readers are asked to count the frames, as animated GIFs don't declare them in their header.
+     *
+     * @param reader the image reader
+     * @return <tt>true</tt> if the image has multiple frames
+     * @throws IOException for any I/O error
+     */
+    private boolean isMultiFrame(ImageReader reader) throws IOException
+    {
+        boolean gif = "gif".equalsIgnoreCase(reader.getFormatName());
+        return reader.getNumImages(gif) > 1;
+    }
+
+    /**
+     * Scales an image.
+     * <p/>
+     * Images loaded by the toolkit are scaled by it, so that any animation is preserved.
+     *
+     * @param image the image to scale
+     * @param size  the new size
+     * @return the scaled image
+     */
+    private Image scale(Image image, Dimension size)
+    {
+        if (!(image instanceof BufferedImage))
+        {
+            return image.getScaledInstance(size.width, size.height, Image.SCALE_SMOOTH);
+        }
+        BufferedImage result = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = result.createGraphics();
+        try
+        {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, size.width, size.height, null);
+        }
+        finally
+        {
+            graphics.dispose();
+        }
+        return result;
+    }
+
+    /**
+     * Scales a size down to fit within bounds, preserving its aspect ratio.
+     *
+     * @param size      the size
+     * @param maxWidth  the maximum width, or <tt>0</tt> if the width is unbounded
+     * @param maxHeight the maximum height, or <tt>0</tt> if the height is unbounded
+     * @return the fitted size
+     */
+    static Dimension fit(Dimension size, int maxWidth, int maxHeight)
+    {
+        double scale = 1.0;
+        if (maxWidth > 0 && size.width > maxWidth)
+        {
+            scale = (double) maxWidth / size.width;
+        }
+        if (maxHeight > 0 && size.height > maxHeight)
+        {
+            scale = Math.min(scale, (double) maxHeight / size.height);
+        }
+        if (scale == 1.0 || size.width <= 0 || size.height <= 0)
+        {
+            return new Dimension(size);
+        }
+        return new Dimension(Math.max(1, (int) Math.round(size.width * scale)),
+                             Math.max(1, (int) Math.round(size.height * scale)));
+    }
+
+    /**
+     * Closes an image input stream, ignoring any exception.
+     *
+     * @param stream the stream to close. May be <tt>null</tt>
+     */
+    private void close(ImageInputStream stream)
+    {
+        if (stream != null)
+        {
+            try
+            {
+                stream.close();
+            }
+            catch (IOException ignore)
+            {
+                // no-op
+            }
+        }
+    }
+
+    /**
+     * A map that evicts its least recently used entry when it exceeds a maximum size.
+     */
+    private static class LRUMap<K, V> extends LinkedHashMap<K, V>
+    {
+
+        private static final long serialVersionUID = 4087466398751823613L;
+
+        /**
+         * The maximum no. of entries.
+         */
+        private final int max;
+
+        /**
+         * Constructs an <tt>LRUMap</tt>.
+         *
+         * @param max the maximum no. of entries
+         */
+        public LRUMap(int max)
+        {
+            super(16, 0.75f, true);
+            this.max = max;
+        }
+
+        /**
+         * Determines if the eldest entry should be removed.
+         *
+         * @param eldest the least recently used entry
+         * @return <tt>true</tt> if the map exceeds its maximum size
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest)
+        {
+            return size() > max;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.izforge.izpack.gui;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import javax.swing.ImageIcon;
+
+import com.izforge.izpack.api.data.ResourceManager;
+
+
+/**
+ * Loads images from the installer resources.
+ * <p/>
+ * This is kept separate from {@link ResourceManager} so that automated and console installations don't load AWT
+ * or Swing.
+ * <p/>
+ * Images are shared via an {@link ImageCache}: they are decoded when first displayed, and scaled once to their
+ * display size.
+ */
+public class ImageResources
+{
+
+    /**
+     * The image cache.
+     */
+    private static final ImageCache cache = new ImageCache();
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(ImageResources.class.getName());
+
+
+    /**
+     * Returns an image icon for the given resource.
+     *
+     * @param resources the resource manager
+     * @param resource  the resource of the icon
+     * @param fallback  fallback resources, used if <tt>resource</tt> cannot be found
+     * @return the image icon, or <tt>null</tt> if neither the resource nor its fallbacks can be found
+     */
+    public static ImageIcon getImageIcon(ResourceManager resources, String resource, String... fallback)
+    {
+        return getImageIcon(resources, 0, 0, resource, fallback);
+    }
+
+    /**
+     * Returns an image icon for the given resource, scaled down to fit the given display size.
+     *
+     * @param resources the resource manager
+     * @param maxWidth  the maximum display width, or <tt>0</tt> if the width is unbounded
+     * @param maxHeight the maximum display height, or <tt>0</tt> if the height is unbounded
+     * @param resource  the resource of the icon
+     * @param fallback  fallback resources, used if <tt>resource</tt> cannot be found
+     * @return the image icon, or <tt>null</tt> if neither the resource nor its fallbacks can be found
+     */
+    public static ImageIcon getImageIcon(ResourceManager resources, int maxWidth, int maxHeight, String resource,
+                                         String... fallback)
+    {
+        URL location = getURL(resources, resource, fallback);
+        if (location != null)
+        {
+            return cache.getIcon(location, maxWidth, maxHeight);
+        }
+        logger.info("Image icon resource not found in " + resource + " and in fallbacks " + Arrays.toString(fallback));
+        return null;
+    }
+
+    /**
+     * Decodes the image for the given resource in the background, so that it is available when first displayed.
+     *
+     * @param resources the resource manager
+     * @param resource  the resource of the image
+     * @param fallback  fallback resources, used if <tt>resource</tt> cannot be found
+     */
+    public static void prefetch(ResourceManager resources, String resource, String... fallback)
+    {
+        URL location = getURL(resources, resource, fallback);
+        if (location != null)
+        {
+            cache.prefetch(location, 0, 0);
+        }
+    }
+
+    /**
+     * Returns the URL of the first resource that exists.
+     *
+     * @param resources the resource manager
+     * @param resource  the resource
+     * @param fallback  fallback resources, used if <tt>resource</tt> cannot be found
+     * @return the URL of the resource, or <tt>null</tt> if neither the resource nor its fallbacks can be found
+     */
+    private static URL getURL(ResourceManager resources, String resource, String... fallback)
+    {
+        URL location = resources.getURL(resource);
+        for (int i = 0; location == null && i < fallback.length; ++i)
+        {
+            location = resources.getURL(fallback[i]);
+        }
+        return location;
+    }
+}
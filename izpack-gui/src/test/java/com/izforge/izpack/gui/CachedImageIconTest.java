@@ -0,0 +1,98 @@
+package com.izforge.izpack.gui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Image;
+import java.awt.MediaTracker;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.net.URL;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link CachedImageIcon}.
+ */
+public class CachedImageIconTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+    /**
+     * Verifies that the icon size is the image size, scaled to fit the display size.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSize() throws Exception
+    {
+        ImageCache cache = new ImageCache();
+        URL url = createImage("image.png", 60, 30);
+
+        CachedImageIcon icon = new CachedImageIcon(cache, url, 0, 0);
+        assertEquals(60, icon.getIconWidth());
+        assertEquals(30, icon.getIconHeight());
+        assertEquals(MediaTracker.COMPLETE, icon.getImageLoadStatus());
+
+        CachedImageIcon scaled = new CachedImageIcon(cache, url, 30, 30);
+        assertEquals(30, scaled.getIconWidth());
+        assertEquals(15, scaled.getIconHeight());
+    }
+
+    /**
+     * Verifies that icons for the same image and display size share the cached image.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSharedImage() throws Exception
+    {
+        ImageCache cache = new ImageCache();
+        URL url = createImage("image.png", 20, 20);
+
+        Image image = new CachedImageIcon(cache, url, 10, 10).getImage();
+        assertSame(image, new CachedImageIcon(cache, url, 10, 10).getImage());
+        assertEquals(10, image.getWidth(null));
+    }
+
+    /**
+     * Verifies that an icon for an image that can't be read reports an error.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testInvalidImage() throws Exception
+    {
+        File file = temporaryFolder.newFile("invalid.png");
+        CachedImageIcon icon = new CachedImageIcon(new ImageCache(), file.toURI().toURL(), 0, 0);
+        assertEquals(-1, icon.getIconWidth());
+        assertEquals(MediaTracker.ERRORED, icon.getImageLoadStatus());
+    }
+
+    /**
+     * Creates a PNG image file.
+     *
+     * @param name   the file name
+     * @param width  the image width
+     * @param height the image height
+     * @return the URL of the image
+     * @throws Exception for any error
+     */
+    private URL createImage(String name, int width, int height) throws Exception
+    {
+        File file = new File(temporaryFolder.getRoot(), name);
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", file);
+        return file.toURI().toURL();
+    }
+}
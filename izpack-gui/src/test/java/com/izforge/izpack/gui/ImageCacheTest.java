@@ -0,0 +1,189 @@
+package com.izforge.izpack.gui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Dimension;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.net.URL;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link ImageCache}.
+ */
+public class ImageCacheTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+    /**
+     * Verifies that decoded images are cached.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCacheHit() throws Exception
+    {
+        ImageCache cache = new ImageCache();
+        URL url = createImage("image.png", "png", 20, 10);
+
+        Image image = cache.getImage(url, 0, 0);
+        assertNotNull(image);
+        assertSame(image, cache.getImage(url, 0, 0));
+
+        // images are cached per display size
+        Image scaled = cache.getImage(url, 10, 10);
+        assertNotSame(image, scaled);
+        assertSame(scaled, cache.getImage(url, 10, 10));
+    }
+
+    /**
+     * Verifies that the least recently used image is evicted when the cache is full.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testEviction() throws Exception
+    {
+        ImageCache cache = new ImageCache(2, 2);
+        URL url1 = createImage("image1.png", "png", 10, 10);
+        URL url2 = createImage("image2.png", "png", 10, 10);
+        URL url3 = createImage("image3.png", "png", 10, 10);
+
+        Image image1 = cache.getImage(url1, 0, 0);
+        Image image2 = cache.getImage(url2, 0, 0);
+        assertSame(image1, cache.getImage(url1, 0, 0));
+
+        // image2 is the least recently used, so is evicted
+        cache.getImage(url3, 0, 0);
+        assertSame(image1, cache.getImage(url1, 0, 0));
+        assertNotSame(image2, cache.getImage(url2, 0, 0));
+    }
+
+    /**
+     * Verifies that sizes are read from the image header, and scaled to fit the display size.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSize() throws Exception
+    {
+        ImageCache cache = new ImageCache();
+        URL url = createImage("image.png", "png", 40, 20);
+
+        assertEquals(new Dimension(40, 20), cache.getSize(url, 0, 0));
+        assertEquals(new Dimension(20, 10), cache.getSize(url, 20, 0));
+        assertEquals(new Dimension(20, 10), cache.getSize(url, 0, 10));
+        assertEquals(new Dimension(40, 20), cache.getSize(url, 100, 100));
+
+        Image image = cache.getImage(url, 20, 20);
+        assertEquals(20, image.getWidth(null));
+        assertEquals(10, image.getHeight(null));
+    }
+
+    /**
+     * Verifies that the size of an image that can't be read is <tt>-1 x -1</tt>.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testInvalidImage() throws Exception
+    {
+        ImageCache cache = new ImageCache();
+        File file = temporaryFolder.newFile("invalid.png");
+        URL url = file.toURI().toURL();
+
+        assertEquals(new Dimension(-1, -1), cache.getSize(url, 0, 0));
+    }
+
+    /**
+     * Verifies that animated GIFs are loaded by the toolkit, rather than being reduced to their first frame.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testAnimatedGIF() throws Exception
+    {
+        ImageCache cache = new ImageCache();
+        URL still = createImage("still.gif", "gif", 10, 10);
+        URL animated = createAnimatedGIF("animated.gif", 10, 10);
+
+        assertTrue(cache.getImage(still, 0, 0) instanceof BufferedImage);
+
+        Image image = cache.getImage(animated, 0, 0);
+        assertNotNull(image);
+        assertFalse(image instanceof BufferedImage);
+        assertEquals(new Dimension(10, 10), cache.getSize(animated, 0, 0));
+    }
+
+    /**
+     * Creates an image file.
+     *
+     * @param name   the file name
+     * @param format the image format
+     * @param width  the image width
+     * @param height the image height
+     * @return the URL of the image
+     * @throws Exception for any error
+     */
+    private URL createImage(String name, String format, int width, int height) throws Exception
+    {
+        File file = new File(temporaryFolder.getRoot(), name);
+        assertTrue(ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, file));
+        return file.toURI().toURL();
+    }
+
+    /**
+     * Creates a GIF with two frames.
+     *
+     * @param name   the file name
+     * @param width  the image width
+     * @param height the image height
+     * @return the URL of the image
+     * @throws Exception for any error
+     */
+    private URL createAnimatedGIF(String name, int width, int height) throws Exception
+    {
+        File file = new File(temporaryFolder.getRoot(), name);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+        ImageOutputStream out = ImageIO.createImageOutputStream(file);
+        try
+        {
+            writer.setOutput(out);
+            writer.prepareWriteSequence(null);
+            for (int i = 0; i < 2; ++i)
+            {
+                BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                frame.setRGB(i, i, 0xFFFFFF);
+                writer.writeToSequence(new IIOImage(frame, null, null), null);
+            }
+            writer.endWriteSequence();
+        }
+        finally
+        {
+            out.close();
+            writer.dispose();
+        }
+        return file.toURI().toURL();
+    }
+}
@@ -47,6 +47,7 @@ import com.izforge.izpack.api.factory.ObjectFactory;
 import com.izforge.izpack.api.handler.AbstractUIHandler;
 import com.izforge.izpack.api.installer.DataValidator;
 import com.izforge.izpack.api.installer.DataValidator.Status;
+import com.izforge.izpack.api.metrics.Metrics;
 import com.izforge.izpack.api.resource.Messages;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.data.PanelAction;
@@ -360,27 +361,23 @@ public class AutomatedInstaller extends InstallerBase
             logger.log(Level.WARNING, "AutomationHelper class not found: " + automationHelperClassName, e);
         }
 
+        long start = Metrics.start();
         executePreConstructActions(p, null);
 
         if (automationHelperClass != null)
         {
             try
             {
-                // instantiate the automation logic for the panel
+                // instantiate the automation logic for the panel, injecting any constructor arguments
                 logger.fine("Instantiate :" + automationHelperClassName);
-                automationHelperInstance = automationHelperClass.newInstance();
+                automationHelperInstance = factory.create(automationHelperClass);
             }
-            catch (IllegalAccessException e)
+            catch (Exception e)
             {
-                logger.log(Level.WARNING, "no default constructor for " + automationHelperClassName + ", skipping...",
-                           e);
-            }
-            catch (InstantiationException e)
-            {
-                logger.log(Level.WARNING, "no default constructor for " + automationHelperClassName + ", skipping...",
-                           e);
+                logger.log(Level.WARNING, "Failed to create " + automationHelperClassName + ", skipping...", e);
             }
         }
+        Metrics.stop("panel.construct", p.getPanelid(), start);
 
         return automationHelperInstance;
     }
@@ -63,7 +63,9 @@ public class Installer
     {
         try
         {
+            StartupTimer.start();
             initializeLogging();
+            StartupTimer.mark("logging");
             Installer installer = new Installer();
             installer.start(args);
         }
@@ -232,7 +234,9 @@ public class Installer
     {
         InstallerContainer container = new ConsoleInstallerContainer();
         AutomatedInstaller automatedInstaller = container.getComponent(AutomatedInstaller.class);
+        StartupTimer.mark("container");
         automatedInstaller.init(path, mediaDir);
+        StartupTimer.report("input");
         automatedInstaller.doInstall();
     }
 
@@ -250,6 +254,7 @@ public class Installer
         ConsoleInstaller consoleInstaller = container.getComponent(ConsoleInstaller.class);
         consoleInstaller.setLangCode(langCode);
         consoleInstaller.setMediaPath(mediaDir);
+        StartupTimer.report("container");
         consoleInstaller.run(consoleAction, path);
     }
 
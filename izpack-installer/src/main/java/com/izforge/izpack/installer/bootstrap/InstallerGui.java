@@ -56,9 +56,14 @@ public class InstallerGui
                     Container installerContainer = applicationComponent.getComponent(Container.class);
 
                     InstallerController controller = installerContainer.getComponent(InstallerController.class);
+                    StartupTimer.mark("container");
 
                     installerContainer.getComponent(LanguageDialog.class).initLangPack();
-                    controller.buildInstallation().launchInstallation();
+                    StartupTimer.mark("language selection");
+                    controller.buildInstallation();
+                    StartupTimer.mark("panels");
+                    controller.launchInstallation();
+                    StartupTimer.report("first panel");
                 }
                 catch (Exception e)
                 {
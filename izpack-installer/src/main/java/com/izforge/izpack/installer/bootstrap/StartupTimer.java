@@ -0,0 +1,119 @@
+package com.izforge.izpack.installer.bootstrap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.api.metrics.Metrics;
+
+
+/**
+ * Records the time taken by each phase of installer startup, and logs a report once the first panel is displayed.
+ * <p/>
+ * Timing is only performed between {@link #start()} and {@link #report(String)}; marks made outside of this,
+ * e.g. by tests that construct installer components directly, are ignored.
+ * <p/>
+ * The report is logged at <tt>FINE</tt> level, so it only appears when debugging. When {@link Metrics} are enabled,
+ * each phase is also recorded as a <em>startup.&lt;phase&gt;</em> timer.
+ */
+public final class StartupTimer
+{
+
+    /**
+     * The time when timing started, in nanoseconds.
+     */
+    private static long startTime;
+
+    /**
+     * The time of the last mark, in nanoseconds.
+     */
+    private static long lastTime;
+
+    /**
+     * The recorded phases.
+     */
+    private static List<String> phases;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(StartupTimer.class.getName());
+
+
+    /**
+     * Private constructor.
+     */
+    private StartupTimer()
+    {
+    }
+
+    /**
+     * Starts timing.
+     */
+    public static synchronized void start()
+    {
+        startTime = System.nanoTime();
+        lastTime = startTime;
+        phases = new ArrayList<String>();
+    }
+
+    /**
+     * Records the completion of a startup phase.
+     *
+     * @param phase the phase name
+     */
+    public static synchronized void mark(String phase)
+    {
+        if (phases != null)
+        {
+            long now = System.nanoTime();
+            phases.add(phase + "=" + toMillis(now - lastTime) + "ms");
+            if (Metrics.isEnabled())
+            {
+                Metrics.record("startup." + phase, now - lastTime, 0);
+            }
+            lastTime = now;
+        }
+    }
+
+    /**
+     * Records the completion of the last startup phase, logs the phase timings at <tt>FINE</tt> level, and stops
+     * timing.
+     *
+     * @param phase the phase name
+     */
+    public static synchronized void report(String phase)
+    {
+        if (phases != null)
+        {
+            mark(phase);
+            if (logger.isLoggable(Level.FINE))
+            {
+                StringBuilder builder = new StringBuilder("Startup took ").append(toMillis(lastTime - startTime));
+                builder.append("ms: ");
+                for (int i = 0; i < phases.size(); ++i)
+                {
+                    if (i > 0)
+                    {
+                        builder.append(", ");
+                    }
+                    builder.append(phases.get(i));
+                }
+                logger.fine(builder.toString());
+            }
+            phases = null;
+        }
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds.
+     *
+     * @param nanos the time in nanoseconds
+     * @return the time in milliseconds
+     */
+    private static long toMillis(long nanos)
+    {
+        return nanos / 1000000;
+    }
+}
@@ -3,6 +3,7 @@ package com.izforge.izpack.installer.console;
 import com.izforge.izpack.api.data.Panel;
 import com.izforge.izpack.api.exception.InstallerException;
 import com.izforge.izpack.api.factory.ObjectFactory;
+import com.izforge.izpack.api.metrics.Metrics;
 
 import java.util.logging.Logger;
 
@@ -44,8 +45,11 @@ class PanelConsoleFactory
      */
     public PanelConsole create(Panel panel) throws InstallerException
     {
+        long start = Metrics.start();
         Class<PanelConsole> impl = getClass(panel);
-        return factory.create(impl);
+        PanelConsole result = factory.create(impl);
+        Metrics.stop("panel.construct", panel.getPanelid(), start);
+        return result;
     }
 
     /**
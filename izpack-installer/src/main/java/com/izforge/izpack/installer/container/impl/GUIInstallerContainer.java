@@ -15,6 +15,7 @@ import com.izforge.izpack.api.data.ResourceManager;
 import com.izforge.izpack.api.exception.ContainerException;
 import com.izforge.izpack.api.resource.Messages;
 import com.izforge.izpack.gui.GUIPrompt;
+import com.izforge.izpack.gui.ImageResources;
 import com.izforge.izpack.gui.log.Log;
 import com.izforge.izpack.installer.container.provider.GUIInstallDataProvider;
 import com.izforge.izpack.installer.container.provider.IconsProvider;
@@ -95,7 +96,7 @@ public class GUIInstallerContainer extends InstallerContainer
         // Dummy Frame
         JFrame frame = new JFrame();
         ImageIcon imageIcon;
-        imageIcon = resourceManager.getImageIconResource("JFrameIcon", "/com/izforge/izpack/img/JFrameIcon.png");
+        imageIcon = ImageResources.getImageIcon(resourceManager, "JFrameIcon", "/com/izforge/izpack/img/JFrameIcon.png");
         frame.setIconImage(imageIcon.getImage());
 
         Dimension frameSize = frame.getSize();
@@ -16,7 +16,9 @@ import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.core.container.AbstractContainer;
 import com.izforge.izpack.core.container.PlatformProvider;
 import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.data.DeferredProperties;
 import com.izforge.izpack.core.factory.DefaultObjectFactory;
+import com.izforge.izpack.core.os.JDKDiscovery;
 import com.izforge.izpack.core.os.RegistryDefaultHandler;
 import com.izforge.izpack.core.rules.ConditionContainer;
 import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
@@ -84,7 +86,7 @@ public abstract class InstallerContainer extends AbstractContainer
         addComponent(UninstallData.class);
         addComponent(MutablePicoContainer.class, pico);
         addComponent(ConditionContainer.class);
-        addComponent(Properties.class);
+        addComponent(Properties.class, DeferredProperties.class);
         addComponent(DefaultVariables.class);
         addComponent(ResourceManager.class);
         addComponent(UninstallDataWriter.class);
@@ -92,6 +94,7 @@ public abstract class InstallerContainer extends AbstractContainer
         addComponent(CustomDataLoader.class);
         addComponent(Container.class, this);
         addComponent(RegistryDefaultHandler.class);
+        addComponent(JDKDiscovery.class);
         addComponent(Housekeeper.class);
         addComponent(Librarian.class);
         addComponent(TargetFactory.class);
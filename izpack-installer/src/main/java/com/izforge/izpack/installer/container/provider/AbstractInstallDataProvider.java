@@ -4,13 +4,14 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.net.InetAddress;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -29,6 +30,10 @@ import com.izforge.izpack.api.data.ResourceManager;
 import com.izforge.izpack.api.data.ScriptParserConstant;
 import com.izforge.izpack.api.data.Value;
 import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.api.metrics.Metrics;
+import com.izforge.izpack.core.data.DeferredProperties;
+import com.izforge.izpack.installer.bootstrap.StartupTimer;
+import com.izforge.izpack.installer.data.InstallMetricsReport;
 import com.izforge.izpack.util.Housekeeper;
 import com.izforge.izpack.util.IoHelper;
 import com.izforge.izpack.util.OsConstraintHelper;
@@ -57,6 +62,9 @@ public abstract class AbstractInstallDataProvider implements Provider
      * All system properties are available as $SYSTEM_<variable> where <variable> is the actual
      * name _BUT_ with all separators replaced by '_'. Properties with null values are never stored.
      * Example: $SYSTEM_java_version or $SYSTEM_os_name
+     * <p/>
+     * The hostname, IP address and system property variables may be determined on first access.
+     * See {@link #setDeferredVariables}.
      *
      * @param installData the installation data to populate
      * @param resources   the resources
@@ -68,8 +76,18 @@ public abstract class AbstractInstallDataProvider implements Provider
     protected void loadInstallData(AutomatedInstallData installData, ResourceManager resources, Housekeeper housekeeper)
             throws IOException, ClassNotFoundException
     {
+        long start = Metrics.start();
+        if (Metrics.isEnabled())
+        {
+            new InstallMetricsReport(installData, housekeeper);
+        }
+
+        // Start resolving the hostname and IP address, as this can be slow
+        LocalHostResolver localHost = new LocalHostResolver().start();
+
         // We load the Info data
         Info info = (Info) readObject("info", resources);
+        StartupTimer.mark("info");
 
         // We put the Info data as variables
         installData.setVariable(ScriptParserConstant.APP_NAME, info.getAppName());
@@ -122,43 +140,15 @@ public abstract class AbstractInstallDataProvider implements Provider
         }
         objIn.close();
 
-        // Determine the hostname and IP address
-        String hostname;
-        String IPAddress;
-
-        try
-        {
-            InetAddress localHost = InetAddress.getLocalHost();
-            IPAddress = localHost.getHostAddress();
-            hostname = localHost.getHostName();
-        }
-        catch (Exception exception)
-        {
-            logger.log(Level.WARNING, "Failed to determine hostname and IP address", exception);
-            hostname = "";
-            IPAddress = "";
-        }
-
         installData.setVariable("APPLICATIONS_DEFAULT_ROOT", dir);
         dir += File.separator;
         installData.setVariable(ScriptParserConstant.JAVA_HOME, System.getProperty("java.home"));
         installData.setVariable(ScriptParserConstant.CLASS_PATH, System.getProperty("java.class.path"));
         installData.setVariable(ScriptParserConstant.USER_HOME, System.getProperty("user.home"));
         installData.setVariable(ScriptParserConstant.USER_NAME, System.getProperty("user.name"));
-        installData.setVariable(ScriptParserConstant.IP_ADDRESS, IPAddress);
-        installData.setVariable(ScriptParserConstant.HOST_NAME, hostname);
         installData.setVariable(ScriptParserConstant.FILE_SEPARATOR, File.separator);
-
-        Set<String> systemProperties = System.getProperties().stringPropertyNames();
-        for (String varName : systemProperties)
-        {
-            String varValue = System.getProperty(varName);
-            if (varValue != null)
-            {
-                varName = varName.replace('.', '_');
-                installData.setVariable("SYSTEM_" + varName, varValue);
-            }
-        }
+        setDeferredVariables(installData, localHost);
+        StartupTimer.mark("packs");
 
         // We load the variables
         Properties properties = (Properties) readObject("vars", resources);
@@ -195,6 +185,78 @@ public abstract class AbstractInstallDataProvider implements Provider
                 directory.cleanUp();
             }
         }
+        StartupTimer.mark("variables");
+        Metrics.stop("installer.loadInstallData", start);
+    }
+
+    /**
+     * Sets the variables that are expensive to determine.
+     * <p/>
+     * If the variables are backed by {@link DeferredProperties}, the hostname and IP address, and the
+     * <tt>SYSTEM_</tt> variables are only determined when first accessed. Otherwise, they are determined
+     * immediately.
+     *
+     * @param installData the installation data
+     * @param localHost   the local host resolver
+     */
+    private void setDeferredVariables(AutomatedInstallData installData, LocalHostResolver localHost)
+    {
+        Callable<Map<String, String>> systemProperties = new Callable<Map<String, String>>()
+        {
+            public Map<String, String> call()
+            {
+                return getSystemVariables();
+            }
+        };
+        Properties properties = installData.getVariables().getProperties();
+        if (properties instanceof DeferredProperties)
+        {
+            DeferredProperties deferred = (DeferredProperties) properties;
+            deferred.defer(localHost, ScriptParserConstant.IP_ADDRESS, ScriptParserConstant.HOST_NAME);
+            deferred.defer(systemProperties, "SYSTEM_*");
+        }
+        else
+        {
+            setVariables(installData, localHost.call());
+            setVariables(installData, getSystemVariables());
+        }
+    }
+
+    /**
+     * Returns the system properties as variables.
+     * <p/>
+     * Each variable is named <tt>SYSTEM_&lt;name&gt;</tt>, where the <tt>&lt;name&gt;</tt> is the property name
+     * with all '.' replaced by '_'. Properties with null values are excluded.
+     *
+     * @return the system variables
+     */
+    private Map<String, String> getSystemVariables()
+    {
+        Map<String, String> result = new HashMap<String, String>();
+        Properties systemProperties = System.getProperties();
+        for (String name : systemProperties.stringPropertyNames())
+        {
+            String value = systemProperties.getProperty(name);
+            if (value != null)
+            {
+                result.put("SYSTEM_" + name.replace('.', '_'), value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets variables.
+     *
+     * @param installData the installation data
+     * @param variables   the variables to set
+     */
+    private void setVariables(AutomatedInstallData installData, Map<String, String> variables)
+    {
+        for (Map.Entry<String, String> entry : variables.entrySet())
+        {
+            installData.setVariable(entry.getKey(), entry.getValue());
+        }
     }
 
     /**
@@ -21,6 +21,7 @@ import com.izforge.izpack.api.data.ResourceManager;
 import com.izforge.izpack.core.data.DefaultVariables;
 import com.izforge.izpack.gui.ButtonFactory;
 import com.izforge.izpack.gui.LabelFactory;
+import com.izforge.izpack.installer.bootstrap.StartupTimer;
 import com.izforge.izpack.installer.data.GUIInstallData;
 import com.izforge.izpack.util.Housekeeper;
 import com.izforge.izpack.util.OsVersion;
@@ -85,7 +86,9 @@ public class GUIInstallDataProvider extends AbstractInstallDataProvider
         loadDefaultLocale(guiInstallData, resourceManager);
         // Load custom langpack if exist.
         addCustomLangpack(guiInstallData, resourceManager);
+        StartupTimer.mark("langpack");
         loadLookAndFeel(guiInstallData);
+        StartupTimer.mark("look and feel");
         if (UIManager.getColor("Button.background") != null)
         {
             guiInstallData.buttonsHColor = UIManager.getColor("Button.background");
@@ -0,0 +1,120 @@
+package com.izforge.izpack.installer.container.provider;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.api.data.ScriptParserConstant;
+
+
+/**
+ * Determines the local host name and IP address in a background thread.
+ * <p/>
+ * Resolving the local host can block for a considerable time on hosts with misconfigured DNS, so the lookup is
+ * started as early as possible, and callers wait a bounded time for the result when it is first required.
+ * <br/>
+ * The result is returned as a map of {@link ScriptParserConstant#HOST_NAME} and
+ * {@link ScriptParserConstant#IP_ADDRESS} variables. These are empty if the local host cannot be determined in time.
+ */
+class LocalHostResolver implements Callable<Map<String, String>>
+{
+
+    /**
+     * The default time to wait for the lookup to complete, in milliseconds.
+     */
+    public static final long DEFAULT_TIMEOUT = 5000;
+
+    /**
+     * The lookup.
+     */
+    private final FutureTask<InetAddress> lookup;
+
+    /**
+     * The time to wait for the lookup to complete, in milliseconds.
+     */
+    private final long timeout;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(LocalHostResolver.class.getName());
+
+
+    /**
+     * Constructs a <tt>LocalHostResolver</tt>, using the {@link #DEFAULT_TIMEOUT}.
+     */
+    public LocalHostResolver()
+    {
+        this(DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Constructs a <tt>LocalHostResolver</tt>.
+     *
+     * @param timeout the time to wait for the lookup to complete, in milliseconds
+     */
+    public LocalHostResolver(long timeout)
+    {
+        this.timeout = timeout;
+        lookup = new FutureTask<InetAddress>(new Callable<InetAddress>()
+        {
+            public InetAddress call() throws Exception
+            {
+                return InetAddress.getLocalHost();
+            }
+        });
+    }
+
+    /**
+     * Starts the lookup.
+     *
+     * @return this resolver
+     */
+    public LocalHostResolver start()
+    {
+        Thread thread = new Thread(lookup, "IzPack local host lookup");
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    /**
+     * Waits for the lookup to complete, returning the host name and IP address.
+     *
+     * @return the host name and IP address variables
+     */
+    public Map<String, String> call()
+    {
+        String hostname = "";
+        String ipAddress = "";
+        try
+        {
+            InetAddress localHost = lookup.get(timeout, TimeUnit.MILLISECONDS);
+            ipAddress = localHost.getHostAddress();
+            hostname = localHost.getHostName();
+        }
+        catch (TimeoutException exception)
+        {
+            logger.warning("Timed out after " + timeout + "ms determining hostname and IP address");
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException exception)
+        {
+            logger.log(Level.WARNING, "Failed to determine hostname and IP address", exception.getCause());
+        }
+        Map<String, String> result = new HashMap<String, String>();
+        result.put(ScriptParserConstant.HOST_NAME, hostname);
+        result.put(ScriptParserConstant.IP_ADDRESS, ipAddress);
+        return result;
+    }
+}
@@ -0,0 +1,140 @@
+package com.izforge.izpack.installer.data;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.api.data.AutomatedInstallData;
+import com.izforge.izpack.api.data.Info;
+import com.izforge.izpack.api.metrics.Metrics;
+import com.izforge.izpack.api.metrics.MetricsWriter;
+import com.izforge.izpack.util.CleanupClient;
+import com.izforge.izpack.util.Housekeeper;
+import com.izforge.izpack.util.IoHelper;
+
+
+/**
+ * Writes the installation {@link Metrics} as a JSON report when the installer exits.
+ * <p/>
+ * The report is written to the path given by the {@link Metrics#PROPERTY izpack.metrics} system property, if it
+ * specifies one. Otherwise, it is written as <em>install-metrics.json</em> alongside the external install log, or
+ * in the uninstaller directory if there is no external log. If neither directory exists, e.g. because the
+ * installation was cancelled, the report is written to the temporary directory.
+ */
+public class InstallMetricsReport implements CleanupClient
+{
+
+    /**
+     * The default report file name.
+     */
+    public static final String FILE_NAME = "install-metrics.json";
+
+    /**
+     * The installation data.
+     */
+    private final AutomatedInstallData installData;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(InstallMetricsReport.class.getName());
+
+
+    /**
+     * Constructs an <tt>InstallMetricsReport</tt>, and registers it with the housekeeper so that the report is
+     * written on exit.
+     *
+     * @param installData the installation data
+     * @param housekeeper the housekeeper
+     */
+    public InstallMetricsReport(AutomatedInstallData installData, Housekeeper housekeeper)
+    {
+        this.installData = installData;
+        housekeeper.registerForCleanup(this);
+    }
+
+    /**
+     * Writes the report.
+     */
+    @Override
+    public void cleanUp()
+    {
+        File file = getFile();
+        try
+        {
+            write(file);
+            logger.info("Installation metrics written to: " + file.getPath());
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.WARNING, "Failed to write installation metrics to: " + file.getPath(), exception);
+        }
+    }
+
+    /**
+     * Writes the report.
+     *
+     * @param file the file to write to
+     * @throws IOException for any I/O error
+     */
+    public void write(File file) throws IOException
+    {
+        Map<String, String> info = new LinkedHashMap<String, String>();
+        Info appInfo = installData.getInfo();
+        if (appInfo != null)
+        {
+            info.put("appName", appInfo.getAppName());
+            info.put("appVersion", appInfo.getAppVersion());
+        }
+        info.put("installPath", installData.getInstallPath());
+        info.put("locale", installData.getLocaleISO3());
+        info.put("java.version", System.getProperty("java.version"));
+        info.put("os.name", System.getProperty("os.name"));
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try
+        {
+            new MetricsWriter().writeJSON(info, writer);
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    /**
+     * Determines the report file.
+     *
+     * @return the report file
+     */
+    protected File getFile()
+    {
+        String path = Metrics.getReportPath();
+        if (path != null)
+        {
+            return new File(path);
+        }
+        File dir = null;
+        String logfile = installData.getVariable(UninstallDataWriter.LOGFILE_PATH);
+        if (logfile != null && !logfile.toLowerCase().startsWith("default"))
+        {
+            dir = new File(IoHelper.translatePath(logfile, installData.getVariables())).getParentFile();
+        }
+        else if (installData.getInfo() != null && installData.getInfo().getUninstallerPath() != null)
+        {
+            dir = new File(IoHelper.translatePath(installData.getInfo().getUninstallerPath(),
+                                                  installData.getVariables()));
+        }
+        if (dir == null || !dir.isDirectory())
+        {
+            dir = new File(System.getProperty("java.io.tmpdir"));
+        }
+        return new File(dir, FILE_NAME);
+    }
+}
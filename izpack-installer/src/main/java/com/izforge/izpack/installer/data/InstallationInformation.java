@@ -0,0 +1,663 @@
+package com.izforge.izpack.installer.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Stores information about the installed packs and the variables at installation time, in the
+ * {@link com.izforge.izpack.api.data.AutomatedInstallData#INSTALLATION_INFORMATION} file.
+ * <p/>
+ * The file is an append-only log of compact records. Each installation run appends a record per installed pack, and
+ * a record per variable that has changed since the previous run. When read, the most recent record for each pack name
+ * and variable wins, so only the latest state is held in memory. The file is compacted when superseded records
+ * outnumber the live ones.
+ * <p/>
+ * Files written in the legacy format (a serialized list of {@link Pack}s followed by the variables) are read
+ * transparently, and converted to the current format on the next {@link #write}.
+ */
+public class InstallationInformation
+{
+
+    /**
+     * The file.
+     */
+    private final File file;
+
+    /**
+     * The installed packs, keyed on name, in installation order.
+     */
+    private final Map<String, Pack> packs = new LinkedHashMap<String, Pack>();
+
+    /**
+     * The variables.
+     */
+    private final Properties variables = new Properties();
+
+    /**
+     * The no. of records in the file.
+     */
+    private int records;
+
+    /**
+     * Determines if the file needs to be rewritten rather than appended to.
+     */
+    private boolean rewrite;
+
+    /**
+     * The file magic number.
+     */
+    static final int MAGIC = 0x495a4949; // "IZII"
+
+    /**
+     * The current file format version.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Pack record type.
+     */
+    private static final byte PACK = 1;
+
+    /**
+     * Variable record type. A variable with a <tt>null</tt> value indicates it has been removed.
+     */
+    private static final byte VARIABLE = 2;
+
+    /**
+     * The minimum no. of records before compaction is considered.
+     */
+    private static final int MIN_COMPACT_RECORDS = 256;
+
+    /**
+     * The character set used to encode strings.
+     */
+    private static final String UTF_8 = "UTF-8";
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(InstallationInformation.class.getName());
+
+
+    /**
+     * Constructs an <tt>InstallationInformation</tt>.
+     * <p/>
+     * The file is not read until {@link #read} is invoked.
+     *
+     * @param file the installation information file
+     */
+    public InstallationInformation(File file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * Reads installation information from the specified file.
+     *
+     * @param file the installation information file
+     * @return the installation information. If the file doesn't exist, this will be empty
+     * @throws IOException            for any I/O error
+     * @throws ClassNotFoundException if the file is in the legacy format, and a class cannot be found
+     */
+    public static InstallationInformation read(File file) throws IOException, ClassNotFoundException
+    {
+        InstallationInformation result = new InstallationInformation(file);
+        result.read();
+        return result;
+    }
+
+    /**
+     * Returns the installation information file.
+     *
+     * @return the file
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Returns the installed packs.
+     *
+     * @return the installed packs, in the order they were first installed
+     */
+    public Collection<Pack> getPacks()
+    {
+        return packs.values();
+    }
+
+    /**
+     * Returns an installed pack, given its name.
+     *
+     * @param name the pack name
+     * @return the corresponding pack, or <tt>null</tt> if it hasn't been installed
+     */
+    public Pack getPack(String name)
+    {
+        return packs.get(name);
+    }
+
+    /**
+     * Determines if a pack has been installed.
+     *
+     * @param name the pack name
+     * @return <tt>true</tt> if the pack has been installed
+     */
+    public boolean isInstalled(String name)
+    {
+        return packs.containsKey(name);
+    }
+
+    /**
+     * Returns the variables recorded at the last installation.
+     *
+     * @return the variables
+     */
+    public Properties getVariables()
+    {
+        return variables;
+    }
+
+    /**
+     * Reads the installation information.
+     *
+     * @throws IOException            for any I/O error
+     * @throws ClassNotFoundException if the file is in the legacy format, and a class cannot be found
+     */
+    public void read() throws IOException, ClassNotFoundException
+    {
+        packs.clear();
+        variables.clear();
+        records = 0;
+        rewrite = false;
+        if (file.exists() && file.length() != 0)
+        {
+            InputStream in = new BufferedInputStream(new FileInputStream(file));
+            try
+            {
+                DataInputStream stream = new DataInputStream(in);
+                in.mark(4);
+                int magic = stream.readInt();
+                if (magic == MAGIC)
+                {
+                    int version = stream.readInt();
+                    if (version > VERSION)
+                    {
+                        throw new IOException("Unsupported installation information version " + version + " in "
+                                                      + file);
+                    }
+                    readRecords(stream);
+                }
+                else
+                {
+                    in.reset();
+                    readLegacy(in);
+                    rewrite = true;
+                }
+            }
+            finally
+            {
+                FileUtils.close(in);
+            }
+        }
+        else
+        {
+            rewrite = true;
+        }
+    }
+
+    /**
+     * Records the supplied packs as installed, and the variables, and writes them to the file.
+     * <p/>
+     * Only the packs and changed variables are appended to the file, unless it needs to be converted or compacted.
+     *
+     * @param installed the installed packs
+     * @param current   the current variables
+     * @throws IOException for any I/O error
+     */
+    public void write(List<Pack> installed, Properties current) throws IOException
+    {
+        List<byte[]> appended = new ArrayList<byte[]>();
+        for (Pack pack : installed)
+        {
+            packs.remove(pack.getName()); // re-insert to reflect the installation order
+            packs.put(pack.getName(), pack);
+            appended.add(toRecord(pack));
+        }
+
+        Set<String> names = variables.stringPropertyNames();
+        for (String name : names)
+        {
+            if (current.getProperty(name) == null)
+            {
+                variables.remove(name);
+                appended.add(toRecord(name, null));
+            }
+        }
+        for (String name : current.stringPropertyNames())
+        {
+            String value = current.getProperty(name);
+            if (!value.equals(variables.getProperty(name)))
+            {
+                variables.setProperty(name, value);
+                appended.add(toRecord(name, value));
+            }
+        }
+
+        int live = packs.size() + variables.size();
+        if (rewrite || (records + appended.size() > MIN_COMPACT_RECORDS && records + appended.size() > 2 * live))
+        {
+            compact();
+        }
+        else if (!appended.isEmpty())
+        {
+            append(appended);
+        }
+    }
+
+    /**
+     * Rewrites the file, so that it only contains the latest state.
+     *
+     * @throws IOException for any I/O error
+     */
+    protected void compact() throws IOException
+    {
+        logger.fine("Compacting installation information: " + file);
+        File parent = file.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile("izpack", ".tmp", parent);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            records = 0;
+            for (Pack pack : packs.values())
+            {
+                out.write(toRecord(pack));
+                ++records;
+            }
+            for (String name : variables.stringPropertyNames())
+            {
+                out.write(toRecord(name, variables.getProperty(name)));
+                ++records;
+            }
+        }
+        finally
+        {
+            FileUtils.close(out);
+        }
+        replace(temp);
+        rewrite = false;
+    }
+
+    /**
+     * Replaces the file with a newly written one.
+     * <p/>
+     * The existing file is renamed to a backup first, and only deleted once the new file has been renamed into place,
+     * so that a failure at any point leaves either the old or the new file intact. If the rename fails, the backup is
+     * restored.
+     *
+     * @param temp the new file
+     * @throws IOException if the file cannot be replaced
+     */
+    private void replace(File temp) throws IOException
+    {
+        File backup = null;
+        if (file.exists())
+        {
+            backup = new File(file.getPath() + ".bak");
+            if (backup.exists() && !backup.delete())
+            {
+                FileUtils.delete(temp);
+                throw new IOException("Failed to delete: " + backup);
+            }
+            if (!file.renameTo(backup))
+            {
+                FileUtils.delete(temp);
+                throw new IOException("Failed to rename " + file + " to " + backup);
+            }
+        }
+        if (!temp.renameTo(file))
+        {
+            FileUtils.delete(temp);
+            if (backup != null && !backup.renameTo(file))
+            {
+                logger.warning("Failed to restore " + file + " from " + backup);
+            }
+            throw new IOException("Failed to rename " + temp + " to " + file);
+        }
+        if (backup != null && !backup.delete())
+        {
+            logger.warning("Failed to delete: " + backup);
+        }
+    }
+
+    /**
+     * Appends records to the file.
+     *
+     * @param appended the records to append
+     * @throws IOException for any I/O error
+     */
+    private void append(List<byte[]> appended) throws IOException
+    {
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file, true));
+        try
+        {
+            for (byte[] record : appended)
+            {
+                out.write(record);
+            }
+        }
+        finally
+        {
+            FileUtils.close(out);
+        }
+        records += appended.size();
+    }
+
+    /**
+     * Reads records from a stream, until the end of the stream is reached.
+     * <p/>
+     * A truncated trailing record, e.g. from an interrupted installation, is ignored and the file will be rewritten
+     * on the next {@link #write}.
+     *
+     * @param stream the stream to read from
+     * @throws IOException for any I/O error
+     */
+    private void readRecords(DataInputStream stream) throws IOException
+    {
+        int type;
+        while ((type = stream.read()) != -1)
+        {
+            byte[] data;
+            try
+            {
+                data = new byte[stream.readInt()];
+                stream.readFully(data);
+            }
+            catch (EOFException exception)
+            {
+                logger.warning("Ignoring truncated installation information record in " + file);
+                rewrite = true;
+                break;
+            }
+            ++records;
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(data));
+            if (type == PACK)
+            {
+                Pack pack = readPack(record);
+                packs.remove(pack.getName());
+                packs.put(pack.getName(), pack);
+            }
+            else if (type == VARIABLE)
+            {
+                String name = readString(record);
+                String value = readString(record);
+                if (value != null)
+                {
+                    variables.setProperty(name, value);
+                }
+                else
+                {
+                    variables.remove(name);
+                }
+            }
+            else
+            {
+                logger.fine("Skipping unknown installation information record of type " + type);
+            }
+        }
+    }
+
+    /**
+     * Reads installation information in the legacy format.
+     *
+     * @param in the stream to read from
+     * @throws IOException            for any I/O error
+     * @throws ClassNotFoundException if a class cannot be found
+     */
+    @SuppressWarnings("unchecked")
+    private void readLegacy(InputStream in) throws IOException, ClassNotFoundException
+    {
+        logger.fine("Reading legacy installation information: " + file);
+        ObjectInputStream stream = new ObjectInputStream(in);
+        List<Pack> list = (List<Pack>) stream.readObject();
+        for (Pack pack : list)
+        {
+            // the legacy format lists the most recent installation first
+            if (!packs.containsKey(pack.getName()))
+            {
+                packs.put(pack.getName(), pack);
+            }
+        }
+        try
+        {
+            Properties properties = (Properties) stream.readObject();
+            variables.putAll(properties);
+        }
+        catch (EOFException exception)
+        {
+            // no variables
+        }
+        records = packs.size() + variables.size();
+    }
+
+    /**
+     * Serializes a pack to a record.
+     *
+     * @param pack the pack
+     * @return the record
+     * @throws IOException for any I/O error
+     */
+    private byte[] toRecord(Pack pack) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, pack.getName());
+        writeString(out, pack.getLangPackId());
+        writeString(out, pack.getDescription());
+        writeString(out, pack.getExcludeGroup());
+        writeString(out, pack.getGroup());
+        writeString(out, pack.getParent());
+        writeString(out, pack.getImageId());
+        writeString(out, pack.getCondition());
+        out.writeBoolean(pack.isRequired());
+        out.writeBoolean(pack.isPreselected());
+        out.writeBoolean(pack.isLoose());
+        out.writeBoolean(pack.isUninstall());
+        out.writeBoolean(pack.isHidden());
+        out.writeLong(pack.getSize());
+        writeStrings(out, pack.getDependencies());
+        writeStrings(out, pack.getInstallGroups());
+        out.flush();
+        return toRecord(PACK, bytes.toByteArray());
+    }
+
+    /**
+     * Serializes a variable to a record.
+     *
+     * @param name  the variable name
+     * @param value the variable value. May be <tt>null</tt> to indicate that the variable has been removed
+     * @return the record
+     * @throws IOException for any I/O error
+     */
+    private byte[] toRecord(String name, String value) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, name);
+        writeString(out, value);
+        out.flush();
+        return toRecord(VARIABLE, bytes.toByteArray());
+    }
+
+    /**
+     * Prefixes record data with its type and length.
+     *
+     * @param type the record type
+     * @param data the record data
+     * @return the record
+     * @throws IOException for any I/O error
+     */
+    private byte[] toRecord(byte type, byte[] data) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length + 5);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(type);
+        out.writeInt(data.length);
+        out.write(data);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a pack record.
+     *
+     * @param in the stream to read from
+     * @return the pack
+     * @throws IOException for any I/O error
+     */
+    private Pack readPack(DataInputStream in) throws IOException
+    {
+        String name = readString(in);
+        String langPackId = readString(in);
+        String description = readString(in);
+        String excludeGroup = readString(in);
+        String group = readString(in);
+        String parent = readString(in);
+        String imageId = readString(in);
+        String condition = readString(in);
+        boolean required = in.readBoolean();
+        boolean preselected = in.readBoolean();
+        boolean loose = in.readBoolean();
+        boolean uninstall = in.readBoolean();
+        boolean hidden = in.readBoolean();
+        long size = in.readLong();
+        List<String> dependencies = readStrings(in);
+        List<String> installGroups = readStrings(in);
+
+        Pack pack = new Pack(name, langPackId, description, null, dependencies, required, preselected, loose,
+                             excludeGroup, uninstall);
+        pack.setGroup(group);
+        pack.setParent(parent);
+        pack.setImageId(imageId);
+        pack.setCondition(condition);
+        pack.setHidden(hidden);
+        pack.setSize(size);
+        if (installGroups != null)
+        {
+            pack.getInstallGroups().addAll(installGroups);
+        }
+        return pack;
+    }
+
+    /**
+     * Writes a string that may be <tt>null</tt>.
+     *
+     * @param out   the stream to write to
+     * @param value the value to write. May be <tt>null</tt>
+     * @throws IOException for any I/O error
+     */
+    private void writeString(DataOutputStream out, String value) throws IOException
+    {
+        if (value == null)
+        {
+            out.writeInt(-1);
+        }
+        else
+        {
+            byte[] bytes = value.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a string that may be <tt>null</tt>.
+     *
+     * @param in the stream to read from
+     * @return the string. May be <tt>null</tt>
+     * @throws IOException for any I/O error
+     */
+    private String readString(DataInputStream in) throws IOException
+    {
+        String result = null;
+        int length = in.readInt();
+        if (length >= 0)
+        {
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            result = new String(bytes, UTF_8);
+        }
+        return result;
+    }
+
+    /**
+     * Writes a collection of strings that may be <tt>null</tt>.
+     *
+     * @param out    the stream to write to
+     * @param values the values to write. May be <tt>null</tt>
+     * @throws IOException for any I/O error
+     */
+    private void writeStrings(DataOutputStream out, Collection<String> values) throws IOException
+    {
+        if (values == null)
+        {
+            out.writeInt(-1);
+        }
+        else
+        {
+            out.writeInt(values.size());
+            for (String value : values)
+            {
+                writeString(out, value);
+            }
+        }
+    }
+
+    /**
+     * Reads a list of strings that may be <tt>null</tt>.
+     *
+     * @param in the stream to read from
+     * @return the strings. May be <tt>null</tt>
+     * @throws IOException for any I/O error
+     */
+    private List<String> readStrings(DataInputStream in) throws IOException
+    {
+        List<String> result = null;
+        int size = in.readInt();
+        if (size >= 0)
+        {
+            result = new ArrayList<String>(size);
+            for (int i = 0; i < size; ++i)
+            {
+                result.add(readString(in));
+            }
+        }
+        return result;
+    }
+}
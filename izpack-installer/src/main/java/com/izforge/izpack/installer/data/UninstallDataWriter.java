@@ -20,6 +20,7 @@ import java.util.logging.Logger;
 
 import com.izforge.izpack.api.data.AutomatedInstallData;
 import com.izforge.izpack.api.merge.Mergeable;
+import com.izforge.izpack.api.metrics.Metrics;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.data.CustomData;
 import com.izforge.izpack.data.ExecutableFile;
@@ -70,7 +71,7 @@ public class UninstallDataWriter
     /**
      * Log file path variable name.
      */
-    private static final String LOGFILE_PATH = "InstallerFrame.logfilePath";
+    static final String LOGFILE_PATH = "InstallerFrame.logfilePath";
 
     /**
      * Constructs an <tt>UninstallDataWriter</tt>.
@@ -113,6 +114,7 @@ public class UninstallDataWriter
      */
     public boolean write()
     {
+        long start = Metrics.start();
         boolean result = false;
         try
         {
@@ -139,6 +141,7 @@ public class UninstallDataWriter
             logger.log(Level.SEVERE, t.getMessage(), t);
             destroyJar(); // don't keep the jar - it may be incomplete or corrupted
         }
+        Metrics.stop("uninstaller.write", start);
         return result;
     }
 
@@ -0,0 +1,163 @@
+package com.izforge.izpack.installer.event;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import com.izforge.izpack.api.data.AutomatedInstallData;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.event.BulkInstallerListener;
+import com.izforge.izpack.api.event.InstallerListener;
+import com.izforge.izpack.api.handler.AbstractUIProgressHandler;
+
+
+/**
+ * Adapts an {@link InstallerListener} to the {@link BulkInstallerListener} interface.
+ * <p/>
+ * Batch notifications are delivered to the listener one file or directory at a time. Note that for a batch of
+ * directories, {@link InstallerListener#beforeDir} is invoked for each directory before any are created.
+ */
+public class BulkInstallerListenerAdapter implements BulkInstallerListener
+{
+
+    /**
+     * The listener to delegate to.
+     */
+    private final InstallerListener listener;
+
+
+    /**
+     * Constructs a <tt>BulkInstallerListenerAdapter</tt>.
+     *
+     * @param listener the listener to delegate to
+     */
+    public BulkInstallerListenerAdapter(InstallerListener listener)
+    {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the listener being adapted.
+     *
+     * @return the listener
+     */
+    public InstallerListener getListener()
+    {
+        return listener;
+    }
+
+    /**
+     * Invoked before directories are created.
+     * <p/>
+     * This invokes {@link InstallerListener#beforeDir} for each directory.
+     *
+     * @param dirs     the directories, in the order they will be created
+     * @param packFile the pack file the directories are being created for
+     * @throws Exception for any error
+     */
+    @Override
+    public void beforeDirs(List<File> dirs, PackFile packFile) throws Exception
+    {
+        for (File dir : dirs)
+        {
+            listener.beforeDir(dir, packFile);
+        }
+    }
+
+    /**
+     * Invoked after directories are created.
+     * <p/>
+     * This invokes {@link InstallerListener#afterDir} for each directory.
+     *
+     * @param dirs     the directories, in the order they were created
+     * @param packFile the pack file the directories were created for
+     * @throws Exception for any error
+     */
+    @Override
+    public void afterDirs(List<File> dirs, PackFile packFile) throws Exception
+    {
+        for (File dir : dirs)
+        {
+            listener.afterDir(dir, packFile);
+        }
+    }
+
+    /**
+     * Invoked after files are installed.
+     * <p/>
+     * This invokes {@link InstallerListener#afterFile} for each file.
+     *
+     * @param files the installed files and their corresponding pack files
+     * @throws Exception for any error
+     */
+    @Override
+    public void afterFiles(Map<File, PackFile> files) throws Exception
+    {
+        for (Map.Entry<File, PackFile> entry : files.entrySet())
+        {
+            listener.afterFile(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void afterInstallerInitialization(AutomatedInstallData data) throws Exception
+    {
+        listener.afterInstallerInitialization(data);
+    }
+
+    @Override
+    public void beforePacks(AutomatedInstallData data, Integer packs, AbstractUIProgressHandler handler)
+            throws Exception
+    {
+        listener.beforePacks(data, packs, handler);
+    }
+
+    @Override
+    public void beforePack(Pack pack, Integer i, AbstractUIProgressHandler handler) throws Exception
+    {
+        listener.beforePack(pack, i, handler);
+    }
+
+    @Override
+    public boolean isFileListener()
+    {
+        return listener.isFileListener();
+    }
+
+    @Override
+    public void beforeDir(File dir, PackFile packFile) throws Exception
+    {
+        listener.beforeDir(dir, packFile);
+    }
+
+    @Override
+    public void afterDir(File dir, PackFile packFile) throws Exception
+    {
+        listener.afterDir(dir, packFile);
+    }
+
+    @Override
+    public void beforeFile(File file, PackFile packFile) throws Exception
+    {
+        listener.beforeFile(file, packFile);
+    }
+
+    @Override
+    public void afterFile(File file, PackFile packFile) throws Exception
+    {
+        listener.afterFile(file, packFile);
+    }
+
+    @Override
+    public void afterPack(Pack pack, Integer i, AbstractUIProgressHandler handler) throws Exception
+    {
+        listener.afterPack(pack, i, handler);
+    }
+
+    @Override
+    public void afterPacks(AutomatedInstallData data, AbstractUIProgressHandler handler) throws Exception
+    {
+        listener.afterPacks(data, handler);
+    }
+}
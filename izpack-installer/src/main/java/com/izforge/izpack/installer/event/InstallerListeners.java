@@ -4,26 +4,40 @@ package com.izforge.izpack.installer.event;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import com.izforge.izpack.api.data.AutomatedInstallData;
 import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.event.BulkInstallerListener;
 import com.izforge.izpack.api.event.InstallerListener;
 import com.izforge.izpack.api.handler.AbstractUIProgressHandler;
+import com.izforge.izpack.api.metrics.Metrics;
 
 
 /**
  * A container for {@link InstallerListener}s that supports notifying each registered listener.
+ * <p/>
+ * Batch notifications are delivered to {@link BulkInstallerListener}s as is, and to other file listeners via a
+ * {@link BulkInstallerListenerAdapter}.
+ * <p/>
+ * When {@link Metrics} are enabled, the time spent in each listener is recorded as a
+ * <em>listener.&lt;class name&gt;</em> timer.
  *
  * @author Tim Anderson
  */
-public class InstallerListeners implements InstallerListener
+public class InstallerListeners implements BulkInstallerListener
 {
     /**
      * The listeners.
      */
     private final List<InstallerListener> listeners = new ArrayList<InstallerListener>();
 
+    /**
+     * The listeners that should be notified of file and directory events, as bulk listeners.
+     */
+    private final List<BulkInstallerListener> fileListeners = new ArrayList<BulkInstallerListener>();
+
     /**
      * Determines if any of the listeners should be notified of file and directory events.
      */
@@ -38,9 +52,17 @@ public class InstallerListeners implements InstallerListener
     public void add(InstallerListener listener)
     {
         listeners.add(listener);
-        if (!fileListener && listener.isFileListener())
+        if (listener.isFileListener())
         {
             fileListener = true;
+            if (listener instanceof BulkInstallerListener)
+            {
+                fileListeners.add((BulkInstallerListener) listener);
+            }
+            else
+            {
+                fileListeners.add(new BulkInstallerListenerAdapter(listener));
+            }
         }
     }
 
@@ -89,7 +111,9 @@ public class InstallerListeners implements InstallerListener
     {
         for (InstallerListener listener : listeners)
         {
+            long start = Metrics.start();
             listener.beforePacks(data, packs, handler);
+            stop(listener, start);
         }
     }
 
@@ -106,7 +130,9 @@ public class InstallerListeners implements InstallerListener
     {
         for (InstallerListener listener : listeners)
         {
+            long start = Metrics.start();
             listener.beforePack(pack, i, handler);
+            stop(listener, start);
         }
     }
 
@@ -139,7 +165,9 @@ public class InstallerListeners implements InstallerListener
             {
                 if (listener.isFileListener())
                 {
+                    long start = Metrics.start();
                     listener.beforeDir(dir, packFile);
+                    stop(listener, start);
                 }
             }
         }
@@ -163,7 +191,9 @@ public class InstallerListeners implements InstallerListener
             {
                 if (listener.isFileListener())
                 {
+                    long start = Metrics.start();
                     listener.afterDir(dir, packFile);
+                    stop(listener, start);
                 }
             }
         }
@@ -187,7 +217,9 @@ public class InstallerListeners implements InstallerListener
             {
                 if (listener.isFileListener())
                 {
+                    long start = Metrics.start();
                     listener.beforeFile(file, packFile);
+                    stop(listener, start);
                 }
             }
         }
@@ -211,12 +243,73 @@ public class InstallerListeners implements InstallerListener
             {
                 if (listener.isFileListener())
                 {
+                    long start = Metrics.start();
                     listener.afterFile(file, packFile);
+                    stop(listener, start);
                 }
             }
         }
     }
 
+    /**
+     * Invoked before directories are created.
+     * <p/>
+     * This implementation only invokes those listeners whose {@link #isFileListener()} returns <tt>true</tt>.
+     *
+     * @param dirs     the directories, in the order they will be created
+     * @param packFile the pack file the directories are being created for
+     * @throws Exception if a listener throws an exception
+     */
+    @Override
+    public void beforeDirs(List<File> dirs, PackFile packFile) throws Exception
+    {
+        for (BulkInstallerListener listener : fileListeners)
+        {
+            long start = Metrics.start();
+            listener.beforeDirs(dirs, packFile);
+            stop(listener, start);
+        }
+    }
+
+    /**
+     * Invoked after directories are created.
+     * <p/>
+     * This implementation only invokes those listeners whose {@link #isFileListener()} returns <tt>true</tt>.
+     *
+     * @param dirs     the directories, in the order they were created
+     * @param packFile the pack file the directories were created for
+     * @throws Exception if a listener throws an exception
+     */
+    @Override
+    public void afterDirs(List<File> dirs, PackFile packFile) throws Exception
+    {
+        for (BulkInstallerListener listener : fileListeners)
+        {
+            long start = Metrics.start();
+            listener.afterDirs(dirs, packFile);
+            stop(listener, start);
+        }
+    }
+
+    /**
+     * Invoked after files are installed.
+     * <p/>
+     * This implementation only invokes those listeners whose {@link #isFileListener()} returns <tt>true</tt>.
+     *
+     * @param files the installed files and their corresponding pack files
+     * @throws Exception if a listener throws an exception
+     */
+    @Override
+    public void afterFiles(Map<File, PackFile> files) throws Exception
+    {
+        for (BulkInstallerListener listener : fileListeners)
+        {
+            long start = Metrics.start();
+            listener.afterFiles(files);
+            stop(listener, start);
+        }
+    }
+
     /**
      * Invoked after a pack is installed.
      *
@@ -230,7 +323,9 @@ public class InstallerListeners implements InstallerListener
     {
         for (InstallerListener listener : listeners)
         {
+            long start = Metrics.start();
             listener.afterPack(pack, i, handler);
+            stop(listener, start);
         }
     }
 
@@ -246,7 +341,9 @@ public class InstallerListeners implements InstallerListener
     {
         for (InstallerListener listener : listeners)
         {
+            long start = Metrics.start();
             listener.afterPacks(data, handler);
+            stop(listener, start);
         }
     }
 
@@ -261,9 +358,28 @@ public class InstallerListeners implements InstallerListener
     {
         for (InstallerListener listener : listeners)
         {
+            long start = Metrics.start();
             listener.afterInstallerInitialization(installData);
+            stop(listener, start);
         }
     }
 
+    /**
+     * Records the time spent in a listener, if metrics are enabled.
+     *
+     * @param listener the listener
+     * @param start    the value returned by {@link Metrics#start()}
+     */
+    private void stop(Object listener, long start)
+    {
+        if (start != 0)
+        {
+            if (listener instanceof BulkInstallerListenerAdapter)
+            {
+                listener = ((BulkInstallerListenerAdapter) listener).getListener();
+            }
+            Metrics.stop("listener", listener.getClass().getName(), start);
+        }
+    }
 
 }
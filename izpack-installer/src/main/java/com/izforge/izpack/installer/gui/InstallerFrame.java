@@ -81,6 +81,7 @@ import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.gui.ButtonFactory;
 import com.izforge.izpack.gui.EtchedLineBorder;
 import com.izforge.izpack.gui.IconsDatabase;
+import com.izforge.izpack.gui.ImageResources;
 import com.izforge.izpack.gui.log.Log;
 import com.izforge.izpack.installer.data.GUIInstallData;
 import com.izforge.izpack.installer.data.UninstallData;
@@ -307,7 +308,7 @@ public class InstallerFrame extends JFrame implements InstallerView
     public void buildGUI()
     {
         this.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
-        ImageIcon jframeIcon = resourceManager.getImageIconResource("JFrameIcon");
+        ImageIcon jframeIcon = ImageResources.getImageIcon(resourceManager, "JFrameIcon");
         if (jframeIcon == null)
         {
             jframeIcon = getIcons().get("JFrameIcon");
@@ -343,7 +344,11 @@ public class InstallerFrame extends JFrame implements InstallerView
         IzPanel panel_0 = (IzPanel) installdata.getPanels().get(0);
         panelsContainer.add(panel_0);
 
-        logger.fine("Building GUI. The panel list to display is " + installdata.getPanels());
+        if (logger.isLoggable(Level.FINE))
+        {
+            // list the panel meta-data, as listing the panels would create them
+            logger.fine("Building GUI. The panel list to display is " + installdata.getPanelsOrder());
+        }
 
         // We add the navigation buttons & labels
 
@@ -462,7 +467,7 @@ public class InstallerFrame extends JFrame implements InstallerView
     {
         ImageIcon icon;
         String iconext = this.getIconResourceNameExtension();
-        icon = resourceManager.getImageIconResource(resPrefix, resPrefix + "." + panelid + iconext);
+        icon = ImageResources.getImageIcon(resourceManager, resPrefix, resPrefix + "." + panelid + iconext);
         return (icon);
     }
 
@@ -534,14 +539,7 @@ public class InstallerFrame extends JFrame implements InstallerView
         }
         catch (Exception e)
         {
-            try
-            {
-                icon = loadIcon(resPrefix, panelNo + "");
-            }
-            catch (Exception e1)
-            {
-                // ignore
-            }
+            // ignore
         }
         if (icon != null)
         {
@@ -714,6 +712,10 @@ public class InstallerFrame extends JFrame implements InstallerView
             }
             isBack = false;
             callGUIListener(GUIListener.PANEL_SWITCHED);
+
+            // prepare the next panel and its image while the user reads this one
+            panelManager.prepare(installdata.getCurPanelNumber() + 1);
+            prefetchImage(installdata.getCurPanelNumber() + 1);
             log.addDebugMessage("InstallerFrame.switchPanel: switched", null, Log.PANEL_TRACE, null);
         }
         catch (Exception e)
@@ -722,6 +724,31 @@ public class InstallerFrame extends JFrame implements InstallerView
         }
     }
 
+    /**
+     * Decodes the image for a panel in the background, so that it can be displayed as soon as the panel is switched
+     * to.
+     *
+     * @param panelNumber the panel number
+     */
+    private void prefetchImage(int panelNumber)
+    {
+        if (iconLabel != null && panelNumber < installdata.getPanels().size())
+        {
+            com.izforge.izpack.api.data.Panel metadata = panelManager.getPanelMetadata(panelNumber);
+            String panelId;
+            if ((metadata != null) && (!"UNKNOWN".equals(metadata.getPanelid())))
+            {
+                panelId = metadata.getPanelid();
+            }
+            else
+            {
+                panelId = Integer.toString(getCurrentPanelVisbilityNumber() + 1);
+            }
+            ImageResources.prefetch(resourceManager, ICON_RESOURCE,
+                                    ICON_RESOURCE + "." + panelId + getIconResourceNameExtension());
+        }
+    }
+
     private int getCurrentPanelVisbilityNumber()
     {
         return panelManager.getPanelVisibilityNumber(installdata.getCurPanelNumber());
@@ -859,8 +886,12 @@ public class InstallerFrame extends JFrame implements InstallerView
         // write.write(root);
         for (int i = 0; i < installdata.getPanels().size(); i++)
         {
-            IzPanel panel = (IzPanel) installdata.getPanels().get(i);
-            panel.makeXMLData(installdata.getXmlData().getChildAtIndex(i));
+            // don't create panels that won't be displayed, just to record their data
+            if (panelManager.isCreated(i) || panelManager.isConditionTrue(i))
+            {
+                IzPanel panel = (IzPanel) installdata.getPanels().get(i);
+                panel.makeXMLData(installdata.getXmlData().getChildAtIndex(i));
+            }
         }
         writer.write(root);
 
@@ -1030,8 +1061,7 @@ public class InstallerFrame extends JFrame implements InstallerView
      */
     public boolean canShow(int panelnumber)
     {
-        IzPanel panel = (IzPanel) installdata.getPanels().get(panelnumber);
-        com.izforge.izpack.api.data.Panel panelmetadata = panel.getMetadata();
+        com.izforge.izpack.api.data.Panel panelmetadata = panelManager.getPanelMetadata(panelnumber);
         String panelid = panelmetadata.getPanelid();
         logger.fine("Current Panel: " + panelid);
         boolean canShow;
@@ -1137,9 +1167,9 @@ public class InstallerFrame extends JFrame implements InstallerView
         for (int panel = startPanel + 1; res == -1 && panel < installdata.getPanels().size(); panel++)
         {
             // See if we can show this panel
-            if (!visibleOnly || panelManager.isVisible(panel))
+            if (canShow(panel))
             {
-                if (canShow(panel))
+                if (!visibleOnly || panelManager.isVisible(panel))
                 {
                     res = panel;
                 }
@@ -1168,9 +1198,9 @@ public class InstallerFrame extends JFrame implements InstallerView
         for (int panel = endingPanel - 1; res == -1 && panel >= 0; panel--)
         {
             // See if we can show this panel
-            if (!visibleOnly || panelManager.isVisible(panel))
+            if (canShow(panel))
             {
-                if (canShow(panel))
+                if (!visibleOnly || panelManager.isVisible(panel))
                 {
                     res = panel;
                 }
@@ -175,6 +175,7 @@ public class IzPanel extends JPanel implements AbstractUIHandler, LayoutConstant
     {
         super();
         this.metadata = panel;
+        this.hidden = panel != null && panel.isHidden();
         this.parent = parent;
         this.installData = installData;
         this.resourceManager = resourceManager;
@@ -33,6 +33,7 @@ import javax.swing.SwingConstants;
 import com.izforge.izpack.api.GuiId;
 import com.izforge.izpack.api.data.LocaleDatabase;
 import com.izforge.izpack.api.data.ResourceManager;
+import com.izforge.izpack.gui.ImageResources;
 import com.izforge.izpack.installer.data.GUIInstallData;
 import com.izforge.izpack.installer.requirement.RequirementsChecker;
 
@@ -295,7 +296,7 @@ public class LanguageDialog extends JDialog implements ActionListener
         ImageIcon img;
         try
         {
-            img = resourceManager.getImageIconResource("installer.langsel.img");
+            img = ImageResources.getImageIcon(resourceManager, "installer.langsel.img");
         }
         catch (Exception err)
         {
@@ -459,7 +460,7 @@ public class LanguageDialog extends JDialog implements ActionListener
             if (!icons.containsKey(iso3))
             {
                 ImageIcon icon;
-                icon = resourceManager.getImageIconResource("flag." + iso3);
+                icon = ImageResources.getImageIcon(resourceManager, "flag." + iso3);
                 icons.put(iso3, icon);
                 icon = new ImageIcon(GrayFilter.createDisabledImage(icon.getImage()));
                 grayIcons.put(iso3, icon);
@@ -1,9 +1,14 @@
 package com.izforge.izpack.installer.manager;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
 
 import com.izforge.izpack.api.adaptator.IXMLElement;
 import com.izforge.izpack.api.adaptator.impl.XMLElementImpl;
@@ -11,6 +16,8 @@ import com.izforge.izpack.api.container.Container;
 import com.izforge.izpack.api.data.Panel;
 import com.izforge.izpack.api.factory.ObjectFactory;
 import com.izforge.izpack.api.installer.DataValidator;
+import com.izforge.izpack.api.metrics.Metrics;
+import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.data.PanelAction;
 import com.izforge.izpack.installer.data.GUIInstallData;
 import com.izforge.izpack.installer.gui.IzPanel;
@@ -19,6 +26,11 @@ import com.izforge.izpack.util.OsConstraintHelper;
 
 /**
  * Load panels in the container.
+ * <p/>
+ * Panels are created lazily, the first time they are accessed via {@link #getPanel(int)} or the
+ * {@link GUIInstallData#getPanels() panels list}, so that the time taken to display the first panel doesn't depend on
+ * the number of panels. {@link #prepare(int)} may be used to load the classes of a panel likely to be displayed next
+ * on a background thread, and create it when the event dispatch thread is idle.
  */
 public class PanelManager
 {
@@ -46,6 +58,26 @@ public class PanelManager
      */
     private final ArrayList<Integer> visiblePanelMapping = new ArrayList<Integer>();
 
+    /**
+     * The meta-data of the panels applicable to the current platform.
+     */
+    private final List<Panel> panels = new ArrayList<Panel>();
+
+    /**
+     * The created panels, indexed on panel number. Elements are <tt>null</tt> until the panel is created.
+     */
+    private final List<IzPanel> izPanels = new ArrayList<IzPanel>();
+
+    /**
+     * The numbers of the panels that have been prepared.
+     */
+    private final Set<Integer> prepared = new HashSet<Integer>();
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(PanelManager.class.getName());
+
 
     /**
      * Constructs a <tt>PanelManager</tt>.
@@ -62,52 +94,30 @@ public class PanelManager
     }
 
     /**
-     * Creates the panels.
+     * Registers the panels applicable to the current platform.
      * <p/>
-     * This invokes any pre-construction actions associated with them.
+     * The panels themselves are created on first access, at which point any pre-construction actions associated
+     * with them are invoked.
      *
      * @throws ClassNotFoundException if a class cannot be found
      * @throws IllegalStateException  if a class does not extend {@link IzPanel}.
      */
     public void createPanels() throws ClassNotFoundException
     {
-        Map<String, Panel> panels = new HashMap<String, Panel>();
-        int curVisPanelNumber = 0;
-        lastVis = 0;
-        int count = 0;
+        Set<String> keys = new HashSet<String>();
         for (Panel panel : installData.getPanelsOrder())
         {
             if (OsConstraintHelper.oneMatchesCurrentSystem(panel.getOsConstraints()))
             {
                 String panelId = panel.getPanelid();
                 String key = (panelId != null) ? panelId : panel.getClassName();
-                if (panels.put(key, panel) != null)
+                if (!keys.add(key))
                 {
                     throw new IllegalStateException("Duplicate panel: " + key);
                 }
+                panels.add(panel);
+                izPanels.add(null);
 
-                IzPanel izPanel = createPanel(panel);
-                if (panelId != null)
-                {
-                    installerContainer.addComponent(panelId, izPanel);
-                }
-                else
-                {
-                    installerContainer.addComponent(izPanel.getClass(), izPanel);
-                }
-                installData.getPanels().add(izPanel);
-
-                if (izPanel.isHidden())
-                {
-                    visiblePanelMapping.add(count, -1);
-                }
-                else
-                {
-                    visiblePanelMapping.add(count, curVisPanelNumber);
-                    curVisPanelNumber++;
-                    lastVis = count;
-                }
-                count++;
                 // We add the XML installDataGUI izPanel root
                 IXMLElement panelRoot = new XMLElementImpl(panel.getClassName(), installData.getXmlData());
                 // if set, we add the id as an attribute to the panelRoot
@@ -116,11 +126,156 @@ public class PanelManager
                     panelRoot.setAttribute("id", panelId);
                 }
                 installData.getXmlData().addChild(panelRoot);
-                visiblePanelMapping.add(count, lastVis);
             }
         }
+        installData.setPanels(new PanelList());
+        updateVisibility();
+    }
+
+    /**
+     * Returns the meta-data of a panel.
+     * <p/>
+     * This doesn't create the panel.
+     *
+     * @param panelNumber the panel number
+     * @return the panel meta-data
+     */
+    public Panel getPanelMetadata(int panelNumber)
+    {
+        return panels.get(panelNumber);
+    }
+
+    /**
+     * Determines if a panel has been created.
+     *
+     * @param panelNumber the panel number
+     * @return <tt>true</tt> if the panel has been created
+     */
+    public boolean isCreated(int panelNumber)
+    {
+        return izPanels.get(panelNumber) != null;
+    }
+
+    /**
+     * Determines if the conditions of a panel are met.
+     * <p/>
+     * This uses the panel meta-data, so doesn't create the panel.
+     *
+     * @param panelNumber the panel number
+     * @return <tt>true</tt> if the panel's conditions are met
+     */
+    public boolean isConditionTrue(int panelNumber)
+    {
+        Panel panel = panels.get(panelNumber);
+        RulesEngine rules = installData.getRules();
+        if (panel.hasCondition())
+        {
+            return rules.isConditionTrue(panel.getCondition());
+        }
+        return rules.canShowPanel(panel.getPanelid(), installData.getVariables());
+    }
+
+    /**
+     * Returns a panel, creating it if required.
+     * <p/>
+     * Panels must be created on the event dispatch thread.
+     *
+     * @param panelNumber the panel number
+     * @return the panel
+     */
+    public IzPanel getPanel(int panelNumber)
+    {
+        IzPanel result = izPanels.get(panelNumber);
+        if (result == null)
+        {
+            Panel panel = panels.get(panelNumber);
+            result = createPanel(panel);
+            izPanels.set(panelNumber, result);
+            if (panel.getPanelid() != null)
+            {
+                installerContainer.addComponent(panel.getPanelid(), result);
+            }
+            else
+            {
+                installerContainer.addComponent(result.getClass(), result);
+            }
+            if (result.isHidden() != panel.isHidden())
+            {
+                // the panel changed its visibility on construction
+                updateVisibility();
+            }
+        }
+        return result;
     }
 
+    /**
+     * Prepares a panel that is likely to be displayed next.
+     * <p/>
+     * The classes of the panel, its validator and actions are loaded and initialised on a background thread, and the
+     * panel is subsequently created on the event dispatch thread. This does nothing if the panel number is out of
+     * range, or the panel has already been prepared or created.
+     *
+     * @param panelNumber the panel number
+     */
+    public void prepare(final int panelNumber)
+    {
+        if (panelNumber < 0 || panelNumber >= panels.size() || izPanels.get(panelNumber) != null
+                || !prepared.add(panelNumber))
+        {
+            return;
+        }
+        final Panel panel = panels.get(panelNumber);
+        Thread thread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    loadClass(panel.getClassName(), IzPanel.class);
+                    if (panel.getValidator() != null)
+                    {
+                        loadClass(panel.getValidator(), DataValidator.class);
+                    }
+                    loadClasses(panel.getPreConstructionActions());
+                    loadClasses(panel.getPreActivationActions());
+                    loadClasses(panel.getPreValidationActions());
+                    loadClasses(panel.getPostValidationActions());
+                }
+                catch (Throwable exception)
+                {
+                    // report the failure when the panel is displayed
+                    logger.log(Level.FINE, "Failed to prepare panel " + panel.getClassName(), exception);
+                    return;
+                }
+                SwingUtilities.invokeLater(new Runnable()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            getPanel(panelNumber);
+                        }
+                        catch (Throwable exception)
+                        {
+                            // creation will be retried when the panel is displayed
+                            logger.log(Level.FINE, "Failed to create panel " + panel.getClassName(), exception);
+                        }
+                    }
+                });
+            }
+        }, "IzPack panel loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Determines if a panel is visible i.e. not hidden.
+     * <p/>
+     * This doesn't create the panel.
+     *
+     * @param panelNumber the panel number
+     * @return <tt>true</tt> if the panel is visible
+     */
     public boolean isVisible(int panelNumber)
     {
         return !(visiblePanelMapping.get(panelNumber) == -1);
@@ -128,7 +283,7 @@ public class PanelManager
 
     public boolean isLast(int panelNumber)
     {
-        return (visiblePanelMapping.get(installData.getPanels().size()) == panelNumber);
+        return (visiblePanelMapping.get(panels.size()) == panelNumber);
     }
 
     public int getPanelVisibilityNumber(int panel)
@@ -141,8 +296,39 @@ public class PanelManager
         return lastVis;
     }
 
+    /**
+     * Updates the mapping from panel number to visible panel number.
+     * <p/>
+     * The visibility of panels that haven't been created yet is determined from their {@link Panel#isHidden()
+     * meta-data}, so the mapping doesn't change as panels are created, unless a panel changes its visibility on
+     * construction.
+     */
+    private void updateVisibility()
+    {
+        visiblePanelMapping.clear();
+        int curVisPanelNumber = 0;
+        lastVis = 0;
+        for (int i = 0; i < izPanels.size(); ++i)
+        {
+            IzPanel izPanel = izPanels.get(i);
+            boolean hidden = (izPanel != null) ? izPanel.isHidden() : panels.get(i).isHidden();
+            if (hidden)
+            {
+                visiblePanelMapping.add(-1);
+            }
+            else
+            {
+                visiblePanelMapping.add(curVisPanelNumber);
+                curVisPanelNumber++;
+                lastVis = i;
+            }
+        }
+        visiblePanelMapping.add(lastVis);
+    }
+
     private IzPanel createPanel(Panel panel)
     {
+        long start = Metrics.start();
         executePreConstructionActions(panel);
         IzPanel izPanel = factory.create(panel.getClassName(), IzPanel.class, panel);
         String dataValidator = panel.getValidator();
@@ -155,9 +341,40 @@ public class PanelManager
         addPreActivationActions(panel, izPanel);
         addPreValidateActions(panel, izPanel);
         addPostValidationActions(panel, izPanel);
+        Metrics.stop("panel.construct", panel.getPanelid(), start);
         return izPanel;
     }
 
+    /**
+     * Loads and initialises classes.
+     *
+     * @param classNames the class names. May be <tt>null</tt>
+     * @throws ClassNotFoundException if a class cannot be found
+     */
+    private void loadClasses(List<String> classNames) throws ClassNotFoundException
+    {
+        if (classNames != null)
+        {
+            for (String className : classNames)
+            {
+                loadClass(className, PanelAction.class);
+            }
+        }
+    }
+
+    /**
+     * Loads and initialises a class.
+     *
+     * @param className the class name
+     * @param superType the super type of the class
+     * @throws ClassNotFoundException if the class cannot be found
+     */
+    private void loadClass(String className, Class<?> superType) throws ClassNotFoundException
+    {
+        Class<?> type = installerContainer.getClass(className, superType);
+        Class.forName(type.getName(), true, type.getClassLoader());
+    }
+
     /**
      * Executes pre-construction action associated with a panel.
      *
@@ -237,5 +454,72 @@ public class PanelManager
         }
     }
 
+    /**
+     * The panels list, creating panels on access.
+     * <p/>
+     * Searches only consider panels that have been created, as a panel that hasn't been created can't be in the
+     * list.
+     */
+    private class PanelList extends AbstractList<IzPanel>
+    {
+
+        /**
+         * Returns the panel at the specified index, creating it if required.
+         *
+         * @param index the panel number
+         * @return the panel
+         */
+        @Override
+        public IzPanel get(int index)
+        {
+            return getPanel(index);
+        }
+
+        /**
+         * Returns the number of panels.
+         *
+         * @return the number of panels
+         */
+        @Override
+        public int size()
+        {
+            return panels.size();
+        }
+
+        /**
+         * Returns the index of a panel.
+         *
+         * @param object the panel
+         * @return the index of the panel, or <tt>-1</tt> if it hasn't been created
+         */
+        @Override
+        public int indexOf(Object object)
+        {
+            return (object != null) ? izPanels.indexOf(object) : -1;
+        }
+
+        /**
+         * Returns the index of a panel.
+         *
+         * @param object the panel
+         * @return the index of the panel, or <tt>-1</tt> if it hasn't been created
+         */
+        @Override
+        public int lastIndexOf(Object object)
+        {
+            return (object != null) ? izPanels.lastIndexOf(object) : -1;
+        }
 
+        /**
+         * Determines if a panel has been created.
+         *
+         * @param object the panel
+         * @return <tt>true</tt> if the panel has been created
+         */
+        @Override
+        public boolean contains(Object object)
+        {
+            return indexOf(object) != -1;
+        }
+    }
 }
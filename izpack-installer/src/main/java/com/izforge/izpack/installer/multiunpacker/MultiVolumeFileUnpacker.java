@@ -3,6 +3,7 @@ package com.izforge.izpack.installer.multiunpacker;
 import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.izforge.izpack.api.data.PackFile;
@@ -72,9 +73,12 @@ public class MultiVolumeFileUnpacker extends FileUnpacker
         if (volumes.getFilePointer() < position)
         {
             // need to skip to the correct position
-            logger.fine("Skipping bytes to get to file " + target.getName()
-                                + " (" + volumes.getFilePointer() + "<" + position
-                                + ") target is: " + (position - volumes.getFilePointer()));
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("Skipping bytes to get to file " + target.getName()
+                                    + " (" + volumes.getFilePointer() + "<" + position
+                                    + ") target is: " + (position - volumes.getFilePointer()));
+            }
             skip(position - volumes.getFilePointer());
         }
 
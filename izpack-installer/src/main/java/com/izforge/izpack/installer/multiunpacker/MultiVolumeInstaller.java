@@ -99,6 +99,8 @@ public class MultiVolumeInstaller
                 newargs[1] = SelfModifier.findJarFile(clazz).getParent();
                 System.out.println("Setting mediadir: " + newargs[1]);
                 MultiVolumeInstaller.setMediadirectory(newargs[1]);
+                // run from a copy of the installer jar, as the media it resides on may be changed during
+                // installation
                 new SelfModifier(target, maxmem, maxpermgensize).invoke(newargs);
 
             }
@@ -31,12 +31,14 @@ import com.izforge.izpack.api.data.AutomatedInstallData;
 import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.data.PackFile;
 import com.izforge.izpack.api.data.ResourceManager;
+import com.izforge.izpack.api.data.XPackFile;
 import com.izforge.izpack.api.event.InstallerListener;
 import com.izforge.izpack.api.exception.InstallerException;
 import com.izforge.izpack.api.handler.AbstractUIProgressHandler;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.core.io.FileSpanningInputStream;
+import com.izforge.izpack.core.io.PackFileReader;
 import com.izforge.izpack.core.io.VolumeLocator;
 import com.izforge.izpack.installer.automation.PanelAutomation;
 import com.izforge.izpack.installer.data.UninstallData;
@@ -168,6 +170,25 @@ public class MultiVolumeUnpacker extends UnpackerBase
         }
     }
 
+    /**
+     * Reads the meta-data of a pack file.
+     * <p/>
+     * This reads the position of the file in the volumes following the meta-data.
+     *
+     * @param packInputStream the pack stream
+     * @param reader          the reader for the pack stream
+     * @return the pack file
+     * @throws IOException            for any I/O error
+     * @throws ClassNotFoundException if the class of a serialised object cannot be found
+     */
+    @Override
+    protected PackFile readPackFile(ObjectInputStream packInputStream, PackFileReader reader)
+            throws IOException, ClassNotFoundException
+    {
+        PackFile file = super.readPackFile(packInputStream, reader);
+        return new XPackFile(file, packInputStream.readLong());
+    }
+
     /**
      * Creates an unpacker to unpack a pack file.
      *
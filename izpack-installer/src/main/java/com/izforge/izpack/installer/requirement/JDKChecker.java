@@ -3,8 +3,11 @@ package com.izforge.izpack.installer.requirement;
 import com.izforge.izpack.api.data.AutomatedInstallData;
 import com.izforge.izpack.api.handler.Prompt;
 import com.izforge.izpack.api.installer.RequirementChecker;
+import com.izforge.izpack.core.os.JDKDiscovery;
 import com.izforge.izpack.util.FileExecutor;
 
+import java.io.File;
+
 
 /**
  * Verifies that the correct JDK version is available for installation to proceed.
@@ -24,6 +27,11 @@ public class JDKChecker implements RequirementChecker
      */
     private final Prompt prompt;
 
+    /**
+     * The JDK discovery service.
+     */
+    private final JDKDiscovery discovery;
+
     /**
      * Constructs a <tt>JDKChecker</tt>.
      *
@@ -31,9 +39,22 @@ public class JDKChecker implements RequirementChecker
      * @param prompt      the prompt
      */
     public JDKChecker(AutomatedInstallData installData, Prompt prompt)
+    {
+        this(installData, prompt, new JDKDiscovery());
+    }
+
+    /**
+     * Constructs a <tt>JDKChecker</tt>.
+     *
+     * @param installData the installation data
+     * @param prompt      the prompt
+     * @param discovery   the JDK discovery service
+     */
+    public JDKChecker(AutomatedInstallData installData, Prompt prompt, JDKDiscovery discovery)
     {
         this.installData = installData;
         this.prompt = prompt;
+        this.discovery = discovery;
     }
 
     /**
@@ -50,12 +71,24 @@ public class JDKChecker implements RequirementChecker
     }
 
     /**
-     * Determines if the JDK is installed, by executing attempting to execute javac.
+     * Determines if the JDK is installed, by looking for javac on the path.
+     * <p/>
+     * If the javac found doesn't belong to a recognisable JDK installation (e.g. the macOS <tt>/usr/bin/javac</tt>
+     * stub), javac is executed to determine if it works.
      *
-     * @return <tt>true</tt> if javac was successfully executed, otherwise <tt>false</tt>
+     * @return <tt>true</tt> if a JDK is on the path, otherwise <tt>false</tt>
      */
     protected boolean exists()
     {
+        File home = discovery.getJDKOnPath();
+        if (home == null)
+        {
+            return false;
+        }
+        if (discovery.isJDKHome(home))
+        {
+            return true;
+        }
         FileExecutor exec = new FileExecutor();
         String[] output = new String[2];
         String[] params = {"javac", "-help"};
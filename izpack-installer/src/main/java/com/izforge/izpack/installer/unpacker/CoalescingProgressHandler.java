@@ -0,0 +1,407 @@
+package com.izforge.izpack.installer.unpacker;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.izforge.izpack.api.handler.AbstractUIProgressHandler;
+import com.izforge.izpack.util.ExtendedUIProgressHandler;
+
+
+/**
+ * An {@link AbstractUIProgressHandler} that coalesces {@link #progress(int, String)} notifications before passing
+ * them to another handler.
+ * <p/>
+ * Only the most recent progress state is retained, and it is forwarded at most once per frame. This prevents
+ * handlers that update the user interface from being flooded when unpacking large numbers of small files.
+ * <br/>
+ * Any pending progress is forwarded prior to every other notification, so the delegate handler always sees
+ * notifications in the order they were issued. If no further notification arrives, e.g. while a single large file
+ * is being copied, pending progress is forwarded by a timer once the frame has elapsed, so the display never lags
+ * by more than a frame.
+ * <p/>
+ * This class is intended to be invoked by the unpacking thread only; the timer forwards pending progress under
+ * the handler's lock, so notifications are never forwarded concurrently or out of order.
+ */
+public class CoalescingProgressHandler implements AbstractUIProgressHandler
+{
+
+    /**
+     * The default no. of progress notifications forwarded per second.
+     */
+    public static final int DEFAULT_FRAME_RATE = 30;
+
+    /**
+     * The handler to delegate to.
+     */
+    private final AbstractUIProgressHandler handler;
+
+    /**
+     * The minimum interval between forwarded progress notifications, in nanoseconds.
+     */
+    private final long interval;
+
+    /**
+     * The time when progress was last forwarded, in nanoseconds.
+     */
+    private long lastForwarded;
+
+    /**
+     * Determines if progress has been forwarded since the last step.
+     */
+    private boolean forwarded;
+
+    /**
+     * Determines if there is a pending progress notification.
+     */
+    private boolean pending;
+
+    /**
+     * The pending sub-step.
+     */
+    private int pendingSubStep;
+
+    /**
+     * The pending message.
+     */
+    private String pendingMessage;
+
+    /**
+     * Determines if a timed flush of pending progress has been scheduled.
+     */
+    private boolean scheduled;
+
+    /**
+     * The timer used to forward pending progress when no further notifications arrive.
+     */
+    private static ScheduledExecutorService timer;
+
+
+    /**
+     * Constructs a <tt>CoalescingProgressHandler</tt>.
+     *
+     * @param handler   the handler to delegate to
+     * @param frameRate the maximum no. of progress notifications to forward per second
+     */
+    public CoalescingProgressHandler(AbstractUIProgressHandler handler, int frameRate)
+    {
+        if (frameRate <= 0)
+        {
+            throw new IllegalArgumentException("Argument 'frameRate' must be > 0");
+        }
+        this.handler = handler;
+        this.interval = 1000000000L / frameRate;
+    }
+
+    /**
+     * Wraps a handler in a <tt>CoalescingProgressHandler</tt>, using the {@link #DEFAULT_FRAME_RATE}.
+     * <p/>
+     * If the handler is an {@link ExtendedUIProgressHandler}, the returned handler will be too.
+     *
+     * @param handler the handler to wrap. May be <tt>null</tt>
+     * @return the wrapped handler, or <tt>null</tt> if <tt>handler</tt> is <tt>null</tt>
+     */
+    public static AbstractUIProgressHandler wrap(AbstractUIProgressHandler handler)
+    {
+        AbstractUIProgressHandler result;
+        if (handler == null || handler instanceof CoalescingProgressHandler)
+        {
+            result = handler;
+        }
+        else if (handler instanceof ExtendedUIProgressHandler)
+        {
+            result = new ExtendedCoalescingProgressHandler(handler, DEFAULT_FRAME_RATE);
+        }
+        else
+        {
+            result = new CoalescingProgressHandler(handler, DEFAULT_FRAME_RATE);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the handler that notifications are forwarded to.
+     *
+     * @return the handler
+     */
+    public AbstractUIProgressHandler getHandler()
+    {
+        return handler;
+    }
+
+    /**
+     * The action starts.
+     *
+     * @param name        The name of the action.
+     * @param no_of_steps The number of steps the action consists of.
+     */
+    public void startAction(String name, int no_of_steps)
+    {
+        flush();
+        forwarded = false;
+        handler.startAction(name, no_of_steps);
+    }
+
+    /**
+     * The action was finished.
+     */
+    public void stopAction()
+    {
+        flush();
+        handler.stopAction();
+    }
+
+    /**
+     * The next step starts.
+     *
+     * @param step_name      The name of the step which starts now.
+     * @param step_no        The number of the step.
+     * @param no_of_substeps The number of sub-steps this step consists of.
+     */
+    public void nextStep(String step_name, int step_no, int no_of_substeps)
+    {
+        flush();
+        forwarded = false;
+        handler.nextStep(step_name, step_no, no_of_substeps);
+    }
+
+    /**
+     * Set the number of substeps.
+     *
+     * @param no_of_substeps The number of substeps.
+     */
+    public void setSubStepNo(int no_of_substeps)
+    {
+        flush();
+        handler.setSubStepNo(no_of_substeps);
+    }
+
+    /**
+     * Notify of progress.
+     * <p/>
+     * The notification is forwarded immediately if it is the first of the current step, or if a frame has
+     * elapsed since progress was last forwarded. Otherwise, it replaces any pending notification.
+     *
+     * @param substep_no The substep which will be performed next.
+     * @param message    An additional message describing the substep.
+     */
+    public synchronized void progress(int substep_no, String message)
+    {
+        pendingSubStep = substep_no;
+        pendingMessage = message;
+        pending = true;
+        long now = getCurrentTime();
+        if (!forwarded || now - lastForwarded >= interval)
+        {
+            forwarded = true;
+            lastForwarded = now;
+            flush();
+        }
+        else if (!scheduled)
+        {
+            scheduled = true;
+            schedule(interval - (now - lastForwarded));
+        }
+    }
+
+    /**
+     * Notify the user about something.
+     *
+     * @param message The notification.
+     */
+    public void emitNotification(String message)
+    {
+        flush();
+        handler.emitNotification(message);
+    }
+
+    /**
+     * Warn the user about something.
+     *
+     * @param title   The message title (used for dialog name, might not be displayed)
+     * @param message The warning message.
+     * @return true if the user decided not to continue
+     */
+    public boolean emitWarning(String title, String message)
+    {
+        flush();
+        return handler.emitWarning(title, message);
+    }
+
+    /**
+     * Notify the user of some error.
+     *
+     * @param title   The message title (used for dialog name, might not be displayed)
+     * @param message The error message.
+     */
+    public void emitError(String title, String message)
+    {
+        flush();
+        handler.emitError(title, message);
+    }
+
+    /**
+     * Notify the user of some error and block the next button.
+     *
+     * @param title   The message title (used for dialog name, might not be displayed)
+     * @param message The error message.
+     */
+    public void emitErrorAndBlockNext(String title, String message)
+    {
+        flush();
+        handler.emitErrorAndBlockNext(title, message);
+    }
+
+    /**
+     * Ask the user a question.
+     *
+     * @param title    The title of the question (useful for dialogs). Might not be used.
+     * @param question The question.
+     * @param choices  The set of choices to present.
+     * @return The user's choice.
+     */
+    public int askQuestion(String title, String question, int choices)
+    {
+        flush();
+        return handler.askQuestion(title, question, choices);
+    }
+
+    /**
+     * Ask the user a question.
+     *
+     * @param title          The title of the question (useful for dialogs). Might not be used.
+     * @param question       The question.
+     * @param choices        The set of choices to present.
+     * @param default_choice The default choice. (-1 = no default choice)
+     * @return The user's choice.
+     */
+    public int askQuestion(String title, String question, int choices, int default_choice)
+    {
+        flush();
+        return handler.askQuestion(title, question, choices, default_choice);
+    }
+
+    /**
+     * Forwards any pending progress notification to the handler.
+     */
+    public synchronized void flush()
+    {
+        if (pending)
+        {
+            pending = false;
+            String message = pendingMessage;
+            pendingMessage = null;
+            handler.progress(pendingSubStep, message);
+        }
+    }
+
+    /**
+     * Forwards any pending progress notification, if a timed flush is due.
+     * <p/>
+     * This is invoked by the timer.
+     */
+    protected synchronized void timedFlush()
+    {
+        scheduled = false;
+        if (pending)
+        {
+            lastForwarded = getCurrentTime();
+            flush();
+        }
+    }
+
+    /**
+     * Schedules {@link #timedFlush()} to be invoked after a delay.
+     *
+     * @param delay the delay, in nanoseconds
+     */
+    protected void schedule(long delay)
+    {
+        getTimer().schedule(new Runnable()
+        {
+            public void run()
+            {
+                timedFlush();
+            }
+        }, delay, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the current time.
+     *
+     * @return the current time, in nanoseconds
+     */
+    protected long getCurrentTime()
+    {
+        return System.nanoTime();
+    }
+
+    /**
+     * Returns the timer, creating it if required.
+     * <p/>
+     * The timer uses a single daemon thread, shared by all handlers.
+     *
+     * @return the timer
+     */
+    private static synchronized ScheduledExecutorService getTimer()
+    {
+        if (timer == null)
+        {
+            timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "IzPack-progress");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return timer;
+    }
+
+    /**
+     * A <tt>CoalescingProgressHandler</tt> for handlers that implement {@link ExtendedUIProgressHandler}.
+     */
+    private static class ExtendedCoalescingProgressHandler extends CoalescingProgressHandler
+            implements ExtendedUIProgressHandler
+    {
+
+        /**
+         * Constructs an <tt>ExtendedCoalescingProgressHandler</tt>.
+         *
+         * @param handler   the handler to delegate to. Must implement {@link ExtendedUIProgressHandler}
+         * @param frameRate the maximum no. of progress notifications to forward per second
+         */
+        public ExtendedCoalescingProgressHandler(AbstractUIProgressHandler handler, int frameRate)
+        {
+            super(handler, frameRate);
+        }
+
+        /**
+         * The action restarts.
+         *
+         * @param name        The name of the action.
+         * @param overallMsg  message to be used in the overall label.
+         * @param tipMsg      message to be used in the tip label.
+         * @param no_of_steps The number of steps the action consists of.
+         */
+        public void restartAction(String name, String overallMsg, String tipMsg, int no_of_steps)
+        {
+            flush();
+            ((ExtendedUIProgressHandler) getHandler()).restartAction(name, overallMsg, tipMsg, no_of_steps);
+        }
+
+        /**
+         * Notify of progress with automatic counting.
+         *
+         * @param stepMessage an additional message describing the substep the type of the substep
+         */
+        public void progress(String stepMessage)
+        {
+            flush();
+            ((ExtendedUIProgressHandler) getHandler()).progress(stepMessage);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.OutputStream;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.izforge.izpack.api.data.Blockable;
@@ -31,6 +32,11 @@ import com.izforge.izpack.util.os.FileQueueMove;
 public abstract class FileUnpacker
 {
 
+    /**
+     * The size of the buffer used to copy files.
+     */
+    public static final int BUFFER_SIZE = 5120;
+
     /**
      * Determines if unpacking should be cancelled.
      */
@@ -71,6 +77,11 @@ public abstract class FileUnpacker
      */
     private boolean queued;
 
+    /**
+     * The buffer used to copy files. If <tt>null</tt>, one will be created when required.
+     */
+    private byte[] buffer;
+
     /**
      * The logger.
      */
@@ -119,6 +130,18 @@ public abstract class FileUnpacker
         return queued;
     }
 
+    /**
+     * Determines if unpacking was deferred to another thread.
+     * <p/>
+     * If so, the file isn't complete until the thread finishes.
+     *
+     * @return <tt>true</tt> if unpacking was deferred
+     */
+    public boolean isDeferred()
+    {
+        return false;
+    }
+
     /**
      * Returns the file queue.
      *
@@ -129,6 +152,32 @@ public abstract class FileUnpacker
         return queue;
     }
 
+    /**
+     * Sets the buffer used to copy files.
+     * <p/>
+     * This enables successive unpackers on the same thread to share a buffer, rather than allocating one per file.
+     *
+     * @param buffer the buffer. May be <tt>null</tt>
+     */
+    public void setBuffer(byte[] buffer)
+    {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Returns the buffer used to copy files, creating it if none has been set.
+     *
+     * @return the buffer
+     */
+    protected byte[] getBuffer()
+    {
+        if (buffer == null)
+        {
+            buffer = new byte[BUFFER_SIZE];
+        }
+        return buffer;
+    }
+
     /**
      * Copies an input stream to a target, setting its timestamp to that of the pack file.
      * <p/>
@@ -146,7 +195,7 @@ public abstract class FileUnpacker
         OutputStream out = getTarget(file, target);
         try
         {
-            byte[] buffer = new byte[5120];
+            byte[] buffer = getBuffer();
             long bytesCopied = 0;
             while (bytesCopied < file.length())
             {
@@ -288,7 +337,7 @@ public abstract class FileUnpacker
      * @param file the pack file
      * @return <tt>true</tt> if the file is blockable, otherwise <tt>false</tt>
      */
-    private boolean isBlockable(PackFile file)
+    protected boolean isBlockable(PackFile file)
     {
         return (file.blockable() != Blockable.BLOCKABLE_NONE) && platform.isA(WINDOWS);
     }
@@ -309,8 +358,11 @@ public abstract class FileUnpacker
         move.setForceInUse(true);
         move.setOverwrite(true);
         queue.add(move);
-        logger.fine(tmpTarget.getAbsolutePath() + " -> " + target.getAbsolutePath()
-                            + " added to file queue for being copied after reboot");
+        if (logger.isLoggable(Level.FINE))
+        {
+            logger.fine(tmpTarget.getAbsolutePath() + " -> " + target.getAbsolutePath()
+                                + " added to file queue for being copied after reboot");
+        }
         // The temporary file must not be deleted until the file queue will be committed
         tmpTarget.deleteOnExit();
         queued = true;
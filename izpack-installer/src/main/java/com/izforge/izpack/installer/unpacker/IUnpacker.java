@@ -40,6 +40,13 @@ public interface IUnpacker extends Runnable
      */
     void setHandler(AbstractUIProgressHandler handler);
 
+    /**
+     * Returns the statistics of the current or most recent unpacking operation.
+     *
+     * @return the unpacking statistics
+     */
+    ProgressStatistics getStatistics();
+
     /**
      * Interrupts the unpacker, and waits for it to complete.
      * <p/>
@@ -0,0 +1,251 @@
+package com.izforge.izpack.installer.unpacker;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.Pack200;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.exception.InstallerException;
+
+
+/**
+ * Unpacks pack200 files on a pool of worker threads, so that the CPU-bound pack200 decoding doesn't hold up the
+ * extraction of ordinary files.
+ * <p/>
+ * Submitted files are incomplete until {@link #join()} returns. It returns the files in the order they were
+ * submitted, so that listeners can be notified deterministically.
+ * <p/>
+ * <tt>Pack200.Unpacker</tt> instances aren't thread safe, so each worker thread obtains its own via
+ * {@link #getUnpacker()}.
+ */
+public class Pack200Executor
+{
+
+    /**
+     * The worker pool.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The submitted, but not yet joined, files.
+     */
+    private final List<Pending> pending = new ArrayList<Pending>();
+
+    /**
+     * The per-thread pack200 unpackers.
+     */
+    private static final ThreadLocal<Pack200.Unpacker> unpackers = new ThreadLocal<Pack200.Unpacker>()
+    {
+        @Override
+        protected Pack200.Unpacker initialValue()
+        {
+            return Pack200.newUnpacker();
+        }
+    };
+
+    /**
+     * The time to wait for files being unpacked to complete on shutdown, in seconds.
+     */
+    private static final long SHUTDOWN_TIMEOUT = 60;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(Pack200Executor.class.getName());
+
+
+    /**
+     * Constructs a <tt>Pack200Executor</tt>.
+     *
+     * @param threads the no. of worker threads
+     */
+    public Pack200Executor(int threads)
+    {
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "IzPack pack200 unpacker " + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns the pack200 unpacker for the current thread.
+     * <p/>
+     * This should only be invoked by tasks running on the worker threads.
+     *
+     * @return the current thread's unpacker
+     */
+    public static Pack200.Unpacker getUnpacker()
+    {
+        return unpackers.get();
+    }
+
+    /**
+     * Submits a file to be unpacked.
+     *
+     * @param file   the pack file meta-data
+     * @param target the target file
+     * @param task   the task that unpacks the file
+     */
+    public synchronized void submit(PackFile file, File target, Callable<?> task)
+    {
+        pending.add(new Pending(file, target, executor.submit(task)));
+    }
+
+    /**
+     * Determines if there are files yet to be joined.
+     *
+     * @return <tt>true</tt> if there are files yet to be joined
+     */
+    public synchronized boolean hasPending()
+    {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Waits for all submitted files to be unpacked.
+     *
+     * @return the unpacked target files and their meta-data, in the order they were submitted
+     * @throws IOException        if a file failed to unpack due to an I/O error
+     * @throws InstallerException if a file failed to unpack for any other reason, or the thread was interrupted
+     */
+    public Map<File, PackFile> join() throws IOException, InstallerException
+    {
+        List<Pending> files;
+        synchronized (this)
+        {
+            files = new ArrayList<Pending>(pending);
+            pending.clear();
+        }
+        Map<File, PackFile> result = new LinkedHashMap<File, PackFile>();
+        Throwable failure = null;
+        for (Pending file : files)
+        {
+            try
+            {
+                file.future.get();
+                result.put(file.target, file.file);
+            }
+            catch (ExecutionException exception)
+            {
+                if (failure == null)
+                {
+                    failure = exception.getCause();
+                }
+            }
+            catch (InterruptedException exception)
+            {
+                Thread.currentThread().interrupt();
+                cancel(files);
+                throw new InstallerException("Interrupted while unpacking pack200 files", exception);
+            }
+        }
+        if (failure instanceof IOException)
+        {
+            throw (IOException) failure;
+        }
+        else if (failure instanceof InstallerException)
+        {
+            throw (InstallerException) failure;
+        }
+        else if (failure != null)
+        {
+            throw new InstallerException(failure.getMessage(), failure);
+        }
+        return result;
+    }
+
+    /**
+     * Cancels any files that haven't started unpacking, and shuts down the worker threads.
+     * <p/>
+     * Files that are being unpacked are allowed to complete, waiting at most {@link #SHUTDOWN_TIMEOUT} seconds.
+     */
+    public void shutdown()
+    {
+        synchronized (this)
+        {
+            cancel(pending);
+            pending.clear();
+        }
+        executor.shutdown();
+        try
+        {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS))
+            {
+                logger.warning("Timed out waiting for pack200 files to unpack");
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Cancels files that haven't started unpacking.
+     *
+     * @param files the files to cancel
+     */
+    private void cancel(List<Pending> files)
+    {
+        for (Pending file : files)
+        {
+            file.future.cancel(false);
+        }
+    }
+
+    /**
+     * A file submitted for unpacking.
+     */
+    private static class Pending
+    {
+
+        /**
+         * The pack file meta-data.
+         */
+        private final PackFile file;
+
+        /**
+         * The target file.
+         */
+        private final File target;
+
+        /**
+         * The unpacking result.
+         */
+        private final Future<?> future;
+
+        /**
+         * Constructs a <tt>Pending</tt>.
+         *
+         * @param file   the pack file meta-data
+         * @param target the target file
+         * @param future the unpacking result
+         */
+        public Pending(PackFile file, File target, Future<?> future)
+        {
+            this.file = file;
+            this.target = target;
+            this.future = future;
+        }
+    }
+}
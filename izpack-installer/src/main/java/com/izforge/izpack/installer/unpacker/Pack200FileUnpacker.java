@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.OutputStream;
+import java.util.concurrent.Callable;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Pack200;
 
@@ -35,6 +36,16 @@ class Pack200FileUnpacker extends FileUnpacker
      */
     private final Pack200.Unpacker unpacker;
 
+    /**
+     * The executor to unpack on. May be <tt>null</tt>
+     */
+    private final Pack200Executor executor;
+
+    /**
+     * Determines if unpacking was deferred to the executor.
+     */
+    private boolean deferred;
+
     /**
      * Constructs a <tt>Pack200FileUnpacker</tt>.
      *
@@ -49,10 +60,32 @@ class Pack200FileUnpacker extends FileUnpacker
     public Pack200FileUnpacker(Cancellable cancellable, AbstractUIProgressHandler handler,
                                ResourceManager resources, Pack200.Unpacker unpacker, FileQueue queue,
                                Platform platform, Librarian librarian)
+    {
+        this(cancellable, handler, resources, unpacker, null, queue, platform, librarian);
+    }
+
+    /**
+     * Constructs a <tt>Pack200FileUnpacker</tt> that unpacks files on an executor.
+     * <p/>
+     * Files that need to be queued are still unpacked by the calling thread.
+     *
+     * @param cancellable determines if unpacking should be cancelled
+     * @param handler     the handler
+     * @param resources   the resources
+     * @param unpacker    the unpacker, used when unpacking on the calling thread
+     * @param executor    the executor to unpack on. May be <tt>null</tt>
+     * @param queue       the file queue. May be <tt>null</tt>
+     * @param platform    the current platform
+     * @param librarian   the librarian
+     */
+    public Pack200FileUnpacker(Cancellable cancellable, AbstractUIProgressHandler handler,
+                               ResourceManager resources, Pack200.Unpacker unpacker, Pack200Executor executor,
+                               FileQueue queue, Platform platform, Librarian librarian)
     {
         super(cancellable, handler, queue, platform, librarian);
         this.resources = resources;
         this.unpacker = unpacker;
+        this.executor = executor;
     }
 
     /**
@@ -66,10 +99,50 @@ class Pack200FileUnpacker extends FileUnpacker
      * @throws InstallerException for any installer exception
      */
     @Override
-    public FileQueue unpack(PackFile file, ObjectInputStream packInputStream, File target)
+    public FileQueue unpack(final PackFile file, ObjectInputStream packInputStream, final File target)
             throws IOException, InstallerException
     {
-        int key = packInputStream.readInt();
+        final int key = packInputStream.readInt();
+        if (executor != null && !isBlockable(file))
+        {
+            deferred = true;
+            executor.submit(file, target, new Callable<Object>()
+            {
+                public Object call() throws Exception
+                {
+                    unpack(file, key, target, Pack200Executor.getUnpacker());
+                    setLastModified(file);
+                    return null;
+                }
+            });
+            return getQueue();
+        }
+        unpack(file, key, target, unpacker);
+        return postCopy(file);
+    }
+
+    /**
+     * Determines if unpacking was deferred to the executor.
+     *
+     * @return <tt>true</tt> if unpacking was deferred
+     */
+    @Override
+    public boolean isDeferred()
+    {
+        return deferred;
+    }
+
+    /**
+     * Unpacks a pack200 resource to the target.
+     *
+     * @param file     the pack file meta-data
+     * @param key      the pack200 resource key
+     * @param target   the target
+     * @param unpacker the unpacker to use
+     * @throws IOException for any I/O error
+     */
+    private void unpack(PackFile file, int key, File target, Pack200.Unpacker unpacker) throws IOException
+    {
         InputStream in = null;
         OutputStream out = null;
         JarOutputStream jarOut = null;
@@ -88,8 +161,6 @@ class Pack200FileUnpacker extends FileUnpacker
             FileUtils.close(out);
             FileUtils.close(jarOut);
         }
-
-        return postCopy(file);
     }
 
 }
@@ -0,0 +1,190 @@
+package com.izforge.izpack.installer.unpacker;
+
+/**
+ * Tracks the throughput of an unpacking operation, in order to report files/s, bytes/s and the estimated time
+ * remaining.
+ * <p/>
+ * The statistics are updated by the unpacking thread, and may be read concurrently by other threads, e.g. the
+ * event dispatch thread.
+ */
+public class ProgressStatistics
+{
+
+    /**
+     * The total no. of bytes expected to be processed.
+     */
+    private long totalBytes;
+
+    /**
+     * The no. of files processed.
+     */
+    private long files;
+
+    /**
+     * The no. of bytes processed.
+     */
+    private long bytes;
+
+    /**
+     * The time when processing started, in milliseconds.
+     */
+    private long startTime;
+
+    /**
+     * Determines if {@link #start} has been invoked.
+     */
+    private boolean started;
+
+    /**
+     * Minimum elapsed time, in milliseconds, before rates are calculated.
+     */
+    private static final long MIN_ELAPSED = 500;
+
+
+    /**
+     * Resets the statistics, and starts timing.
+     *
+     * @param totalBytes the total no. of bytes expected to be processed, or <tt>0</tt> if it is not known
+     */
+    public synchronized void start(long totalBytes)
+    {
+        this.totalBytes = totalBytes;
+        files = 0;
+        bytes = 0;
+        startTime = getCurrentTime();
+        started = true;
+    }
+
+    /**
+     * Records that a file has been processed.
+     *
+     * @param length the length of the file, in bytes
+     */
+    public synchronized void processed(long length)
+    {
+        ++files;
+        bytes += length;
+    }
+
+    /**
+     * Returns the no. of files processed.
+     *
+     * @return the no. of files processed
+     */
+    public synchronized long getFiles()
+    {
+        return files;
+    }
+
+    /**
+     * Returns the no. of bytes processed.
+     *
+     * @return the no. of bytes processed
+     */
+    public synchronized long getBytes()
+    {
+        return bytes;
+    }
+
+    /**
+     * Returns the total no. of bytes expected to be processed.
+     *
+     * @return the total no. of bytes, or <tt>0</tt> if it is not known
+     */
+    public synchronized long getTotalBytes()
+    {
+        return totalBytes;
+    }
+
+    /**
+     * Returns the time elapsed since {@link #start} was invoked.
+     *
+     * @return the elapsed time, in milliseconds
+     */
+    public synchronized long getElapsedTime()
+    {
+        return started ? getCurrentTime() - startTime : 0;
+    }
+
+    /**
+     * Returns the no. of files processed per second.
+     *
+     * @return the no. of files per second, or <tt>0</tt> if too little time has elapsed to determine it
+     */
+    public synchronized double getFilesPerSecond()
+    {
+        long elapsed = getElapsedTime();
+        return (elapsed >= MIN_ELAPSED) ? files * 1000.0 / elapsed : 0;
+    }
+
+    /**
+     * Returns the no. of bytes processed per second.
+     *
+     * @return the no. of bytes per second, or <tt>0</tt> if too little time has elapsed to determine it
+     */
+    public synchronized double getBytesPerSecond()
+    {
+        long elapsed = getElapsedTime();
+        return (elapsed >= MIN_ELAPSED) ? bytes * 1000.0 / elapsed : 0;
+    }
+
+    /**
+     * Returns the estimated time remaining, based on the current throughput.
+     *
+     * @return the estimated remaining time in milliseconds, or <tt>-1</tt> if it cannot be determined
+     */
+    public synchronized long getRemainingTime()
+    {
+        long result = -1;
+        double rate = getBytesPerSecond();
+        if (rate > 0 && totalBytes > 0)
+        {
+            long remaining = Math.max(totalBytes - bytes, 0);
+            result = (long) (remaining * 1000 / rate);
+        }
+        return result;
+    }
+
+    /**
+     * Formats the statistics for display.
+     * <p/>
+     * This returns the files/s, MB/s and time remaining as strings, suitable for passing to a message format.
+     *
+     * @return the formatted files/s, MB/s and time remaining
+     */
+    public synchronized String[] format()
+    {
+        String filesPerSecond = String.format("%.0f", getFilesPerSecond());
+        String megaBytesPerSecond = String.format("%.1f", getBytesPerSecond() / (1024 * 1024));
+        long remaining = getRemainingTime();
+        String time;
+        if (remaining < 0)
+        {
+            time = "-:--";
+        }
+        else
+        {
+            long seconds = (remaining + 999) / 1000;
+            long hours = seconds / 3600;
+            if (hours > 0)
+            {
+                time = String.format("%d:%02d:%02d", hours, (seconds / 60) % 60, seconds % 60);
+            }
+            else
+            {
+                time = String.format("%d:%02d", seconds / 60, seconds % 60);
+            }
+        }
+        return new String[]{filesPerSecond, megaBytesPerSecond, time};
+    }
+
+    /**
+     * Returns the current time.
+     *
+     * @return the current time, in milliseconds
+     */
+    protected long getCurrentTime()
+    {
+        return System.nanoTime() / 1000000;
+    }
+}
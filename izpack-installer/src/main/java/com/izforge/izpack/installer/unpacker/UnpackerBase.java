@@ -23,19 +23,18 @@ package com.izforge.izpack.installer.unpacker;
 
 import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.lang.reflect.Constructor;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.jar.Pack200;
@@ -43,6 +42,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.izforge.izpack.api.data.AutomatedInstallData;
+import com.izforge.izpack.api.data.Info;
 import com.izforge.izpack.api.data.OverrideType;
 import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.data.PackFile;
@@ -52,12 +52,15 @@ import com.izforge.izpack.api.event.InstallerListener;
 import com.izforge.izpack.api.exception.InstallerException;
 import com.izforge.izpack.api.handler.AbstractUIHandler;
 import com.izforge.izpack.api.handler.AbstractUIProgressHandler;
+import com.izforge.izpack.api.metrics.Metrics;
 import com.izforge.izpack.api.resource.Messages;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
+import com.izforge.izpack.core.io.PackFileReader;
 import com.izforge.izpack.data.ExecutableFile;
 import com.izforge.izpack.data.ParsableFile;
 import com.izforge.izpack.data.UpdateCheck;
+import com.izforge.izpack.installer.data.InstallationInformation;
 import com.izforge.izpack.installer.data.UninstallData;
 import com.izforge.izpack.installer.event.InstallerListeners;
 import com.izforge.izpack.installer.web.WebAccessor;
@@ -84,6 +87,22 @@ import com.izforge.izpack.util.os.FileQueue;
 public abstract class UnpackerBase implements IUnpacker
 {
 
+    /**
+     * The variable specifying the no. of threads used to unpack pack200 files. If <tt>1</tt> or less, pack200
+     * files are unpacked by the unpacking thread. Defaults to the no. of available processors.
+     */
+    public static final String PACK200_THREADS = "Unpacker.pack200.threads";
+
+    /**
+     * The variable specifying when pack200 files unpacked by worker threads must be complete.
+     * <p/>
+     * If <tt>pack</tt> (the default), the files of each pack are complete before listeners are notified that the
+     * pack has been unpacked. If <tt>install</tt>, they need only be complete once all packs have been unpacked.
+     * <br/>
+     * Either way, listeners are notified of each such file once it is complete, in pack order.
+     */
+    public static final String PACK200_JOIN = "Unpacker.pack200.join";
+
     /**
      * The installation data.
      */
@@ -134,6 +153,16 @@ public abstract class UnpackerBase implements IUnpacker
      */
     private AbstractUIProgressHandler handler;
 
+    /**
+     * The unpacking statistics.
+     */
+    private final ProgressStatistics statistics = new ProgressStatistics();
+
+    /**
+     * The buffer used by file unpackers to copy files. Files are unpacked one at a time, so a single buffer is shared.
+     */
+    private final byte[] buffer = new byte[FileUnpacker.BUFFER_SIZE];
+
     /**
      * The absolute path of the source installation jar.
      */
@@ -144,6 +173,16 @@ public abstract class UnpackerBase implements IUnpacker
      */
     private Pack200.Unpacker unpacker;
 
+    /**
+     * The executor used to unpack pack200 files. May be <tt>null</tt>.
+     */
+    private Pack200Executor pack200Executor;
+
+    /**
+     * Determines if pack200 files must be complete before notifying listeners that the pack has been unpacked.
+     */
+    private boolean joinPack200EachPack = true;
+
     /**
      * The result of the operation.
      */
@@ -220,13 +259,27 @@ public abstract class UnpackerBase implements IUnpacker
 
     /**
      * Sets the progress handler.
+     * <p/>
+     * The handler is wrapped in a {@link CoalescingProgressHandler} so that per-file progress notifications
+     * are limited to a fixed rate.
      *
      * @param handler the progress handler
      */
     @Override
     public void setHandler(AbstractUIProgressHandler handler)
     {
-        this.handler = handler;
+        this.handler = CoalescingProgressHandler.wrap(handler);
+    }
+
+    /**
+     * Returns the unpacking statistics.
+     *
+     * @return the unpacking statistics
+     */
+    @Override
+    public ProgressStatistics getStatistics()
+    {
+        return statistics;
     }
 
     /**
@@ -278,6 +331,11 @@ public abstract class UnpackerBase implements IUnpacker
         }
         finally
         {
+            if (pack200Executor != null)
+            {
+                pack200Executor.shutdown();
+                pack200Executor = null;
+            }
             cleanup();
         }
     }
@@ -370,6 +428,16 @@ public abstract class UnpackerBase implements IUnpacker
         int count = installData.getSelectedPacks().size();
 
         logger.fine("Unpacker starting");
+        long size = 0;
+        for (Pack pack : installData.getSelectedPacks())
+        {
+            if (shouldUnpack(pack))
+            {
+                size += pack.getSize();
+            }
+        }
+        statistics.start(size);
+        pack200Executor = createPack200Executor();
         handler.startAction("Unpacking", count);
 
         listeners.beforePacks(installData, count, handler);
@@ -404,13 +472,39 @@ public abstract class UnpackerBase implements IUnpacker
                 {
                     break;
                 }
+                if (joinPack200EachPack)
+                {
+                    joinPack200();
+                }
 
                 listeners.afterPack(pack, i, handler);
             }
         }
+        if (!isInterrupted())
+        {
+            joinPack200();
+        }
         return queue;
     }
 
+    /**
+     * Waits for any pack200 files being unpacked by worker threads to complete, notifying listeners of each.
+     *
+     * @throws IOException if a file failed to unpack due to an I/O error
+     * @throws Exception   for any other error
+     */
+    protected void joinPack200() throws Exception
+    {
+        if (pack200Executor != null && pack200Executor.hasPending())
+        {
+            Map<File, PackFile> files = pack200Executor.join();
+            if (listeners.isFileListener())
+            {
+                listeners.afterFiles(files);
+            }
+        }
+    }
+
     /**
      * Unpacks a pack.
      *
@@ -427,12 +521,15 @@ public abstract class UnpackerBase implements IUnpacker
     protected FileQueue unpack(Pack pack, int packNo, FileQueue queue, List<ParsableFile> parsables,
                                List<ExecutableFile> executables, List<UpdateCheck> updateChecks) throws Exception
     {
+        long start = Metrics.start();
+        long bytes = 0;
         InputStream in = null;
         ObjectInputStream packInputStream = null;
         try
         {
             in = getPackStream(pack.getName(), pack.isUninstall());
             packInputStream = new ObjectInputStream(in);
+            PackFileReader reader = new PackFileReader(packInputStream);
 
             int fileCount = packInputStream.readInt();
 
@@ -440,12 +537,12 @@ public abstract class UnpackerBase implements IUnpacker
             String stepName = getStepName(pack);
             handler.nextStep(stepName, packNo + 1, fileCount);
 
+            PackFilter filter = new PackFilter();
             for (int i = 0; i < fileCount; ++i)
             {
                 // read the header
-                PackFile file = (PackFile) packInputStream.readObject();
-                if ((file.hasCondition() && !isConditionTrue(file.getCondition()))
-                        || !OsConstraintHelper.oneMatchesCurrentSystem(file.osConstraints()))
+                PackFile file = readPackFile(packInputStream, reader);
+                if (!filter.isIncluded(file))
                 {
                     // condition is not fulfilled, so skip it
                     skip(file, pack, packInputStream);
@@ -455,6 +552,11 @@ public abstract class UnpackerBase implements IUnpacker
                     // unpack the file
                     queue = unpack(file, packInputStream, i, pack, queue);
                 }
+                if (!file.isDirectory())
+                {
+                    statistics.processed(file.length());
+                    bytes += file.length();
+                }
             }
             readParsableFiles(packInputStream, parsables);
             readExecutableFiles(packInputStream, executables);
@@ -465,9 +567,37 @@ public abstract class UnpackerBase implements IUnpacker
             FileUtils.close(packInputStream);
             FileUtils.close(in);
         }
+        Metrics.stop("pack", pack.getName(), start, bytes);
         return queue;
     }
 
+    /**
+     * Determines if a pack file should be installed on the current system.
+     *
+     * @param file the pack file
+     * @return <tt>true</tt> if the file's condition is true and its OS constraints match the current system
+     */
+    protected boolean isIncluded(PackFile file)
+    {
+        return (!file.hasCondition() || isConditionTrue(file.getCondition()))
+                && OsConstraintHelper.oneMatchesCurrentSystem(file.osConstraints());
+    }
+
+    /**
+     * Reads the meta-data of a pack file.
+     *
+     * @param packInputStream the pack stream
+     * @param reader          the reader for the pack stream
+     * @return the pack file
+     * @throws IOException            for any I/O error
+     * @throws ClassNotFoundException if the class of a serialised object cannot be found
+     */
+    protected PackFile readPackFile(ObjectInputStream packInputStream, PackFileReader reader)
+            throws IOException, ClassNotFoundException
+    {
+        return reader.read();
+    }
+
     /**
      * Unpacks a pack file.
      *
@@ -567,6 +697,7 @@ public abstract class UnpackerBase implements IUnpacker
             }
 
             unpacker = createFileUnpacker(file, pack, queue, cancellable);
+            unpacker.setBuffer(buffer);
             unpacker.unpack(file, packStream, target);
 
 
@@ -575,7 +706,7 @@ public abstract class UnpackerBase implements IUnpacker
                 return queue;
             }
 
-            if (!unpacker.isQueued())
+            if (!unpacker.isQueued() && !unpacker.isDeferred())
             {
                 listeners.afterFile(target, file);
             }
@@ -630,7 +761,7 @@ public abstract class UnpackerBase implements IUnpacker
         else if (file.isPack200Jar())
         {
             unpacker = new Pack200FileUnpacker(cancellable, handler, resourceManager, getPack200Unpacker(),
-                                               queue, platform, librarian);
+                                               pack200Executor, queue, platform, librarian);
         }
         else
         {
@@ -923,7 +1054,8 @@ public abstract class UnpackerBase implements IUnpacker
     /**
      * Creates a directory including any necessary but nonexistent parent directories, associated with a pack file.
      * <p/>
-     * If {@link InstallerListener}s are registered, these will be notified for each directory created.
+     * The directories are created in one step. If {@link InstallerListener}s are registered, these will be notified
+     * of all of the directories created, in a single batch.
      *
      * @param dir  the directory to create
      * @param file the pack file
@@ -935,43 +1067,27 @@ public abstract class UnpackerBase implements IUnpacker
         boolean ok = true;
         if (!dir.exists())
         {
-            if (!listeners.isFileListener())
+            List<File> dirs = null;
+            if (listeners.isFileListener())
             {
-                // Create it in one step.
-                if (!dir.mkdirs())
+                dirs = new ArrayList<File>();
+                for (File parent = dir; parent != null && !parent.exists(); parent = parent.getParentFile())
                 {
-                    handler.emitError("Error creating directories",
-                                      "Could not create directory\n" + dir.getPath());
-                    handler.stopAction();
-                    result = false;
+                    dirs.add(0, parent);
                 }
+                listeners.beforeDirs(dirs, file);
             }
-            else
+            if (!dir.mkdirs() && !dir.isDirectory())
             {
-                File parent = dir.getParentFile();
-                if (parent != null)
-                {
-                    ok = createDirectory(parent, file);
-                }
-                if (ok)
-                {
-                    listeners.beforeDir(dir, file);
-                    ok = dir.mkdir();
-                    if (!ok)
-                    {
-                        handler.emitError("Error creating directories", "Could not create directory\n" + dir);
-                        handler.stopAction();
-                    }
-                    else
-                    {
-                        listeners.afterDir(dir, file);
-                    }
-                }
+                handler.emitError("Error creating directories", "Could not create directory\n" + dir.getPath());
+                handler.stopAction();
+                result = false;
+                ok = false;
+            }
+            else if (dirs != null)
+            {
+                listeners.afterDirs(dirs, file);
             }
-        }
-        else
-        {
-            ok = true;
         }
         return ok;
     }
@@ -989,7 +1105,9 @@ public abstract class UnpackerBase implements IUnpacker
             ScriptParser parser = new ScriptParser(getVariableSubstitutor());
             for (ParsableFile file : files)
             {
+                long start = Metrics.start();
                 parser.parse(file);
+                Metrics.stop("parsables", start);
                 if (isInterrupted())
                 {
                     return;
@@ -1009,12 +1127,14 @@ public abstract class UnpackerBase implements IUnpacker
         boolean result = true;
         if (!executables.isEmpty())
         {
+            long start = Metrics.start();
             FileExecutor executor = new FileExecutor(executables);
             if (executor.executeFiles(ExecutableFile.POSTINSTALL, handler) != 0)
             {
                 result = false;
                 setResult(false);
             }
+            Metrics.stop("executables", start);
         }
         return result;
     }
@@ -1153,8 +1273,6 @@ public abstract class UnpackerBase implements IUnpacker
         logger.fine("Writing installation information");
         String installDir = installData.getInstallPath();
 
-        List<Pack> installedPacks = new ArrayList<Pack>(installData.getSelectedPacks());
-
         File installationInfo = new File(installDir + File.separator + AutomatedInstallData.INSTALLATION_INFORMATION);
         if (!installationInfo.exists())
         {
@@ -1168,42 +1286,16 @@ public abstract class UnpackerBase implements IUnpacker
                     throw new IOException("Failed to create directory: " + dir);
                 }
             }
-            if (!installationInfo.createNewFile())
-            {
-                throw new IOException("Failed to create file: " + installationInfo);
-            }
         }
         else
         {
             logger.fine("Previous installation information found");
-            // read in old information and update
-            FileInputStream fin = new FileInputStream(installationInfo);
-            ObjectInputStream oin = new ObjectInputStream(fin);
-
-            List<Pack> packs = (List<Pack>) oin.readObject();
-            for (Pack pack : packs)
-            {
-                installedPacks.add(pack);
-            }
-            oin.close();
-            fin.close();
         }
 
-        FileOutputStream fout = new FileOutputStream(installationInfo);
-        ObjectOutputStream oout = new ObjectOutputStream(fout);
-        oout.writeObject(installedPacks);
-        /*
-        int selectedpackscount = installData.selectedPacks.size();
-        for (int i = 0; i < selectedpackscount; i++)
-        {
-            Pack pack = (Pack) installData.selectedPacks.get(i);
-            oout.writeObject(pack);
-        }
-        */
-        oout.writeObject(installData.getVariables().getProperties());
+        // read in old information and append the newly installed packs and changed variables
+        InstallationInformation information = InstallationInformation.read(installationInfo);
+        information.write(installData.getSelectedPacks(), installData.getVariables().getProperties());
         logger.fine("Writing installation information finished");
-        oout.close();
-        fout.close();
     }
 
     protected File getAbsoluteInstallSource() throws IOException, InstallerException
@@ -1427,6 +1519,42 @@ public abstract class UnpackerBase implements IUnpacker
         return unpacker;
     }
 
+    /**
+     * Creates the executor used to unpack pack200 files, if the installer contains them and more than one
+     * thread is configured via {@link #PACK200_THREADS}.
+     *
+     * @return the executor, or <tt>null</tt> if pack200 files should be unpacked by the unpacking thread
+     */
+    private Pack200Executor createPack200Executor()
+    {
+        Pack200Executor result = null;
+        Info info = installData.getInfo();
+        if (info != null && info.isPack200Compression())
+        {
+            Variables variables = installData.getVariables();
+            int threads = Runtime.getRuntime().availableProcessors();
+            String value = variables.get(PACK200_THREADS);
+            if (value != null)
+            {
+                try
+                {
+                    threads = Integer.parseInt(value.trim());
+                }
+                catch (NumberFormatException exception)
+                {
+                    logger.warning("Invalid " + PACK200_THREADS + ": " + value);
+                }
+            }
+            joinPack200EachPack = !"install".equalsIgnoreCase(variables.get(PACK200_JOIN, "pack"));
+            if (threads > 1)
+            {
+                logger.fine("Unpacking pack200 files using " + threads + " threads");
+                result = new Pack200Executor(threads);
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns whether interrupt was initiate or not for this Unpacker.
      *
@@ -1437,5 +1565,58 @@ public abstract class UnpackerBase implements IUnpacker
         return state == State.INTERRUPT || state == State.INTERRUPTED;
     }
 
-}
 
+    /**
+     * Determines which files of a pack to install.
+     * <p/>
+     * Files with the same filter class share the same OS constraints and condition, so each filter class is only
+     * evaluated once per pack. Files without a filter class are evaluated individually.
+     */
+    private class PackFilter
+    {
+
+        /**
+         * The decisions for each filter class, indexed on filter class identifier.
+         */
+        private byte[] decisions = new byte[16];
+
+        /**
+         * Indicates the filter class hasn't been evaluated.
+         */
+        private static final byte UNKNOWN = 0;
+
+        /**
+         * Indicates files of the filter class are installed.
+         */
+        private static final byte INCLUDE = 1;
+
+        /**
+         * Indicates files of the filter class are skipped.
+         */
+        private static final byte EXCLUDE = 2;
+
+        /**
+         * Determines if a pack file should be installed.
+         *
+         * @param file the pack file
+         * @return <tt>true</tt> if the file should be installed, <tt>false</tt> if it should be skipped
+         */
+        public boolean isIncluded(PackFile file)
+        {
+            int id = file.getFilterId();
+            if (id == 0)
+            {
+                return UnpackerBase.this.isIncluded(file);
+            }
+            if (id >= decisions.length)
+            {
+                decisions = Arrays.copyOf(decisions, Math.max(id + 1, decisions.length * 2));
+            }
+            if (decisions[id] == UNKNOWN)
+            {
+                decisions[id] = UnpackerBase.this.isIncluded(file) ? INCLUDE : EXCLUDE;
+            }
+            return decisions[id] == INCLUDE;
+        }
+    }
+}
@@ -2,9 +2,9 @@ package com.izforge.izpack.installer.container;
 
 import java.awt.Dimension;
 import java.awt.Toolkit;
+import java.net.URL;
 import java.util.Arrays;
 
-import javax.swing.ImageIcon;
 import javax.swing.JFrame;
 
 import org.fest.swing.fixture.DialogFixture;
@@ -78,10 +78,10 @@ public class TestLanguageContainer extends AbstractContainer
                 .addAdapter(new ProviderAdapter(new IconsProvider()));
 
         Mockito.when(resourceManager.getAvailableLangPacks()).thenReturn(Arrays.asList("eng", "fra"));
-        ImageIcon engFlag = new ImageIcon(getClass().getResource("/com/izforge/izpack/bin/langpacks/flags/eng.gif"));
-        ImageIcon frFlag = new ImageIcon(getClass().getResource("/com/izforge/izpack/bin/langpacks/flags/fra.gif"));
-        Mockito.when(resourceManager.getImageIconResource("flag.eng")).thenReturn(engFlag);
-        Mockito.when(resourceManager.getImageIconResource("flag.fra")).thenReturn(frFlag);
+        URL engFlag = getClass().getResource("/com/izforge/izpack/bin/langpacks/flags/eng.gif");
+        URL frFlag = getClass().getResource("/com/izforge/izpack/bin/langpacks/flags/fra.gif");
+        Mockito.when(resourceManager.getURL("flag.eng")).thenReturn(engFlag);
+        Mockito.when(resourceManager.getURL("flag.fra")).thenReturn(frFlag);
         Mockito.when(resourceManager.getInputStream(Mockito.anyString())).thenReturn(
                 getClass().getResourceAsStream("/com/izforge/izpack/bin/langpacks/installer/eng.xml"));
     }
@@ -0,0 +1,247 @@
+package com.izforge.izpack.installer.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Pack;
+
+
+/**
+ * Tests the {@link InstallationInformation} class.
+ */
+public class InstallationInformationTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The installation information file.
+     */
+    private File file;
+
+
+    /**
+     * Sets up the test case.
+     */
+    @Before
+    public void setUp()
+    {
+        file = new File(temporaryFolder.getRoot(), ".installationinformation");
+    }
+
+    /**
+     * Verifies that packs and variables can be written and read back.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testReadWrite() throws Exception
+    {
+        InstallationInformation information = InstallationInformation.read(file);
+        assertTrue(information.getPacks().isEmpty());
+
+        Pack core = createPack("Core", "core.pack");
+        core.setSize(1024);
+        core.setGroup("Base");
+        core.addDependency("Docs");
+        Pack docs = createPack("Docs", null);
+        Properties variables = createVariables("INSTALL_PATH", "/opt/app", "USER", "joe");
+        information.write(Arrays.asList(core, docs), variables);
+
+        InstallationInformation read = InstallationInformation.read(file);
+        assertEquals(2, read.getPacks().size());
+        Pack readCore = read.getPack("Core");
+        assertNotNull(readCore);
+        assertEquals("core.pack", readCore.getLangPackId());
+        assertEquals(1024, readCore.getSize());
+        assertEquals("Base", readCore.getGroup());
+        assertEquals(Arrays.asList("Docs"), readCore.getDependencies());
+        assertNull(read.getPack("Docs").getLangPackId());
+        assertEquals(variables, read.getVariables());
+    }
+
+    /**
+     * Verifies that subsequent installations only append the new packs and changed variables.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testAppend() throws Exception
+    {
+        InstallationInformation information = InstallationInformation.read(file);
+        information.write(Arrays.asList(createPack("Core", null)),
+                          createVariables("INSTALL_PATH", "/opt/app", "USER", "joe", "TEMP", "x"));
+        long length = file.length();
+
+        information = InstallationInformation.read(file);
+        information.write(Arrays.asList(createPack("Docs", null)),
+                          createVariables("INSTALL_PATH", "/opt/app", "USER", "fred"));
+        assertTrue(file.length() > length);
+
+        InstallationInformation read = InstallationInformation.read(file);
+        assertTrue(read.isInstalled("Core"));
+        assertTrue(read.isInstalled("Docs"));
+        assertEquals(createVariables("INSTALL_PATH", "/opt/app", "USER", "fred"), read.getVariables());
+
+        // an installation that changes nothing shouldn't grow the file
+        length = file.length();
+        read.write(Collections.<Pack>emptyList(), createVariables("INSTALL_PATH", "/opt/app", "USER", "fred"));
+        assertEquals(length, file.length());
+    }
+
+    /**
+     * Verifies that the file is compacted when superseded records outnumber live ones.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCompact() throws Exception
+    {
+        List<Pack> packs = new ArrayList<Pack>();
+        for (int i = 0; i < 10; ++i)
+        {
+            packs.add(createPack("pack" + i, null));
+        }
+        InstallationInformation information = InstallationInformation.read(file);
+        information.write(packs, new Properties());
+        long length = file.length();
+        for (int i = 0; i < 100; ++i)
+        {
+            information = InstallationInformation.read(file);
+            information.write(packs, new Properties());
+        }
+        assertTrue(file.length() < length * 30);
+        assertEquals(10, InstallationInformation.read(file).getPacks().size());
+    }
+
+    /**
+     * Verifies that the legacy serialized format is read, and converted on write.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testLegacy() throws Exception
+    {
+        List<Pack> packs = new ArrayList<Pack>();
+        packs.add(createPack("Core", "core.pack"));
+        ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file));
+        out.writeObject(packs);
+        out.writeObject(createVariables("USER", "joe"));
+        out.close();
+
+        InstallationInformation information = InstallationInformation.read(file);
+        assertTrue(information.isInstalled("Core"));
+        assertEquals("joe", information.getVariables().getProperty("USER"));
+
+        information.write(Arrays.asList(createPack("Docs", null)), createVariables("USER", "joe"));
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        assertEquals(InstallationInformation.MAGIC, in.readInt());
+        in.close();
+
+        InstallationInformation read = InstallationInformation.read(file);
+        assertTrue(read.isInstalled("Core"));
+        assertTrue(read.isInstalled("Docs"));
+    }
+
+    /**
+     * Verifies that a truncated trailing record is ignored.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testTruncated() throws Exception
+    {
+        InstallationInformation information = InstallationInformation.read(file);
+        information.write(Arrays.asList(createPack("Core", null)), new Properties());
+        long length = file.length();
+        information.write(Arrays.asList(createPack("Docs", null)), new Properties());
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(length + 3);
+        raf.close();
+
+        InstallationInformation read = InstallationInformation.read(file);
+        assertTrue(read.isInstalled("Core"));
+        assertFalse(read.isInstalled("Docs"));
+
+        read.write(Arrays.asList(createPack("Docs", null)), new Properties());
+        read = InstallationInformation.read(file);
+        assertTrue(read.isInstalled("Docs"));
+    }
+
+    /**
+     * Verifies that rewriting the file replaces it via a backup, and doesn't leave the backup or temporary file
+     * behind, even if a stale backup exists.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testRewriteRemovesBackup() throws Exception
+    {
+        InstallationInformation information = InstallationInformation.read(file);
+        information.write(Arrays.asList(createPack("Core", null)), new Properties());
+
+        File backup = new File(file.getPath() + ".bak");
+        FileOutputStream stale = new FileOutputStream(backup);
+        stale.write(1);
+        stale.close();
+
+        information = InstallationInformation.read(file);
+        information.compact();
+        assertFalse(backup.exists());
+        assertEquals(Arrays.asList(file.getName()), Arrays.asList(temporaryFolder.getRoot().list()));
+        assertTrue(InstallationInformation.read(file).isInstalled("Core"));
+    }
+
+    /**
+     * Creates a pack.
+     *
+     * @param name       the pack name
+     * @param langPackId the language pack identifier. May be <tt>null</tt>
+     * @return a new pack
+     */
+    private Pack createPack(String name, String langPackId)
+    {
+        return new Pack(name, langPackId, name + " description", null, null, false, true, false, null, false);
+    }
+
+    /**
+     * Creates variables from name/value pairs.
+     *
+     * @param pairs the name/value pairs
+     * @return the variables
+     */
+    private Properties createVariables(String... pairs)
+    {
+        Properties result = new Properties();
+        for (int i = 0; i < pairs.length; i += 2)
+        {
+            result.setProperty(pairs[i], pairs[i + 1]);
+        }
+        return result;
+    }
+}
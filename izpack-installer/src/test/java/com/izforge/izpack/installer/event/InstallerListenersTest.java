@@ -0,0 +1,104 @@
+package com.izforge.izpack.installer.event;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.event.BulkInstallerListener;
+import com.izforge.izpack.api.event.InstallerListener;
+
+
+/**
+ * Tests the {@link InstallerListeners} class.
+ */
+public class InstallerListenersTest
+{
+
+    /**
+     * Verifies that bulk listeners receive batches, and that legacy file listeners are notified of each file and
+     * directory in a batch.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testBatches() throws Exception
+    {
+        BulkInstallerListener bulk = mock(BulkInstallerListener.class);
+        when(bulk.isFileListener()).thenReturn(true);
+        InstallerListener legacy = mock(InstallerListener.class);
+        when(legacy.isFileListener()).thenReturn(true);
+
+        InstallerListeners listeners = new InstallerListeners();
+        listeners.add(bulk);
+        listeners.add(legacy);
+        assertTrue(listeners.isFileListener());
+
+        File parent = new File("a");
+        File child = new File(parent, "b");
+        List<File> dirs = Arrays.asList(parent, child);
+        PackFile packFile = mock(PackFile.class);
+        listeners.beforeDirs(dirs, packFile);
+        listeners.afterDirs(dirs, packFile);
+
+        Map<File, PackFile> files = new LinkedHashMap<File, PackFile>();
+        files.put(new File(child, "c"), packFile);
+        files.put(new File(child, "d"), packFile);
+        listeners.afterFiles(files);
+
+        verify(bulk).beforeDirs(dirs, packFile);
+        verify(bulk).afterDirs(dirs, packFile);
+        verify(bulk).afterFiles(files);
+        verify(bulk, never()).beforeDir(any(File.class), any(PackFile.class));
+        verify(bulk, never()).afterFile(any(File.class), any(PackFile.class));
+
+        InOrder order = inOrder(legacy);
+        order.verify(legacy).beforeDir(parent, packFile);
+        order.verify(legacy).beforeDir(child, packFile);
+        order.verify(legacy).afterDir(parent, packFile);
+        order.verify(legacy).afterDir(child, packFile);
+        order.verify(legacy).afterFile(new File(child, "c"), packFile);
+        order.verify(legacy).afterFile(new File(child, "d"), packFile);
+    }
+
+    /**
+     * Verifies that listeners that aren't file listeners don't receive batches.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testNonFileListener() throws Exception
+    {
+        BulkInstallerListener bulk = mock(BulkInstallerListener.class);
+        InstallerListener legacy = mock(InstallerListener.class);
+
+        InstallerListeners listeners = new InstallerListeners();
+        listeners.add(bulk);
+        listeners.add(legacy);
+        assertFalse(listeners.isFileListener());
+
+        List<File> dirs = Arrays.asList(new File("a"));
+        PackFile packFile = mock(PackFile.class);
+        listeners.beforeDirs(dirs, packFile);
+        listeners.afterDirs(dirs, packFile);
+
+        verify(bulk, never()).beforeDirs(dirs, packFile);
+        verify(bulk, never()).afterDirs(dirs, packFile);
+        verify(legacy, never()).beforeDir(any(File.class), any(PackFile.class));
+        verify(legacy, never()).afterDir(any(File.class), any(PackFile.class));
+    }
+}
@@ -0,0 +1,205 @@
+package com.izforge.izpack.installer.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.izforge.izpack.api.container.Container;
+import com.izforge.izpack.api.data.Panel;
+import com.izforge.izpack.api.factory.ObjectFactory;
+import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.installer.data.GUIInstallData;
+import com.izforge.izpack.installer.gui.IzPanel;
+
+
+/**
+ * Tests the {@link PanelManager} class.
+ */
+public class PanelManagerTest
+{
+
+    /**
+     * The installation data.
+     */
+    private GUIInstallData installData;
+
+    /**
+     * The installer container.
+     */
+    private Container container;
+
+    /**
+     * The panel factory.
+     */
+    private ObjectFactory factory;
+
+    /**
+     * The panel manager.
+     */
+    private PanelManager manager;
+
+
+    /**
+     * Sets up the test case.
+     */
+    @Before
+    public void setUp()
+    {
+        installData = new GUIInstallData(new DefaultVariables());
+        container = mock(Container.class);
+        factory = mock(ObjectFactory.class);
+        manager = new PanelManager(installData, container, factory);
+    }
+
+    /**
+     * Verifies that panels are only created when accessed.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCreateOnAccess() throws Exception
+    {
+        Panel panel1 = addPanel("HelloPanel", null);
+        Panel panel2 = addPanel("TargetPanel", "target");
+        Panel panel3 = addPanel("FinishPanel", null);
+        IzPanel izPanel2 = mock(IzPanel.class);
+        when(factory.create("TargetPanel", IzPanel.class, panel2)).thenReturn(izPanel2);
+
+        manager.createPanels();
+        verify(factory, never()).create(any(String.class), eq(IzPanel.class), any());
+
+        List<?> panels = installData.getPanels();
+        assertEquals(3, panels.size());
+        assertEquals(3, installData.getXmlData().getChildrenCount());
+        assertSame(panel1, manager.getPanelMetadata(0));
+        assertSame(panel3, manager.getPanelMetadata(2));
+        assertFalse(panels.contains(izPanel2));
+
+        assertSame(izPanel2, panels.get(1));
+        assertSame(izPanel2, manager.getPanel(1));
+        assertEquals(1, panels.indexOf(izPanel2));
+        verify(factory, times(1)).create("TargetPanel", IzPanel.class, panel2);
+        verify(factory, never()).create("HelloPanel", IzPanel.class, panel1);
+        verify(container).addComponent("target", izPanel2);
+    }
+
+    /**
+     * Verifies that panels declared hidden aren't numbered, and that this doesn't require the panels to be created.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testHiddenPanel() throws Exception
+    {
+        addPanel("HelloPanel", null);
+        addPanel("FinishPanel", null);
+        Panel panel3 = addPanel("HiddenPanel", null);
+        panel3.setHidden(true);
+
+        manager.createPanels();
+        assertTrue(manager.isVisible(1));
+        assertFalse(manager.isVisible(2));
+        assertEquals(1, manager.getPanelVisibilityNumber(1));
+        assertTrue(manager.isLast(1));
+        assertEquals(1, manager.getCountVisiblePanel());
+        assertFalse(manager.isCreated(1));
+        assertFalse(manager.isCreated(2));
+        verify(factory, never()).create(any(String.class), eq(IzPanel.class), any());
+    }
+
+    /**
+     * Verifies that the visible panel numbers are updated when a panel hides itself on construction.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testHiddenOnConstruction() throws Exception
+    {
+        addPanel("HelloPanel", null);
+        Panel panel2 = addPanel("HiddenPanel", null);
+        addPanel("FinishPanel", null);
+        IzPanel izPanel2 = mock(IzPanel.class);
+        when(izPanel2.isHidden()).thenReturn(true);
+        when(factory.create("HiddenPanel", IzPanel.class, panel2)).thenReturn(izPanel2);
+
+        manager.createPanels();
+        assertEquals(2, manager.getPanelVisibilityNumber(2));
+
+        // determining visibility doesn't create the panel
+        assertTrue(manager.isVisible(1));
+        assertFalse(manager.isCreated(1));
+
+        manager.getPanel(1);
+        assertFalse(manager.isVisible(1));
+        assertEquals(1, manager.getPanelVisibilityNumber(2));
+        assertEquals(2, manager.getCountVisiblePanel());
+    }
+
+    /**
+     * Verifies that panel conditions are evaluated using the panel meta-data, without creating the panels.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testConditions() throws Exception
+    {
+        Panel panel1 = addPanel("HelloPanel", "hello");
+        Panel panel2 = addPanel("TargetPanel", null);
+        panel2.setCondition("showTarget");
+        RulesEngine rules = mock(RulesEngine.class);
+        when(rules.canShowPanel("hello", installData.getVariables())).thenReturn(true);
+        when(rules.isConditionTrue("showTarget")).thenReturn(false);
+        installData.setRules(rules);
+
+        manager.createPanels();
+        assertTrue(manager.isConditionTrue(0));
+        assertFalse(manager.isConditionTrue(1));
+        assertFalse(manager.isCreated(0));
+        assertFalse(manager.isCreated(1));
+        verify(factory, never()).create("HelloPanel", IzPanel.class, panel1);
+        verify(factory, never()).create("TargetPanel", IzPanel.class, panel2);
+    }
+
+    /**
+     * Verifies that duplicate panels are rejected.
+     *
+     * @throws Exception for any error
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testDuplicatePanel() throws Exception
+    {
+        addPanel("HelloPanel", "id");
+        addPanel("FinishPanel", "id");
+        manager.createPanels();
+    }
+
+    /**
+     * Adds panel meta-data to the installation data.
+     *
+     * @param className the panel class name
+     * @param id        the panel identifier. May be <tt>null</tt>
+     * @return the panel meta-data
+     */
+    private Panel addPanel(String className, String id)
+    {
+        Panel panel = new Panel();
+        panel.setClassName(className);
+        panel.setPanelid(id);
+        installData.getPanelsOrder().add(panel);
+        return panel;
+    }
+}
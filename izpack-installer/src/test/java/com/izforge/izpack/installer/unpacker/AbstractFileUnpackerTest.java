@@ -104,6 +104,35 @@ public abstract class AbstractFileUnpackerTest
         checkTarget(source, target);
     }
 
+    /**
+     * Verifies that successive unpackers can share a copy buffer smaller than the file.
+     *
+     * @throws Exception throws exception for any error
+     */
+    @Test
+    public void testSharedBuffer() throws Exception
+    {
+        File baseDir = temporaryFolder.getRoot();
+        File sourceDir = baseDir.getAbsoluteFile();
+
+        File source = createSourceFile(baseDir);
+        File target = getTargetFile(baseDir);
+        byte[] buffer = new byte[4];
+
+        for (int i = 0; i < 2; ++i)
+        {
+            FileUnpacker unpacker = createUnpacker(sourceDir);
+            unpacker.setBuffer(buffer);
+
+            PackFile file = createPackFile(baseDir, source, target, Blockable.BLOCKABLE_NONE);
+            assertTrue(!target.exists() || target.delete());
+
+            FileQueue queue = unpacker.unpack(file, createPackStream(source), target);
+            assertNull(queue);
+            checkTarget(source, target);
+        }
+    }
+
     /**
      * Verifies that a file that does not have a blockable type of {@link Blockable#BLOCKABLE_NONE} is queued rather
      * than unpacked to its target.
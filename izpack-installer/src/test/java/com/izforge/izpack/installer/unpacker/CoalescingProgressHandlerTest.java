@@ -0,0 +1,249 @@
+package com.izforge.izpack.installer.unpacker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.izforge.izpack.api.handler.AbstractUIProgressHandler;
+import com.izforge.izpack.util.ExtendedUIProgressHandler;
+
+
+/**
+ * Tests the {@link CoalescingProgressHandler}.
+ */
+public class CoalescingProgressHandlerTest
+{
+
+    /**
+     * The delegate handler.
+     */
+    private AbstractUIProgressHandler delegate;
+
+    /**
+     * The handler under test.
+     */
+    private TestHandler handler;
+
+
+    /**
+     * Sets up the test case.
+     */
+    @Before
+    public void setUp()
+    {
+        delegate = mock(AbstractUIProgressHandler.class);
+        handler = new TestHandler(delegate);
+    }
+
+    /**
+     * Verifies that the first progress notification of a step is forwarded immediately, and that subsequent
+     * notifications within the same frame are coalesced.
+     */
+    @Test
+    public void testCoalesce()
+    {
+        handler.nextStep("pack", 1, 100);
+        handler.progress(0, "file0");
+        verify(delegate).progress(0, "file0");
+
+        for (int i = 1; i < 100; ++i)
+        {
+            handler.progress(i, "file" + i);
+        }
+        verify(delegate, never()).progress(1, "file1");
+        verify(delegate, never()).progress(99, "file99");
+
+        // a frame elapses
+        handler.time += 100000000L;
+        handler.progress(100, "file100");
+        verify(delegate).progress(100, "file100");
+        verify(delegate, times(2)).progress(anyInt(), anyString());
+    }
+
+    /**
+     * Verifies that pending progress is forwarded by the timer if no further notifications arrive, e.g. while a
+     * large file is being copied.
+     */
+    @Test
+    public void testTimedFlush()
+    {
+        handler.nextStep("pack", 1, 3);
+        handler.progress(0, "small");
+        handler.progress(1, "large");
+        verify(delegate, never()).progress(1, "large");
+        assertEquals(1, handler.scheduled);
+
+        // further coalesced notifications don't schedule another flush
+        handler.progress(2, "larger");
+        assertEquals(1, handler.scheduled);
+
+        handler.time += 100000000L;
+        handler.timedFlush();
+        verify(delegate).progress(2, "larger");
+        verify(delegate, never()).progress(1, "large");
+
+        // nothing pending, so a subsequent timed flush does nothing
+        handler.timedFlush();
+        verify(delegate, times(2)).progress(anyInt(), anyString());
+    }
+
+    /**
+     * Verifies that the default timer forwards pending progress.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testTimer() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch(1);
+        doAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation)
+            {
+                latch.countDown();
+                return null;
+            }
+        }).when(delegate).progress(1, "b");
+
+        CoalescingProgressHandler handler = new CoalescingProgressHandler(delegate, 30);
+        handler.nextStep("pack", 1, 2);
+        handler.progress(0, "a");
+        handler.progress(1, "b");
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Verifies that pending progress is forwarded before other notifications.
+     */
+    @Test
+    public void testFlushBeforeNotifications()
+    {
+        handler.startAction("Unpacking", 2);
+        handler.nextStep("pack1", 1, 3);
+        handler.progress(0, "a");
+        handler.progress(1, "b");
+        handler.progress(2, "c");
+        handler.nextStep("pack2", 2, 1);
+        handler.progress(0, "d");
+        handler.progress(1, "e");
+        handler.stopAction();
+
+        InOrder order = inOrder(delegate);
+        order.verify(delegate).startAction("Unpacking", 2);
+        order.verify(delegate).nextStep("pack1", 1, 3);
+        order.verify(delegate).progress(0, "a");
+        order.verify(delegate).progress(2, "c");
+        order.verify(delegate).nextStep("pack2", 2, 1);
+        order.verify(delegate).progress(0, "d");
+        order.verify(delegate).progress(1, "e");
+        order.verify(delegate).stopAction();
+        verify(delegate, never()).progress(1, "b");
+    }
+
+    /**
+     * Verifies that {@link CoalescingProgressHandler#wrap} preserves the {@link ExtendedUIProgressHandler}
+     * interface.
+     */
+    @Test
+    public void testWrap()
+    {
+        AbstractUIProgressHandler wrapped = CoalescingProgressHandler.wrap(delegate);
+        assertTrue(wrapped instanceof CoalescingProgressHandler);
+        assertFalse(wrapped instanceof ExtendedUIProgressHandler);
+        assertSame(wrapped, CoalescingProgressHandler.wrap(wrapped));
+
+        AbstractUIProgressHandler extended = mock(AbstractUIProgressHandler.class, withSettings().extraInterfaces(
+                ExtendedUIProgressHandler.class));
+        AbstractUIProgressHandler wrappedExtended = CoalescingProgressHandler.wrap(extended);
+        assertTrue(wrappedExtended instanceof ExtendedUIProgressHandler);
+
+        ((ExtendedUIProgressHandler) wrappedExtended).progress("step");
+        verify((ExtendedUIProgressHandler) extended).progress("step");
+    }
+
+    /**
+     * Tests the {@link ProgressStatistics}.
+     */
+    @Test
+    public void testStatistics()
+    {
+        final long[] now = {0};
+        ProgressStatistics statistics = new ProgressStatistics()
+        {
+            @Override
+            protected long getCurrentTime()
+            {
+                return now[0];
+            }
+        };
+        statistics.start(4 * 1024 * 1024);
+        assertEquals(-1, statistics.getRemainingTime());
+
+        statistics.processed(1024 * 1024);
+        statistics.processed(1024 * 1024);
+        now[0] = 2000;
+        assertEquals(2, statistics.getFiles());
+        assertEquals(1.0, statistics.getFilesPerSecond(), 0.001);
+        assertEquals(1024 * 1024, statistics.getBytesPerSecond(), 0.001);
+        assertEquals(2000, statistics.getRemainingTime());
+
+        String[] values = statistics.format();
+        assertEquals("1", values[0]);
+        assertEquals("1.0", values[1].replace(',', '.'));
+        assertEquals("0:02", values[2]);
+    }
+
+    /**
+     * Handler with a controllable clock.
+     */
+    private static class TestHandler extends CoalescingProgressHandler
+    {
+
+        /**
+         * The current time, in nanoseconds.
+         */
+        private long time = 1;
+
+        /**
+         * The no. of timed flushes scheduled.
+         */
+        private int scheduled;
+
+        public TestHandler(AbstractUIProgressHandler handler)
+        {
+            super(handler, 30);
+        }
+
+        @Override
+        protected long getCurrentTime()
+        {
+            return time;
+        }
+
+        @Override
+        protected void schedule(long delay)
+        {
+            ++scheduled;
+        }
+    }
+}
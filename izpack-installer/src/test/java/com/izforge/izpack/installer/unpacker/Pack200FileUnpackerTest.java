@@ -2,6 +2,9 @@ package com.izforge.izpack.installer.unpacker;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.when;
@@ -13,6 +16,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.util.Map;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
@@ -20,8 +24,11 @@ import java.util.jar.JarOutputStream;
 import java.util.jar.Pack200;
 import java.util.zip.ZipEntry;
 
+import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.PackFile;
 import com.izforge.izpack.api.data.ResourceManager;
 import com.izforge.izpack.util.IoHelper;
 import com.izforge.izpack.util.Platforms;
@@ -34,6 +41,38 @@ import com.izforge.izpack.util.Platforms;
 public class Pack200FileUnpackerTest extends AbstractFileUnpackerTest
 {
 
+    /**
+     * Verifies that files can be unpacked by a {@link Pack200Executor}, and are complete once it is joined.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testUnpackOnExecutor() throws Exception
+    {
+        File baseDir = temporaryFolder.getRoot();
+        File source = createSourceFile(baseDir);
+        File target = getTargetFile(baseDir);
+
+        Pack200Executor executor = new Pack200Executor(2);
+        try
+        {
+            FileUnpacker unpacker = createUnpacker(baseDir.getAbsoluteFile(), executor);
+            PackFile file = createPackFile(baseDir, source, target, Blockable.BLOCKABLE_NONE);
+            assertNull(unpacker.unpack(file, createPackStream(source), target));
+            assertTrue(unpacker.isDeferred());
+
+            Map<File, PackFile> files = executor.join();
+            assertEquals(1, files.size());
+            assertSame(file, files.get(target));
+            assertFalse(executor.hasPending());
+            checkTarget(source, target);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Verifies the target matches the source.
      *
@@ -60,6 +99,18 @@ public class Pack200FileUnpackerTest extends AbstractFileUnpackerTest
      */
     @Override
     protected FileUnpacker createUnpacker(File sourceDir) throws IOException
+    {
+        return createUnpacker(sourceDir, null);
+    }
+
+    /**
+     * Helper to create an unpacker.
+     *
+     * @param sourceDir the source directory
+     * @param executor  the executor to unpack on. May be <tt>null</tt>
+     * @return a new unpacker
+     */
+    private FileUnpacker createUnpacker(File sourceDir, Pack200Executor executor) throws IOException
     {
         ResourceManager resources = Mockito.mock(ResourceManager.class);
         JarInputStream stream = new JarInputStream(new FileInputStream(new File(sourceDir, "installer.jar")));
@@ -75,7 +126,7 @@ public class Pack200FileUnpackerTest extends AbstractFileUnpackerTest
         }
         when(resources.getInputStream("packs/pack200-1")).thenReturn(new ByteArrayInputStream(bytes.toByteArray()));
         return new Pack200FileUnpacker(getCancellable(), getHandler(), resources,
-                                       Pack200.newUnpacker(), null, Platforms.WINDOWS, getLibrarian());
+                                       Pack200.newUnpacker(), executor, null, Platforms.WINDOWS, getLibrarian());
     }
 
     /**
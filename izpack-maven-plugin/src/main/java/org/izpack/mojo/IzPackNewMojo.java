@@ -113,6 +113,33 @@ public class IzPackNewMojo extends AbstractMojo
      */
     private boolean autoIncludeDevelopers;
 
+    /**
+     * Directory used to cache the results of previous builds, so that only the packs whose inputs
+     * have changed are regenerated. If not set, the installer is built from scratch.
+     *
+     * @parameter expression="${izpack.cacheDir}"
+     */
+    private File cacheDir;
+
+    /**
+     * The number of threads used to read installer resources and pack200 compress jars. Entries are
+     * always written in the same order, so the installer doesn't depend on the number of threads.
+     * If <tt>0</tt>, one thread per available processor is used.
+     *
+     * @parameter expression="${izpack.assemblyThreads}" default-value="1"
+     */
+    private int assemblyThreads;
+
+    /**
+     * Directory to write a build profiling report to, as izpack-profile.json and izpack-profile.html.
+     * The report shows the time taken by each compilation phase, per pack and compressor statistics,
+     * the largest files, and the time spent merging jars and scanning directories. If not set, no
+     * report is written.
+     *
+     * @parameter expression="${izpack.profileDir}"
+     */
+    private File profileDir;
+
     /**
      * Directory containing the generated JAR.
      *
@@ -273,8 +300,12 @@ public class IzPackNewMojo extends AbstractMojo
                 info.setAppURL(project.getUrl());
             }
         }
-        return new CompilerData(comprFormat, kind, installFile, null, baseDir, jarFile.getPath(),
-                                mkdirs, comprLevel, info);
+        CompilerData result = new CompilerData(comprFormat, kind, installFile, null, baseDir, jarFile.getPath(),
+                                               mkdirs, comprLevel, info);
+        result.setCacheDir(cacheDir);
+        result.setAssemblyThreads(assemblyThreads);
+        result.setProfileDir(profileDir);
+        return result;
     }
 
 }
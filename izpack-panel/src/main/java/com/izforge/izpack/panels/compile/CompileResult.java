@@ -23,8 +23,12 @@ package com.izforge.izpack.panels.compile;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.Collections;
 import java.util.List;
 
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
 /**
  * This class describes the result of the compilation.
  * <p/>
@@ -83,6 +87,11 @@ public class CompileResult
      */
     private String stderr = null;
 
+    /**
+     * the diagnostics reported by an in-process compiler
+     */
+    private List<Diagnostic<? extends JavaFileObject>> diagnostics = Collections.emptyList();
+
     /**
      * constructor, create a new successful result
      */
@@ -123,6 +132,23 @@ public class CompileResult
         this.stderr = stderr;
     }
 
+    /**
+     * creates a new CompileResult with status FAILED, for an in-process compilation
+     * <p/>
+     * The diagnostics are formatted as the standard error of the compiler, for display.
+     *
+     * @param message     description of the exception
+     * @param cmdline     the compiler arguments
+     * @param stdout      the compiler output, other than diagnostics
+     * @param diagnostics the diagnostics reported by the compiler
+     */
+    public CompileResult(String message, List<String> cmdline, String stdout,
+                         List<Diagnostic<? extends JavaFileObject>> diagnostics)
+    {
+        this(message, cmdline, stdout, JavaToolsCompiler.format(diagnostics));
+        this.diagnostics = diagnostics;
+    }
+
     public void setStatus(int status)
     {
         if ((status == SUCCESS) || (status == FAILED))
@@ -224,4 +250,14 @@ public class CompileResult
         return this.stderr;
     }
 
+    /**
+     * Returns the diagnostics reported by an in-process compiler.
+     *
+     * @return the diagnostics. Empty if the compiler was run externally
+     */
+    public List<Diagnostic<? extends JavaFileObject>> getDiagnostics()
+    {
+        return this.diagnostics;
+    }
+
 }
@@ -36,6 +36,12 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -83,6 +89,11 @@ public class CompileWorker implements Runnable
 
     private static final String ECLIPSE_COMPILER_CLASS = "org.eclipse.jdt.internal.compiler.batch.Main";
 
+    /**
+     * The name of the in-process compiler provided by the running JVM.
+     */
+    private static final String INTEGRATED_COMPILER_NAME = "Integrated Java Compiler";
+
     private VariableSubstitutor vs;
 
     private IXMLElement spec;
@@ -342,7 +353,15 @@ public class CompileWorker implements Runnable
 
                 if (OsConstraintHelper.oneMatchesCurrentSystem(osconstraints))
                 {
-                    if (value.equalsIgnoreCase(ECLIPSE_COMPILER_NAME))
+                    if (value.equalsIgnoreCase(INTEGRATED_COMPILER_NAME))
+                    {
+                        // only available if the installer is running on a JDK
+                        if (JavaToolsCompiler.isAvailable())
+                        {
+                            choiceList.add(INTEGRATED_COMPILER_NAME);
+                        }
+                    }
+                    else if (value.equalsIgnoreCase(ECLIPSE_COMPILER_NAME))
                     {
                         // check for availability of eclipse compiler
                         try
@@ -414,6 +433,11 @@ public class CompileWorker implements Runnable
             args.add(tokenizer.nextToken());
         }
 
+        if (this.compilerToUse.equalsIgnoreCase(INTEGRATED_COMPILER_NAME))
+        {
+            return compileJobsInProcess(args);
+        }
+
         Iterator<CompilationJob> job_it = this.jobs.iterator();
 
         this.handler.startAction("Compilation", this.jobs.size());
@@ -451,6 +475,100 @@ public class CompileWorker implements Runnable
         return new CompileResult();
     }
 
+    /**
+     * Performs the compilation using the in-process compiler.
+     * <p/>
+     * Jobs are compiled concurrently, except where a job's class path includes the sources of an earlier job. As
+     * the compiler may then read the earlier job's sources or classes, the job waits until the earlier job has
+     * been compiled.
+     *
+     * @param args the compiler arguments
+     * @return the result
+     */
+    private CompileResult compileJobsInProcess(final ArrayList<String> args)
+    {
+        this.handler.startAction("Compilation", this.jobs.size());
+        final JavaToolsCompiler compiler = new JavaToolsCompiler();
+        int threads = Math.min(this.jobs.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = null;
+        try
+        {
+            if (!this.jobs.isEmpty())
+            {
+                CompileResult check_result = this.jobs.get(0).checkCompiler(compiler, args);
+                if (!check_result.isContinue())
+                {
+                    return check_result;
+                }
+            }
+
+            executor = Executors.newFixedThreadPool(Math.max(1, threads));
+            final AtomicInteger job_no = new AtomicInteger();
+            List<Future<CompileResult>> results = new ArrayList<Future<CompileResult>>();
+            for (int i = 0; i < this.jobs.size(); ++i)
+            {
+                final CompilationJob job = this.jobs.get(i);
+                // jobs are queued in order, so earlier jobs have always been started when a later one waits on them
+                final List<Future<CompileResult>> dependencies = new ArrayList<Future<CompileResult>>();
+                for (int j = 0; j < i; ++j)
+                {
+                    if (job.dependsOn(this.jobs.get(j)))
+                    {
+                        dependencies.add(results.get(j));
+                    }
+                }
+                results.add(executor.submit(new Callable<CompileResult>()
+                {
+                    public CompileResult call() throws Exception
+                    {
+                        for (Future<CompileResult> dependency : dependencies)
+                        {
+                            CompileResult result = dependency.get();
+                            if (!result.isContinue())
+                            {
+                                return result;
+                            }
+                        }
+                        synchronized (handler)
+                        {
+                            handler.nextStep(job.getName(), job.getSize(), job_no.getAndIncrement());
+                        }
+                        return job.perform(compiler, args);
+                    }
+                }));
+            }
+
+            for (Future<CompileResult> result : results)
+            {
+                CompileResult job_result = result.get();
+                if (!job_result.isContinue())
+                {
+                    return job_result;
+                }
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            return new CompileResult(exception);
+        }
+        catch (ExecutionException exception)
+        {
+            Throwable cause = exception.getCause();
+            return new CompileResult((cause instanceof Exception) ? (Exception) cause : exception);
+        }
+        finally
+        {
+            if (executor != null)
+            {
+                executor.shutdownNow();
+            }
+        }
+
+        logger.fine("Compilation finished");
+        return new CompileResult();
+    }
+
     private CompilationJob collectJobsRecursive(IXMLElement node, List<String> classpath)
             throws Exception
     {
@@ -685,6 +803,73 @@ public class CompileWorker implements Runnable
             return this.files.size();
         }
 
+        /**
+         * Determines if this job must be compiled after another job.
+         * <p/>
+         * This is the case if the class path of this job includes a directory containing sources of the other job.
+         *
+         * @param job the other job
+         * @return <tt>true</tt> if this job depends on <tt>job</tt>
+         */
+        public boolean dependsOn(CompilationJob job)
+        {
+            for (String entry : this.classpath)
+            {
+                String path = new File(entry).getAbsolutePath();
+                for (File file : job.files)
+                {
+                    for (File dir = file.getAbsoluteFile().getParentFile(); dir != null; dir = dir.getParentFile())
+                    {
+                        if (dir.getPath().equals(path))
+                        {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Perform this job using the in-process compiler.
+         * <p/>
+         * All files are compiled in a single compilation, as there is no command line length to respect.
+         * <p/>
+         * This may be invoked concurrently with other jobs, so calls to the listener are serialized.
+         *
+         * @param compiler  the compiler
+         * @param arguments the compiler arguments to use
+         * @return the result
+         */
+        public CompileResult perform(JavaToolsCompiler compiler, ArrayList<String> arguments)
+        {
+            logger.fine("starting job " + this.name);
+            synchronized (this.listener)
+            {
+                this.listener.progress(0, this.files.toString());
+            }
+
+            JavaToolsCompiler.Result output = compiler.compile(this.files, arguments, this.classpath);
+
+            synchronized (this.listener)
+            {
+                this.listener.progress(this.files.size(), this.files.toString());
+                if (!output.isSuccess())
+                {
+                    CompileResult result = new CompileResult(messages.get("CompilePanel.error"),
+                                                             output.getArguments(), output.getOutput(),
+                                                             output.getDiagnostics());
+                    this.listener.handleCompileError(result);
+                    if (!result.isContinue())
+                    {
+                        return result;
+                    }
+                }
+            }
+
+            return new CompileResult();
+        }
+
         /**
          * Perform this job - start compilation.
          *
@@ -1137,6 +1322,47 @@ public class CompileWorker implements Runnable
             return new CompileResult();
         }
 
+        /**
+         * Checks that the in-process compiler accepts the compiler arguments.
+         *
+         * @param compiler  the compiler
+         * @param arguments additional arguments to pass to the compiler
+         * @return the result
+         */
+        public CompileResult checkCompiler(JavaToolsCompiler compiler, ArrayList<String> arguments)
+        {
+            logger.fine("Checking whether the integrated compiler accepts the arguments");
+            List<String> args = new ArrayList<String>(arguments);
+            if (!this.classpath.isEmpty())
+            {
+                StringBuilder classpath = new StringBuilder();
+                for (String cp : this.classpath)
+                {
+                    if (classpath.length() > 0)
+                    {
+                        classpath.append(File.pathSeparatorChar);
+                    }
+                    classpath.append(new File(cp).getAbsolutePath());
+                }
+                args.add("-classpath");
+                args.add(classpath.toString());
+            }
+
+            String error = compiler.checkOptions(args);
+            if (error != null)
+            {
+                CompileResult result = new CompileResult(messages.get("CompilePanel.error.invalidarguments"),
+                                                         args, "", error);
+                this.listener.handleCompileError(result);
+                if (!result.isContinue())
+                {
+                    return result;
+                }
+            }
+
+            return new CompileResult();
+        }
+
     }
 
     /**
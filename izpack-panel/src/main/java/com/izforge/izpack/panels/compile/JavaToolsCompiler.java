@@ -0,0 +1,286 @@
+package com.izforge.izpack.panels.compile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+
+/**
+ * Compiles sources in-process, using the {@link JavaCompiler} of the running JVM.
+ * <p/>
+ * This avoids starting a compiler process, and a JVM to run it, for each compilation. Each compilation uses its own
+ * file manager, as file managers aren't thread safe, and retain both the class path and the contents of the
+ * directories they have read, so a compilation could otherwise miss the classes produced by an earlier one.
+ * <p/>
+ * Compiler messages are returned as {@link Diagnostic}s, rather than parsed from the compiler output.
+ */
+class JavaToolsCompiler
+{
+
+    /**
+     * The compiler.
+     */
+    private final JavaCompiler compiler;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(JavaToolsCompiler.class.getName());
+
+
+    /**
+     * Constructs a <tt>JavaToolsCompiler</tt>.
+     *
+     * @throws IllegalStateException if the running JVM doesn't provide a compiler
+     */
+    public JavaToolsCompiler()
+    {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+        {
+            throw new IllegalStateException("No Java compiler is available in " + System.getProperty("java.home"));
+        }
+    }
+
+    /**
+     * Determines if the running JVM provides a compiler.
+     *
+     * @return <tt>true</tt> if the JVM is a JDK, otherwise <tt>false</tt>
+     */
+    public static boolean isAvailable()
+    {
+        try
+        {
+            return ToolProvider.getSystemJavaCompiler() != null;
+        }
+        catch (Throwable exception)
+        {
+            logger.log(Level.FINE, "Failed to get the system Java compiler", exception);
+            return false;
+        }
+    }
+
+    /**
+     * Verifies that the compiler accepts options.
+     *
+     * @param options the compiler options
+     * @return <tt>null</tt> if the options are valid, otherwise a message describing the invalid option
+     */
+    public String checkOptions(List<String> options)
+    {
+        StandardJavaFileManager manager = compiler.getStandardFileManager(null, null, null);
+        try
+        {
+            compiler.getTask(new StringWriter(), manager, null, options, null, null);
+            return null;
+        }
+        catch (IllegalArgumentException exception)
+        {
+            return exception.getMessage();
+        }
+        finally
+        {
+            close(manager);
+        }
+    }
+
+    /**
+     * Compiles source files.
+     * <p/>
+     * Class files are written alongside the sources, as the external compilers do by default.
+     * <p/>
+     * If no class path is specified, the <tt>CLASSPATH</tt> environment variable or the current directory is used,
+     * as the external compilers do.
+     *
+     * @param files     the files to compile
+     * @param options   the compiler options
+     * @param classpath the class path. May be empty
+     * @return the compilation result
+     * @throws IllegalArgumentException if an option is invalid
+     */
+    public Result compile(List<File> files, List<String> options, List<String> classpath)
+    {
+        List<String> args = new ArrayList<String>(options);
+        args.add("-classpath");
+        args.add(getClassPath(classpath));
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StringWriter output = new StringWriter();
+        StandardJavaFileManager manager = compiler.getStandardFileManager(null, null, null);
+        try
+        {
+            Iterable<? extends JavaFileObject> units = manager.getJavaFileObjectsFromFiles(files);
+            boolean success = compiler.getTask(output, manager, diagnostics, args, null, units).call();
+            return new Result(success, args, output.toString(), diagnostics.getDiagnostics());
+        }
+        finally
+        {
+            close(manager);
+        }
+    }
+
+    /**
+     * Returns the class path to compile with.
+     *
+     * @param classpath the class path entries. May be empty
+     * @return the class path
+     */
+    private String getClassPath(List<String> classpath)
+    {
+        if (classpath.isEmpty())
+        {
+            String path = System.getenv("CLASSPATH");
+            return (path != null && path.length() != 0) ? path : new File(".").getAbsolutePath();
+        }
+        StringBuilder path = new StringBuilder();
+        for (String entry : classpath)
+        {
+            if (path.length() > 0)
+            {
+                path.append(File.pathSeparatorChar);
+            }
+            path.append(new File(entry).getAbsolutePath());
+        }
+        return path.toString();
+    }
+
+    /**
+     * Formats diagnostics, one per line, in the same format as the command line compiler.
+     *
+     * @param diagnostics the diagnostics
+     * @return the formatted diagnostics
+     */
+    public static String format(List<Diagnostic<? extends JavaFileObject>> diagnostics)
+    {
+        StringBuilder result = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics)
+        {
+            if (diagnostic.getSource() != null)
+            {
+                result.append(diagnostic.getSource().getName());
+                if (diagnostic.getLineNumber() != Diagnostic.NOPOS)
+                {
+                    result.append(':').append(diagnostic.getLineNumber());
+                }
+                result.append(": ");
+            }
+            result.append(diagnostic.getKind().toString().toLowerCase(Locale.ENGLISH).replace('_', ' '));
+            result.append(": ").append(diagnostic.getMessage(null)).append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Closes a file manager.
+     *
+     * @param manager the file manager
+     */
+    private static void close(StandardJavaFileManager manager)
+    {
+        try
+        {
+            manager.close();
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.FINE, "Failed to close file manager", exception);
+        }
+    }
+
+    /**
+     * The result of a compilation.
+     */
+    public static class Result
+    {
+
+        /**
+         * Determines if the compilation succeeded.
+         */
+        private final boolean success;
+
+        /**
+         * The compiler arguments.
+         */
+        private final List<String> arguments;
+
+        /**
+         * The compiler output, other than diagnostics.
+         */
+        private final String output;
+
+        /**
+         * The diagnostics.
+         */
+        private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+
+
+        /**
+         * Constructs a <tt>Result</tt>.
+         *
+         * @param success     determines if the compilation succeeded
+         * @param arguments   the compiler arguments
+         * @param output      the compiler output, other than diagnostics
+         * @param diagnostics the diagnostics
+         */
+        public Result(boolean success, List<String> arguments, String output,
+                      List<Diagnostic<? extends JavaFileObject>> diagnostics)
+        {
+            this.success = success;
+            this.arguments = arguments;
+            this.output = output;
+            this.diagnostics = diagnostics;
+        }
+
+        /**
+         * Determines if the compilation succeeded.
+         *
+         * @return <tt>true</tt> if the compilation succeeded
+         */
+        public boolean isSuccess()
+        {
+            return success;
+        }
+
+        /**
+         * Returns the compiler arguments.
+         *
+         * @return the compiler arguments
+         */
+        public List<String> getArguments()
+        {
+            return arguments;
+        }
+
+        /**
+         * Returns the compiler output, other than diagnostics.
+         *
+         * @return the compiler output
+         */
+        public String getOutput()
+        {
+            return output;
+        }
+
+        /**
+         * Returns the diagnostics.
+         *
+         * @return the diagnostics
+         */
+        public List<Diagnostic<? extends JavaFileObject>> getDiagnostics()
+        {
+            return diagnostics;
+        }
+    }
+}
@@ -41,6 +41,7 @@ import javax.swing.event.ListSelectionEvent;
 import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.data.Panel;
 import com.izforge.izpack.api.data.ResourceManager;
+import com.izforge.izpack.gui.ImageResources;
 import com.izforge.izpack.api.factory.ObjectFactory;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.installer.data.GUIInstallData;
@@ -189,10 +190,14 @@ public class ImgPacksPanel extends PacksPanelBase
 
     /**
      * Pre-loads the images.
+     * <p/>
+     * Images are scaled down to fit the image scroller, and aren't decoded until they are displayed.
      */
     private void preLoadImages()
     {
         int size = this.installData.getAvailablePacks().size();
+        int maxWidth = this.installData.guiPrefs.width - 170;
+        int maxHeight = this.installData.guiPrefs.height - 170;
         images = new HashMap<String, ImageIcon>(size);
         for (Pack pack : this.installData.getAvailablePacks())
         {
@@ -200,7 +205,8 @@ public class ImgPacksPanel extends PacksPanelBase
             {
                 try
                 {
-                    ImageIcon img = resourceManager.getImageIconResource(pack.getImageId());
+                    ImageIcon img = ImageResources.getImageIcon(resourceManager, maxWidth, maxHeight,
+                                                                  pack.getImageId());
                     images.put(pack.getImageId(), img);
                 }
                 catch (Exception err)
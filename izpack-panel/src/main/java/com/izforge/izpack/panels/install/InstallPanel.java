@@ -20,6 +20,7 @@
 package com.izforge.izpack.panels.install;
 
 import java.awt.Dimension;
+import java.text.MessageFormat;
 
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
@@ -87,6 +88,26 @@ public class InstallPanel extends IzPanel implements AbstractUIProgressHandler
      */
     private int noOfPacks = 0;
 
+    /**
+     * The unpacker.
+     */
+    private final IUnpacker unpacker;
+
+    /**
+     * The overall progress text, excluding statistics.
+     */
+    private String overallProgress = "";
+
+    /**
+     * The message identifier for the unpacking statistics.
+     */
+    private static final String STATISTICS = "InstallPanel.statistics";
+
+    /**
+     * The pattern used to format the unpacking statistics, if none is provided by the langpack.
+     */
+    private static final String DEFAULT_STATISTICS = "{0} files/s, {1} MB/s, {2} remaining";
+
     /**
      * Constructs an <tt>InstallPanel</tt>.
      *
@@ -101,6 +122,7 @@ public class InstallPanel extends IzPanel implements AbstractUIProgressHandler
                         IUnpacker unpacker, Log log)
     {
         super(panel, parent, installData, new IzPanelLayout(log), resourceManager);
+        this.unpacker = unpacker;
         unpacker.setHandler(this);
         this.tipLabel = LabelFactory.create(getString("InstallPanel.tip"), parent.getIcons().get(iconName), LEADING);
         add(this.tipLabel, IzPanelLayout.getDefaultConstraint(FULL_LINE_CONTROL_CONSTRAINT));
@@ -157,7 +179,8 @@ public class InstallPanel extends IzPanel implements AbstractUIProgressHandler
                 // figure out how many packs there are to install
                 overallProgressBar.setMinimum(0);
                 overallProgressBar.setMaximum(noOfPacks);
-                overallProgressBar.setString("0 / " + Integer.toString(noOfPacks));
+                overallProgress = "0 / " + Integer.toString(noOfPacks);
+                overallProgressBar.setString(overallProgress);
             }
         });
     }
@@ -233,6 +256,7 @@ public class InstallPanel extends IzPanel implements AbstractUIProgressHandler
             {
                 packProgressBar.setValue(val + 1);
                 packOpLabel.setText(msg);
+                overallProgressBar.setString(overallProgress + " - " + getStatistics());
             }
         });
     }
@@ -255,8 +279,8 @@ public class InstallPanel extends IzPanel implements AbstractUIProgressHandler
                 packProgressBar.setMaximum(max);
                 packProgressBar.setString(packName);
                 overallProgressBar.setValue(stepno - 1);
-                overallProgressBar.setString(Integer.toString(stepno) + " / "
-                                                     + Integer.toString(noOfPacks));
+                overallProgress = Integer.toString(stepno) + " / " + Integer.toString(noOfPacks);
+                overallProgressBar.setString(overallProgress);
             }
         });
     }
@@ -293,4 +317,20 @@ public class InstallPanel extends IzPanel implements AbstractUIProgressHandler
         parent.install(this);
     }
 
+    /**
+     * Returns the formatted unpacking statistics.
+     *
+     * @return the unpacking statistics
+     */
+    private String getStatistics()
+    {
+        Object[] values = unpacker.getStatistics().format();
+        String result = installData.getMessages().get(STATISTICS, values);
+        if (STATISTICS.equals(result))
+        {
+            result = MessageFormat.format(DEFAULT_STATISTICS, values);
+        }
+        return result;
+    }
+
 }
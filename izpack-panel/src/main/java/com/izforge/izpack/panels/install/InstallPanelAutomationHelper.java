@@ -28,6 +28,7 @@ import com.izforge.izpack.api.handler.AbstractUIProgressHandler;
 import com.izforge.izpack.installer.automation.PanelAutomation;
 import com.izforge.izpack.installer.automation.PanelAutomationHelper;
 import com.izforge.izpack.installer.unpacker.IUnpacker;
+import com.izforge.izpack.installer.unpacker.ProgressStatistics;
 import com.izforge.izpack.util.Housekeeper;
 
 /**
@@ -77,6 +78,7 @@ public class InstallPanelAutomationHelper extends PanelAutomationHelper implemen
      */
     public void runAutomated(AutomatedInstallData idata, IXMLElement panelRoot) throws InstallerException
     {
+        unpacker.setHandler(this);
         unpacker.run();
         if (!unpacker.getResult())
         {
@@ -103,6 +105,10 @@ public class InstallPanelAutomationHelper extends PanelAutomationHelper implemen
     public void stopAction()
     {
         System.out.println("[ Unpacking finished ]");
+        ProgressStatistics statistics = unpacker.getStatistics();
+        String[] values = statistics.format();
+        System.out.println("[ Unpacked " + statistics.getFiles() + " files (" + values[0] + " files/s, "
+                                   + values[1] + " MB/s) ]");
     }
 
     /**
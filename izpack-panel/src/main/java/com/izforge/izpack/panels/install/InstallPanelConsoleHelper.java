@@ -29,6 +29,7 @@ import com.izforge.izpack.api.handler.AbstractUIProgressHandler;
 import com.izforge.izpack.installer.console.PanelConsole;
 import com.izforge.izpack.installer.console.PanelConsoleHelper;
 import com.izforge.izpack.installer.unpacker.IUnpacker;
+import com.izforge.izpack.installer.unpacker.ProgressStatistics;
 import com.izforge.izpack.util.Console;
 
 /**
@@ -113,6 +114,10 @@ public class InstallPanelConsoleHelper extends PanelConsoleHelper implements Pan
     public void stopAction()
     {
         System.out.println("[ Unpacking finished ]");
+        ProgressStatistics statistics = unpacker.getStatistics();
+        String[] values = statistics.format();
+        System.out.println("[ Unpacked " + statistics.getFiles() + " files (" + values[0] + " files/s, "
+                                   + values[1] + " MB/s) ]");
         boolean done = true;
     }
 
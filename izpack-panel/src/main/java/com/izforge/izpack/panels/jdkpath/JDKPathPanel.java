@@ -25,21 +25,27 @@ package com.izforge.izpack.panels.jdkpath;
 import java.io.File;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingWorker;
 
 import com.coi.tools.os.win.MSWinConstants;
 import com.izforge.izpack.api.data.Panel;
 import com.izforge.izpack.api.data.ResourceManager;
 import com.izforge.izpack.api.exception.NativeLibException;
 import com.izforge.izpack.api.handler.AbstractUIHandler;
+import com.izforge.izpack.core.os.JDKDiscovery;
 import com.izforge.izpack.core.os.RegistryDefaultHandler;
 import com.izforge.izpack.core.os.RegistryHandler;
 import com.izforge.izpack.gui.log.Log;
 import com.izforge.izpack.installer.data.GUIInstallData;
 import com.izforge.izpack.installer.gui.InstallerFrame;
 import com.izforge.izpack.panels.path.PathInputPanel;
-import com.izforge.izpack.util.FileExecutor;
 import com.izforge.izpack.util.OsVersion;
 
 /**
@@ -77,6 +83,10 @@ public class JDKPathPanel extends PathInputPanel
 
     private final RegistryDefaultHandler handler;
 
+    private final JDKDiscovery discovery;
+
+    private static final Logger logger = Logger.getLogger(JDKPathPanel.class.getName());
+
 
     /**
      * Constructs a <tt>JDKPathPanel</tt>.
@@ -86,13 +96,15 @@ public class JDKPathPanel extends PathInputPanel
      * @param installData     the installation data
      * @param resourceManager the resource manager
      * @param handler         the registry handler
+     * @param discovery       the JDK discovery service
      * @param log             the log
      */
     public JDKPathPanel(Panel panel, InstallerFrame parent, GUIInstallData installData, ResourceManager resourceManager,
-                        RegistryDefaultHandler handler, Log log)
+                        RegistryDefaultHandler handler, JDKDiscovery discovery, Log log)
     {
         super(panel, parent, installData, resourceManager, log);
         this.handler = handler;
+        this.discovery = discovery;
         setMustExist(true);
         if (!OsVersion.IS_OSX)
         {
@@ -203,11 +215,22 @@ public class JDKPathPanel extends PathInputPanel
             chosenPath = resolveInRegistry();
             if (!pathIsValid() || !verifyVersion())
             {
-                chosenPath = "";
+                // discovery scans the file system, so don't hold up the display of the panel
+                resolveInstalled(chosenPath);
             }
         }
         // Set the default to the path selection panel.
         pathSelectionPanel.setPath(chosenPath);
+        skipIfValid(chosenPath);
+    }
+
+    /**
+     * Skips the panel if a path has been found, and <em>JDKPathPanel.skipIfValid</em> is <tt>yes</tt>.
+     *
+     * @param chosenPath the path found. May be an empty string
+     */
+    private void skipIfValid(String chosenPath)
+    {
         String skipIfValid = this.installData.getVariable("JDKPathPanel.skipIfValid");
         // Should we skip this panel?
         if (chosenPath.length() > 0 && skipIfValid != null && "yes".equalsIgnoreCase(skipIfValid))
@@ -215,7 +238,6 @@ public class JDKPathPanel extends PathInputPanel
             this.installData.setVariable(getVariableName(), chosenPath);
             parent.skipPanel();
         }
-
     }
 
     /**
@@ -302,6 +324,68 @@ public class JDKPathPanel extends PathInputPanel
         return (retval);
     }
 
+    /**
+     * Looks for an installed JDK with the highest allowed version, in the background.
+     * <p/>
+     * If one is found while the panel is displayed and the user hasn't changed the path, it becomes the selected
+     * path.
+     *
+     * @param defaultPath the path displayed while the search is in progress
+     */
+    private void resolveInstalled(final String defaultPath)
+    {
+        new SwingWorker<List<JDKDiscovery.JDK>, Object>()
+        {
+            @Override
+            protected List<JDKDiscovery.JDK> doInBackground()
+            {
+                return discovery.discover();
+            }
+
+            @Override
+            protected void done()
+            {
+                if (isShowing() && defaultPath.equals(pathSelectionPanel.getPath()))
+                {
+                    try
+                    {
+                        String chosenPath = resolveInstalled(get());
+                        pathSelectionPanel.setPath(chosenPath);
+                        skipIfValid(chosenPath);
+                    }
+                    catch (InterruptedException exception)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    catch (ExecutionException exception)
+                    {
+                        logger.log(Level.WARNING, "Failed to discover JDKs", exception.getCause());
+                    }
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Returns the path to the installed JDK with the highest allowed version, if any.
+     *
+     * @param installed the installed JDKs, highest version first
+     * @return the path to the JDK, or an empty string if none is found
+     */
+    private String resolveInstalled(List<JDKDiscovery.JDK> installed)
+    {
+        for (JDKDiscovery.JDK jdk : installed)
+        {
+            pathSelectionPanel.setPath(jdk.getHome().getPath());
+            if (jdk.isJDK() && pathIsValid() && verifyVersion())
+            {
+                return jdk.getHome().getPath();
+            }
+        }
+        pathSelectionPanel.setPath("");
+        return "";
+    }
+
     private int verifyVersionEx()
     {
         String min = getMinVersion();
@@ -317,33 +401,12 @@ public class JDKPathPanel extends PathInputPanel
         {
             return (BAD_REAL_PATH);
         }
-        // No get the version ...
-        // We cannot look to the version of this vm because we should
-        // test the given JDK VM.
-        String[] params;
-        if (System.getProperty("os.name").contains("Windows"))
-        {
-            String[] paramsp = {
-                    "cmd",
-                    "/c",
-                    pathSelectionPanel.getPath() + File.separator + "bin" + File.separator + "java",
-                    "-version"
-            };
-            params = paramsp;
-        }
-        else
+        // Now get the version of the given JDK, without launching it
+        String vs = discovery.getVersion(new File(pathSelectionPanel.getPath()));
+        if (vs == null)
         {
-            String[] paramsp = {
-                    pathSelectionPanel.getPath() + File.separator + "bin" + File.separator + "java",
-                    "-version"
-            };
-            params = paramsp;
+            vs = "";
         }
-        String[] output = new String[2];
-        FileExecutor fileExecutor = new FileExecutor();
-        fileExecutor.executeCommand(params, output);
-        // "My" VM writes the version on stderr :-(
-        String vs = (output[0].length() > 0) ? output[0] : output[1];
         if (min != null)
         {
             if (!compareVersions(vs, min, true, 4, 4, "__NO_NOT_IDENTIFIER_"))
@@ -25,12 +25,12 @@ import com.coi.tools.os.win.MSWinConstants;
 import com.izforge.izpack.api.data.AutomatedInstallData;
 import com.izforge.izpack.api.exception.NativeLibException;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
+import com.izforge.izpack.core.os.JDKDiscovery;
 import com.izforge.izpack.core.os.RegistryDefaultHandler;
 import com.izforge.izpack.core.os.RegistryHandler;
 import com.izforge.izpack.installer.console.PanelConsole;
 import com.izforge.izpack.installer.console.PanelConsoleHelper;
 import com.izforge.izpack.util.Console;
-import com.izforge.izpack.util.FileExecutor;
 import com.izforge.izpack.util.OsVersion;
 
 import java.io.File;
@@ -54,17 +54,21 @@ public class JDKPathPanelConsoleHelper extends PanelConsoleHelper implements Pan
     private String detectedVersion;
     private final VariableSubstitutor variableSubstitutor;
     private final RegistryDefaultHandler handler;
+    private final JDKDiscovery discovery;
 
     /**
      * Constructs a <tt>JDKPathPanelConsoleHelper</tt>.
      *
      * @param variableSubstitutor the variable substituter
      * @param handler             the registry handler
+     * @param discovery           the JDK discovery service
      */
-    public JDKPathPanelConsoleHelper(VariableSubstitutor variableSubstitutor, RegistryDefaultHandler handler)
+    public JDKPathPanelConsoleHelper(VariableSubstitutor variableSubstitutor, RegistryDefaultHandler handler,
+                                     JDKDiscovery discovery)
     {
         this.variableSubstitutor = variableSubstitutor;
         this.handler = handler;
+        this.discovery = discovery;
     }
 
     public boolean runGeneratePropertiesFile(AutomatedInstallData installData, PrintWriter printWriter)
@@ -130,7 +134,7 @@ public class JDKPathPanelConsoleHelper extends PanelConsoleHelper implements Pan
             strDefaultPath = resolveInRegistry(minVersion, maxVersion);
             if (!pathIsValid(strDefaultPath) || !verifyVersion(minVersion, maxVersion, strDefaultPath))
             {
-                strDefaultPath = "";
+                strDefaultPath = resolveInstalled(minVersion, maxVersion);
             }
         }
 
@@ -200,6 +204,26 @@ public class JDKPathPanelConsoleHelper extends PanelConsoleHelper implements Pan
         return true;
     }
 
+    /**
+     * Returns the path to the installed JDK with the highest allowed version, if any.
+     *
+     * @param min the minimum version. May be <tt>null</tt>
+     * @param max the maximum version. May be <tt>null</tt>
+     * @return the path to the JDK, or an empty string if none is found
+     */
+    private String resolveInstalled(String min, String max)
+    {
+        for (JDKDiscovery.JDK jdk : discovery.discover())
+        {
+            String path = jdk.getHome().getPath();
+            if (jdk.isJDK() && pathIsValid(path) && verifyVersion(min, max, path))
+            {
+                return path;
+            }
+        }
+        return "";
+    }
+
     private boolean verifyVersion(String min, String max, String path)
     {
         boolean retval = true;
@@ -208,33 +232,12 @@ public class JDKPathPanelConsoleHelper extends PanelConsoleHelper implements Pan
         {
             return (true);
         }
-        // Now get the version ...
-        // We cannot look to the version of this vm because we should
-        // test the given JDK VM.
-        String[] params;
-        if (System.getProperty("os.name").contains("Windows"))
-        {
-            String[] paramsp = {
-                    "cmd",
-                    "/c",
-                    path + File.separator + "bin" + File.separator + "java",
-                    "-version"
-            };
-            params = paramsp;
-        }
-        else
+        // Now get the version of the given JDK, without launching it
+        String vs = discovery.getVersion(new File(path));
+        if (vs == null)
         {
-            String[] paramsp = {
-                    path + File.separator + "bin" + File.separator + "java",
-                    "-version"
-            };
-            params = paramsp;
+            vs = "";
         }
-        String[] output = new String[2];
-        FileExecutor fe = new FileExecutor();
-        fe.executeCommand(params, output);
-        // "My" VM writes the version on stderr :-(
-        String vs = (output[0].length() > 0) ? output[0] : output[1];
         if (min != null)
         {
             if (!compareVersions(vs, min, true, 4, 4, "__NO_NOT_IDENTIFIER_"))
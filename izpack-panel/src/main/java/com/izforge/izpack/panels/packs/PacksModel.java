@@ -25,15 +25,15 @@
 package com.izforge.izpack.panels.packs;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.table.AbstractTableModel;
@@ -41,10 +41,10 @@ import javax.swing.table.AbstractTableModel;
 import com.izforge.izpack.api.data.AutomatedInstallData;
 import com.izforge.izpack.api.data.LocaleDatabase;
 import com.izforge.izpack.api.data.Pack;
-import com.izforge.izpack.api.data.PackColor;
 import com.izforge.izpack.api.data.Variables;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.installer.data.GUIInstallData;
+import com.izforge.izpack.installer.data.InstallationInformation;
 
 /**
  * User: Gaganis Giorgos Date: Sep 17, 2004 Time: 8:33:21 AM
@@ -79,6 +79,18 @@ public class PacksModel extends AbstractTableModel
     // Map to hold the object name relationship
     Map<String, Integer> namesPos;
 
+    // The positions of the packs that each pack depends on
+    private int[][] dependencies;
+
+    // The positions of the packs that depend on each pack
+    private int[][] dependants;
+
+    // The positions of the packs in each exclude group
+    private Map<String, List<Integer>> excludeGroups;
+
+    // The total size of the selected packs, maintained as the checkbox values change
+    private long selectedBytes;
+
     // reference to the RulesEngine for validating conditions
     private RulesEngine rules;
 
@@ -100,11 +112,9 @@ public class PacksModel extends AbstractTableModel
 
             try
             {
-                FileInputStream fin = new FileInputStream(new File(
+                InstallationInformation information = InstallationInformation.read(new File(
                         idata.getInstallPath() + File.separator + AutomatedInstallData.INSTALLATION_INFORMATION));
-                ObjectInputStream oin = new ObjectInputStream(fin);
-                List<Pack> packsinstalled = (List<Pack>) oin.readObject();
-                for (Pack installedpack : packsinstalled)
+                for (Pack installedpack : information.getPacks())
                 {
                     if ((installedpack.getLangPackId() != null) && (installedpack.getLangPackId().length() > 0))
                     {
@@ -116,30 +126,22 @@ public class PacksModel extends AbstractTableModel
                     }
                 }
                 this.removeAlreadyInstalledPacks(idata.getSelectedPacks());
-                logger.fine("Found " + packsinstalled.size() + " installed packs");
+                logger.fine("Found " + information.getPacks().size() + " installed packs");
 
-                Properties variables = (Properties) oin.readObject();
+                Properties variables = information.getVariables();
 
-                for (Object key : variables.keySet())
+                for (String key : variables.stringPropertyNames())
                 {
-                    idata.setVariable((String) key, (String) variables.get(key));
+                    idata.setVariable(key, variables.getProperty(key));
                 }
-                fin.close();
-            }
-            catch (FileNotFoundException e)
-            {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
             }
             catch (IOException e)
             {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
+                logger.log(Level.WARNING, "Failed to read installation information: " + e.getMessage(), e);
             }
             catch (ClassNotFoundException e)
             {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
+                logger.log(Level.WARNING, "Failed to read installation information: " + e.getMessage(), e);
             }
         }
         this.rules = rules;
@@ -209,6 +211,15 @@ public class PacksModel extends AbstractTableModel
         this.updateConditions(false);
     }
 
+    /**
+     * Deselects or disables the packs whose conditions are not fulfilled.
+     * <p/>
+     * Conditions may refer to the selected packs, so each change is reflected in the packs to install immediately,
+     * and the packs are re-evaluated until a pass makes no further changes.
+     *
+     * @param initial if <tt>true</tt>, this is the initial evaluation, and packs that may be optionally installed are
+     *                deselected
+     */
     private void updateConditions(boolean initial)
     {
         boolean changes = true;
@@ -217,39 +228,38 @@ public class PacksModel extends AbstractTableModel
         {
             changes = false;
             // look for packages,
-            for (Pack pack : packs)
+            for (int pos = 0; pos < packs.size(); pos++)
             {
-                int pos = getPos(pack.getName());
+                Pack pack = packs.get(pos);
                 logger.fine("Conditions fulfilled for: " + pack.getName() + "?");
                 if (!this.rules.canInstallPack(pack.getLangPackId(), this.variables)) // TODO - see IZPACK-799
                 {
                     logger.fine("no");
+                    int value = checkValues[pos];
                     if (this.rules.canInstallPackOptional(pack.getLangPackId(), this.variables))
                     {
                         logger.fine("optional");
                         logger.fine(pack.getLangPackId() + " can be installed optionally.");
-                        if (initial)
+                        if (initial && value != 0)
                         {
-                            if (checkValues[pos] != 0)
-                            {
-                                checkValues[pos] = 0;
-                                changes = true;
-                                // let the process start from the beginning
-                                break;
-                            }
+                            setCheckValue(pos, 0);
+                            changes = true;
                         }
                     }
                     else
                     {
                         logger.fine("Pack" + pack.getLangPackId() + " cannot be installed");
-                        if (checkValues[pos] != -2)
+                        if (value != -2)
                         {
-                            checkValues[pos] = -2;
+                            setCheckValue(pos, -2);
                             changes = true;
-                            // let the process start from the beginning
-                            break;
                         }
                     }
+                    if (Math.abs(value) == 1 && Math.abs(checkValues[pos]) != 1)
+                    {
+                        // make the change visible to the conditions of the remaining packs
+                        packsToInstall.remove(pack);
+                    }
                 }
             }
             refreshPacksToInstall();
@@ -257,46 +267,80 @@ public class PacksModel extends AbstractTableModel
     }
 
     /**
-     * Creates the reverse dependency graph
+     * Creates the dependency graph, its reverse, and the exclude group index.
      */
     private void reverseDeps()
     {
-        // name to pack map
+        // name to pack and name to pack position maps
         namesObj = new HashMap<String, Pack>();
-        for (Pack pack : packs)
+        namesPos = new HashMap<String, Integer>();
+        excludeGroups = new HashMap<String, List<Integer>>();
+        for (int i = 0; i < packs.size(); i++)
         {
+            Pack pack = packs.get(i);
             namesObj.put(pack.getName(), pack);
+            namesPos.put(pack.getName(), i);
+            String group = pack.getExcludeGroup();
+            if (group != null)
+            {
+                List<Integer> members = excludeGroups.get(group);
+                if (members == null)
+                {
+                    members = new ArrayList<Integer>();
+                    excludeGroups.put(group, members);
+                }
+                members.add(i);
+            }
         }
+
         // process each pack
-        for (Pack pack : packs)
+        List<List<Integer>> reverse = new ArrayList<List<Integer>>(packs.size());
+        for (int i = 0; i < packs.size(); i++)
         {
+            reverse.add(new ArrayList<Integer>());
+        }
+        dependencies = new int[packs.size()][];
+        for (int i = 0; i < packs.size(); i++)
+        {
+            Pack pack = packs.get(i);
             List<String> deps = pack.getDependencies();
-            for (int j = 0; deps != null && j < deps.size(); j++)
+            dependencies[i] = new int[(deps != null) ? deps.size() : 0];
+            for (int j = 0; j < dependencies[i].length; j++)
             {
-                String name = deps.get(j);
-                Pack parent = namesObj.get(name);
-                parent.addDependant(pack.getName());
+                int parent = getPos(deps.get(j));
+                dependencies[i][j] = parent;
+                reverse.get(parent).add(i);
+
+                // the model may be recreated for the same packs, so don't register dependants twice
+                Pack parentPack = packs.get(parent);
+                List<String> existing = parentPack.getDependants();
+                if (existing == null || !existing.contains(pack.getName()))
+                {
+                    parentPack.addDependant(pack.getName());
+                }
+            }
+        }
+        dependants = new int[packs.size()][];
+        for (int i = 0; i < packs.size(); i++)
+        {
+            List<Integer> list = reverse.get(i);
+            dependants[i] = new int[list.size()];
+            for (int j = 0; j < dependants[i].length; j++)
+            {
+                dependants[i][j] = list.get(j);
             }
         }
-
     }
 
     private void initvalues()
     {
-        // name to pack position map
-        namesPos = new HashMap<String, Integer>();
-        for (int i = 0; i < packs.size(); i++)
-        {
-            Pack pack = packs.get(i);
-            namesPos.put(pack.getName(), i);
-        }
         // Init to the first values
+        Set<Pack> selected = new HashSet<Pack>(packsToInstall);
         for (int i = 0; i < packs.size(); i++)
         {
-            Pack pack = packs.get(i);
-            if (packsToInstall.contains(pack))
+            if (selected.contains(packs.get(i)))
             {
-                checkValues[i] = 1;
+                setCheckValue(i, 1);
             }
         }
 
@@ -304,64 +348,84 @@ public class PacksModel extends AbstractTableModel
         // deps
         for (int i = 0; i < packs.size(); i++)
         {
-            Pack pack = packs.get(i);
             if (checkValues[i] == 0)
             {
-                List<String> deps = pack.getDependants();
-                for (int j = 0; deps != null && j < deps.size(); j++)
+                for (int dependant : dependants[i])
                 {
-                    String name = deps.get(j);
-                    int pos = getPos(name);
-                    checkValues[pos] = -2;
+                    setCheckValue(dependant, -2);
                 }
             }
             // for mutual exclusion, uncheck uncompatible packs too
             // (if available in the current installGroup)
-
-            if (checkValues[i] > 0 && pack.getExcludeGroup() != null)
-            {
-                for (int q = 0; q < packs.size(); q++)
-                {
-                    if (q != i)
-                    {
-                        Pack otherpack = packs.get(q);
-                        if (pack.getExcludeGroup().equals(otherpack.getExcludeGroup()))
-                        {
-                            if (checkValues[q] == 1)
-                            {
-                                checkValues[q] = 0;
-                            }
-                        }
-                    }
-                }
-            }
+            updateExcludes(i);
         }
         // The required ones must propagate their required status to all the
         // ones
         // that they depend on
-        for (Pack pack : packs)
+        List<Integer> required = new ArrayList<Integer>();
+        for (int i = 0; i < packs.size(); i++)
         {
-            if (pack.isRequired())
+            if (packs.get(i).isRequired())
             {
-                propRequirement(pack.getName());
+                required.add(i);
             }
         }
+        propRequirement(required);
 
         refreshPacksToInstall();
     }
 
-    private void propRequirement(String name)
+    /**
+     * Marks packs as required, along with all of the packs that they depend on, directly or indirectly.
+     * <p/>
+     * Each pack is visited once, so shared and cyclic dependencies are handled.
+     *
+     * @param required the positions of the required packs
+     */
+    private void propRequirement(List<Integer> required)
     {
-
-        final int pos = getPos(name);
-        checkValues[pos] = -1;
-        List<String> deps = packs.get(pos).getDependencies();
-        for (int i = 0; deps != null && i < deps.size(); i++)
+        boolean[] visited = new boolean[packs.size()];
+        int[] queue = new int[packs.size()];
+        int tail = 0;
+        for (int pos : required)
         {
-            String s = deps.get(i);
-            propRequirement(s);
+            if (!visited[pos])
+            {
+                visited[pos] = true;
+                queue[tail++] = pos;
+            }
         }
+        for (int head = 0; head < tail; ++head)
+        {
+            int pos = queue[head];
+            setCheckValue(pos, -1);
+            for (int dependency : dependencies[pos])
+            {
+                if (!visited[dependency])
+                {
+                    visited[dependency] = true;
+                    queue[tail++] = dependency;
+                }
+            }
+        }
+    }
 
+    /**
+     * Sets the checkbox value of a pack, updating the total size of the selected packs.
+     *
+     * @param pos   the pack position
+     * @param value the new value
+     */
+    private void setCheckValue(int pos, int value)
+    {
+        boolean wasSelected = Math.abs(checkValues[pos]) == 1;
+        boolean selected = Math.abs(value) == 1;
+        if (wasSelected != selected)
+        {
+            long size = packs.get(pos).getSize();
+            selectedBytes += (selected) ? size : -size;
+        }
+        checkValues[pos] = value;
     }
 
     /**
@@ -499,11 +563,11 @@ public class PacksModel extends AbstractTableModel
                         {
                             if (pack.isRequired())
                             {
-                                checkValues[rowIndex] = -1;
+                                setCheckValue(rowIndex, -1);
                             }
                             else
                             {
-                                checkValues[rowIndex] = 1;
+                                setCheckValue(rowIndex, 1);
                             }
                         }
                     }
@@ -511,18 +575,18 @@ public class PacksModel extends AbstractTableModel
                     {
                         if (pack.isRequired())
                         {
-                            checkValues[rowIndex] = -1;
+                            setCheckValue(rowIndex, -1);
                         }
                         else
                         {
-                            checkValues[rowIndex] = 1;
+                            setCheckValue(rowIndex, 1);
                         }
                     }
                 }
                 else
                 {
                     packadded = false;
-                    checkValues[rowIndex] = 0;
+                    setCheckValue(rowIndex, 0);
                 }
                 updateExcludes(rowIndex);
                 updateDeps();
@@ -580,29 +644,13 @@ public class PacksModel extends AbstractTableModel
             {
                 key = pack.getName();
             }
-            if ((Math.abs(checkValues[i]) == 1) && (!installedpacks.containsKey(key)))
-            {
-                packsToInstall.add(pack);
-            }
-
-        }
-
-        for (int i = 0; i < packs.size(); i++)
-        {
-            Pack pack = packs.get(i);
-
-            String key = "";
-            if ((pack.getLangPackId() != null) && (pack.getLangPackId().length() > 0))
-            {
-                key = pack.getLangPackId();
-            }
-            else
+            if (installedpacks.containsKey(key))
             {
-                key = pack.getName();
+                setCheckValue(i, -3);
             }
-            if (installedpacks.containsKey(key))
+            else if (Math.abs(checkValues[i]) == 1)
             {
-                checkValues[i] = -3;
+                packsToInstall.add(pack);
             }
         }
         // add hidden packs
@@ -624,29 +672,26 @@ public class PacksModel extends AbstractTableModel
      */
     private void updateDeps()
     {
-        int[] statusArray = new int[packs.size()];
-        for (int i = 0; i < statusArray.length; i++)
-        {
-            statusArray[i] = 0;
-        }
-        dfs(statusArray);
-        for (int i = 0; i < statusArray.length; i++)
+        boolean[] unfulfilled = getUnfulfilledDependants();
+        for (int i = 0; i < unfulfilled.length; i++)
         {
-            if (statusArray[i] == 0 && checkValues[i] < 0)
+            if (!unfulfilled[i] && checkValues[i] < 0)
             {
-                checkValues[i] += 2;
+                setCheckValue(i, checkValues[i] + 2);
             }
-            if (statusArray[i] == 1 && checkValues[i] >= 0)
+            if (unfulfilled[i] && checkValues[i] >= 0)
             {
-                checkValues[i] = -2;
+                setCheckValue(i, -2);
             }
 
         }
         // The required ones must propagate their required status to all the
         // ones
         // that they depend on
-        for (Pack pack : packs)
+        List<Integer> required = new ArrayList<Integer>();
+        for (int i = 0; i < packs.size(); i++)
         {
+            Pack pack = packs.get(i);
             if (pack.isRequired())
             {
                 String packid = pack.getLangPackId();
@@ -655,16 +700,16 @@ public class PacksModel extends AbstractTableModel
                     if (!(!this.rules.canInstallPack(packid, this.variables) && this.rules.canInstallPackOptional(
                             packid, this.variables)))
                     {
-                        propRequirement(pack.getName());
+                        required.add(i);
                     }
                 }
                 else
                 {
-                    propRequirement(pack.getName());
+                    required.add(i);
                 }
             }
         }
-
+        propRequirement(required);
     }
 
     /*
@@ -677,20 +722,11 @@ public class PacksModel extends AbstractTableModel
         Pack pack = packs.get(rowindex);
         if (value > 0 && pack.getExcludeGroup() != null)
         {
-            for (int q = 0; q < packs.size(); q++)
+            for (int q : excludeGroups.get(pack.getExcludeGroup()))
             {
-                if (rowindex != q)
+                if (rowindex != q && checkValues[q] == 1)
                 {
-                    Pack otherpack = packs.get(q);
-                    String name1 = otherpack.getExcludeGroup();
-                    String name2 = pack.getExcludeGroup();
-                    if (name2.equals(name1))
-                    {
-                        if (checkValues[q] == 1)
-                        {
-                            checkValues[q] = 0;
-                        }
-                    }
+                    setCheckValue(q, 0);
                 }
             }
         }
@@ -698,15 +734,7 @@ public class PacksModel extends AbstractTableModel
 
     private void updateBytes()
     {
-        long bytes = 0;
-        for (int q = 0; q < packs.size(); q++)
-        {
-            if (Math.abs(checkValues[q]) == 1)
-            {
-                Pack pack = packs.get(q);
-                bytes += pack.getSize();
-            }
-        }
+        long bytes = selectedBytes;
 
         // add selected hidden bytes
         for (Pack hidden : this.hiddenPacks)
@@ -720,62 +748,40 @@ public class PacksModel extends AbstractTableModel
     }
 
     /**
-     * We use a modified dfs graph search algorithm as described in: Thomas H. Cormen, Charles
-     * Leiserson, Ronald Rivest and Clifford Stein. Introduction to algorithms 2nd Edition
-     * 540-549,MIT Press, 2001
+     * Determines the packs that depend, directly or indirectly, on a pack that isn't selected.
+     * <p/>
+     * This is a breadth first search of the reverse dependency graph, starting from every unselected pack. Each pack
+     * is visited at most once.
+     *
+     * @return flags indicating the packs with an unfulfilled dependency, indexed on pack position
      */
-    private int dfs(int[] status)
+    private boolean[] getUnfulfilledDependants()
     {
-        Map<String, PackColor> colours = new HashMap<String, PackColor>();
+        boolean[] result = new boolean[packs.size()];
+        boolean[] visited = new boolean[packs.size()];
+        int[] queue = new int[packs.size()];
+        int tail = 0;
         for (int i = 0; i < packs.size(); i++)
         {
-            for (Pack pack : packs)
+            if (Math.abs(checkValues[i]) != 1)
             {
-                colours.put(pack.getName(), PackColor.WHITE);
+                visited[i] = true;
+                queue[tail++] = i;
             }
-            Pack pack = packs.get(i);
-            boolean wipe = false;
-
-            if (dfsVisit(pack, status, wipe, colours) != 0)
-            {
-                return -1;
-            }
-
         }
-        return 0;
-    }
-
-    private int dfsVisit(Pack u, int[] status, boolean wipe, Map<String, PackColor> colours)
-    {
-        colours.put(u.getName(), PackColor.GREY);
-        int check = checkValues[getPos(u.getName())];
-
-        if (Math.abs(check) != 1)
+        for (int head = 0; head < tail; ++head)
         {
-            wipe = true;
-        }
-        List<String> deps = u.getDependants();
-        if (deps != null)
-        {
-            for (String name : deps)
+            for (int dependant : dependants[queue[head]])
             {
-                Pack v = namesObj.get(name);
-                if (wipe)
+                result[dependant] = true;
+                if (!visited[dependant])
                 {
-                    status[getPos(v.getName())] = 1;
-                }
-                if (colours.get(v.getName()) == PackColor.WHITE)
-                {
-                    final int result = dfsVisit(v, status, wipe, colours);
-                    if (result != 0)
-                    {
-                        return result;
-                    }
+                    visited[dependant] = true;
+                    queue[tail++] = dependant;
                 }
             }
         }
-        colours.put(u.getName(), PackColor.BLACK);
-        return 0;
+        return result;
     }
 
 
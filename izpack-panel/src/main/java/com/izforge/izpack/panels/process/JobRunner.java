@@ -0,0 +1,353 @@
+package com.izforge.izpack.panels.process;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.api.handler.AbstractUIProcessHandler;
+
+
+/**
+ * Runs {@link ProcessPanelWorker.ProcessingJob}s, respecting their dependencies.
+ * <p/>
+ * A job is started once all of the jobs it depends on have completed successfully, in the order the jobs were
+ * declared. Dependencies on jobs that aren't being run, e.g. because their conditions aren't met, are ignored.
+ * <p/>
+ * Up to <em>parallelism</em> jobs are run at once. If this is <tt>1</tt>, jobs are run one after another on the
+ * calling thread, as they always were. Otherwise, jobs run on a thread pool, and the output of each is prefixed
+ * with its name so that interleaved output can be told apart.
+ * <p/>
+ * Once a job fails, no further jobs are started, although those already running are allowed to complete.
+ */
+class JobRunner
+{
+
+    /**
+     * The maximum number of jobs to run at once.
+     */
+    private final int parallelism;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(JobRunner.class.getName());
+
+
+    /**
+     * Constructs a <tt>JobRunner</tt>.
+     *
+     * @param parallelism the maximum number of jobs to run at once
+     */
+    public JobRunner(int parallelism)
+    {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Runs jobs.
+     *
+     * @param jobs      the jobs, in the order they were declared
+     * @param handler   the handler to send output to, and to interact with the user
+     * @param variables the variables
+     * @return <tt>true</tt> if all jobs ran successfully, <tt>false</tt> if a job failed, or a job couldn't be run
+     *         because its dependencies are circular
+     */
+    public boolean run(List<ProcessPanelWorker.ProcessingJob> jobs, AbstractUIProcessHandler handler,
+                       Variables variables)
+    {
+        // the number of jobs with each identifier that haven't completed
+        Map<String, Integer> incomplete = new HashMap<String, Integer>();
+        for (ProcessPanelWorker.ProcessingJob job : jobs)
+        {
+            Integer count = incomplete.get(job.getId());
+            incomplete.put(job.getId(), (count == null) ? 1 : count + 1);
+        }
+
+        ExecutorService pool = null;
+        Executor executor;
+        if (parallelism > 1)
+        {
+            pool = Executors.newFixedThreadPool(parallelism, new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    return new Thread(runnable, "processing job");
+                }
+            });
+            executor = pool;
+        }
+        else
+        {
+            executor = new Executor()
+            {
+                public void execute(Runnable command)
+                {
+                    command.run();
+                }
+            };
+        }
+        CompletionService<ProcessPanelWorker.ProcessingJob> completion
+                = new ExecutorCompletionService<ProcessPanelWorker.ProcessingJob>(executor);
+
+        List<ProcessPanelWorker.ProcessingJob> pending = new ArrayList<ProcessPanelWorker.ProcessingJob>(jobs);
+        boolean result = true;
+        int running = 0;
+        try
+        {
+            while (true)
+            {
+                if (result)
+                {
+                    Iterator<ProcessPanelWorker.ProcessingJob> iterator = pending.iterator();
+                    while (iterator.hasNext() && running < parallelism)
+                    {
+                        ProcessPanelWorker.ProcessingJob job = iterator.next();
+                        if (isReady(job, incomplete))
+                        {
+                            iterator.remove();
+                            AbstractUIProcessHandler jobHandler = (parallelism > 1)
+                                    ? new JobHandler(handler, job.name) : handler;
+                            completion.submit(new Task(job, jobHandler, variables));
+                            ++running;
+                        }
+                    }
+                }
+                if (running == 0)
+                {
+                    break;
+                }
+                ProcessPanelWorker.ProcessingJob job = take(completion, handler);
+                --running;
+                if (job != null)
+                {
+                    incomplete.put(job.getId(), incomplete.get(job.getId()) - 1);
+                }
+                else
+                {
+                    result = false;
+                }
+            }
+        }
+        finally
+        {
+            if (pool != null)
+            {
+                pool.shutdown();
+            }
+        }
+
+        if (result && !pending.isEmpty())
+        {
+            StringBuilder names = new StringBuilder();
+            for (ProcessPanelWorker.ProcessingJob job : pending)
+            {
+                if (names.length() != 0)
+                {
+                    names.append(", ");
+                }
+                names.append(job.name);
+            }
+            handler.emitError("Process execution failed", "Circular job dependencies: " + names);
+            result = false;
+        }
+        return result;
+    }
+
+    /**
+     * Determines if a job is ready to run.
+     *
+     * @param job        the job
+     * @param incomplete the number of jobs with each identifier that haven't completed
+     * @return <tt>true</tt> if all of the jobs it depends on have completed
+     */
+    private boolean isReady(ProcessPanelWorker.ProcessingJob job, Map<String, Integer> incomplete)
+    {
+        for (String dependency : job.getDependencies())
+        {
+            Integer count = incomplete.get(dependency);
+            if (count != null && count > 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits for a job to complete.
+     *
+     * @param completion the completion service
+     * @param handler    the handler to report errors to
+     * @return the job, if it completed successfully, otherwise <tt>null</tt>
+     */
+    private ProcessPanelWorker.ProcessingJob take(CompletionService<ProcessPanelWorker.ProcessingJob> completion,
+                                                  AbstractUIProcessHandler handler)
+    {
+        ProcessPanelWorker.ProcessingJob result = null;
+        try
+        {
+            result = completion.take().get();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            handler.emitError("process interrupted", exception.toString());
+        }
+        catch (ExecutionException exception)
+        {
+            logger.log(Level.WARNING, exception.getCause().getMessage(), exception.getCause());
+            handler.emitError("Process execution failed", exception.getCause().toString());
+        }
+        return result;
+    }
+
+    /**
+     * Runs a job.
+     */
+    private static class Task implements Callable<ProcessPanelWorker.ProcessingJob>
+    {
+
+        /**
+         * The job.
+         */
+        private final ProcessPanelWorker.ProcessingJob job;
+
+        /**
+         * The handler.
+         */
+        private final AbstractUIProcessHandler handler;
+
+        /**
+         * The variables.
+         */
+        private final Variables variables;
+
+
+        /**
+         * Constructs a <tt>Task</tt>.
+         *
+         * @param job       the job
+         * @param handler   the handler
+         * @param variables the variables
+         */
+        public Task(ProcessPanelWorker.ProcessingJob job, AbstractUIProcessHandler handler, Variables variables)
+        {
+            this.job = job;
+            this.handler = handler;
+            this.variables = variables;
+        }
+
+        /**
+         * Runs the job.
+         *
+         * @return the job if it succeeded, otherwise <tt>null</tt>
+         */
+        public ProcessPanelWorker.ProcessingJob call()
+        {
+            handler.startProcess(job.name);
+            boolean result = job.run(handler, variables);
+            handler.finishProcess();
+            return result ? job : null;
+        }
+    }
+
+    /**
+     * Handler for a job run concurrently with others.
+     * <p/>
+     * This prefixes output and messages with the job name.
+     */
+    private static class JobHandler implements AbstractUIProcessHandler
+    {
+
+        /**
+         * The handler to delegate to.
+         */
+        private final AbstractUIProcessHandler handler;
+
+        /**
+         * The output prefix.
+         */
+        private final String prefix;
+
+
+        /**
+         * Constructs a <tt>JobHandler</tt>.
+         *
+         * @param handler the handler to delegate to
+         * @param name    the job name
+         */
+        public JobHandler(AbstractUIProcessHandler handler, String name)
+        {
+            this.handler = handler;
+            this.prefix = "[" + name + "] ";
+        }
+
+        public void logOutput(String message, boolean stderr)
+        {
+            handler.logOutput(prefix + message, stderr);
+        }
+
+        public void startProcessing(int no_of_processes)
+        {
+            handler.startProcessing(no_of_processes);
+        }
+
+        public void startProcess(String name)
+        {
+            handler.startProcess(name);
+        }
+
+        public void finishProcess()
+        {
+            handler.finishProcess();
+        }
+
+        public void finishProcessing(boolean unlockPrev, boolean unlockNext)
+        {
+            handler.finishProcessing(unlockPrev, unlockNext);
+        }
+
+        public void emitNotification(String message)
+        {
+            handler.emitNotification(prefix + message);
+        }
+
+        public boolean emitWarning(String title, String message)
+        {
+            return handler.emitWarning(prefix + title, message);
+        }
+
+        public void emitError(String title, String message)
+        {
+            handler.emitError(prefix + title, message);
+        }
+
+        public void emitErrorAndBlockNext(String title, String message)
+        {
+            handler.emitErrorAndBlockNext(prefix + title, message);
+        }
+
+        public int askQuestion(String title, String question, int choices)
+        {
+            return handler.askQuestion(prefix + title, question, choices);
+        }
+
+        public int askQuestion(String title, String question, int choices, int default_choice)
+        {
+            return handler.askQuestion(prefix + title, question, choices, default_choice);
+        }
+    }
+}
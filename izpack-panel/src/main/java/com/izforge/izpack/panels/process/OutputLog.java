@@ -0,0 +1,197 @@
+package com.izforge.izpack.panels.process;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+
+
+/**
+ * Displays process output in a {@link JTextArea}, keeping only the most recent lines.
+ * <p/>
+ * Lines may be appended from any thread. They are buffered, and flushed to the text area on the event dispatch
+ * thread at most once per interval, so that processes producing large amounts of output don't swamp the user
+ * interface. Once the text area holds more than the maximum number of lines, the oldest are removed.
+ * <p/>
+ * Only the displayed output is bounded; the full output should be written to a log file if it is required.
+ */
+public class OutputLog
+{
+
+    /**
+     * The default maximum number of lines to display.
+     */
+    public static final int DEFAULT_MAX_LINES = 5000;
+
+    /**
+     * The default interval between flushes, in milliseconds.
+     */
+    public static final int DEFAULT_INTERVAL = 100;
+
+    /**
+     * The text area to display output in.
+     */
+    private final JTextArea area;
+
+    /**
+     * The maximum number of lines to display.
+     */
+    private final int maxLines;
+
+    /**
+     * Flushes pending lines to the text area.
+     */
+    private final Timer timer;
+
+    /**
+     * The lines waiting to be displayed.
+     */
+    private Deque<String> pending = new ArrayDeque<String>();
+
+    /**
+     * The number of lines discarded before they could be displayed, since the last flush.
+     */
+    private int discarded;
+
+
+    /**
+     * Constructs an <tt>OutputLog</tt>.
+     *
+     * @param area the text area to display output in
+     */
+    public OutputLog(JTextArea area)
+    {
+        this(area, DEFAULT_MAX_LINES, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Constructs an <tt>OutputLog</tt>.
+     *
+     * @param area     the text area to display output in
+     * @param maxLines the maximum number of lines to display
+     * @param interval the interval between flushes, in milliseconds
+     */
+    public OutputLog(JTextArea area, int maxLines, int interval)
+    {
+        this.area = area;
+        this.maxLines = maxLines;
+        timer = new Timer(interval, new ActionListener()
+        {
+            public void actionPerformed(ActionEvent event)
+            {
+                flush();
+            }
+        });
+        timer.setRepeats(false);
+    }
+
+    /**
+     * Appends a line.
+     * <p/>
+     * This may be invoked from any thread.
+     *
+     * @param line the line to append
+     */
+    public void append(String line)
+    {
+        boolean schedule;
+        synchronized (this)
+        {
+            schedule = pending.isEmpty() && discarded == 0;
+            if (pending.size() == maxLines)
+            {
+                // the pending lines will replace all of those displayed on the next flush, so drop the oldest
+                pending.removeFirst();
+                ++discarded;
+            }
+            pending.add(line);
+        }
+        if (schedule)
+        {
+            timer.restart();
+        }
+    }
+
+    /**
+     * Displays the pending lines, removing the oldest lines from the text area if it holds more than the maximum
+     * number of lines.
+     * <p/>
+     * This must be invoked on the event dispatch thread.
+     */
+    public void flush()
+    {
+        Deque<String> lines;
+        int skipped;
+        synchronized (this)
+        {
+            if (pending.isEmpty())
+            {
+                return;
+            }
+            lines = pending;
+            skipped = discarded;
+            pending = new ArrayDeque<String>();
+            discarded = 0;
+        }
+
+        if (skipped != 0)
+        {
+            // the pending lines replace all of those displayed
+            area.setText("");
+        }
+        StringBuilder text = new StringBuilder();
+        for (String line : lines)
+        {
+            text.append(line).append('\n');
+        }
+        area.append(text.toString());
+        trim();
+        area.setCaretPosition(area.getDocument().getLength());
+    }
+
+    /**
+     * Removes all output.
+     * <p/>
+     * This may be invoked from any thread.
+     */
+    public void clear()
+    {
+        synchronized (this)
+        {
+            pending.clear();
+            discarded = 0;
+        }
+        SwingUtilities.invokeLater(new Runnable()
+        {
+            public void run()
+            {
+                area.setText("");
+            }
+        });
+    }
+
+    /**
+     * Removes the oldest lines from the text area, if it holds more than the maximum number of lines.
+     */
+    private void trim()
+    {
+        // the text ends with a newline, so the last line is empty
+        int excess = area.getLineCount() - 1 - maxLines;
+        if (excess > 0)
+        {
+            try
+            {
+                area.replaceRange(null, 0, area.getLineEndOffset(excess - 1));
+            }
+            catch (BadLocationException exception)
+            {
+                area.setText("");
+            }
+        }
+    }
+}
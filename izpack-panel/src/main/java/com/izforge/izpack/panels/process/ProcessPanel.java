@@ -95,6 +95,11 @@ public class ProcessPanel extends IzPanel implements AbstractUIProcessHandler
      */
     private JTextArea outputPane;
 
+    /**
+     * Displays the most recent output in the output pane.
+     */
+    private OutputLog outputLog;
+
     private static boolean finishedWork = false;
 
     /**
@@ -146,6 +151,7 @@ public class ProcessPanel extends IzPanel implements AbstractUIProcessHandler
 
         this.outputPane = new JTextArea();
         this.outputPane.setEditable(false);
+        this.outputLog = new OutputLog(this.outputPane);
         JScrollPane outputScrollPane = new JScrollPane(this.outputPane);
         subpanel.add(outputScrollPane);
 
@@ -226,16 +232,7 @@ public class ProcessPanel extends IzPanel implements AbstractUIProcessHandler
     public void logOutput(String message, boolean stderr)
     {
         // TODO: make it colored
-        this.outputPane.append(message + '\n');
-
-        SwingUtilities.invokeLater(new Runnable()
-        {
-
-            public void run()
-            {
-                outputPane.setCaretPosition(outputPane.getText().length());
-            }
-        });
+        outputLog.append(message);
     }
 
     /**
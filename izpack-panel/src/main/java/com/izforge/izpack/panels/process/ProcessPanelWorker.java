@@ -67,6 +67,11 @@ public class ProcessPanelWorker implements Runnable
 
     private String logfiledir = null;
 
+    /**
+     * The maximum number of jobs to run at once.
+     */
+    private int parallelism = 1;
+
     protected AutomatedInstallData idata;
 
     private Map<Boolean, List<ButtonConfig>> buttonConfigs = new HashMap<Boolean, List<ButtonConfig>>();
@@ -143,6 +148,22 @@ public class ProcessPanelWorker implements Runnable
             logfiledir = logFileDirElement.getContent();
         }
 
+        // jobs are run one after another unless the spec allows them to run concurrently
+        parallelism = 1;
+        String parallel = spec.getAttribute("parallel");
+        if (parallel != null)
+        {
+            try
+            {
+                parallelism = Math.max(1, Integer.parseInt(parallel.trim()));
+            }
+            catch (NumberFormatException exception)
+            {
+                System.err.println("Invalid \"parallel\" attribute for <processing>: " + parallel);
+                return false;
+            }
+        }
+
         for (IXMLElement job_el : spec.getChildrenNamed("job"))
         {
             // normally use condition attribute, but also read conditionid to not break older versions.
@@ -176,6 +197,21 @@ public class ProcessPanelWorker implements Runnable
                 List<ProcessPanelWorker.Processable> ef_list = new ArrayList<ProcessPanelWorker.Processable>();
 
                 String job_name = job_el.getAttribute("name", "");
+                String job_id = job_el.getAttribute("id", job_name);
+                List<String> dependencies = new ArrayList<String>();
+                String depends = job_el.getAttribute("depends");
+                if (depends != null)
+                {
+                    // comma separated, as job names may contain spaces
+                    for (String dependency : depends.split(","))
+                    {
+                        dependency = dependency.trim();
+                        if (dependency.length() != 0)
+                        {
+                            dependencies.add(dependency);
+                        }
+                    }
+                }
 
                 for (IXMLElement executeFileElement : job_el.getChildrenNamed("executefile"))
                 {
@@ -234,7 +270,7 @@ public class ProcessPanelWorker implements Runnable
                 }
                 else
                 {
-                    this.jobs.add(new ProcessingJob(job_name, ef_list));
+                    this.jobs.add(new ProcessingJob(job_name, job_id, dependencies, ef_list));
                 }
             }
         }
@@ -317,7 +353,8 @@ public class ProcessPanelWorker implements Runnable
             {
                 File tempLogFile = File.createTempFile("Install_" + identifier + "_", ".log",
                                                        new File(logfiledir));
-                logfile = new PrintWriter(new FileOutputStream(tempLogFile), true);
+                // not flushed on each line, as processes may produce a lot of output
+                logfile = new PrintWriter(new FileOutputStream(tempLogFile));
             }
             catch (IOException e)
             {
@@ -328,19 +365,7 @@ public class ProcessPanelWorker implements Runnable
 
         this.handler.startProcessing(this.jobs.size());
 
-        for (ProcessPanelWorker.ProcessingJob processingJob : this.jobs)
-        {
-            this.handler.startProcess(processingJob.name);
-
-            this.result = processingJob.run(this.handler, idata.getVariables());
-
-            this.handler.finishProcess();
-
-            if (!this.result)
-            {
-                break;
-            }
-        }
+        this.result = new JobRunner(parallelism).run(this.jobs, this.handler, idata.getVariables());
 
         boolean unlockNext = true;
         boolean unlockPrev = false;
@@ -404,27 +429,83 @@ public class ProcessPanelWorker implements Runnable
         public boolean run(AbstractUIProcessHandler handler, Variables variables);
     }
 
-    private static class ProcessingJob implements ProcessPanelWorker.Processable
+    static class ProcessingJob implements ProcessPanelWorker.Processable
     {
 
         public String name;
 
+        /**
+         * The identifier that other jobs use to depend on this job.
+         */
+        private final String id;
+
+        /**
+         * The identifiers of the jobs that must complete before this job can run.
+         */
+        private final List<String> dependencies;
+
         private List<ProcessPanelWorker.Processable> processables;
 
         public ProcessingJob(String name, List<ProcessPanelWorker.Processable> processables)
+        {
+            this(name, name, new ArrayList<String>(), processables);
+        }
+
+        /**
+         * Constructs a <tt>ProcessingJob</tt>.
+         *
+         * @param name         the job name
+         * @param id           the job identifier
+         * @param dependencies the identifiers of the jobs that must complete before this job can run
+         * @param processables the processables to run
+         */
+        public ProcessingJob(String name, String id, List<String> dependencies,
+                             List<ProcessPanelWorker.Processable> processables)
         {
             this.name = name;
+            this.id = id;
+            this.dependencies = dependencies;
             this.processables = processables;
         }
 
+        /**
+         * Returns the job identifier.
+         *
+         * @return the job identifier
+         */
+        public String getId()
+        {
+            return id;
+        }
+
+        /**
+         * Returns the identifiers of the jobs that must complete before this job can run.
+         *
+         * @return the dependencies
+         */
+        public List<String> getDependencies()
+        {
+            return dependencies;
+        }
+
         @Override
         public boolean run(AbstractUIProcessHandler handler, Variables variables)
         {
-            for (ProcessPanelWorker.Processable processable : this.processables)
+            try
             {
-                if (!processable.run(handler, variables))
+                for (ProcessPanelWorker.Processable processable : this.processables)
                 {
-                    return false;
+                    if (!processable.run(handler, variables))
+                    {
+                        return false;
+                    }
+                }
+            }
+            finally
+            {
+                if (logfile != null)
+                {
+                    logfile.flush();
                 }
             }
 
@@ -524,7 +605,11 @@ public class ProcessPanelWorker implements Runnable
                     if (exitStatus != 0)
                     {
                         QuestionErrorDisplayer myErrorAlter = new QuestionErrorDisplayer(handler);
-                        SwingUtilities.invokeAndWait(myErrorAlter);
+                        // jobs may run concurrently, so only ask about one failure at a time
+                        synchronized (QuestionErrorDisplayer.class)
+                        {
+                            SwingUtilities.invokeAndWait(myErrorAlter);
+                        }
                         return myErrorAlter.shouldContinue();
                     }
                 }
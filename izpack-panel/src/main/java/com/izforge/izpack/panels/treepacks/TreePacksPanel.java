@@ -11,8 +11,10 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -101,6 +103,11 @@ public class TreePacksPanel extends IzPanel implements PacksPanelInterface
      */
     private Map<String, Pack> names;
 
+    /**
+     * The packs in each exclude group.
+     */
+    private Map<String, List<Pack>> excludeGroups;
+
     /**
      * The bytes of the current pack.
      */
@@ -498,6 +505,7 @@ public class TreePacksPanel extends IzPanel implements PacksPanelInterface
     private void computePacks(List<Pack> packs)
     {
         names = new HashMap<String, Pack>();
+        excludeGroups = new HashMap<String, List<Pack>>();
         dependenciesExist = false;
         for (Object pack1 : packs)
         {
@@ -507,6 +515,16 @@ public class TreePacksPanel extends IzPanel implements PacksPanelInterface
             {
                 dependenciesExist = true;
             }
+            if (pack.getExcludeGroup() != null)
+            {
+                List<Pack> members = excludeGroups.get(pack.getExcludeGroup());
+                if (members == null)
+                {
+                    members = new ArrayList<Pack>();
+                    excludeGroups.put(pack.getExcludeGroup(), members);
+                }
+                members.add(pack);
+            }
         }
     }
 
@@ -703,21 +721,14 @@ public class TreePacksPanel extends IzPanel implements PacksPanelInterface
             // add the list of the packs to be excluded
             String excludeslist = (langpack == null) ? "Excludes: " : langpack.get("PacksPanel.excludes");
             int numexcludes = 0;
-            int i = getRowIndex(pack);
             if (pack.getExcludeGroup() != null)
             {
-                for (int q = 0; q < this.installData.getAvailablePacks().size(); q++)
+                for (Pack otherpack : excludeGroups.get(pack.getExcludeGroup()))
                 {
-                    Pack otherpack = this.installData.getAvailablePacks().get(q);
-                    String exgroup = otherpack.getExcludeGroup();
-                    if (exgroup != null)
+                    if (otherpack != pack)
                     {
-                        if (q != i && pack.getExcludeGroup().equals(exgroup))
-                        {
-
-                            excludeslist += getI18NPackName(otherpack) + ", ";
-                            numexcludes++;
-                        }
+                        excludeslist += getI18NPackName(otherpack) + ", ";
+                        numexcludes++;
                     }
                 }
             }
@@ -833,9 +844,10 @@ public class TreePacksPanel extends IzPanel implements PacksPanelInterface
 
             //initialize helper map to increa performance
             packToRowNumber = new HashMap<Pack, Integer>();
+            int row = 0;
             for (Pack pack : this.installData.getAvailablePacks())
             {
-                packToRowNumber.put(pack, this.installData.getAvailablePacks().indexOf(pack));
+                packToRowNumber.put(pack, row++);
             }
 
             // Init tree structures
@@ -863,6 +875,7 @@ public class TreePacksPanel extends IzPanel implements PacksPanelInterface
             // set the JCheckBoxes to the currently selected panels. The
             // selection might have changed in another panel
             bytes = 0;
+            Set<Pack> selected = new HashSet<Pack>(this.installData.getSelectedPacks());
             for (Pack pack : this.installData.getAvailablePacks())
             {
                 if (pack.isRequired())
@@ -870,7 +883,7 @@ public class TreePacksPanel extends IzPanel implements PacksPanelInterface
                     bytes += pack.getSize();
                     continue;
                 }
-                if (this.installData.getSelectedPacks().contains(pack))
+                if (selected.contains(pack))
                 {
                     bytes += pack.getSize();
                 }
@@ -1069,6 +1082,8 @@ class CheckTreeController extends MouseAdapter
      * Updates partial/deselected/selected state of all parent nodes.
      * This is needed and is a patch to allow unrelated nodes (in terms of the tree)
      * to fire updates for each other.
+     * <p/>
+     * The nodes are visited depth first, so each parent is updated once, after all of its children.
      *
      * @param root
      */
@@ -1077,73 +1092,54 @@ class CheckTreeController extends MouseAdapter
         Enumeration<CheckBoxNode> rootEnum = root.depthFirstEnumeration();
         while (rootEnum.hasMoreElements())
         {
-            CheckBoxNode child = rootEnum.nextElement();
-            if (child.getParent() != null && !child.getParent().equals(root))
+            CheckBoxNode node = rootEnum.nextElement();
+            if (node.getChildCount() > 0 && node.getParent() != null)
             {
-                updateParents(child);
+                updateParent(node);
             }
         }
     }
 
     /**
-     * Updates the parents of this particular node
+     * Updates the partial/deselected/selected state of a parent node from that of its children.
      *
-     * @param node
+     * @param parent the parent node
      */
-    private void updateParents(CheckBoxNode node)
+    private void updateParent(CheckBoxNode parent)
     {
-        CheckBoxNode parent = (CheckBoxNode) node.getParent();
-        if (parent != null && !parent.equals(parent.getRoot()))
+        Enumeration<CheckBoxNode> ne = parent.children();
+        boolean allSelected = true;
+        boolean allDeselected = true;
+        while (ne.hasMoreElements())
         {
-            Enumeration<CheckBoxNode> ne = parent.children();
-            boolean allSelected = true;
-            boolean allDeselected = true;
-            while (ne.hasMoreElements())
+            CheckBoxNode child = ne.nextElement();
+            if (child.isSelected())
             {
-                CheckBoxNode child = ne.nextElement();
-                if (child.isSelected())
-                {
-                    allDeselected = false;
-                }
-                else
-                {
-                    allSelected = false;
-                }
-                if (child.isPartial())
-                {
-                    allSelected = allDeselected = false;
-                }
-                if (!allSelected && !allDeselected)
-                {
-                    break;
-                }
+                allDeselected = false;
             }
-            if (parent.getChildCount() > 0)
+            else
             {
-                if (!allSelected && !allDeselected)
-                {
-                    setPartialParent(parent);
-                }
-                else
-                {
-                    parent.setPartial(false);
-                }
-                if (allSelected)
-                {
-                    parent.setSelected(true);
-                }
-                if (allDeselected)
-                {
-                    parent.setSelected(false);
-                }
-                treePacksPanel.setModelValue(parent);
-                if (allSelected || allDeselected)
-                {
-                    updateParents(parent);
-                }
+                allSelected = false;
+            }
+            if (child.isPartial())
+            {
+                allSelected = allDeselected = false;
+            }
+            if (!allSelected && !allDeselected)
+            {
+                break;
             }
-            //updateTotalSize(node);
         }
+        parent.setPartial(!allSelected && !allDeselected);
+        if (allSelected)
+        {
+            parent.setSelected(true);
+        }
+        if (allDeselected)
+        {
+            parent.setSelected(false);
+        }
+        treePacksPanel.setModelValue(parent);
     }
 
     public static void setPartialParent(CheckBoxNode node)
@@ -2,6 +2,7 @@ package com.izforge.izpack.panels.userinput;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Cursor;
 import java.awt.Font;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
@@ -11,7 +12,6 @@ import java.awt.event.FocusListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.io.File;
-import java.io.InputStream;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -47,12 +47,9 @@ import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
 
 import com.izforge.izpack.api.adaptator.IXMLElement;
-import com.izforge.izpack.api.adaptator.IXMLParser;
-import com.izforge.izpack.api.adaptator.impl.XMLParser;
 import com.izforge.izpack.api.data.LocaleDatabase;
 import com.izforge.izpack.api.data.Panel;
 import com.izforge.izpack.api.data.ResourceManager;
-import com.izforge.izpack.api.exception.ResourceNotFoundException;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.core.rules.process.ExistsCondition;
 import com.izforge.izpack.core.rules.process.ExistsCondition.ContentType;
@@ -87,22 +84,8 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
 
     protected static final String ICON_KEY = "icon";
 
-    /**
-     * The name of the XML file that specifies the panel layout
-     */
-    private static final String SPEC_FILE_NAME = "userInputSpec.xml";
-
-    private static final String LANG_FILE_NAME = "userInputLang.xml";
-
-    /**
-     * how the spec node for a specific panel is identified
-     */
-    private static final String NODE_ID = "panel";
-
     private static final String FIELD_NODE_ID = "field";
 
-    private static final String INSTANCE_IDENTIFIER = "order";
-
     protected static final String PANEL_IDENTIFIER = "id";
 
     private static final String TYPE = "type";
@@ -309,6 +292,27 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
 
     private boolean eventsActivated = false;
 
+    /**
+     * Determines if the panel is being validated in order to navigate to the next panel.
+     */
+    private boolean navigating = false;
+
+    /**
+     * Determines if navigation to the next panel should resume when a pending validation completes.
+     */
+    private boolean resumeNavigation = false;
+
+    /**
+     * Notified on the event dispatch thread when a pending field validation completes.
+     */
+    private final Runnable validationListener = new Runnable()
+    {
+        public void run()
+        {
+            validationCompleted();
+        }
+    };
+
     private List<UIElement> elements = new ArrayList<UIElement>();
 
     private JPanel panel;
@@ -365,37 +369,12 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
         elements.clear();
 
         // ----------------------------------------------------
-        // get a locale database
+        // get a locale database and the specifications. These are
+        // shared by all user input panels, and only read once
         // ----------------------------------------------------
-        try
-        {
-            this.langpack = (LocaleDatabase) installData.getLangpack().clone();
-
-            String resource = LANG_FILE_NAME + "_" + this.installData.getLocaleISO3();
-            this.langpack.add(resourceManager.getInputStream(resource));
-        }
-        catch (ResourceNotFoundException e)
-        {
-            logger.log(Level.WARNING, e.getMessage(), e);
-        }
-        catch (Exception e)
-        {
-            logger.log(Level.WARNING, e.getMessage(), e);
-        }
-
-
-        // ----------------------------------------------------
-        // read the specifications
-        // ----------------------------------------------------
-        try
-        {
-            readSpec();
-        }
-        catch (Throwable exception)
-        {
-            // log the problem
-            exception.printStackTrace();
-        }
+        UserInputSpec userInputSpec = UserInputSpec.getSpec(installData, resourceManager);
+        this.langpack = userInputSpec.getLangpack(installData);
+        readSpec(userInputSpec);
 
         // ----------------------------------------------------
         // Set the topBuffer from the attribute. topBuffer=0 is useful
@@ -1040,6 +1019,54 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
         return readInput();
     }
 
+    /**
+     * Validates the panel, prior to navigating to the next panel.
+     * <p/>
+     * If a field validation is still pending, this returns <tt>false</tt>, and navigation resumes when the
+     * validation completes.
+     *
+     * @return <tt>true</tt> if the panel has been validated
+     */
+    @Override
+    public boolean panelValidated()
+    {
+        navigating = true;
+        try
+        {
+            return super.panelValidated();
+        }
+        finally
+        {
+            navigating = false;
+        }
+    }
+
+    /**
+     * Invoked when a field validation is pending.
+     * <p/>
+     * This displays the wait cursor until the validation completes.
+     */
+    private void validationPending()
+    {
+        resumeNavigation = navigating;
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+    }
+
+    /**
+     * Invoked on the event dispatch thread when a pending field validation completes.
+     * <p/>
+     * If the validation was pending when navigating to the next panel, navigation resumes, re-validating the panel.
+     */
+    private void validationCompleted()
+    {
+        setCursor(null);
+        if (resumeNavigation && isShowing())
+        {
+            resumeNavigation = false;
+            parent.navigateNext();
+        }
+    }
+
     /*--------------------------------------------------------------------------*/
 
     /**
@@ -1309,74 +1336,30 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
     /*--------------------------------------------------------------------------*/
 
     /**
-     * Reads the XML specification for the panel layout. The result is stored in spec.
+     * Looks up the XML specification for the panel layout. The result is stored in spec.
      *
-     * @throws Exception for any problems in reading the specification
+     * @param userInputSpec the user input specifications
      */
     /*--------------------------------------------------------------------------*/
-    private void readSpec() throws Exception
+    private void readSpec(UserInputSpec userInputSpec)
     {
-        InputStream input = null;
-        IXMLElement data;
-        List<IXMLElement> specElements;
-        String attribute;
-        String panelattribute;
-        String instance = Integer.toString(instanceNumber);
-
         String panelid = null;
         Panel p = this.getMetadata();
         if (p != null)
         {
             panelid = p.getPanelid();
         }
-        try
-        {
-            input = resourceManager.getInputStream(SPEC_FILE_NAME);
-        }
-        catch (Exception exception)
+        IXMLElement specElement = userInputSpec.getPanel(panelid, instanceNumber);
+        if (specElement != null)
         {
-            haveSpec = false;
-            return;
-        }
-        if (input == null)
-        {
-            haveSpec = false;
-            return;
+            // use the current element as spec
+            spec = specElement;
+            haveSpec = true;
         }
-
-        // initialize the parser
-        IXMLParser parser = new XMLParser();
-
-        // get the installDataGUI
-        data = parser.parse(input);
-
-        // extract the spec to this specific panel instance
-        if (data.hasChildren())
+        else
         {
-            specElements = data.getChildrenNamed(NODE_ID);
-            for (IXMLElement specElement : specElements)
-            {
-                attribute = specElement.getAttribute(INSTANCE_IDENTIFIER);
-                panelattribute = specElement.getAttribute(PANEL_IDENTIFIER);
-
-                if (((attribute != null) && instance.equals(attribute))
-                        || ((panelattribute != null) && (panelid != null) && (panelid
-                        .equals(panelattribute))))
-                {
-                    // use the current element as spec
-                    spec = specElement;
-                    // close the stream
-                    input.close();
-                    haveSpec = true;
-                    return;
-                }
-            }
-
             haveSpec = false;
-            return;
         }
-
-        haveSpec = false;
     }
 
     /*--------------------------------------------------------------------------*/
@@ -1655,7 +1638,13 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
             return (true);
         }
 
-        boolean success = !validating || ruleField.validateContents();
+        Boolean valid = validating ? ruleField.validateContents(validationListener) : Boolean.TRUE;
+        if (valid == null)
+        {
+            validationPending();
+            return (false);
+        }
+        boolean success = valid;
         if (!success)
         {
             showWarningMessageDialog(parent, message);
@@ -1857,7 +1846,14 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
 
         // validate the input
         logger.fine("Validating text field");
-        boolean success = textField.validateContents();
+        Boolean valid = textField.validateContents(validationListener);
+        if (valid == null)
+        {
+            logger.fine("Validation is pending");
+            validationPending();
+            return (false);
+        }
+        boolean success = valid;
         if (!success)
         {
             logger.fine("Validation did not pass, message: " + message);
@@ -43,7 +43,6 @@ import com.izforge.izpack.installer.console.PanelConsoleHelper;
 import com.izforge.izpack.panels.userinput.processor.Processor;
 import com.izforge.izpack.util.Console;
 import com.izforge.izpack.util.OsVersion;
-import com.izforge.izpack.util.helper.SpecHelper;
 
 /**
  * The user input panel console helper class.
@@ -58,10 +57,6 @@ public class UserInputPanelConsoleHelper extends PanelConsoleHelper implements P
 
     private static int instanceCount = 0;
 
-    private static final String SPEC_FILE_NAME = "userInputSpec.xml";
-
-    private static final String NODE_ID = "panel";
-
     private static final String INSTANCE_IDENTIFIER = "order";
 
     protected static final String PANEL_IDENTIFIER = "id";
@@ -247,26 +242,13 @@ public class UserInputPanelConsoleHelper extends PanelConsoleHelper implements P
 
         listInputs.clear();
         IXMLElement spec = null;
-        List<IXMLElement> specElements;
         String attribute;
         String dataID;
         String panelid = installData.getPanelsOrder().get(installData.getCurPanelNumber()).getPanelid();
         String instance = Integer.toString(instanceNumber);
 
-        SpecHelper specHelper = new SpecHelper(resources);
-        try
-        {
-            specHelper.readSpec(specHelper.getResource(SPEC_FILE_NAME));
-        }
-        catch (Exception e1)
-        {
-
-            e1.printStackTrace();
-            return false;
-        }
-
-        specElements = specHelper.getSpec().getChildrenNamed(NODE_ID);
-        for (IXMLElement data : specElements)
+        // the specifications are shared by all user input panels, and only read once
+        for (IXMLElement data : UserInputSpec.getSpec(installData, resources).getPanels())
         {
             attribute = data.getAttribute(INSTANCE_IDENTIFIER);
             dataID = data.getAttribute(PANEL_IDENTIFIER);
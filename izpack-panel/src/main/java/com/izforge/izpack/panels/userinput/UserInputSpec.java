@@ -0,0 +1,247 @@
+package com.izforge.izpack.panels.userinput;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.api.adaptator.IXMLElement;
+import com.izforge.izpack.api.adaptator.impl.XMLParser;
+import com.izforge.izpack.api.data.AutomatedInstallData;
+import com.izforge.izpack.api.data.LocaleDatabase;
+import com.izforge.izpack.api.data.ResourceManager;
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * The parsed <tt>userInputSpec.xml</tt>, shared by all user input panels of an installation.
+ * <p/>
+ * The specification is read once per installation, and its panel specifications are indexed on panel identifier and
+ * instance number, so that panels don't re-read XML each time they are activated. The user input langpack is
+ * similarly merged once for each locale.
+ * <p/>
+ * The returned elements are shared, and must not be modified.
+ */
+public class UserInputSpec
+{
+
+    /**
+     * The name of the XML file that specifies the panel layout.
+     */
+    public static final String SPEC_FILE_NAME = "userInputSpec.xml";
+
+    /**
+     * The name of the file containing the user input translations, less the locale suffix.
+     */
+    public static final String LANG_FILE_NAME = "userInputLang.xml";
+
+    /**
+     * The name of panel specification elements.
+     */
+    private static final String NODE_ID = "panel";
+
+    /**
+     * The attribute identifying a panel by its instance number.
+     */
+    private static final String INSTANCE_IDENTIFIER = "order";
+
+    /**
+     * The attribute identifying a panel by its panel identifier.
+     */
+    private static final String PANEL_IDENTIFIER = "id";
+
+    /**
+     * The installation data attribute that the specification is stored under.
+     */
+    private static final String ATTRIBUTE = UserInputSpec.class.getName();
+
+    /**
+     * The panel specifications, in the order they are declared.
+     */
+    private final List<IXMLElement> panels;
+
+    /**
+     * The position of the first panel specification with each instance number.
+     */
+    private final Map<String, Integer> instances = new HashMap<String, Integer>();
+
+    /**
+     * The position of the first panel specification with each panel identifier.
+     */
+    private final Map<String, Integer> panelIds = new HashMap<String, Integer>();
+
+    /**
+     * The merged langpacks, keyed on locale ISO3 code.
+     */
+    private final Map<String, LocaleDatabase> langpacks = new HashMap<String, LocaleDatabase>();
+
+    /**
+     * The resource manager.
+     */
+    private final ResourceManager resources;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(UserInputSpec.class.getName());
+
+
+    /**
+     * Constructs an <tt>UserInputSpec</tt>.
+     *
+     * @param spec      the root element of the specification. May be <tt>null</tt>
+     * @param resources the resource manager
+     */
+    UserInputSpec(IXMLElement spec, ResourceManager resources)
+    {
+        this.resources = resources;
+        List<IXMLElement> list = (spec != null) ? spec.getChildrenNamed(NODE_ID) : new ArrayList<IXMLElement>();
+        panels = Collections.unmodifiableList(list);
+        for (int i = 0; i < panels.size(); ++i)
+        {
+            IXMLElement panel = panels.get(i);
+            index(instances, panel.getAttribute(INSTANCE_IDENTIFIER), i);
+            index(panelIds, panel.getAttribute(PANEL_IDENTIFIER), i);
+        }
+    }
+
+    /**
+     * Returns the specification for an installation, reading it if required.
+     *
+     * @param installData the installation data
+     * @param resources   the resource manager
+     * @return the specification
+     */
+    public static UserInputSpec getSpec(AutomatedInstallData installData, ResourceManager resources)
+    {
+        synchronized (installData)
+        {
+            UserInputSpec result = (UserInputSpec) installData.getAttribute(ATTRIBUTE);
+            if (result == null)
+            {
+                result = new UserInputSpec(read(resources), resources);
+                installData.setAttribute(ATTRIBUTE, result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns the panel specifications, in the order they are declared.
+     *
+     * @return the panel specifications
+     */
+    public List<IXMLElement> getPanels()
+    {
+        return panels;
+    }
+
+    /**
+     * Returns the specification for a panel.
+     * <p/>
+     * This is the first panel specification whose instance number or identifier matches.
+     *
+     * @param panelId  the panel identifier. May be <tt>null</tt>
+     * @param instance the panel instance number
+     * @return the panel specification, or <tt>null</tt> if none is found
+     */
+    public IXMLElement getPanel(String panelId, int instance)
+    {
+        Integer byInstance = instances.get(Integer.toString(instance));
+        Integer byId = (panelId != null) ? panelIds.get(panelId) : null;
+        Integer index;
+        if (byInstance == null)
+        {
+            index = byId;
+        }
+        else if (byId == null)
+        {
+            index = byInstance;
+        }
+        else
+        {
+            index = Math.min(byInstance, byId);
+        }
+        return (index != null) ? panels.get(index) : null;
+    }
+
+    /**
+     * Returns the installation langpack, merged with the user input translations for the current locale.
+     *
+     * @param installData the installation data
+     * @return the merged langpack. This is shared, and must not be modified
+     */
+    public synchronized LocaleDatabase getLangpack(AutomatedInstallData installData)
+    {
+        String iso3 = installData.getLocaleISO3();
+        LocaleDatabase result = langpacks.get(iso3);
+        if (result == null)
+        {
+            result = (LocaleDatabase) installData.getLangpack().clone();
+            InputStream in = null;
+            try
+            {
+                in = resources.getInputStream(LANG_FILE_NAME + "_" + iso3);
+                result.add(in);
+            }
+            catch (Exception exception)
+            {
+                logger.log(Level.WARNING, exception.getMessage(), exception);
+            }
+            finally
+            {
+                FileUtils.close(in);
+            }
+            langpacks.put(iso3, result);
+        }
+        return result;
+    }
+
+    /**
+     * Reads the specification.
+     *
+     * @param resources the resource manager
+     * @return the root element of the specification, or <tt>null</tt> if it doesn't exist or cannot be parsed
+     */
+    private static IXMLElement read(ResourceManager resources)
+    {
+        IXMLElement result = null;
+        InputStream input = null;
+        try
+        {
+            input = resources.getInputStream(SPEC_FILE_NAME);
+            if (input != null)
+            {
+                result = new XMLParser().parse(input);
+            }
+        }
+        catch (Exception exception)
+        {
+            logger.log(Level.FINE, "Failed to read " + SPEC_FILE_NAME, exception);
+        }
+        finally
+        {
+            FileUtils.close(input);
+        }
+        return result;
+    }
+
+    /**
+     * Registers the position of the first panel specification with an identifier.
+     *
+     * @param index    the index to update
+     * @param id       the identifier. May be <tt>null</tt>
+     * @param position the position of the panel specification
+     */
+    private static void index(Map<String, Integer> index, String id, int position)
+    {
+        if (id != null && !index.containsKey(id))
+        {
+            index.put(id, position);
+        }
+    }
+}
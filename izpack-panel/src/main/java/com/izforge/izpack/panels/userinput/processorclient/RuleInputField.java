@@ -46,6 +46,7 @@ import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
 import com.izforge.izpack.installer.data.GUIInstallData;
 import com.izforge.izpack.panels.userinput.RuleTextField;
 import com.izforge.izpack.panels.userinput.processor.Processor;
+import com.izforge.izpack.panels.userinput.validator.AsyncValidator;
 import com.izforge.izpack.panels.userinput.validator.Validator;
 
 /**
@@ -243,7 +244,7 @@ public class RuleInputField extends JComponent implements KeyListener, FocusList
         {
             if (validator != null)
             {
-                validationService = (Validator) Class.forName(validator).newInstance();
+                validationService = AsyncValidator.wrap((Validator) Class.forName(validator).newInstance());
             }
         }
         catch (Throwable t)
@@ -620,6 +621,25 @@ public class RuleInputField extends JComponent implements KeyListener, FocusList
         }
     }
 
+    /**
+     * Validates the field content, without blocking the user interface.
+     * <p/>
+     * If the validation is performed by an {@link AsyncValidator} that hasn't completed, <tt>null</tt> is returned,
+     * and the listener is notified on the event dispatch thread when the result becomes available.
+     *
+     * @param listener the listener to notify when a pending result becomes available
+     * @return <code>true</code> if the validation passes or no implementation of a validation rule exists,
+     *         <code>false</code> if it fails, or <code>null</code> if it is pending
+     */
+    public Boolean validateContents(Runnable listener)
+    {
+        if (validationService instanceof AsyncValidator)
+        {
+            return ((AsyncValidator) validationService).getResult(this, listener);
+        }
+        return validateContents();
+    }
+
     /*---------------------------------------------------------------------------*
      Implementation for KeyListener
      *---------------------------------------------------------------------------*/
@@ -674,6 +694,7 @@ public class RuleInputField extends JComponent implements KeyListener, FocusList
     @Override
     public void keyReleased(KeyEvent event)
     {
+        inputChanged();
     }
 
 
@@ -710,14 +731,27 @@ public class RuleInputField extends JComponent implements KeyListener, FocusList
     }
 
     /**
-     * Invoked when a component loses the keyboard focus. This method does nothing, we are only
-     * interested in 'focus gained' events.
+     * Invoked when a component loses the keyboard focus. This starts validation of the field contents, if the
+     * validator may block.
      *
      * @param event the focus event forwardes by the sytem.
      */
     @Override
     public void focusLost(FocusEvent event)
     {
+        inputChanged();
+    }
+
+    /**
+     * Notifies the validator that the field contents have changed, so that validators that may block can be
+     * evaluated in the background.
+     */
+    private void inputChanged()
+    {
+        if (validationService instanceof AsyncValidator)
+        {
+            ((AsyncValidator) validationService).inputChanged(this);
+        }
     }
 
 
@@ -21,6 +21,8 @@
 
 package com.izforge.izpack.panels.userinput.processorclient;
 
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -28,6 +30,7 @@ import java.util.logging.Logger;
 import javax.swing.JComponent;
 import javax.swing.JTextField;
 
+import com.izforge.izpack.panels.userinput.validator.AsyncValidator;
 import com.izforge.izpack.panels.userinput.validator.Validator;
 
 /**
@@ -101,7 +104,7 @@ public class TextInputField extends JComponent implements ProcessingClient
             if (validator != null)
             {
                 logger.fine("Making Validator for: " + validator);
-                validationService = (Validator) Class.forName(validator).newInstance();
+                validationService = AsyncValidator.wrap((Validator) Class.forName(validator).newInstance());
             }
         }
         catch (Throwable e)
@@ -121,6 +124,19 @@ public class TextInputField extends JComponent implements ProcessingClient
         field = new JTextField(set, size);
         field.setCaretPosition(0);
         add(field);
+
+        if (validationService instanceof AsyncValidator)
+        {
+            // start validating in the background when the user leaves the field
+            field.addFocusListener(new FocusAdapter()
+            {
+                @Override
+                public void focusLost(FocusEvent event)
+                {
+                    ((AsyncValidator) validationService).inputChanged(TextInputField.this);
+                }
+            });
+        }
     }
 
     /**
@@ -185,6 +201,25 @@ public class TextInputField extends JComponent implements ProcessingClient
         }
     }
 
+    /**
+     * Validates the field content, without blocking the user interface.
+     * <p/>
+     * If the validation is performed by an {@link AsyncValidator} that hasn't completed, <tt>null</tt> is returned,
+     * and the listener is notified on the event dispatch thread when the result becomes available.
+     *
+     * @param listener the listener to notify when a pending result becomes available
+     * @return <code>true</code> if the validation passes or no implementation of a validation rule exists,
+     *         <code>false</code> if it fails, or <code>null</code> if it is pending
+     */
+    public Boolean validateContents(Runnable listener)
+    {
+        if (validationService instanceof AsyncValidator)
+        {
+            return ((AsyncValidator) validationService).getResult(this, listener);
+        }
+        return validateContents();
+    }
+
     // javadoc inherited
 
     @Override
@@ -0,0 +1,515 @@
+package com.izforge.izpack.panels.userinput.validator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
+
+import com.izforge.izpack.panels.userinput.processorclient.ProcessingClient;
+
+
+/**
+ * Evaluates a {@link BlockingValidator} off the event dispatch thread.
+ * <p/>
+ * As the user types, {@link #inputChanged} schedules validation of the field contents once input has settled for
+ * a short delay; a pending validation of superseded input is cancelled. Results are cached on the input, so that
+ * by the time the panel is validated the result is usually available.
+ * <p/>
+ * On the event dispatch thread, use {@link #getResult} rather than {@link #validate}. It waits a short time for the
+ * result. If the validator hasn't completed by then, it reports the validation as pending rather than failed or
+ * freezing the user interface. The listener is then notified on the event dispatch thread once the result is
+ * available, so the caller can re-validate. {@link #validate} waits for the result, so only use it off the event
+ * dispatch thread.
+ */
+public class AsyncValidator implements Validator
+{
+
+    /**
+     * The default delay after the last input change before validation starts, in milliseconds.
+     */
+    public static final long DEFAULT_DELAY = 300;
+
+    /**
+     * The default time that {@link #getResult} waits for a validation result, in milliseconds. This is short enough
+     * not to be noticed.
+     */
+    public static final long DEFAULT_TIMEOUT = 100;
+
+    /**
+     * The maximum number of cached results.
+     */
+    private static final int MAX_RESULTS = 16;
+
+    /**
+     * Schedules debounced validations.
+     */
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            new DaemonThreadFactory());
+
+    /**
+     * Runs validations.
+     */
+    private static final ExecutorService workers = Executors.newCachedThreadPool(new DaemonThreadFactory());
+
+    /**
+     * The validator to delegate to.
+     */
+    private final Validator validator;
+
+    /**
+     * The delay after the last input change before validation starts, in milliseconds.
+     */
+    private final long delay;
+
+    /**
+     * The time that {@link #getResult} waits for a validation result, in milliseconds.
+     */
+    private final long timeout;
+
+    /**
+     * The validation results, keyed on input, in least recently used order.
+     */
+    private final Map<Input, ValidationTask> results = new LinkedHashMap<Input, ValidationTask>(
+            MAX_RESULTS, 0.75f, true)
+    {
+        private static final long serialVersionUID = 5418306474405434547L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Input, ValidationTask> eldest)
+        {
+            return size() > MAX_RESULTS;
+        }
+    };
+
+    /**
+     * The input of the pending validation. May be <tt>null</tt>.
+     */
+    private Input pendingInput;
+
+    /**
+     * The scheduled start of the pending validation. May be <tt>null</tt>.
+     */
+    private Future<?> pending;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(AsyncValidator.class.getName());
+
+
+    /**
+     * Constructs an <tt>AsyncValidator</tt>.
+     *
+     * @param validator the validator to delegate to
+     */
+    public AsyncValidator(Validator validator)
+    {
+        this(validator, DEFAULT_DELAY, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Constructs an <tt>AsyncValidator</tt>.
+     *
+     * @param validator the validator to delegate to
+     * @param delay     the delay after the last input change before validation starts, in milliseconds
+     * @param timeout   the time that {@link #getResult} waits for a validation result, in milliseconds
+     */
+    public AsyncValidator(Validator validator, long delay, long timeout)
+    {
+        this.validator = validator;
+        this.delay = delay;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Wraps a validator in an <tt>AsyncValidator</tt> if it may block.
+     *
+     * @param validator the validator. May be <tt>null</tt>
+     * @return an <tt>AsyncValidator</tt> if <tt>validator</tt> is a {@link BlockingValidator}, otherwise
+     *         <tt>validator</tt>
+     */
+    public static Validator wrap(Validator validator)
+    {
+        return (validator instanceof BlockingValidator) ? new AsyncValidator(validator) : validator;
+    }
+
+    /**
+     * Returns the validator being delegated to.
+     *
+     * @return the validator
+     */
+    public Validator getValidator()
+    {
+        return validator;
+    }
+
+    /**
+     * Invoked when the input of a client changes.
+     * <p/>
+     * This schedules validation of the new input, cancelling any pending validation of the previous input.
+     * It must be invoked on the thread that owns the client, typically the event dispatch thread.
+     *
+     * @param client the client
+     */
+    public void inputChanged(ProcessingClient client)
+    {
+        Input input = new Input(client);
+        synchronized (this)
+        {
+            if (input.equals(pendingInput))
+            {
+                return;
+            }
+            cancelPending();
+            final ValidationTask task = getTask(input);
+            if (!task.isDone())
+            {
+                pendingInput = input;
+                pending = scheduler.schedule(new Runnable()
+                {
+                    public void run()
+                    {
+                        workers.execute(task);
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Validates the contents of a client.
+     * <p/>
+     * This uses the cached result for the client's input if there is one, otherwise it waits for the validation to
+     * complete. It should not be used on the event dispatch thread; use {@link #getResult} instead.
+     *
+     * @param client the client object using the services of this validator.
+     * @return <tt>true</tt> if the validation passes, otherwise <tt>false</tt>
+     */
+    public boolean validate(ProcessingClient client)
+    {
+        Boolean result = getResult(start(client), 0);
+        return result != null && result;
+    }
+
+    /**
+     * Returns the validation result for the contents of a client, without blocking the user interface.
+     * <p/>
+     * This uses the cached result for the client's input if there is one, otherwise it waits a short time for the
+     * validation to complete. If the validation is still running after that, <tt>null</tt> is returned, and the
+     * listener is notified on the event dispatch thread when the result becomes available.
+     *
+     * @param client   the client
+     * @param listener the listener to notify when a pending result becomes available
+     * @return the validation result, or <tt>null</tt> if it is pending
+     */
+    public Boolean getResult(ProcessingClient client, Runnable listener)
+    {
+        ValidationTask task = start(client);
+        Boolean result = getResult(task, timeout);
+        if (result == null)
+        {
+            logger.fine("Validation by " + validator.getClass().getName() + " is pending");
+            task.addListener(listener);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the validation task for a client's input, starting it if required.
+     *
+     * @param client the client
+     * @return the validation task
+     */
+    private ValidationTask start(ProcessingClient client)
+    {
+        ValidationTask task;
+        synchronized (this)
+        {
+            task = getTask(new Input(client));
+        }
+        if (!task.isDone())
+        {
+            // a task runs at most once, so this is harmless if it has already been started
+            workers.execute(task);
+        }
+        return task;
+    }
+
+    /**
+     * Waits for the result of a validation task.
+     *
+     * @param task    the task
+     * @param timeout the time to wait, in milliseconds, or <tt>0</tt> to wait until the task completes
+     * @return the validation result, or <tt>null</tt> if the task didn't complete in time
+     */
+    private Boolean getResult(ValidationTask task, long timeout)
+    {
+        Boolean result = false;
+        try
+        {
+            result = (timeout > 0) ? task.get(timeout, TimeUnit.MILLISECONDS) : task.get();
+        }
+        catch (TimeoutException exception)
+        {
+            result = null;
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (CancellationException exception)
+        {
+            logger.log(Level.FINE, "Validation cancelled", exception);
+        }
+        catch (ExecutionException exception)
+        {
+            logger.log(Level.WARNING, "Validation failed: " + exception.getCause(), exception.getCause());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the validation task for an input, creating it if required.
+     *
+     * @param input the input
+     * @return the validation task
+     */
+    private ValidationTask getTask(final Input input)
+    {
+        ValidationTask task = results.get(input);
+        if (task == null || task.isCancelled())
+        {
+            task = new ValidationTask(new Callable<Boolean>()
+            {
+                public Boolean call() throws Exception
+                {
+                    return validator.validate(input);
+                }
+            });
+            results.put(input, task);
+        }
+        return task;
+    }
+
+    /**
+     * Cancels the pending validation, if it hasn't completed.
+     */
+    private void cancelPending()
+    {
+        if (pending != null)
+        {
+            pending.cancel(false);
+            ValidationTask task = results.get(pendingInput);
+            if (task != null && !task.isDone())
+            {
+                task.cancel(true);
+                results.remove(pendingInput);
+            }
+            pending = null;
+            pendingInput = null;
+        }
+    }
+
+    /**
+     * A validation, which notifies listeners on the event dispatch thread when it completes.
+     */
+    private static class ValidationTask extends FutureTask<Boolean>
+    {
+
+        /**
+         * The listeners to notify on completion.
+         */
+        private final List<Runnable> listeners = new ArrayList<Runnable>();
+
+        /**
+         * Constructs a <tt>ValidationTask</tt>.
+         *
+         * @param callable the validation
+         */
+        public ValidationTask(Callable<Boolean> callable)
+        {
+            super(callable);
+        }
+
+        /**
+         * Adds a listener to notify when the validation completes.
+         * <p/>
+         * If the validation has already completed, the listener is notified immediately.
+         *
+         * @param listener the listener
+         */
+        public void addListener(Runnable listener)
+        {
+            synchronized (listeners)
+            {
+                if (!isDone())
+                {
+                    if (!listeners.contains(listener))
+                    {
+                        listeners.add(listener);
+                    }
+                    return;
+                }
+            }
+            notify(listener);
+        }
+
+        /**
+         * Notifies the listeners that the validation has completed or been cancelled.
+         */
+        @Override
+        protected void done()
+        {
+            List<Runnable> notify;
+            synchronized (listeners)
+            {
+                notify = new ArrayList<Runnable>(listeners);
+                listeners.clear();
+            }
+            for (Runnable listener : notify)
+            {
+                notify(listener);
+            }
+        }
+
+        /**
+         * Notifies a listener on the event dispatch thread.
+         *
+         * @param listener the listener
+         */
+        private void notify(Runnable listener)
+        {
+            SwingUtilities.invokeLater(listener);
+        }
+    }
+
+    /**
+     * A snapshot of the input of a {@link ProcessingClient}.
+     * <p/>
+     * Validators are passed this rather than the client, as clients may only be accessed from the event dispatch
+     * thread.
+     */
+    private static class Input implements ProcessingClient
+    {
+
+        /**
+         * The field contents.
+         */
+        private final List<String> fields;
+
+        /**
+         * The client text.
+         */
+        private final String text;
+
+        /**
+         * The validator parameters. May be <tt>null</tt>.
+         */
+        private final Map<String, String> params;
+
+
+        /**
+         * Constructs an <tt>Input</tt>.
+         *
+         * @param client the client to snapshot
+         */
+        public Input(ProcessingClient client)
+        {
+            int count = client.getNumFields();
+            List<String> contents = new ArrayList<String>(count);
+            for (int i = 0; i < count; ++i)
+            {
+                contents.add(client.getFieldContents(i));
+            }
+            fields = Collections.unmodifiableList(contents);
+            text = client.getText();
+            if (client.hasParams() && client.getValidatorParams() != null)
+            {
+                params = Collections.unmodifiableMap(new HashMap<String, String>(client.getValidatorParams()));
+            }
+            else
+            {
+                params = null;
+            }
+        }
+
+        public int getNumFields()
+        {
+            return fields.size();
+        }
+
+        public String getFieldContents(int index)
+        {
+            return fields.get(index);
+        }
+
+        public String getText()
+        {
+            return text;
+        }
+
+        public boolean hasParams()
+        {
+            return params != null;
+        }
+
+        public Map<String, String> getValidatorParams()
+        {
+            return params;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (this == other)
+            {
+                return true;
+            }
+            if (!(other instanceof Input))
+            {
+                return false;
+            }
+            Input input = (Input) other;
+            return fields.equals(input.fields) && (text == null ? input.text == null : text.equals(input.text))
+                    && (params == null ? input.params == null : params.equals(input.params));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int hash = fields.hashCode();
+            hash = 31 * hash + (text != null ? text.hashCode() : 0);
+            return 31 * hash + (params != null ? params.hashCode() : 0);
+        }
+    }
+
+    /**
+     * Creates daemon threads, so that validations don't prevent the installer from exiting.
+     */
+    private static class DaemonThreadFactory implements ThreadFactory
+    {
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "IzPack validator");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
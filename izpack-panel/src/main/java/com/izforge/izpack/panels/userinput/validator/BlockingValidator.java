@@ -0,0 +1,10 @@
+package com.izforge.izpack.panels.userinput.validator;
+
+/**
+ * Marker interface for validators that may block, e.g. on network or disk I/O.
+ * <p/>
+ * Fields wrap these in an {@link AsyncValidator} so that they are evaluated off the event dispatch thread.
+ */
+public interface BlockingValidator extends Validator
+{
+}
@@ -34,7 +34,7 @@ import java.net.ServerSocket;
  *
  * @author thorque
  */
-public class HostAddressValidator implements Validator
+public class HostAddressValidator implements BlockingValidator
 {
 
     public boolean validate(ProcessingClient client)
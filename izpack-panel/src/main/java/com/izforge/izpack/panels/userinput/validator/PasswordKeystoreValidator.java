@@ -23,7 +23,6 @@
 package com.izforge.izpack.panels.userinput.validator;
 
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
-import com.izforge.izpack.panels.userinput.PasswordGroup;
 import com.izforge.izpack.panels.userinput.processorclient.ProcessingClient;
 
 import java.io.FileInputStream;
@@ -41,7 +40,7 @@ import java.util.Map;
  * @author Elmar Grom
  * @author Jeff Gordon
  */
-public class PasswordKeystoreValidator implements Validator
+public class PasswordKeystoreValidator implements BlockingValidator
 {
     private VariableSubstitutor variableSubstitutor;
 
@@ -179,13 +178,11 @@ public class PasswordKeystoreValidator implements Validator
                     client)
     {
         Map<String, String> returnValue = null;
-        PasswordGroup group = null;
         try
         {
-            group = (PasswordGroup) client;
-            if (group.hasParams())
+            if (client.hasParams())
             {
-                Map<String, String> params = group.getValidatorParams();
+                Map<String, String> params = client.getValidatorParams();
                 returnValue = new HashMap<String, String>();
                 for (String key : params.keySet())
                 {
@@ -34,7 +34,7 @@ import java.net.ServerSocket;
  *
  * @author thorque
  */
-public class PortValidator implements Validator
+public class PortValidator implements BlockingValidator
 {
 
     public boolean validate(ProcessingClient client)
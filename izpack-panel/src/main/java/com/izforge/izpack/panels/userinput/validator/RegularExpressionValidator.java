@@ -40,6 +40,16 @@ public class RegularExpressionValidator implements Validator
 
     private static final String PATTERN_PARAM = "pattern";
 
+    /**
+     * The pattern string of the last compiled pattern.
+     */
+    private String patternString;
+
+    /**
+     * The compiled pattern. This is only recompiled if the pattern string changes.
+     */
+    private Pattern pattern;
+
     public boolean validate(ProcessingClient client)
     {
 
@@ -54,8 +64,23 @@ public class RegularExpressionValidator implements Validator
         {
             patternString = STR_PATTERN_DEFAULT;
         }
-        Pattern pattern = Pattern.compile(patternString);
-        return pattern.matcher(getString(client)).matches();
+        return getPattern(patternString).matcher(getString(client)).matches();
+    }
+
+    /**
+     * Returns the compiled pattern for a pattern string, compiling it if it differs from the last one.
+     *
+     * @param patternString the pattern string
+     * @return the compiled pattern
+     */
+    private synchronized Pattern getPattern(String patternString)
+    {
+        if (pattern == null || !patternString.equals(this.patternString))
+        {
+            pattern = Pattern.compile(patternString);
+            this.patternString = patternString;
+        }
+        return pattern;
     }
 
     private String getString(ProcessingClient client)
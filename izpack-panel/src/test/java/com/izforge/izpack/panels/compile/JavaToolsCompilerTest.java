@@ -0,0 +1,162 @@
+package com.izforge.izpack.panels.compile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link JavaToolsCompiler} class.
+ */
+public class JavaToolsCompilerTest
+{
+
+    /**
+     * Temporary folder for sources.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The compiler.
+     */
+    private JavaToolsCompiler compiler;
+
+
+    /**
+     * Sets up the test case.
+     */
+    @Before
+    public void setUp()
+    {
+        assumeTrue(JavaToolsCompiler.isAvailable());
+        compiler = new JavaToolsCompiler();
+    }
+
+    /**
+     * Verifies that a valid source is compiled, with its class file written alongside it.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test
+    public void testCompile() throws IOException
+    {
+        File source = write("A.java", "public class A { B b; }\n");
+        File dependency = write("B.java", "public class B { }\n");
+
+        JavaToolsCompiler.Result result = compiler.compile(Arrays.asList(source, dependency),
+                                                           Collections.<String>emptyList(),
+                                                           Collections.<String>emptyList());
+        assertTrue(result.isSuccess());
+        assertTrue(result.getDiagnostics().isEmpty());
+        assertTrue(new File(source.getParentFile(), "A.class").exists());
+        assertTrue(new File(source.getParentFile(), "B.class").exists());
+    }
+
+    /**
+     * Verifies that errors are reported as diagnostics, with their line numbers.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test
+    public void testError() throws IOException
+    {
+        File source = write("Broken.java", "public class Broken\n{\n    int x = \"x\";\n}\n");
+
+        JavaToolsCompiler.Result result = compiler.compile(Arrays.asList(source), Collections.<String>emptyList(),
+                                                           Collections.<String>emptyList());
+        assertFalse(result.isSuccess());
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = result.getDiagnostics();
+        assertEquals(1, diagnostics.size());
+        assertEquals(Diagnostic.Kind.ERROR, diagnostics.get(0).getKind());
+        assertEquals(3, diagnostics.get(0).getLineNumber());
+
+        String formatted = JavaToolsCompiler.format(diagnostics);
+        assertTrue(formatted, formatted.contains("Broken.java:3: error: "));
+        assertFalse(new File(source.getParentFile(), "Broken.class").exists());
+    }
+
+    /**
+     * Verifies that a compilation sees the classes produced by an earlier one, and that the class path of one
+     * compilation isn't used by the next.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test
+    public void testClassPathNotRetained() throws IOException
+    {
+        File lib = temporaryFolder.newFolder("lib");
+        File library = write(new File(lib, "L.java"), "public class L { }\n");
+        List<String> none = Collections.emptyList();
+        assertTrue(compiler.compile(Arrays.asList(library), none, none).isSuccess());
+
+        File user1 = write("U.java", "public class U { L l; }\n");
+        assertTrue(compiler.compile(Arrays.asList(user1), none, Arrays.asList(lib.getPath())).isSuccess());
+
+        File user2 = write("V.java", "public class V { L l; }\n");
+        assertFalse(compiler.compile(Arrays.asList(user2), none, none).isSuccess());
+    }
+
+    /**
+     * Verifies that invalid options are detected.
+     */
+    @Test
+    public void testCheckOptions()
+    {
+        assertNull(compiler.checkOptions(Arrays.asList("-g", "-nowarn")));
+        assertNotNull(compiler.checkOptions(Arrays.asList("-nosuchoption")));
+    }
+
+    /**
+     * Writes a source file.
+     *
+     * @param name    the file name
+     * @param content the file content
+     * @return the file
+     * @throws IOException for any I/O error
+     */
+    private File write(String name, String content) throws IOException
+    {
+        return write(new File(temporaryFolder.getRoot(), name), content);
+    }
+
+    /**
+     * Writes a source file.
+     *
+     * @param file    the file
+     * @param content the file content
+     * @return the file
+     * @throws IOException for any I/O error
+     */
+    private File write(File file, String content) throws IOException
+    {
+        FileWriter writer = new FileWriter(file);
+        try
+        {
+            writer.write(content);
+        }
+        finally
+        {
+            writer.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,366 @@
+package com.izforge.izpack.panels.packs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.izforge.izpack.api.data.LocaleDatabase;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.rules.RulesEngineImpl;
+import com.izforge.izpack.installer.data.GUIInstallData;
+import com.izforge.izpack.installer.debugger.Debugger;
+
+
+/**
+ * Tests the {@link PacksModel} class.
+ */
+public class PacksModelTest
+{
+
+    /**
+     * The installation data.
+     */
+    private GUIInstallData installData;
+
+    /**
+     * The rules engine.
+     */
+    private RulesEngine rules;
+
+    /**
+     * The packs panel.
+     */
+    private PacksPanelInterface panel;
+
+    /**
+     * The size of the selected packs, as last reported to the panel.
+     */
+    private long bytes;
+
+    /**
+     * The no. of times pack dependencies or dependants have been looked up.
+     */
+    private int dependencyLookups;
+
+    /**
+     * The no. of times pack conditions have been evaluated.
+     */
+    private int conditionEvaluations;
+
+
+    /**
+     * Sets up the test case.
+     */
+    @Before
+    public void setUp()
+    {
+        installData = new GUIInstallData(new DefaultVariables());
+        rules = mock(RulesEngine.class);
+        when(rules.canInstallPack(anyString(), any(Variables.class))).thenReturn(true);
+        panel = new PacksPanelStub();
+    }
+
+    /**
+     * Verifies that preselected packs are selected, and that selecting a pack deselects the other packs in its
+     * exclude group.
+     */
+    @Test
+    public void testExcludeGroup()
+    {
+        Pack a = addPack("a", 10, false, true, "group");
+        Pack b = addPack("b", 20, false, true, "group");
+        Pack c = addPack("c", 40, false, false, "group");
+
+        PacksModel model = createModel();
+
+        // the first preselected pack in the group wins
+        checkSelected(a, b, c);
+
+        model.setValueAt(1, 2, 0);
+        checkSelected(c, a, b);
+        assertEquals(40, bytes);
+
+        model.setValueAt(1, 1, 0);
+        checkSelected(b, a, c);
+        assertEquals(20, bytes);
+    }
+
+    /**
+     * Verifies that deselecting a pack disables the packs that depend on it, directly or indirectly, and that
+     * reselecting it enables them again.
+     */
+    @Test
+    public void testDependencies()
+    {
+        Pack base = addPack("base", 1, false, true, null);
+        Pack lib = addPack("lib", 2, false, true, null, "base");
+        Pack app = addPack("app", 4, false, true, null, "lib");
+        Pack other = addPack("other", 8, false, true, null);
+
+        PacksModel model = createModel();
+        assertTrue(installData.getSelectedPacks().containsAll(Arrays.asList(base, lib, app, other)));
+
+        model.setValueAt(0, 0, 0);
+        assertEquals(0, model.getValueAt(0, 0));
+        assertEquals(-2, model.getValueAt(1, 0));
+        assertEquals(-2, model.getValueAt(2, 0));
+        checkSelected(other, base, lib, app);
+        assertEquals(8, bytes);
+
+        // reselecting enables the direct dependants only
+        model.setValueAt(1, 0, 0);
+        assertEquals(1, model.getValueAt(0, 0));
+        assertEquals(0, model.getValueAt(1, 0));
+        assertEquals(-2, model.getValueAt(2, 0));
+        checkSelected(base, lib, app);
+        assertEquals(9, bytes);
+
+        model.setValueAt(1, 1, 0);
+        assertEquals(0, model.getValueAt(2, 0));
+        checkSelected(lib, app);
+        assertEquals(11, bytes);
+    }
+
+    /**
+     * Verifies that the required status of a pack is propagated to all of the packs that it depends on, including
+     * when dependencies are shared or cyclic.
+     */
+    @Test
+    public void testRequiredDependencies()
+    {
+        Pack a = addPack("a", 1, false, false, null, "c");
+        Pack b = addPack("b", 2, false, false, null, "a");
+        Pack c = addPack("c", 4, false, false, null, "b");
+        Pack d = addPack("d", 8, false, false, null, "a", "b");
+        Pack e = addPack("e", 16, true, false, null, "d", "a");
+        Pack f = addPack("f", 32, false, false, null);
+
+        PacksModel model = createModel();
+        for (int i = 0; i < 5; ++i)
+        {
+            assertEquals(-1, model.getValueAt(i, 0));
+            assertFalse(model.isCellEditable(i, 0));
+        }
+        assertEquals(0, model.getValueAt(5, 0));
+        assertTrue(installData.getSelectedPacks().containsAll(Arrays.asList(a, b, c, d, e)));
+        assertFalse(installData.getSelectedPacks().contains(f));
+
+        model.setValueAt(1, 5, 0);
+        assertEquals(63, bytes);
+    }
+
+    /**
+     * Verifies that packs whose conditions aren't fulfilled are disabled, and that optional packs are deselected.
+     */
+    @Test
+    public void testConditions()
+    {
+        Pack a = addPack("a", 1, false, true, null);
+        Pack b = addPack("b", 2, false, true, null);
+        Pack c = addPack("c", 4, false, true, null);
+        when(rules.canInstallPack(eq("a"), any(Variables.class))).thenReturn(false);
+        when(rules.canInstallPack(eq("b"), any(Variables.class))).thenReturn(false);
+        when(rules.canInstallPackOptional(eq("b"), any(Variables.class))).thenReturn(true);
+
+        PacksModel model = createModel();
+        assertEquals(-2, model.getValueAt(0, 0));
+        assertEquals(0, model.getValueAt(1, 0));
+        assertEquals(1, model.getValueAt(2, 0));
+        checkSelected(c, a, b);
+
+        model.setValueAt(1, 1, 0);
+        checkSelected(b, a);
+        assertEquals(6, bytes);
+    }
+
+    /**
+     * Verifies that the dependency graph is only traversed when the model is created, and that each selection change
+     * evaluates pack conditions a bounded no. of times, when there are thousands of packs with a long dependency chain
+     * and large exclude groups.
+     */
+    @Test
+    public void testLargeSelection()
+    {
+        rules = new RulesEngineImpl(installData, null)
+        {
+            @Override
+            public boolean canInstallPack(String packid, Variables variables)
+            {
+                ++conditionEvaluations;
+                return super.canInstallPack(packid, variables);
+            }
+        };
+        int count = 2500;
+        int total = count * 2;
+        for (int i = 0; i < count; ++i)
+        {
+            String[] dependencies = (i == 0) ? new String[0] : (i == 1) ? new String[]{"p0"}
+                    : new String[]{"p" + (i - 1), "p" + (i - 2)};
+            addPack("p" + i, 1, false, true, null, dependencies);
+        }
+        for (int i = 0; i < count; ++i)
+        {
+            addPack("q" + i, 1000, false, false, "group" + (i % 10));
+        }
+
+        PacksModel model = createModel();
+        assertEquals(count, installData.getSelectedPacks().size());
+
+        // each pack's dependencies, and each dependency's dependants, are looked up once
+        assertTrue("Dependency lookups: " + dependencyLookups, dependencyLookups <= total + 2 * count);
+
+        dependencyLookups = 0;
+        int changes = 0;
+        conditionEvaluations = 0;
+
+        // deselecting the root of the chain disables everything else
+        model.setValueAt(0, 0, 0);
+        ++changes;
+        assertEquals(0, bytes);
+        assertEquals(-2, model.getValueAt(count - 1, 0));
+
+        // reselecting it enables the next pack in the chain
+        model.setValueAt(1, 0, 0);
+        ++changes;
+        assertEquals(1, bytes);
+        assertEquals(0, model.getValueAt(1, 0));
+        assertEquals(-2, model.getValueAt(2, 0));
+
+        for (int i = 1; i < 100; ++i)
+        {
+            model.setValueAt(1, i, 0);
+            ++changes;
+        }
+        assertEquals(100, bytes);
+        assertEquals(0, model.getValueAt(100, 0));
+
+        // only one pack in each exclude group may be selected
+        for (int i = count; i < count + 100; ++i)
+        {
+            model.setValueAt(1, i, 0);
+            ++changes;
+        }
+        assertEquals(100 + 10 * 1000, bytes);
+        assertEquals(110, installData.getSelectedPacks().size());
+
+        // selection changes use the dependency index built when the model was created
+        assertEquals(0, dependencyLookups);
+
+        // each change evaluates the conditions of every pack, without restarting the evaluation on each change
+        assertTrue("Condition evaluations: " + conditionEvaluations, conditionEvaluations <= changes * (total + 1));
+    }
+
+    /**
+     * Creates a new model.
+     *
+     * @return a new model
+     */
+    private PacksModel createModel()
+    {
+        return new PacksModel(panel, installData, rules);
+    }
+
+    /**
+     * Adds a pack to the available packs.
+     *
+     * @param name         the pack name
+     * @param size         the pack size
+     * @param required     determines if the pack is required
+     * @param preselected  determines if the pack is selected
+     * @param excludeGroup the pack exclude group. May be <tt>null</tt>
+     * @param dependencies the names of the packs that the pack depends on
+     * @return a new pack
+     */
+    private Pack addPack(String name, long size, boolean required, boolean preselected, String excludeGroup,
+                         String... dependencies)
+    {
+        List<String> depends = (dependencies.length != 0) ? Arrays.asList(dependencies) : null;
+        Pack pack = new Pack(name, name, null, null, depends, required, preselected, false, excludeGroup, true)
+        {
+            @Override
+            public List<String> getDependencies()
+            {
+                ++dependencyLookups;
+                return super.getDependencies();
+            }
+
+            @Override
+            public List<String> getDependants()
+            {
+                ++dependencyLookups;
+                return super.getDependants();
+            }
+        };
+        pack.setSize(size);
+        installData.getAvailablePacks().add(pack);
+        if (preselected)
+        {
+            installData.getSelectedPacks().add(pack);
+        }
+        return pack;
+    }
+
+    /**
+     * Verifies that a pack is selected, and that others are not.
+     *
+     * @param selected   the selected pack
+     * @param unselected the unselected packs
+     */
+    private void checkSelected(Pack selected, Pack... unselected)
+    {
+        List<Pack> packs = installData.getSelectedPacks();
+        assertTrue(packs.contains(selected));
+        for (Pack pack : unselected)
+        {
+            assertFalse(packs.contains(pack));
+        }
+    }
+
+    /**
+     * Records the size of the selected packs.
+     */
+    private class PacksPanelStub implements PacksPanelInterface
+    {
+        public LocaleDatabase getLangpack()
+        {
+            return null;
+        }
+
+        public long getBytes()
+        {
+            return bytes;
+        }
+
+        public void setBytes(long bytes)
+        {
+            PacksModelTest.this.bytes = bytes;
+        }
+
+        public void showSpaceRequired()
+        {
+        }
+
+        public void showFreeSpace()
+        {
+        }
+
+        public Debugger getDebugger()
+        {
+            return null;
+        }
+    }
+}
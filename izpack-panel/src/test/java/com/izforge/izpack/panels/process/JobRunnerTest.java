@@ -0,0 +1,150 @@
+package com.izforge.izpack.panels.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.api.handler.AbstractUIProcessHandler;
+
+
+/**
+ * Tests the {@link JobRunner} class.
+ */
+public class JobRunnerTest
+{
+
+    /**
+     * The order that jobs ran in.
+     */
+    private final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+    /**
+     * The number of jobs running.
+     */
+    private final AtomicInteger running = new AtomicInteger();
+
+    /**
+     * The maximum number of jobs that ran at once.
+     */
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    /**
+     * The handler.
+     */
+    private final AbstractUIProcessHandler handler = mock(AbstractUIProcessHandler.class);
+
+    /**
+     * The variables.
+     */
+    private final Variables variables = mock(Variables.class);
+
+
+    /**
+     * Verifies that with a parallelism of 1, jobs without dependencies run in the order they were declared.
+     */
+    @Test
+    public void testSequential()
+    {
+        List<ProcessPanelWorker.ProcessingJob> jobs = Arrays.asList(job("a", 0, true), job("b", 0, true),
+                                                                    job("c", 0, true));
+        assertTrue(new JobRunner(1).run(jobs, handler, variables));
+        assertEquals(Arrays.asList("a", "b", "c"), order);
+        assertEquals(1, maxRunning.get());
+    }
+
+    /**
+     * Verifies that independent jobs run concurrently, up to the parallelism limit, and that jobs only start once
+     * their dependencies complete.
+     */
+    @Test
+    public void testDependencies()
+    {
+        List<ProcessPanelWorker.ProcessingJob> jobs = Arrays.asList(job("d", 0, true, "a", "b", "c"),
+                                                                    job("a", 100, true), job("b", 100, true),
+                                                                    job("c", 100, true), job("e", 0, true, "d"),
+                                                                    job("f", 0, true, "skipped"));
+        assertTrue(new JobRunner(2).run(jobs, handler, variables));
+        assertEquals(6, order.size());
+        assertTrue(order.indexOf("d") > order.indexOf("a"));
+        assertTrue(order.indexOf("d") > order.indexOf("b"));
+        assertTrue(order.indexOf("d") > order.indexOf("c"));
+        assertTrue(order.indexOf("e") > order.indexOf("d"));
+        assertEquals(2, maxRunning.get());
+    }
+
+    /**
+     * Verifies that once a job fails, its dependents and jobs that haven't started don't run.
+     */
+    @Test
+    public void testFailure()
+    {
+        List<ProcessPanelWorker.ProcessingJob> jobs = Arrays.asList(job("a", 0, false), job("b", 0, true, "a"),
+                                                                    job("c", 0, true));
+        assertFalse(new JobRunner(1).run(jobs, handler, variables));
+        assertEquals(Arrays.asList("a"), order);
+    }
+
+    /**
+     * Verifies that circular dependencies are reported.
+     */
+    @Test
+    public void testCircular()
+    {
+        List<ProcessPanelWorker.ProcessingJob> jobs = Arrays.asList(job("a", 0, true, "b"), job("b", 0, true, "a"),
+                                                                    job("c", 0, true));
+        assertFalse(new JobRunner(2).run(jobs, handler, variables));
+        assertEquals(Arrays.asList("c"), order);
+        verify(handler).emitError(anyString(), anyString());
+    }
+
+    /**
+     * Creates a job.
+     *
+     * @param name         the job name
+     * @param delay        the time the job takes, in milliseconds
+     * @param result       the job result
+     * @param dependencies the names of the jobs it depends on
+     * @return a new job
+     */
+    private ProcessPanelWorker.ProcessingJob job(final String name, final long delay, final boolean result,
+                                                 String... dependencies)
+    {
+        ProcessPanelWorker.Processable processable = new ProcessPanelWorker.Processable()
+        {
+            public boolean run(AbstractUIProcessHandler handler, Variables variables)
+            {
+                int count = running.incrementAndGet();
+                synchronized (maxRunning)
+                {
+                    maxRunning.set(Math.max(maxRunning.get(), count));
+                }
+                try
+                {
+                    Thread.sleep(delay);
+                }
+                catch (InterruptedException exception)
+                {
+                    return false;
+                }
+                order.add(name);
+                running.decrementAndGet();
+                return result;
+            }
+        };
+        List<ProcessPanelWorker.Processable> processables = new ArrayList<ProcessPanelWorker.Processable>();
+        processables.add(processable);
+        return new ProcessPanelWorker.ProcessingJob(name, name, Arrays.asList(dependencies), processables);
+    }
+}
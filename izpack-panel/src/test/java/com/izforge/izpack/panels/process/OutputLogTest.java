@@ -0,0 +1,101 @@
+package com.izforge.izpack.panels.process;
+
+import static org.junit.Assert.assertEquals;
+
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link OutputLog} class.
+ */
+public class OutputLogTest
+{
+
+    /**
+     * Verifies that lines are displayed when flushed, and that only the most recent lines are kept.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testTrim() throws Exception
+    {
+        final JTextArea area = new JTextArea();
+        final OutputLog log = new OutputLog(area, 3, 60000);
+
+        log.append("1");
+        log.append("2");
+        flush(log);
+        assertEquals("1\n2\n", area.getText());
+
+        log.append("3");
+        log.append("4");
+        log.append("5");
+        flush(log);
+        assertEquals("3\n4\n5\n", area.getText());
+        assertEquals(area.getDocument().getLength(), area.getCaretPosition());
+    }
+
+    /**
+     * Verifies that when more lines are appended between flushes than may be displayed, only the most recent are
+     * kept.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testOverflow() throws Exception
+    {
+        JTextArea area = new JTextArea();
+        OutputLog log = new OutputLog(area, 100, 60000);
+        log.append("old");
+        flush(log);
+
+        for (int i = 0; i < 200000; ++i)
+        {
+            log.append(Integer.toString(i));
+        }
+        flush(log);
+        String[] lines = area.getText().split("\n");
+        assertEquals(100, lines.length);
+        assertEquals("199900", lines[0]);
+        assertEquals("199999", lines[99]);
+    }
+
+    /**
+     * Verifies that pending lines are flushed by the timer.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testTimer() throws Exception
+    {
+        JTextArea area = new JTextArea();
+        OutputLog log = new OutputLog(area, 100, 10);
+        log.append("line");
+        for (int i = 0; i < 100 && area.getDocument().getLength() == 0; ++i)
+        {
+            Thread.sleep(50);
+        }
+        flush(log);
+        assertEquals("line\n", area.getText());
+    }
+
+    /**
+     * Flushes the log on the event dispatch thread.
+     *
+     * @param log the log
+     * @throws Exception for any error
+     */
+    private void flush(final OutputLog log) throws Exception
+    {
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            public void run()
+            {
+                log.flush();
+            }
+        });
+    }
+}
@@ -0,0 +1,136 @@
+package com.izforge.izpack.panels.userinput;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.izforge.izpack.api.adaptator.IXMLElement;
+import com.izforge.izpack.api.data.LocaleDatabase;
+import com.izforge.izpack.api.data.ResourceManager;
+import com.izforge.izpack.api.exception.ResourceNotFoundException;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.installer.data.GUIInstallData;
+
+
+/**
+ * Tests the {@link UserInputSpec} class.
+ */
+public class UserInputSpecTest
+{
+
+    /**
+     * The installation data.
+     */
+    private GUIInstallData installData;
+
+    /**
+     * The resource manager.
+     */
+    private ResourceManager resources;
+
+
+    /**
+     * Sets up the test case.
+     *
+     * @throws Exception for any error
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        installData = new GUIInstallData(new DefaultVariables());
+        installData.setLocaleISO3("eng");
+        installData.setLangpack(new LocaleDatabase(stream("<langpack><str id='a' txt='A'/></langpack>")));
+
+        resources = mock(ResourceManager.class);
+        when(resources.getInputStream(UserInputSpec.SPEC_FILE_NAME)).thenReturn(stream(
+                "<userInput>"
+                        + "<panel order='0'><field type='title' id='p0'/></panel>"
+                        + "<panel id='named'><field type='title' id='named'/></panel>"
+                        + "<panel order='1' id='other'/>"
+                        + "<panel order='2'/>"
+                        + "<panel id='named'/>"
+                        + "</userInput>"));
+        when(resources.getInputStream(UserInputSpec.LANG_FILE_NAME + "_eng")).thenReturn(
+                stream("<langpack><str id='b' txt='B'/></langpack>"));
+    }
+
+    /**
+     * Verifies that the specification is read once, and shared.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testShared() throws Exception
+    {
+        UserInputSpec spec = UserInputSpec.getSpec(installData, resources);
+        assertSame(spec, UserInputSpec.getSpec(installData, resources));
+        assertEquals(5, spec.getPanels().size());
+
+        LocaleDatabase langpack = spec.getLangpack(installData);
+        assertSame(langpack, spec.getLangpack(installData));
+        assertEquals("A", langpack.get("a"));
+        assertEquals("B", langpack.get("b"));
+        assertFalse(installData.getLangpack().containsKey("b"));
+
+        verify(resources, times(1)).getInputStream(UserInputSpec.SPEC_FILE_NAME);
+        verify(resources, times(1)).getInputStream(UserInputSpec.LANG_FILE_NAME + "_eng");
+    }
+
+    /**
+     * Verifies that panels are looked up by instance number and identifier, and that the first matching
+     * specification is returned.
+     */
+    @Test
+    public void testGetPanel()
+    {
+        UserInputSpec spec = UserInputSpec.getSpec(installData, resources);
+        IXMLElement first = spec.getPanels().get(0);
+        IXMLElement named = spec.getPanels().get(1);
+
+        assertSame(first, spec.getPanel(null, 0));
+        assertSame(first, spec.getPanel("named", 0));
+        assertSame(named, spec.getPanel("named", 7));
+        assertSame(named, spec.getPanel("named", 2));
+        assertSame(spec.getPanels().get(2), spec.getPanel("other", 2));
+        assertSame(spec.getPanels().get(3), spec.getPanel(null, 2));
+        assertNull(spec.getPanel("unknown", 9));
+    }
+
+    /**
+     * Verifies that a missing specification results in no panels.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testMissingSpec() throws Exception
+    {
+        when(resources.getInputStream(UserInputSpec.SPEC_FILE_NAME)).thenThrow(
+                new ResourceNotFoundException("not found"));
+        UserInputSpec spec = UserInputSpec.getSpec(installData, resources);
+        assertEquals(0, spec.getPanels().size());
+        assertNull(spec.getPanel("named", 0));
+    }
+
+    /**
+     * Helper to create a stream from a string.
+     *
+     * @param content the stream content
+     * @return a new stream
+     * @throws Exception for any error
+     */
+    private static InputStream stream(String content) throws Exception
+    {
+        return new ByteArrayInputStream(content.getBytes("UTF-8"));
+    }
+}
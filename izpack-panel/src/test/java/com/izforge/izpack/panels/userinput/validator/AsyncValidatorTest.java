@@ -0,0 +1,268 @@
+package com.izforge.izpack.panels.userinput.validator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.izforge.izpack.panels.userinput.processorclient.ProcessingClient;
+
+
+/**
+ * Tests the {@link AsyncValidator} class.
+ */
+public class AsyncValidatorTest
+{
+
+    /**
+     * Verifies that only blocking validators are wrapped.
+     */
+    @Test
+    public void testWrap()
+    {
+        Validator validator = new NotEmptyValidator();
+        assertSame(validator, AsyncValidator.wrap(validator));
+        assertTrue(AsyncValidator.wrap(new HostAddressValidator()) instanceof AsyncValidator);
+        assertTrue(AsyncValidator.wrap(new PortValidator()) instanceof AsyncValidator);
+    }
+
+    /**
+     * Verifies that results are cached on the input.
+     */
+    @Test
+    public void testCache()
+    {
+        SlowValidator slow = new SlowValidator(0);
+        AsyncValidator validator = new AsyncValidator(slow, 0, 5000);
+
+        assertTrue(validator.validate(new Client("valid")));
+        assertTrue(validator.validate(new Client("valid")));
+        assertFalse(validator.validate(new Client("invalid")));
+        assertTrue(validator.validate(new Client("valid")));
+        assertEquals(2, slow.getInputs().size());
+    }
+
+    /**
+     * Verifies that a result is reported as pending if the validator doesn't complete in time, that the listener is
+     * notified when it completes, and that the result is then used.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testPending() throws Exception
+    {
+        SlowValidator slow = new SlowValidator(500);
+        AsyncValidator validator = new AsyncValidator(slow, 0, 50);
+        final CountDownLatch notified = new CountDownLatch(1);
+        Runnable listener = new Runnable()
+        {
+            public void run()
+            {
+                notified.countDown();
+            }
+        };
+
+        assertNull(validator.getResult(new Client("valid"), listener));
+        assertTrue(notified.await(5000, TimeUnit.MILLISECONDS));
+        assertEquals(Boolean.TRUE, validator.getResult(new Client("valid"), listener));
+        assertEquals(1, slow.getInputs().size());
+    }
+
+    /**
+     * Verifies that {@link AsyncValidator#validate} waits for the result rather than failing if the validator
+     * doesn't complete within the timeout.
+     */
+    @Test
+    public void testValidateWaits()
+    {
+        SlowValidator slow = new SlowValidator(300);
+        AsyncValidator validator = new AsyncValidator(slow, 0, 50);
+
+        assertTrue(validator.validate(new Client("valid")));
+        assertFalse(validator.validate(new Client("invalid")));
+        assertEquals(2, slow.getInputs().size());
+    }
+
+    /**
+     * Verifies that input changes are debounced, so that only the settled input is validated, and that its result
+     * is available when the client is validated.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testDebounce() throws Exception
+    {
+        SlowValidator slow = new SlowValidator(0);
+        AsyncValidator validator = new AsyncValidator(slow, 200, 5000);
+
+        validator.inputChanged(new Client("v"));
+        validator.inputChanged(new Client("va"));
+        validator.inputChanged(new Client("val"));
+        validator.inputChanged(new Client("valid"));
+        assertTrue(slow.await(5000));
+
+        assertTrue(validator.validate(new Client("valid")));
+        assertEquals(Collections.singletonList("valid"), slow.getInputs());
+    }
+
+    /**
+     * Verifies that the regular expression validator uses the pattern parameter.
+     */
+    @Test
+    public void testRegularExpression()
+    {
+        RegularExpressionValidator validator = new RegularExpressionValidator();
+        Client digits = new Client("123");
+        digits.params.put("pattern", "[0-9]+");
+        Client letters = new Client("abc");
+        letters.params.put("pattern", "[0-9]+");
+        assertTrue(validator.validate(digits));
+        assertFalse(validator.validate(letters));
+
+        // changing the pattern recompiles it
+        letters.params.put("pattern", "[a-z]+");
+        digits.params.put("pattern", "[a-z]+");
+        assertTrue(validator.validate(letters));
+        assertFalse(validator.validate(digits));
+    }
+
+    /**
+     * A validator that accepts "valid", after a delay.
+     */
+    private static class SlowValidator implements BlockingValidator
+    {
+
+        /**
+         * The delay, in milliseconds.
+         */
+        private final long delay;
+
+        /**
+         * The inputs validated.
+         */
+        private final List<String> inputs = new ArrayList<String>();
+
+        /**
+         * Signalled when a validation completes.
+         */
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+
+        /**
+         * Constructs a <tt>SlowValidator</tt>.
+         *
+         * @param delay the delay, in milliseconds
+         */
+        public SlowValidator(long delay)
+        {
+            this.delay = delay;
+        }
+
+        public boolean validate(ProcessingClient client)
+        {
+            try
+            {
+                Thread.sleep(delay);
+            }
+            catch (InterruptedException exception)
+            {
+                return false;
+            }
+            synchronized (inputs)
+            {
+                inputs.add(client.getText());
+            }
+            completed.countDown();
+            return "valid".equals(client.getText());
+        }
+
+        /**
+         * Waits for a validation to complete.
+         *
+         * @param timeout the maximum time to wait, in milliseconds
+         * @return <tt>true</tt> if a validation completed
+         * @throws InterruptedException if interrupted
+         */
+        public boolean await(long timeout) throws InterruptedException
+        {
+            return completed.await(timeout, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Returns the inputs validated.
+         *
+         * @return the inputs
+         */
+        public List<String> getInputs()
+        {
+            synchronized (inputs)
+            {
+                return new ArrayList<String>(inputs);
+            }
+        }
+    }
+
+    /**
+     * A single field client.
+     */
+    private static class Client implements ProcessingClient
+    {
+
+        /**
+         * The field contents.
+         */
+        private final String text;
+
+        /**
+         * The validator parameters.
+         */
+        private final Map<String, String> params = new HashMap<String, String>();
+
+
+        /**
+         * Constructs a <tt>Client</tt>.
+         *
+         * @param text the field contents
+         */
+        public Client(String text)
+        {
+            this.text = text;
+        }
+
+        public int getNumFields()
+        {
+            return 1;
+        }
+
+        public String getFieldContents(int index)
+        {
+            return text;
+        }
+
+        public String getText()
+        {
+            return text;
+        }
+
+        public boolean hasParams()
+        {
+            return !params.isEmpty();
+        }
+
+        public Map<String, String> getValidatorParams()
+        {
+            return params;
+        }
+    }
+}
@@ -290,7 +290,7 @@ public class MultiVolumeUnpackerTest
         PackCompressor compressor = new DefaultPackCompressor();
         CompilerData data = new CompilerData(null, baseDir.getPath(), installerJar.getPath(), true);
         MultiVolumePackager packager = new MultiVolumePackager(properties, packagerListener, jar, mergeManager,
-                                                               resolver, mergeableResolver, compressor, data);
+                                                               resolver, mergeableResolver, compressor, data, null);
         packager.setInfo(new Info());
         return packager;
     }
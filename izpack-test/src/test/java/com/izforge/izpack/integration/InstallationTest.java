@@ -19,6 +19,7 @@ import org.junit.runner.RunWith;
 import com.izforge.izpack.api.GuiId;
 import com.izforge.izpack.api.data.ResourceManager;
 import com.izforge.izpack.compiler.container.TestInstallationContainer;
+import com.izforge.izpack.gui.ImageResources;
 import com.izforge.izpack.installer.container.impl.InstallerContainer;
 import com.izforge.izpack.installer.data.GUIInstallData;
 import com.izforge.izpack.installer.gui.InstallerController;
@@ -73,7 +74,7 @@ public class InstallationTest
     @InstallFile("samples/helloAndFinish.xml")
     public void testHelloAndFinishPanels() throws Exception
     {
-        Image image = resourceManager.getImageIconResource("/com/izforge/izpack/img/JFrameIcon.png").getImage();
+        Image image = ImageResources.getImageIcon(resourceManager, "/com/izforge/izpack/img/JFrameIcon.png").getImage();
         assertThat(image, IsNull.<Object>notNullValue());
 
         languageDialog.initLangPack();
@@ -0,0 +1,114 @@
+package com.izforge.izpack.integration.automated;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.compiler.container.TestCompilationContainer;
+
+
+/**
+ * Verifies that automated installations don't load AWT or Swing.
+ * <p/>
+ * The installation is performed in a separate JVM, as classes loaded by other tests would otherwise be visible.
+ */
+public class HeadlessInstallationTest
+{
+
+    /**
+     * Matches AWT and Swing class load messages produced by <tt>-verbose:class</tt>. JDK 8 and earlier log
+     * <em>[Loaded java.awt.Component ...]</em>, JDK 9 and later log
+     * <em>[0.123s][info][class,load] java.awt.Component ...</em>.
+     */
+    private static final Pattern AWT_CLASS_LOAD = Pattern.compile(
+            ".*(\\[Loaded |\\[class,load\\]\\s+)(java\\.awt|javax\\.swing|sun\\.awt)\\..*");
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+    /**
+     * Performs an automated installation, and verifies that no AWT or Swing classes are loaded.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testAutomatedInstallationDoesNotLoadAWT() throws Exception
+    {
+        File dir = temporaryFolder.getRoot();
+        TestCompilationContainer compiler = new TestCompilationContainer("samples/console/install.xml", dir);
+        compiler.launchCompilation();
+        File installer = compiler.getComponent(File.class);
+
+        File installPath = new File(dir, "izpackTest");
+        File script = new File(dir, "auto-install.xml");
+        FileUtils.writeStringToFile(script, "<AutomatedInstallation langpack=\"eng\">\n"
+                + "  <com.izforge.izpack.panels.target.TargetPanel>\n"
+                + "    <installpath>" + installPath.getAbsolutePath() + "</installpath>\n"
+                + "  </com.izforge.izpack.panels.target.TargetPanel>\n"
+                + "  <com.izforge.izpack.panels.install.InstallPanel/>\n"
+                + "</AutomatedInstallation>\n", "UTF-8");
+
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+        List<String> output = run(java, "-verbose:class", "-jar", installer.getPath(), script.getPath());
+
+        List<String> awt = new ArrayList<String>();
+        for (String line : output)
+        {
+            if (AWT_CLASS_LOAD.matcher(line).matches())
+            {
+                awt.add(line);
+            }
+        }
+        assertTrue("Installation failed: " + output, output.contains("[ Automated installation done ]"));
+        assertTrue("Readme.txt not installed: " + output, new File(installPath, "Readme.txt").exists());
+        assertEquals("AWT/Swing classes loaded: " + awt, 0, awt.size());
+    }
+
+    /**
+     * Runs a command, returning its output.
+     *
+     * @param command the command
+     * @return the standard output and error of the command, one element per line
+     * @throws IOException          for any I/O error
+     * @throws InterruptedException if interrupted
+     */
+    private List<String> run(String... command) throws IOException, InterruptedException
+    {
+        ProcessBuilder builder = new ProcessBuilder(Arrays.asList(command));
+        builder.redirectErrorStream(true);
+        Process process = builder.start();
+        List<String> result = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        try
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                result.add(line);
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+        process.waitFor();
+        return result;
+    }
+}
@@ -42,6 +42,11 @@ import com.izforge.izpack.uninstaller.resource.RootScripts;
 public class Destroyer implements Runnable
 {
 
+    /**
+     * The number of files that uninstaller listeners are notified of at once.
+     */
+    private static final int BATCH_SIZE = 256;
+
     /**
      * The progress handler.
      */
@@ -144,15 +149,25 @@ public class Destroyer implements Runnable
         listeners.beforeDeletion(files, handler);
         handler.startAction("destroy", size);
 
-        for (int i = 0; i < size; i++)
+        for (int start = 0; start < size; start += BATCH_SIZE)
         {
-            File file = files.get(i);
-            listeners.beforeDelete(file, handler);
+            List<File> batch = files.subList(start, Math.min(start + BATCH_SIZE, size));
+            if (listeners.isFileListener())
+            {
+                listeners.beforeDeleteFiles(batch, handler);
+            }
 
-            delete(file);
+            for (int i = 0; i < batch.size(); i++)
+            {
+                File file = batch.get(i);
+                delete(file);
+                handler.progress(start + i, file.getAbsolutePath());
+            }
 
-            listeners.afterDelete(file, handler);
-            handler.progress(i, file.getAbsolutePath());
+            if (listeners.isFileListener())
+            {
+                listeners.afterDeleteFiles(batch, handler);
+            }
         }
 
         listeners.afterDeletion(files, handler);
@@ -0,0 +1,111 @@
+package com.izforge.izpack.uninstaller.event;
+
+import java.io.File;
+import java.util.List;
+
+import com.izforge.izpack.api.event.BulkUninstallerListener;
+import com.izforge.izpack.api.event.UninstallerListener;
+import com.izforge.izpack.api.handler.AbstractUIProgressHandler;
+
+
+/**
+ * Adapts an {@link UninstallerListener} to the {@link BulkUninstallerListener} interface.
+ * <p/>
+ * Batch notifications are delivered to the listener one file at a time. Note that this means
+ * {@link UninstallerListener#beforeDelete} is invoked for each file in a batch before any of them are deleted.
+ */
+public class BulkUninstallerListenerAdapter implements BulkUninstallerListener
+{
+
+    /**
+     * The listener to delegate to.
+     */
+    private final UninstallerListener listener;
+
+
+    /**
+     * Constructs a <tt>BulkUninstallerListenerAdapter</tt>.
+     *
+     * @param listener the listener to delegate to
+     */
+    public BulkUninstallerListenerAdapter(UninstallerListener listener)
+    {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the listener being adapted.
+     *
+     * @return the listener
+     */
+    public UninstallerListener getListener()
+    {
+        return listener;
+    }
+
+    /**
+     * Invoked before a batch of files is deleted.
+     * <p/>
+     * This invokes {@link UninstallerListener#beforeDelete} for each file.
+     *
+     * @param files   the files which will be deleted
+     * @param handler the UI progress handler
+     * @throws Exception for any error
+     */
+    @Override
+    public void beforeDeleteFiles(List<File> files, AbstractUIProgressHandler handler) throws Exception
+    {
+        for (File file : files)
+        {
+            listener.beforeDelete(file, handler);
+        }
+    }
+
+    /**
+     * Invoked after a batch of files is deleted.
+     * <p/>
+     * This invokes {@link UninstallerListener#afterDelete} for each file.
+     *
+     * @param files   the files which were deleted
+     * @param handler the UI progress handler
+     * @throws Exception for any error
+     */
+    @Override
+    public void afterDeleteFiles(List<File> files, AbstractUIProgressHandler handler) throws Exception
+    {
+        for (File file : files)
+        {
+            listener.afterDelete(file, handler);
+        }
+    }
+
+    @Override
+    public void beforeDeletion(List<File> files, AbstractUIProgressHandler handler) throws Exception
+    {
+        listener.beforeDeletion(files, handler);
+    }
+
+    @Override
+    public boolean isFileListener()
+    {
+        return listener.isFileListener();
+    }
+
+    @Override
+    public void beforeDelete(File file, AbstractUIProgressHandler handler) throws Exception
+    {
+        listener.beforeDelete(file, handler);
+    }
+
+    @Override
+    public void afterDelete(File file, AbstractUIProgressHandler handler) throws Exception
+    {
+        listener.afterDelete(file, handler);
+    }
+
+    @Override
+    public void afterDeletion(List<File> files, AbstractUIProgressHandler handler) throws Exception
+    {
+        listener.afterDeletion(files, handler);
+    }
+}
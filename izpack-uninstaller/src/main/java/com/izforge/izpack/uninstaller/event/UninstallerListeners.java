@@ -4,16 +4,20 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.izforge.izpack.api.event.BulkUninstallerListener;
 import com.izforge.izpack.api.event.UninstallerListener;
 import com.izforge.izpack.api.handler.AbstractUIProgressHandler;
 
 
 /**
  * A container for {@link UninstallerListener}s that supports notifying each registered listener.
+ * <p/>
+ * Batch notifications are delivered to {@link BulkUninstallerListener}s as is, and to other file listeners via a
+ * {@link BulkUninstallerListenerAdapter}.
  *
  * @author Tim Anderson
  */
-public class UninstallerListeners implements UninstallerListener
+public class UninstallerListeners implements BulkUninstallerListener
 {
 
     /**
@@ -21,6 +25,11 @@ public class UninstallerListeners implements UninstallerListener
      */
     private final List<UninstallerListener> listeners = new ArrayList<UninstallerListener>();
 
+    /**
+     * The listeners that should be notified of file deletions, as bulk listeners.
+     */
+    private final List<BulkUninstallerListener> fileListeners = new ArrayList<BulkUninstallerListener>();
+
     /**
      * Determines if any of the listeners should be notified of file and directory events.
      */
@@ -34,9 +43,17 @@ public class UninstallerListeners implements UninstallerListener
     public void add(UninstallerListener listener)
     {
         listeners.add(listener);
-        if (!fileListener && listener.isFileListener())
+        if (listener.isFileListener())
         {
             fileListener = true;
+            if (listener instanceof BulkUninstallerListener)
+            {
+                fileListeners.add((BulkUninstallerListener) listener);
+            }
+            else
+            {
+                fileListeners.add(new BulkUninstallerListenerAdapter(listener));
+            }
         }
     }
 
@@ -48,7 +65,7 @@ public class UninstallerListeners implements UninstallerListener
      * @throws Exception for any error
      */
     @Override
-    public void beforeDeletion(List files, AbstractUIProgressHandler handler) throws Exception
+    public void beforeDeletion(List<File> files, AbstractUIProgressHandler handler) throws Exception
     {
         for (UninstallerListener listener : listeners)
         {
@@ -115,6 +132,42 @@ public class UninstallerListeners implements UninstallerListener
         }
     }
 
+    /**
+     * Invoked before a batch of files is deleted.
+     * <p/>
+     * This implementation only invokes those listeners whose {@link #isFileListener()} returns <tt>true</tt>.
+     *
+     * @param files   the files which will be deleted
+     * @param handler the UI progress handler
+     * @throws Exception for any error
+     */
+    @Override
+    public void beforeDeleteFiles(List<File> files, AbstractUIProgressHandler handler) throws Exception
+    {
+        for (BulkUninstallerListener listener : fileListeners)
+        {
+            listener.beforeDeleteFiles(files, handler);
+        }
+    }
+
+    /**
+     * Invoked after a batch of files is deleted.
+     * <p/>
+     * This implementation only invokes those listeners whose {@link #isFileListener()} returns <tt>true</tt>.
+     *
+     * @param files   the files which were deleted
+     * @param handler the UI progress handler
+     * @throws Exception for any error
+     */
+    @Override
+    public void afterDeleteFiles(List<File> files, AbstractUIProgressHandler handler) throws Exception
+    {
+        for (BulkUninstallerListener listener : fileListeners)
+        {
+            listener.afterDeleteFiles(files, handler);
+        }
+    }
+
     /**
      * Invoked after files are deleted.
      *
@@ -123,7 +176,7 @@ public class UninstallerListeners implements UninstallerListener
      * @throws Exception for any error
      */
     @Override
-    public void afterDeletion(List files, AbstractUIProgressHandler handler) throws Exception
+    public void afterDeletion(List<File> files, AbstractUIProgressHandler handler) throws Exception
     {
         for (UninstallerListener listener : listeners)
         {
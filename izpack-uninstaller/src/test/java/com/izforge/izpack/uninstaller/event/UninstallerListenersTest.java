@@ -0,0 +1,70 @@
+package com.izforge.izpack.uninstaller.event;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import com.izforge.izpack.api.event.BulkUninstallerListener;
+import com.izforge.izpack.api.event.UninstallerListener;
+import com.izforge.izpack.api.handler.AbstractUIProgressHandler;
+
+
+/**
+ * Tests the {@link UninstallerListeners} class.
+ */
+public class UninstallerListenersTest
+{
+
+    /**
+     * Verifies that bulk listeners receive batches, and that legacy file listeners are notified of each file in a
+     * batch.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testBatches() throws Exception
+    {
+        BulkUninstallerListener bulk = mock(BulkUninstallerListener.class);
+        when(bulk.isFileListener()).thenReturn(true);
+        UninstallerListener legacy = mock(UninstallerListener.class);
+        when(legacy.isFileListener()).thenReturn(true);
+        UninstallerListener other = mock(UninstallerListener.class);
+
+        UninstallerListeners listeners = new UninstallerListeners();
+        listeners.add(bulk);
+        listeners.add(legacy);
+        listeners.add(other);
+        assertTrue(listeners.isFileListener());
+
+        File file1 = new File("a");
+        File file2 = new File("b");
+        List<File> files = Arrays.asList(file1, file2);
+        AbstractUIProgressHandler handler = mock(AbstractUIProgressHandler.class);
+        listeners.beforeDeleteFiles(files, handler);
+        listeners.afterDeleteFiles(files, handler);
+
+        verify(bulk).beforeDeleteFiles(files, handler);
+        verify(bulk).afterDeleteFiles(files, handler);
+        verify(bulk, never()).beforeDelete(any(File.class), any(AbstractUIProgressHandler.class));
+
+        InOrder order = inOrder(legacy);
+        order.verify(legacy).beforeDelete(file1, handler);
+        order.verify(legacy).beforeDelete(file2, handler);
+        order.verify(legacy).afterDelete(file1, handler);
+        order.verify(legacy).afterDelete(file2, handler);
+
+        verify(other, never()).beforeDelete(any(File.class), any(AbstractUIProgressHandler.class));
+        verify(other, never()).afterDelete(any(File.class), any(AbstractUIProgressHandler.class));
+    }
+}
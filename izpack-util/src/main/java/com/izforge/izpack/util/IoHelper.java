@@ -30,12 +30,14 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipInputStream;
@@ -795,17 +797,27 @@ public class IoHelper
             alreadyWrittenFiles.put(out, new HashSet<String>());
         }
         Set<String> currentSet = alreadyWrittenFiles.get(out);
+        List<Pattern> includes = null;
+        if (files != null)
+        {
+            // compile the includes once, rather than for each entry
+            includes = new ArrayList<Pattern>(files.size());
+            for (String doInclude : files)
+            {
+                includes.add(Pattern.compile(doInclude));
+            }
+        }
         while ((zentry = zin.getNextEntry()) != null)
         {
             String currentName = zentry.getName();
             String testName = currentName.replace('/', '.');
             testName = testName.replace('\\', '.');
-            if (files != null)
+            if (includes != null)
             {
                 boolean founded = false;
-                for (String doInclude : files)
+                for (Pattern doInclude : includes)
                 {   // Make "includes" self to support regex.
-                    if (testName.matches(doInclude))
+                    if (doInclude.matcher(testName).matches())
                     {
                         founded = true;
                         break;
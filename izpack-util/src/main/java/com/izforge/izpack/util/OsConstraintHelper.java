@@ -2,6 +2,7 @@ package com.izforge.izpack.util;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.izforge.izpack.api.adaptator.IXMLElement;
@@ -126,7 +127,10 @@ public class OsConstraintHelper
         }
         for (OsModel osModel : constraint_list)
         {
-            logger.fine("Checking if os constraints " + osModel + " match current OS");
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("Checking if os constraints " + osModel + " match current OS");
+            }
             // check for match
             if (matchCurrentSystem(osModel))
             {
@@ -26,6 +26,7 @@ import com.izforge.izpack.util.file.FileUtils;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -38,6 +39,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.net.URI;
 import java.net.URL;
+import java.nio.channels.FileChannel;
 import java.text.CharacterIterator;
 import java.text.SimpleDateFormat;
 import java.text.StringCharacterIterator;
@@ -46,6 +48,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Locale;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
@@ -57,7 +60,7 @@ import java.util.zip.ZipEntry;
  * <p/>
  * Create a SelfModifier with a target method, then invoke the SelfModifier with arguments to be
  * passed to the target method. The jar file containing the target method's class (obtained by
- * reflection) will be extracted to a temporary directory, and a new java process will be spawned to
+ * reflection) will be copied to a temporary directory, and a new java process will be spawned to
  * invoke the target method. The original jar file may now be modified.
  * <p/>
  * <p/>
@@ -77,8 +80,8 @@ import java.util.zip.ZipEntry;
  * <b>Phase 1:</b>
  * <ol>
  * <li>Program is launched, SelfModifier is created, invoke(String[]) is called
- * <li>A temporary directory (or "sandbox") is created in the default temp directory, and the jar
- * file contents ar extracted into it
+ * <li>A temporary directory (or "sandbox") is created in the default temp directory. Only the
+ * SelfModifier classes are extracted into it, and the jar file is copied into it as is
  * <li>Phase 2 is spawned using the sandbox as it's classpath, SelfModifier as the main class, the
  * arguments to "invoke(String[])" as the main arguments, and the <a
  * href="#selfmodsysprops">SelfModifier system properties</a> set.
@@ -88,7 +91,8 @@ import java.util.zip.ZipEntry;
  * <b>Phase 2:</b>
  * <ol>
  * <li>Initializes from system properties.
- * <li>Spawn phase 3 exactly as phase 2 except the self.modifier.phase system properties set to 3.
+ * <li>Spawn phase 3 exactly as phase 2 except the self.modifier.phase system properties set to 3, and
+ * the copy of the jar file as its classpath.
  * <li>Wait for phase 3 to die
  * <li>Delete the temporary sandbox
  * </ol>
@@ -128,6 +132,10 @@ import java.util.zip.ZipEntry;
  * <td><a href="#PHASE_KEY">PHASE_KEY</a>
  * <td>self.mod.base
  * <td>phase of operation to run</tr>
+ * <tr>
+ * <td><a href="#CLASSPATH_KEY">CLASSPATH_KEY</a>
+ * <td>self.mod.classpath
+ * <td>classpath of phase 3</tr>
  * </table>
  *
  * @author Chadwick McHenry
@@ -163,18 +171,39 @@ public class SelfModifier
 
     public static final String MEMORY_KEY = "self.memory";
 
+    /**
+     * System property name of the classpath used to invoke the target method.
+     */
+    public static final String CLASSPATH_KEY = "self.mod.classpath";
+
     /**
      * Target method to be invoked in sandbox.
      */
     private Method method = null;
 
+    /**
+     * The name of the class declaring the target method.
+     */
+    private String className = null;
+
+    /**
+     * The name of the target method.
+     */
+    private String methodName = null;
+
+    /**
+     * The classpath used to invoke the target method in phase 3.
+     */
+    private String classpath = null;
+
     /**
      * Log for phase 2 and 3, because we can't capture the stdio from them.
      */
     private File logFile = null;
 
     /**
-     * Directory which we extract too, invoke from, and finally delete.
+     * Directory holding the classes needed by phase 2, and the copy of the jar file. It is deleted once
+     * phase 3 completes.
      */
     private File sandbox = null;
 
@@ -290,8 +319,9 @@ public class SelfModifier
     {
         phase = Integer.parseInt(System.getProperty(PHASE_KEY));
 
-        String cName = System.getProperty(CLASS_KEY);
-        String tName = System.getProperty(METHOD_KEY);
+        className = System.getProperty(CLASS_KEY);
+        methodName = System.getProperty(METHOD_KEY);
+        classpath = System.getProperty(CLASSPATH_KEY);
 
         jarFile = new File(System.getProperty(JAR_KEY));
         logFile = new File(System.getProperty(BASE_KEY) + ".log");
@@ -300,21 +330,24 @@ public class SelfModifier
         this.maxmemory = Long.parseLong(System.getProperty(MEMORY_KEY, "64"));
         this.maxpermgensize = this.maxmemory / 4;
 
-        // retrieve refrence to target method
-        try
+        // retrieve refrence to target method. Only phase 3 has the target class on its classpath
+        if (phase == 3)
         {
-            Class clazz = Class.forName(cName);
-            Method method = clazz.getMethod(tName, new Class[]{String[].class});
+            try
+            {
+                Class clazz = Class.forName(className);
+                Method method = clazz.getMethod(methodName, new Class[]{String[].class});
 
-            initMethod(method);
-        }
-        catch (ClassNotFoundException x1)
-        {
-            log("No class found for " + cName);
-        }
-        catch (NoSuchMethodException x2)
-        {
-            log("No method " + tName + " found in " + cName);
+                initMethod(method);
+            }
+            catch (ClassNotFoundException x1)
+            {
+                log("No class found for " + className);
+            }
+            catch (NoSuchMethodException x2)
+            {
+                log("No method " + methodName + " found in " + className);
+            }
         }
     }
 
@@ -383,6 +416,8 @@ public class SelfModifier
         }
 
         this.method = method;
+        this.className = clazz.getName();
+        this.methodName = method.getName();
     }
 
     /**
@@ -423,8 +458,9 @@ public class SelfModifier
      * calling {@link System#exit(int)}.
      * <p/>
      * <p/>
-     * The contents of the current jar file are extracted copied to a 'sandbox' directory from which
-     * the method is invoked. The path to the original jar file is placed in the system property
+     * The SelfModifier classes are extracted to a 'sandbox' directory from which phase 2 is run.
+     * The method is invoked from a copy of the current jar file in the sandbox, so that the original may be
+     * modified or removed. The path to the original jar file is placed in the system property
      * {@link #JAR_KEY}.
      * <p/>
      *
@@ -434,6 +470,33 @@ public class SelfModifier
      * @throws IllegalStateException if method's class was not loaded from a jar
      */
     public void invoke(String[] args) throws IOException
+    {
+        File jar = findJarFile(method.getDeclaringClass());
+        if (jar == null)
+        {
+            throw new IllegalStateException("SelfModifier must be in a jar file");
+        }
+        createSandbox(jar.getCanonicalFile());
+
+        if (args == null)
+        {
+            args = new String[0];
+        }
+        spawn(args, 2);
+
+        // finally, if all went well, the invoking process must exit
+        log("Exit");
+        System.exit(0);
+    }
+
+    /**
+     * Creates the sandbox and log file, extracts the SelfModifier classes into the sandbox, and copies the jar file
+     * into it.
+     *
+     * @param jar the jar file containing the SelfModifier classes and the target method
+     * @throws IOException for any I/O error
+     */
+    void createSandbox(File jar) throws IOException
     {
         // Initialize sandbox and log file to be unique, but similarly named
         while (true)
@@ -459,24 +522,21 @@ public class SelfModifier
         sandbox = sandbox.getCanonicalFile();
         logFile = logFile.getCanonicalFile();
 
-        jarFile = findJarFile(method.getDeclaringClass()).getCanonicalFile();
-        if (jarFile == null)
-        {
-            throw new IllegalStateException("SelfModifier must be in a jar file");
-        }
+        jarFile = jar;
         log("JarFile: " + jarFile);
 
-        extractJarFile();
-
-        if (args == null)
-        {
-            args = new String[0];
-        }
-        spawn(args, 2);
+        extractSelfModifier();
+        classpath = copyJarFile().getPath();
+    }
 
-        // finally, if all went well, the invoking process must exit
-        log("Exit");
-        System.exit(0);
+    /**
+     * Returns the sandbox.
+     *
+     * @return the sandbox, or <tt>null</tt> if it hasn't been created
+     */
+    File getSandbox()
+    {
+        return sandbox;
     }
 
     /**
@@ -518,12 +578,14 @@ public class SelfModifier
             command.add(getDebug(debugPort3));
         }
 
+        // phase 2 only needs the SelfModifier classes
         command.add("-classpath");
-        command.add(sandbox.getAbsolutePath());
+        command.add((nextPhase == 2) ? sandbox.getAbsolutePath() : classpath);
         command.add("-D" + BASE_KEY + "=" + base);
         command.add("-D" + JAR_KEY + "=" + jarFile.getPath() + "");
-        command.add("-D" + CLASS_KEY + "=" + method.getDeclaringClass().getName());
-        command.add("-D" + METHOD_KEY + "=" + method.getName());
+        command.add("-D" + CLASS_KEY + "=" + className);
+        command.add("-D" + METHOD_KEY + "=" + methodName);
+        command.add("-D" + CLASSPATH_KEY + "=" + classpath);
         command.add("-D" + PHASE_KEY + "=" + nextPhase);
         command.add("-D" + MEMORY_KEY + "=" + this.maxmemory);
         command.add(getClass().getName());
@@ -575,17 +637,20 @@ public class SelfModifier
     }
 
     /**
-     * @throws IOException
+     * Extracts the SelfModifier classes into the sandbox, so that phase 2 can run without the jar file.
+     * <p/>
+     * Only the jar's directory is read to locate them, so the cost doesn't depend on the size of the jar.
+     *
+     * @throws IOException for any I/O error
      */
-    private void extractJarFile() throws IOException
+    private void extractSelfModifier() throws IOException
     {
-        byte[] buf = new byte[5120];
+        String name = SelfModifier.class.getName().replace('.', '/');
         int extracted = 0;
         InputStream in = null;
         OutputStream out = null;
-        String MANIFEST = "META-INF/MANIFEST.MF";
 
-        JarFile jar = new JarFile(jarFile, true);
+        JarFile jar = new JarFile(jarFile, false);
 
         try
         {
@@ -593,13 +658,9 @@ public class SelfModifier
             while (entries.hasMoreElements())
             {
                 ZipEntry entry = entries.nextElement();
-                if (entry.isDirectory())
-                {
-                    continue;
-                }
-
                 String pathname = entry.getName();
-                if (MANIFEST.equals(pathname.toUpperCase()))
+                if (entry.isDirectory() || !(pathname.equals(name + ".class")
+                        || (pathname.startsWith(name + "$") && pathname.endsWith(".class"))))
                 {
                     continue;
                 }
@@ -615,6 +676,7 @@ public class SelfModifier
 
                 out = new BufferedOutputStream(new FileOutputStream(outFile));
 
+                byte[] buf = new byte[5120];
                 int n;
                 while ((n = in.read(buf, 0, buf.length)) > 0)
                 {
@@ -636,6 +698,39 @@ public class SelfModifier
         }
     }
 
+    /**
+     * Copies the jar file into the sandbox, as is.
+     * <p/>
+     * This avoids decompressing and writing each entry as a separate file.
+     *
+     * @return the copy of the jar file
+     * @throws IOException for any I/O error
+     */
+    private File copyJarFile() throws IOException
+    {
+        File copy = new File(sandbox, jarFile.getName());
+        FileChannel in = null;
+        FileChannel out = null;
+        try
+        {
+            in = new FileInputStream(jarFile).getChannel();
+            out = new FileOutputStream(copy).getChannel();
+            long size = in.size();
+            long position = 0;
+            while (position < size)
+            {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+        finally
+        {
+            FileUtils.close(out);
+            FileUtils.close(in);
+        }
+        log("Copied " + jarFile.getPath() + " to " + copy.getPath());
+        return copy;
+    }
+
     /***********************************************************************************************
      * --------------------------------------------------------------------- Phase 2 (spawn the
      * phase 3 and clean up) ---------------------------------------------------------------------
@@ -925,7 +1020,10 @@ public class SelfModifier
     {
         // This is the most common extension case - exe for windows and OS/2,
         // nothing for *nix.
-        return command + (OsVersion.IS_WINDOWS || OsVersion.IS_OS2 ? ".exe" : "");
+        // NOTE: os.name is checked directly rather than via OsVersion, as phase 2 only has the SelfModifier
+        // classes on its classpath
+        String os = System.getProperty("os.name").toLowerCase(Locale.ENGLISH);
+        return command + (os.startsWith("windows") || os.startsWith("os/2") ? ".exe" : "");
     }
 
     private static String javaCommand()
@@ -21,8 +21,14 @@
 
 package com.izforge.izpack.util.helper;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.izforge.izpack.api.data.AutomatedInstallData;
+import com.izforge.izpack.api.data.Panel;
 import com.izforge.izpack.api.installer.ISummarisable;
+import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.util.OsConstraintHelper;
 
 /**
  * A helper class which creates a summary from all panels. This class calls all declared panels for
@@ -63,6 +69,9 @@ public class SummaryProcessor
      * Returns a HTML formated string which contains the summary of all panels. To get the summary,
      * the methods * {@link com.izforge.izpack.api.installer.ISummarisable#getSummaryCaption} and {@link com.izforge.izpack.api.installer.ISummarisable#getSummaryBody()} of all
      * panels are called.
+     * <p/>
+     * Panels whose conditions aren't met are skipped using their meta-data, so that panels which are created on
+     * demand aren't created just to be asked for a summary.
      *
      * @param idata AutomatedInstallData which contains the panel references
      * @return a HTML formated string with the summary of all panels
@@ -71,9 +80,16 @@ public class SummaryProcessor
     {
         StringBuffer buffer = new StringBuffer(2048);
         buffer.append(HTML_HEADER);
-        for (Object o : idata.getPanels())
+        List panels = idata.getPanels();
+        List<Panel> metadata = getPanelMetadata(idata);
+        for (int i = 0; i < panels.size(); ++i)
         {
-            ISummarisable panel = (ISummarisable) o;
+            // the panels list only holds the panels applicable to the current platform, in the same order
+            if (metadata.size() == panels.size() && !canShow(metadata.get(i), idata))
+            {
+                continue;
+            }
+            ISummarisable panel = (ISummarisable) panels.get(i);
             String caption = panel.getSummaryCaption();
             String msg = panel.getSummaryBody();
             // If no caption or/and message, ignore it.
@@ -88,4 +104,47 @@ public class SummaryProcessor
         return (buffer.toString());
     }
 
+    /**
+     * Returns the meta-data of the panels applicable to the current platform.
+     *
+     * @param idata the installation data
+     * @return the panel meta-data
+     */
+    private static List<Panel> getPanelMetadata(AutomatedInstallData idata)
+    {
+        List<Panel> result = new ArrayList<Panel>();
+        if (idata.getPanelsOrder() != null)
+        {
+            for (Panel panel : idata.getPanelsOrder())
+            {
+                if (OsConstraintHelper.oneMatchesCurrentSystem(panel.getOsConstraints()))
+                {
+                    result.add(panel);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines if a panel's conditions are met.
+     *
+     * @param panel the panel meta-data
+     * @param idata the installation data
+     * @return <tt>true</tt> if the panel can be shown
+     */
+    private static boolean canShow(Panel panel, AutomatedInstallData idata)
+    {
+        RulesEngine rules = idata.getRules();
+        if (rules == null)
+        {
+            return true;
+        }
+        if (panel.hasCondition())
+        {
+            return rules.isConditionTrue(panel.getCondition());
+        }
+        return rules.canShowPanel(panel.getPanelid(), idata.getVariables());
+    }
+
 }
@@ -0,0 +1,162 @@
+package com.izforge.izpack.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Tests the {@link SelfModifier} class.
+ */
+public class SelfModifierTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The sandbox created by the test, if any.
+     */
+    private File sandbox;
+
+
+    /**
+     * Removes the sandbox and its log file.
+     */
+    @After
+    public void tearDown()
+    {
+        if (sandbox != null)
+        {
+            FileUtils.deleteRecursively(sandbox);
+            String path = sandbox.getPath();
+            FileUtils.delete(new File(path.substring(0, path.length() - 2) + ".log"));
+        }
+    }
+
+    /**
+     * Verifies that only the SelfModifier classes are extracted into the sandbox, along with a copy of the jar.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCreateSandbox() throws Exception
+    {
+        File jar = createJar("installer.jar",
+                             "com/izforge/izpack/util/SelfModifier.class",
+                             "com/izforge/izpack/util/SelfModifier$StreamProxy.class",
+                             "com/izforge/izpack/util/SelfModifierHelper.class",
+                             "com/izforge/izpack/util/Housekeeper.class",
+                             "com/izforge/izpack/installer/Installer.class",
+                             "resources/packs/pack-Core",
+                             "SelfModifier.class");
+
+        SelfModifier modifier = new SelfModifier(SelfModifierTest.class.getMethod("run", String[].class));
+        modifier.createSandbox(jar);
+        sandbox = modifier.getSandbox();
+
+        List<String> expected = Arrays.asList("com/izforge/izpack/util/SelfModifier$StreamProxy.class",
+                                              "com/izforge/izpack/util/SelfModifier.class",
+                                              "installer.jar");
+        assertEquals(expected, list(sandbox));
+        File copy = new File(sandbox, "installer.jar");
+        assertEquals(jar.length(), copy.length());
+        assertTrue(jar.exists());
+    }
+
+    /**
+     * Target method, required to construct the {@link SelfModifier}.
+     *
+     * @param args the arguments
+     */
+    public static void run(String[] args)
+    {
+    }
+
+    /**
+     * Creates a jar with the specified entries. Each entry contains its name.
+     *
+     * @param name    the jar name
+     * @param entries the entry names
+     * @return the jar
+     * @throws IOException for any I/O error
+     */
+    private File createJar(String name, String... entries) throws IOException
+    {
+        File file = new File(temporaryFolder.getRoot(), name);
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(file));
+        try
+        {
+            for (String entry : entries)
+            {
+                out.putNextEntry(new ZipEntry(entry));
+                out.write(entry.getBytes("UTF-8"));
+                out.closeEntry();
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+        return file;
+    }
+
+    /**
+     * Lists the files under a directory.
+     *
+     * @param dir the directory
+     * @return the sorted paths of the files, relative to the directory
+     */
+    private List<String> list(File dir)
+    {
+        List<String> result = new ArrayList<String>();
+        list(dir, "", result);
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Lists the files under a directory.
+     *
+     * @param dir    the directory
+     * @param prefix the path prefix
+     * @param result the list to add the paths to
+     */
+    private void list(File dir, String prefix, List<String> result)
+    {
+        File[] files = dir.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                if (file.isDirectory())
+                {
+                    list(file, prefix + file.getName() + "/", result);
+                }
+                else
+                {
+                    result.add(prefix + file.getName());
+                }
+            }
+        }
+    }
+}